@@ -0,0 +1,59 @@
+package ai;
+
+import java.util.Arrays;
+
+/**
+ * Resultado imutável de uma análise de posição (dicas): as melhores jogadas, da melhor para a pior,
+ * cada uma com o seu valor do ponto de vista de quem joga.
+ * Os valores vêm de Search: perto de Search.WIN é vitória forçada, perto de -Search.WIN é derrota forçada.
+ *
+ * Ligações:
+ * - Criado por Search.analyse(); guardado na cache de HintService.
+ * - protocol.CommandProtocol.formatHints()/parseHints(): texto "DICAS;..." para clientes e gateway.
+ */
+public final class Analysis {
+    private final int size;
+    private final int[] moves; // Casas (linha * tamanho + coluna)
+    private final int[] scores;
+    private final int depth;
+
+    public Analysis(int size, int[] moves, int[] scores, int depth) {
+        this.size = size;
+        this.moves = moves.clone();
+        this.scores = scores.clone();
+        this.depth = depth;
+    }
+
+    /** Número de jogadas recomendadas. */
+    public int count() { return moves.length; }
+    public int getRow(int index) { return moves[index] / size; }
+    public int getCol(int index) { return moves[index] % size; }
+    public int getScore(int index) { return scores[index]; }
+
+    /** Profundidade da pesquisa (0 = jogada forçada, sem pesquisa). */
+    public int getDepth() { return depth; }
+
+    /**
+     * As primeiras "count" jogadas (a própria análise se já tiver no máximo "count").
+     */
+    public Analysis limit(int count) {
+        if (count >= moves.length) return this;
+        return new Analysis(size, Arrays.copyOf(moves, count), Arrays.copyOf(scores, count), depth);
+    }
+
+    /**
+     * Valor em texto para mostrar a um jogador: "vitória em N", "derrota em N" ou o valor numérico.
+     */
+    public static String describe(int score) {
+        if (score >= Search.WIN - 100) return "vitória em " + (Search.WIN - score + 1) / 2;
+        if (score <= -(Search.WIN - 100)) return "derrota em " + (Search.WIN + score + 1) / 2;
+        return Integer.toString(score);
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- Search.analyse(): cria a análise.
+- HintService: cache por posição (LRU) e dicas pedidas em /hint e na página de jogo.
+- CommandProtocol: formatHints()/parseHints(); gameAction.jsp (action=hint) mostra-as na play.jsp.
+*/
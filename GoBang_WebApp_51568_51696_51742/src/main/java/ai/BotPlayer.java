@@ -0,0 +1,220 @@
+package ai;
+
+import game.Board;
+import game.Game;
+import game.GameListener;
+import game.GameSnapshot;
+import game.Player;
+import java.io.File;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import server.GoBangServer;
+
+/**
+ * Adversários controlados pelo servidor (bots).
+ * Cada bot é um Player normal (aparece no ranking, pode ser convidado com "/startgame eu GoBot"
+ * e posto na fila com SessionManager.addPlayerToQueue()), mas as jogadas são escolhidas por Search
+ * numa pool de threads própria, nunca nas threads que servem os clientes.
+ *
+ * Funcionamento:
+ * - Observa todos os jogos (GameListener) e o início de jogos (SessionManager.addGameForPlayers()):
+ *   quando a vez passa para um bot, agenda a pesquisa; a jogada entra por GameService.move(game, ...),
+ *   como a de um jogador humano (notificações, fim de jogo, ranking).
+ * - Fila de espera com poucos humanos: se um jogador continuar sozinho na fila ao fim de
+ *   gobang.bot.queueWaitMillis, é emparelhado com um bot.
+ * - Cada bot tem um nível (Difficulty): tempo por jogada (no máximo metade de Game.getMaxMoveTimeSeconds()),
+ *   profundidade e threads; os níveis com mais de uma thread usam a pesquisa paralela (ParallelSearch).
+ * - Memória: uma TranspositionTable por thread de bot (gobang.bot.tableEntries entradas de 16 bytes),
+ *   partilhada pelos ajudantes durante a pesquisa, por isso muitos jogos em paralelo usam no máximo threads x tabela.
+ * - CPU: no máximo gobang.bot.threads pesquisas ao mesmo tempo, mais gobang.bot.helperThreads ajudantes
+ *   para todas; por omissão, metade dos núcleos e metade menos um, para não tirar CPU aos jogadores humanos.
+ *
+ * Propriedades: gobang.bot.enabled (true), gobang.bot.names (GoBot:normal,GoBotPro:hard, o primeiro é o da fila),
+ * gobang.bot.threads, gobang.bot.helperThreads, gobang.bot.queueWaitMillis (5000),
+ * gobang.bot.tableEntries (262144), gobang.bot.book (user.home/GoBangData/opening-book.bin),
+ * gobang.bot.bookPlies (15), e as de Difficulty.
+ *
+ * Livro de aberturas (OpeningBook): nas primeiras gobang.bot.bookPlies jogadas, uma posição que esteja no livro
+ * é respondida sem pesquisa.
+ *
+ * Ligações:
+ * - GoBangServer: instância única (getBots()), registada em Game.addListener(); install() no arranque.
+ * - SessionManager: onPlayerQueued() e onGameStarted().
+ * - Player.isConnected(): os bots contam sempre como ligados (ver SessionManager.endGame()).
+ * - ParallelSearch/Difficulty: pesquisa de cada jogada.
+ */
+public class BotPlayer implements GameListener {
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("gobang.bot.enabled", "true"));
+    private static final String[] NAMES = System.getProperty("gobang.bot.names", "GoBot:normal,GoBotPro:hard").split(",");
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+    private static final int THREADS = Integer.getInteger("gobang.bot.threads", Math.max(1, CORES / 2));
+    private static final int HELPER_THREADS = Integer.getInteger("gobang.bot.helperThreads", Math.max(0, CORES / 2 - 1));
+    private static final long QUEUE_WAIT_MILLIS = Long.getLong("gobang.bot.queueWaitMillis", 5000);
+    private static final int TABLE_ENTRIES = Integer.getInteger("gobang.bot.tableEntries", 1 << 18);
+    private static final String BOOK_FILE = System.getProperty("gobang.bot.book",
+            System.getProperty("user.home") + "/GoBangData/opening-book.bin");
+    private static final int BOOK_PLIES = Integer.getInteger("gobang.bot.bookPlies", 15);
+    private static final long MIN_DELAY_MILLIS = 200; // A jogada do humano é difundida antes da resposta do bot
+
+    private final Map<String, Player> bots = new ConcurrentHashMap<>(); // nickname -> Player do bot
+    private final Map<String, Difficulty> difficulties = new ConcurrentHashMap<>(); // nickname -> nível
+    private volatile Player queueBot; // Bot que joga com quem espera sozinho na fila (o primeiro de gobang.bot.names)
+    private volatile ParallelSearch search; // Pool de ajudantes, criada em install()
+    private volatile OpeningBook book = OpeningBook.empty(); // Mapeado em install()
+    private final Set<Game> pending = ConcurrentHashMap.newKeySet(); // Jogos com uma pesquisa agendada
+    private final ThreadLocal<TranspositionTable> tables = ThreadLocal.withInitial(() -> new TranspositionTable(TABLE_ENTRIES));
+    private volatile ScheduledThreadPoolExecutor executor; // Criado em install()
+
+    /**
+     * Cria as contas dos bots e arranca a pool de pesquisa.
+     * As contas só existem em memória: GoBangServer.savePlayersToXML() não as guarda e são recriadas em cada arranque.
+     * Um nome de bot que já pertença a um jogador registado é ignorado (a conta é dessa pessoa).
+     * Chamado pelo GoBangServer depois de carregar os jogadores.
+     */
+    public void install(Map<String, Player> players) {
+        if (!ENABLED) return;
+        SecureRandom random = new SecureRandom();
+        for (String name : NAMES) {
+            String[] parts = name.split(":", 2); // nickname[:nível]
+            String nickname = parts[0].trim();
+            if (nickname.isEmpty()) continue;
+            if (players.containsKey(nickname)) {
+                System.out.println("Bot " + nickname + " ignorado: já existe um jogador registado com esse nome");
+                continue;
+            }
+            Player bot = new Player(nickname, Long.toHexString(random.nextLong()), "PT", 1, ""); // Ninguém faz login como bot
+            players.put(nickname, bot);
+            bots.put(nickname, bot);
+            difficulties.put(nickname, parts.length > 1 ? Difficulty.parse(parts[1]) : Difficulty.NORMAL);
+            if (queueBot == null) queueBot = bot;
+        }
+        AtomicInteger count = new AtomicInteger();
+        ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(THREADS, task -> {
+            Thread thread = new Thread(task, "bot-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1); // Os pedidos dos humanos têm prioridade
+            return thread;
+        });
+        pool.setRemoveOnCancelPolicy(true);
+        executor = pool;
+        search = new ParallelSearch(HELPER_THREADS);
+        book = OpeningBook.load(new File(BOOK_FILE));
+        System.out.println("Bots ativos: " + difficulties + " (" + THREADS + " threads + " + HELPER_THREADS + " ajudantes)");
+    }
+
+    public boolean isBot(String nickname) {
+        return bots.containsKey(nickname);
+    }
+
+    /**
+     * Um jogador entrou na fila: se ao fim de QUEUE_WAIT_MILLIS ainda estiver sozinho, joga contra um bot.
+     * Chamado por SessionManager.addPlayerToQueue() (sem bloquear: só agenda).
+     */
+    public void onPlayerQueued(Player player) {
+        ScheduledThreadPoolExecutor pool = executor;
+        if (pool == null || queueBot == null || isBot(player.getNickname())) return;
+        pool.schedule(() -> {
+            if (GoBangServer.getSession().isWaiting(player)) {
+                GoBangServer.getSession().addPlayerToQueue(queueBot);
+            }
+        }, QUEUE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Início de um jogo (SessionManager.addGameForPlayers()): o bot pode ser o primeiro a jogar.
+     */
+    public void onGameStarted(Game game) {
+        scheduleIfBotTurn(game);
+    }
+
+    @Override
+    public void onMove(Game game, Player player, int row, int col) {
+        scheduleIfBotTurn(game);
+    }
+
+    @Override
+    public void onTurnPassed(Game game) {
+        scheduleIfBotTurn(game);
+    }
+
+    private void scheduleIfBotTurn(Game game) {
+        ScheduledThreadPoolExecutor pool = executor;
+        GameSnapshot snapshot = game.getSnapshot(); // Vez e versão lidas juntas
+        if (pool == null || snapshot.isGameOver()) return;
+        Player current = snapshot.getCurrentPlayer();
+        if (!isBot(current.getNickname()) || !pending.add(game)) return;
+        long version = snapshot.getVersion();
+        pool.schedule(() -> play(game, current, version), MIN_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Pesquisa e joga, se o jogo ainda estiver no estado em que a pesquisa foi agendada.
+     */
+    private void play(Game game, Player bot, long version) {
+        pending.remove(game);
+        try {
+            GameSnapshot snapshot = game.getSnapshot();
+            if (snapshot.getVersion() != version || !snapshot.isTurnOf(bot)) {
+                return; // O estado mudou (timeout, desistência): o próximo evento volta a agendar
+            }
+            int size = game.getBoardSize();
+            int winLength = game.getRules().getWinLength();
+            int[] stones = snapshot.getBoard().getStones(); // Peças da versão agendada
+            char symbol = bot.equals(game.getPlayer1()) ? 'X' : 'O';
+            int move = bookMove(size, winLength, stones, symbol);
+            if (move < 0) {
+                Difficulty difficulty = difficulties.get(bot.getNickname());
+                long budget = Math.min(difficulty.getMoveMillis(), game.getMaxMoveTimeSeconds() * 1000L / 2);
+                move = search.search(size, winLength, tables.get(), stones, symbol,
+                        budget, difficulty.getThreads(), difficulty.getMaxDepth()).getMove();
+            }
+            if (move >= 0) {
+                GoBangServer.getGameService().move(game, bot, move / size, move % size);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Erro na jogada do bot " + bot.getNickname() + ": " + e);
+        }
+    }
+
+    /**
+     * Melhor jogada do livro de aberturas para a posição (casa linha * tamanho + coluna), ou -1 se não houver.
+     * Confirma que a casa está livre (proteção contra colisões de chaves).
+     */
+    public int bookMove(int size, int winLength, int[] stones, char symbol) {
+        OpeningBook current = book;
+        if (stones.length >= BOOK_PLIES || current.size() == 0) return -1;
+        long key = Zobrist.position(size, winLength, stones, symbol);
+        int index = current.find(key);
+        for (int i = index; i >= 0 && i < current.size() && current.keyAt(i) == key; i++) {
+            int row = OpeningBook.moveRow(current.moveAt(i));
+            int col = OpeningBook.moveCol(current.moveAt(i));
+            if (row < size && col < size && isEmpty(stones, row, col)) return row * size + col;
+        }
+        return -1;
+    }
+
+    public OpeningBook getBook() {
+        return book;
+    }
+
+    private static boolean isEmpty(int[] stones, int row, int col) {
+        for (int stone : stones) {
+            if (Board.stoneRow(stone) == row && Board.stoneCol(stone) == col) return false;
+        }
+        return true;
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- GoBangServer: getBots(), install() no main(), Game.addListener().
+- SessionManager.addPlayerToQueue()/addGameForPlayers(): onPlayerQueued(), onGameStarted().
+- GameService.move(game, player, linha, coluna): aplica a jogada escolhida.
+- ParallelSearch/Search/TranspositionTable/Zobrist: escolha da jogada; Difficulty: nível de cada bot.
+- OpeningBook: primeiras jogadas sem pesquisa (bookMove()).
+*/
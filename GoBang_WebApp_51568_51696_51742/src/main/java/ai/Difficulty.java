@@ -0,0 +1,55 @@
+package ai;
+
+import java.util.Locale;
+
+/**
+ * Níveis de dificuldade dos bots: tempo por jogada, threads de pesquisa (pesquisa paralela) e profundidade máxima.
+ * Cada valor pode ser mudado por propriedade de sistema: gobang.bot.[nível].moveMillis / .threads / .maxDepth
+ * (ex: -Dgobang.bot.hard.threads=8).
+ *
+ * O número de threads pedido é um máximo: ParallelSearch só usa os ajudantes livres
+ * (limite global gobang.bot.helperThreads).
+ *
+ * Ligações:
+ * - BotPlayer: cada bot tem um nível (gobang.bot.names=GoBot:normal,GoBotPro:hard).
+ * - ParallelSearch.search(): threads e profundidade.
+ */
+public enum Difficulty {
+    EASY(300, 1, 2),      // Só vê ameaças imediatas
+    NORMAL(1000, 1, 24),
+    HARD(3000, 4, 24);    // Pesquisa paralela
+
+    private final long moveMillis;
+    private final int threads;
+    private final int maxDepth;
+
+    Difficulty(long moveMillis, int threads, int maxDepth) {
+        String prefix = "gobang.bot." + name().toLowerCase(Locale.ROOT) + ".";
+        this.moveMillis = Long.getLong(prefix + "moveMillis", moveMillis);
+        this.threads = Math.max(1, Integer.getInteger(prefix + "threads", threads));
+        this.maxDepth = Integer.getInteger(prefix + "maxDepth", maxDepth);
+    }
+
+    public long getMoveMillis() { return moveMillis; }
+
+    /** Threads desejadas por pesquisa (1 = só a thread do bot, sem ajudantes). */
+    public int getThreads() { return threads; }
+
+    public int getMaxDepth() { return maxDepth; }
+
+    /**
+     * Nível a partir do nome (easy/normal/hard, sem distinguir maiúsculas); NORMAL se for desconhecido.
+     */
+    public static Difficulty parse(String name) {
+        for (Difficulty difficulty : values()) {
+            if (difficulty.name().equalsIgnoreCase(name.trim())) return difficulty;
+        }
+        return NORMAL;
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- BotPlayer.install(): nível de cada bot (gobang.bot.names).
+- ParallelSearch.search(): tempo, threads e profundidade de cada jogada.
+*/
@@ -0,0 +1,119 @@
+package ai;
+
+import game.Game;
+import game.Player;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dicas e análise de posições (/hint e página de jogo): as melhores jogadas para um jogador, com valores.
+ *
+ * - Cache LRU limitada por chave de posição (Zobrist.position()): as páginas em modo tutor e os pedidos
+ *   repetidos pedem sempre a mesma posição até alguém jogar, por isso só a primeira vez pesquisa.
+ * - Pedidos simultâneos da mesma posição partilham a mesma pesquisa (mapa de pesquisas em curso).
+ * - As pesquisas correm numa pool própria (gobang.hint.threads) com fila limitada, com tempo limitado
+ *   (gobang.hint.millis): quem pede recebe um CompletableFuture e nunca bloqueia,
+ *   por isso uma pesquisa não ocupa um worker do NIO nem uma thread de pedido enquanto corre.
+ *   Com a fila cheia o futuro falha logo (RejectedExecutionException) em vez de acumular trabalho.
+ *
+ * Propriedades: gobang.hint.enabled (true), gobang.hint.threads (1), gobang.hint.millis (500),
+ * gobang.hint.cacheSize (4096 posições), gobang.hint.maxCount (5 jogadas), gobang.hint.queue (64 pedidos).
+ *
+ * Ligações:
+ * - GameService.hint(): jogo ativo do jogador -> analyse().
+ * - Search.analyse(): pesquisa com o valor de cada jogada.
+ */
+public class HintService {
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("gobang.hint.enabled", "true"));
+    public static final int MAX_COUNT = Integer.getInteger("gobang.hint.maxCount", 5);
+    private static final int THREADS = Integer.getInteger("gobang.hint.threads", 1);
+    private static final long MILLIS = Long.getLong("gobang.hint.millis", 500);
+    private static final int CACHE_SIZE = Integer.getInteger("gobang.hint.cacheSize", 4096);
+    private static final int QUEUE = Integer.getInteger("gobang.hint.queue", 64);
+    private static final int TABLE_ENTRIES = 1 << 16;
+
+    private final Map<Long, Analysis> cache = new LinkedHashMap<Long, Analysis>(64, 0.75f, true) { // Ordem de acesso = LRU
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Analysis> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private final Map<Long, CompletableFuture<Analysis>> running = new ConcurrentHashMap<>(); // Pesquisas em curso
+    private final ThreadLocal<TranspositionTable> tables = ThreadLocal.withInitial(() -> new TranspositionTable(TABLE_ENTRIES));
+    private final ThreadPoolExecutor executor;
+
+    public HintService() {
+        AtomicInteger count = new AtomicInteger();
+        executor = new ThreadPoolExecutor(THREADS, THREADS, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(QUEUE), task -> {
+            Thread thread = new Thread(task, "hint-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+    }
+
+    /**
+     * As melhores jogadas (até MAX_COUNT) para o jogador no jogo, como se fosse a sua vez.
+     * @return futuro já completo se a posição estiver na cache; senão completa quando a pesquisa acabar
+     */
+    public CompletableFuture<Analysis> analyse(Game game, Player player) {
+        int size = game.getBoardSize();
+        int winLength = game.getRules().getWinLength();
+        int[] stones = game.getBoardView().getStones();
+        char symbol = player.equals(game.getPlayer1()) ? 'X' : 'O';
+        long key = Zobrist.position(size, winLength, stones, symbol);
+
+        Analysis cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<Analysis> created = new CompletableFuture<>();
+        CompletableFuture<Analysis> existing = running.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    Analysis analysis = new Search(size, winLength, tables.get()).analyse(stones, symbol, MILLIS, MAX_COUNT);
+                    synchronized (cache) {
+                        cache.put(key, analysis);
+                    }
+                    created.complete(analysis);
+                } catch (RuntimeException e) {
+                    created.completeExceptionally(e);
+                } finally {
+                    running.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.remove(key);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    /** Posições na cache (estatística). */
+    public int cachedPositions() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- GoBangServer: instância única (getHints()).
+- GameService.hint(): usado por ClientHandler (/hint) e pela GameFacade (gameAction.jsp, action=hint).
+- Search/Zobrist/TranspositionTable: pesquisa e chave das posições.
+*/
@@ -0,0 +1,152 @@
+package ai;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Livro de aberturas: ficheiro ordenado de chave de Zobrist da posição -> jogadas recomendadas, mapeado em memória
+ * (FileChannel.map) e consultado por pesquisa binária diretamente no mapeamento, sem o carregar para o heap.
+ * Uma consulta são ~log2(entradas) leituras de 8 bytes (microssegundos). Como o mapeamento é só de leitura,
+ * vários processos do servidor na mesma máquina partilham as mesmas páginas (page cache do sistema operativo).
+ *
+ * Formato (big-endian, o de DataOutputStream e de ByteBuffer):
+ * - Cabeçalho (16 bytes): int MAGIC, int ENTRY_BYTES, long número de entradas.
+ * - Entradas (16 bytes cada): long chave (Zobrist.position()), int jogada (linha << 16 | coluna), int valor.
+ *   Ordenadas por chave e, com a mesma chave, da melhor para a pior jogada.
+ *
+ * O livro é gerado offline (benchmark.OpeningBookBuilder) a partir de jogos do bot contra si próprio
+ * e/ou de jogos arquivados. A chave inclui o tamanho do tabuleiro e as peças para ganhar, por isso um livro
+ * pode ter posições de regras diferentes. Uma colisão de chaves é improvável mas possível: quem usa o livro
+ * confirma que a casa está vazia.
+ *
+ * Ligações:
+ * - BotPlayer.play(): consulta antes da pesquisa nas primeiras jogadas (gobang.bot.bookPlies).
+ * - benchmark.OpeningBookBuilder: write().
+ */
+public final class OpeningBook {
+    public static final int MAGIC = 0x47424B31; // "GBK1"
+    private static final int HEADER_BYTES = 16;
+    private static final int ENTRY_BYTES = 16;
+    private static final OpeningBook EMPTY = new OpeningBook(null, 0);
+
+    private final MappedByteBuffer buffer; // null = livro vazio
+    private final int entries;
+
+    private OpeningBook(MappedByteBuffer buffer, int entries) {
+        this.buffer = buffer;
+        this.entries = entries;
+    }
+
+    public static OpeningBook empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Mapeia o ficheiro do livro (o canal pode fechar logo: o mapeamento fica válido).
+     * @throws IOException se o ficheiro não existir, não for um livro ou estiver truncado
+     */
+    public static OpeningBook open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            long length = channel.size();
+            if (length < HEADER_BYTES || length > Integer.MAX_VALUE) {
+                throw new IOException("Tamanho inválido para um livro de aberturas: " + length);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            long count = buffer.getLong(8);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != ENTRY_BYTES
+                    || count < 0 || HEADER_BYTES + count * ENTRY_BYTES != length) {
+                throw new IOException("Ficheiro não é um livro de aberturas válido: " + file);
+            }
+            return new OpeningBook(buffer, (int) count);
+        }
+    }
+
+    /**
+     * Como open(), mas devolve um livro vazio se o ficheiro não existir ou for inválido (o bot pesquisa sempre).
+     */
+    public static OpeningBook load(File file) {
+        if (!file.isFile()) return EMPTY;
+        try {
+            OpeningBook book = open(file);
+            System.out.println("Livro de aberturas: " + book.size() + " entradas (" + file + ")");
+            return book;
+        } catch (IOException e) {
+            System.err.println("Livro de aberturas ignorado: " + e.getMessage());
+            return EMPTY;
+        }
+    }
+
+    public int size() {
+        return entries;
+    }
+
+    /**
+     * Índice da primeira entrada com a chave (a melhor jogada), ou -1 se a posição não estiver no livro.
+     * As seguintes com a mesma chave (keyAt(i) == key) são alternativas, da melhor para a pior.
+     */
+    public int find(long key) {
+        int low = 0;
+        int high = entries; // Primeira entrada com chave >= key
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keyAt(mid) < key) low = mid + 1;
+            else high = mid;
+        }
+        return low < entries && keyAt(low) == key ? low : -1;
+    }
+
+    public long keyAt(int index) {
+        return buffer.getLong(HEADER_BYTES + index * ENTRY_BYTES);
+    }
+
+    /** Jogada da entrada (linha << 16 | coluna; ver moveRow()/moveCol()). */
+    public int moveAt(int index) {
+        return buffer.getInt(HEADER_BYTES + index * ENTRY_BYTES + 8);
+    }
+
+    /** Valor da jogada (Search.getScore(), do ponto de vista de quem joga). */
+    public int scoreAt(int index) {
+        return buffer.getInt(HEADER_BYTES + index * ENTRY_BYTES + 12);
+    }
+
+    public static int move(int row, int col) { return row << 16 | col; }
+    public static int moveRow(int move) { return move >>> 16; }
+    public static int moveCol(int move) { return move & 0xFFFF; }
+
+    /**
+     * Escreve um livro a partir de entradas em qualquer ordem (ordena por chave e, por chave, do maior valor para o menor).
+     * @param keys chaves das posições (Zobrist.position())
+     * @param moves jogadas (move(linha, coluna))
+     * @param scores valores das jogadas
+     */
+    public static void write(File file, long[] keys, int[] moves, int[] scores) throws IOException {
+        Integer[] order = new Integer[keys.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.<Integer>comparingLong(i -> keys[i]).thenComparingInt(i -> -scores[i]));
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(ENTRY_BYTES);
+            out.writeLong(keys.length);
+            for (int i : order) {
+                out.writeLong(keys[i]);
+                out.writeInt(moves[i]);
+                out.writeInt(scores[i]);
+            }
+        }
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- BotPlayer: livro do servidor (gobang.bot.book, por omissão user.home/GoBangData/opening-book.bin).
+- benchmark.OpeningBookBuilder: gera o ficheiro com write().
+- Zobrist.position(): chave das posições.
+*/
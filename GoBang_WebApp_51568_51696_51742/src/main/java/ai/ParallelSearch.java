@@ -0,0 +1,141 @@
+package ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pesquisa paralela "Lazy SMP": a thread que pede a jogada e N ajudantes pesquisam a mesma posição ao mesmo tempo,
+ * cada um com a sua Search (tabuleiro próprio), todos com a mesma TranspositionTable (sem locks).
+ * Os ajudantes começam em profundidades diferentes e enchem a tabela com resultados que a pesquisa principal
+ * reutiliza, chegando mais fundo no mesmo tempo. Não há divisão explícita de trabalho nem sincronização
+ * durante a pesquisa: só a tabela é partilhada.
+ *
+ * Limite de threads: os ajudantes correm numa pool própria com "maxHelpers" threads e cada pesquisa só leva
+ * os que estão livres nesse momento (Semaphore.tryAcquire, nunca espera). Com muitos jogos contra bots,
+ * as pesquisas ficam com menos ajudantes em vez de ocuparem mais núcleos: o total de threads dos bots é
+ * fixo (gobang.bot.threads + gobang.bot.helperThreads) e sobra CPU para as threads dos clientes humanos.
+ *
+ * Ligações:
+ * - BotPlayer.play(): search() com o nível do bot (Difficulty).
+ * - benchmark.SearchBenchmark: escalabilidade de 1 a N threads.
+ */
+public class ParallelSearch {
+    private final ExecutorService helpers; // null se maxHelpers == 0
+    private final Semaphore permits;
+
+    /**
+     * @param maxHelpers threads ajudantes no total, partilhadas por todas as pesquisas
+     */
+    public ParallelSearch(int maxHelpers) {
+        permits = new Semaphore(Math.max(0, maxHelpers));
+        if (maxHelpers <= 0) {
+            helpers = null;
+            return;
+        }
+        AtomicInteger count = new AtomicInteger();
+        helpers = Executors.newFixedThreadPool(maxHelpers, task -> {
+            Thread thread = new Thread(task, "bot-helper-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+    }
+
+    /**
+     * Resultado de uma pesquisa: jogada escolhida e estatísticas (nós de todas as threads).
+     */
+    public static final class Result {
+        private final int move;
+        private final int score;
+        private final int depth;
+        private final long nodes;
+        private final int threads;
+
+        Result(int move, int score, int depth, long nodes, int threads) {
+            this.move = move;
+            this.score = score;
+            this.depth = depth;
+            this.nodes = nodes;
+            this.threads = threads;
+        }
+
+        /** Casa escolhida (linha * tamanho + coluna), ou -1 se o tabuleiro está cheio. */
+        public int getMove() { return move; }
+        /** Valor da jogada (Search.getScore()). */
+        public int getScore() { return score; }
+        public int getDepth() { return depth; }
+        public long getNodes() { return nodes; }
+        /** Threads que pesquisaram (1 + ajudantes obtidos). */
+        public int getThreads() { return threads; }
+    }
+
+    /**
+     * Pesquisa na thread atual com até threads - 1 ajudantes.
+     * A jogada é a da thread que completou a iteração mais profunda (a principal em caso de empate).
+     */
+    public Result search(int size, int winLength, TranspositionTable table, int[] position, char symbol,
+                         long budgetMillis, int threads, int maxDepth) {
+        int wanted = helpers == null ? 0 : Math.max(0, threads - 1);
+        List<Search> searches = new ArrayList<>();
+        List<Future<Integer>> futures = new ArrayList<>();
+        try {
+            for (int i = 1; i <= wanted && permits.tryAcquire(); i++) {
+                Search helper = new Search(size, winLength, table, i);
+                helper.setMaxDepth(maxDepth);
+                searches.add(helper);
+                try {
+                    futures.add(helpers.submit(() -> {
+                        try {
+                            return helper.bestMove(position, symbol, budgetMillis);
+                        } finally {
+                            permits.release();
+                        }
+                    }));
+                } catch (RuntimeException e) {
+                    permits.release(); // Pool terminada: segue sem este ajudante
+                    searches.remove(helper);
+                    break;
+                }
+            }
+
+            Search main = new Search(size, winLength, table, 0);
+            main.setMaxDepth(maxDepth);
+            int move = main.bestMove(position, symbol, budgetMillis);
+            int score = main.getScore();
+            int depth = main.getCompletedDepth();
+            long nodes = main.getNodes();
+
+            for (Search helper : searches) helper.stop(); // A pesquisa principal acabou: os ajudantes também
+            for (int i = 0; i < futures.size(); i++) {
+                Search helper = searches.get(i);
+                int helperMove = futures.get(i).get();
+                nodes += helper.getNodes();
+                if (helper.getCompletedDepth() > depth && helperMove >= 0) {
+                    depth = helper.getCompletedDepth();
+                    move = helperMove;
+                    score = helper.getScore();
+                }
+            }
+            return new Result(move, score, depth, nodes, 1 + futures.size());
+        } catch (InterruptedException e) {
+            for (Search helper : searches) helper.stop();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Pesquisa interrompida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Erro num ajudante da pesquisa", e.getCause());
+        }
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- BotPlayer: uma instância para o servidor (gobang.bot.helperThreads ajudantes).
+- benchmark.SearchBenchmark: uma instância com N - 1 ajudantes.
+- Search: uma por thread; TranspositionTable partilhada.
+*/
@@ -0,0 +1,439 @@
+package ai;
+
+import game.Board;
+import java.util.Arrays;
+
+/**
+ * Pesquisa da melhor jogada para o bot: alpha-beta (negamax) com aprofundamento iterativo
+ * dentro de um limite de tempo rígido, tabela de transposição (chaves de Zobrist) e geração de jogadas
+ * por ameaças.
+ *
+ * Geração de jogadas:
+ * - Só casas vazias a distância <= 2 de alguma peça (contador "near", atualizado em make()/unmake()),
+ *   dentro do retângulo ocupado: o custo não depende da área de tabuleiros grandes.
+ * - Cada casa é avaliada para os dois jogadores (peças seguidas e pontas livres nas 4 direções: cinco,
+ *   quatro aberto, quatro, três aberto...); atacar e defender contam quase o mesmo.
+ * - Ameaças forçadas cortam a pesquisa: quem pode fazer cinco ganha; se o adversário pode fazer cinco,
+ *   a única jogada é bloquear (e se pode em duas casas, a posição está perdida); um quatro aberto ganha.
+ * - Só as melhores ROOT_WIDTH (raiz) / WIDTH jogadas são pesquisadas, a da tabela de transposição primeiro.
+ *
+ * Uma instância por jogada e por thread; a tabela de transposição é reutilizada entre jogadas
+ * pela mesma thread (BotPlayer) e partilhada com as threads ajudantes na pesquisa paralela (ParallelSearch):
+ * um ajudante (helper > 0) começa o aprofundamento iterativo numa profundidade diferente, para que as
+ * threads não pesquisem as mesmas posições pela mesma ordem e se aproveitem dos resultados umas das outras.
+ *
+ * Ligações:
+ * - ParallelSearch.search(): bestMove() com as peças de Game.getBoardView(), uma instância por thread.
+ * - Zobrist, TranspositionTable.
+ */
+public class Search {
+    public static final int WIN = 100_000_000; // Valor de uma vitória (menos a distância em jogadas)
+    private static final int INFINITY = 2 * WIN;
+    private static final int MAX_DEPTH = 24;
+    private static final int ROOT_WIDTH = 16;
+    private static final int WIDTH = 10;
+
+    // Valor de uma casa para um jogador, por direção
+    private static final int FIVE = 10_000_000;
+    private static final int OPEN_FOUR = 1_000_000;
+    private static final int FOUR = 100_000;
+    private static final int OPEN_THREE = 50_000;
+    private static final int THREE = 1_000;
+    private static final int OPEN_TWO = 500;
+    private static final int TWO = 50;
+
+    private static final int[][] DIRECTIONS = { {1, 0}, {0, 1}, {1, 1}, {1, -1} };
+
+    private final int size;
+    private final int winLength;
+    private final int area;
+    private final byte[] cells; // 0 vazio, 1 'X', 2 'O'; índice linha * size + coluna
+    private final int[] near; // Peças a distância <= 2 de cada casa
+    private final int[] rowStones; // Peças por linha e por coluna (retângulo ocupado)
+    private final int[] colStones;
+    private final TranspositionTable table;
+    private final long rulesKey;
+    private final int helper; // 0 = thread principal; > 0 = ajudante da pesquisa paralela
+    private int maxDepth = MAX_DEPTH;
+    private long hash; // Chave de Zobrist das peças
+    private int stones;
+
+    private final int[][] moveBuffers = new int[MAX_DEPTH + 2][]; // Jogadas candidatas por profundidade
+    private final long[][] scoreBuffers = new long[MAX_DEPTH + 2][];
+
+    // Resultado da última generate()
+    private long ownMax; // Melhor valor de uma casa para quem joga
+    private int ownBest; // Casa com ownMax
+    private int opponentFives; // Casas onde o adversário faria cinco
+    private int opponentFive; // Uma delas
+    private long ownSum;
+    private long opponentSum;
+
+    private long deadline; // System.nanoTime() limite
+    private volatile boolean stopped; // Pedido de paragem de outra thread (stop())
+    private boolean aborted;
+    private long nodes;
+    private int rootBest;
+    private int completedDepth;
+    private int bestScore; // Valor da jogada escolhida na última iteração completa
+
+    // Análise (analyse()): valor exato de cada jogada da raiz, não só da melhor
+    private boolean multiPv;
+    private final int[] iterationMoves = new int[ROOT_WIDTH];
+    private final int[] iterationScores = new int[ROOT_WIDTH];
+    private int iterationCount;
+    private final int[] rootMoves = new int[ROOT_WIDTH]; // Da última iteração completa
+    private final int[] rootScores = new int[ROOT_WIDTH];
+    private int rootCount;
+
+    public Search(int size, int winLength, TranspositionTable table) {
+        this(size, winLength, table, 0);
+    }
+
+    /**
+     * @param helper número do ajudante na pesquisa paralela (0 = pesquisa principal)
+     */
+    public Search(int size, int winLength, TranspositionTable table, int helper) {
+        this.helper = helper;
+        this.size = size;
+        this.winLength = winLength;
+        this.area = size * size;
+        this.cells = new byte[area];
+        this.near = new int[area];
+        this.rowStones = new int[size];
+        this.colStones = new int[size];
+        this.table = table;
+        this.rulesKey = Zobrist.rules(size, winLength);
+        this.hash = rulesKey;
+    }
+
+    /**
+     * Escolhe a jogada.
+     * @param position peças do tabuleiro (Board.stone(), ex: BoardView.getStones())
+     * @param symbol quem joga ('X' ou 'O')
+     * @param budgetMillis tempo máximo de pesquisa
+     * @return casa escolhida (linha * tamanho + coluna), ou -1 se o tabuleiro está cheio
+     */
+    public int bestMove(int[] position, char symbol, long budgetMillis) {
+        for (int stone : position) {
+            make(Board.stoneRow(stone) * size + Board.stoneCol(stone), Board.stoneSymbol(stone) == 'X' ? 1 : 2);
+        }
+        if (stones == area) return -1;
+        if (stones == 0) return (size / 2) * size + size / 2; // Primeira jogada: centro
+
+        int color = symbol == 'X' ? 1 : 2;
+        // Jogadas forçadas: não vale a pena pesquisar
+        generate(color, 0);
+        if (ownMax >= FIVE) {
+            bestScore = WIN - 1;
+            return ownBest;
+        }
+        if (opponentFives > 0) {
+            bestScore = opponentFives > 1 ? -(WIN - 2) : 0;
+            return opponentFive;
+        }
+        if (ownMax >= OPEN_FOUR) {
+            bestScore = WIN - 3;
+            return ownBest;
+        }
+        int fallback = moveBuffers[0][0];
+
+        deadline = System.nanoTime() + budgetMillis * 1_000_000L;
+        int best = -1;
+        for (int depth = 1 + helper % 3; depth <= maxDepth; depth++) {
+            rootBest = -1;
+            iterationCount = 0;
+            int score = negamax(depth, -INFINITY, INFINITY, color, 0);
+            if (aborted) break;
+            best = rootBest;
+            bestScore = score;
+            completedDepth = depth;
+            if (multiPv) {
+                System.arraycopy(iterationMoves, 0, rootMoves, 0, iterationCount);
+                System.arraycopy(iterationScores, 0, rootScores, 0, iterationCount);
+                rootCount = iterationCount;
+            }
+            if (Math.abs(score) >= WIN - MAX_DEPTH * 2) break; // Vitória/derrota forçada encontrada
+        }
+        return best >= 0 ? best : fallback;
+    }
+
+    /**
+     * Limita a profundidade do aprofundamento iterativo (níveis de dificuldade; no máximo MAX_DEPTH).
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = Math.max(1, Math.min(maxDepth, MAX_DEPTH));
+    }
+
+    /**
+     * Termina a pesquisa o mais cedo possível (chamado por outra thread; bestMove() devolve a melhor
+     * jogada da última iteração completa).
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Análise da posição para dicas: as "count" melhores jogadas, cada uma com o seu valor exato
+     * (na raiz, todas as jogadas são pesquisadas com a janela completa, não só a melhor).
+     * Mais lenta do que bestMove() para a mesma profundidade.
+     * @return análise (sem jogadas se o tabuleiro estiver cheio)
+     */
+    public Analysis analyse(int[] position, char symbol, long budgetMillis, int count) {
+        multiPv = true;
+        int move = bestMove(position, symbol, budgetMillis);
+        if (move < 0) {
+            return new Analysis(size, new int[0], new int[0], 0);
+        }
+        if (rootCount == 0) {
+            // Jogada forçada (ou nenhuma iteração completa): só há uma recomendação
+            return new Analysis(size, new int[] { move }, new int[] { bestScore }, completedDepth);
+        }
+        for (int i = 1; i < rootCount; i++) { // Ordena por valor (inserção: no máximo ROOT_WIDTH jogadas)
+            int m = rootMoves[i], s = rootScores[i], j = i - 1;
+            for (; j >= 0 && rootScores[j] < s; j--) {
+                rootMoves[j + 1] = rootMoves[j];
+                rootScores[j + 1] = rootScores[j];
+            }
+            rootMoves[j + 1] = m;
+            rootScores[j + 1] = s;
+        }
+        int n = Math.min(count, rootCount);
+        return new Analysis(size, Arrays.copyOf(rootMoves, n), Arrays.copyOf(rootScores, n), completedDepth);
+    }
+
+    /** Profundidade da última iteração completa. */
+    public int getCompletedDepth() { return completedDepth; }
+
+    /** Valor da jogada escolhida (do ponto de vista de quem joga; 0 se nenhuma iteração completou). */
+    public int getScore() { return bestScore; }
+
+    /** Posições visitadas na última pesquisa. */
+    public long getNodes() { return nodes; }
+
+    private int negamax(int depth, int alpha, int beta, int color, int ply) {
+        if ((++nodes & 255) == 0 && (stopped || System.nanoTime() > deadline)) {
+            aborted = true;
+        }
+        if (aborted) return 0;
+        if (stones == area) return 0; // Empate
+
+        long key = color == 2 ? hash ^ Zobrist.side() : hash;
+        long entry = table.probe(key);
+        int ttMove = -1;
+        if (entry != 0) {
+            ttMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int stored = TranspositionTable.score(entry);
+                int type = TranspositionTable.type(entry);
+                if (type == TranspositionTable.EXACT) return stored;
+                if (type == TranspositionTable.LOWER && stored > alpha) alpha = stored;
+                else if (type == TranspositionTable.UPPER && stored < beta) beta = stored;
+                if (alpha >= beta) return stored;
+            }
+        }
+
+        int count = generate(color, ply);
+        int[] moves = moveBuffers[ply];
+        if (ownMax >= FIVE) return WIN - ply - 1;
+        if (opponentFives >= 2) return -(WIN - ply - 2);
+        if (opponentFives == 1) {
+            moves[0] = opponentFive; // Única jogada que não perde já
+            count = 1;
+        } else if (ownMax >= OPEN_FOUR) {
+            return WIN - ply - 3;
+        }
+        if (depth <= 0) {
+            return evaluate();
+        }
+
+        int width = Math.min(count, ply == 0 ? ROOT_WIDTH : WIDTH);
+        if (ttMove >= 0 && count > 1) {
+            for (int i = 0; i < count; i++) {
+                if (moves[i] == ttMove) {
+                    moves[i] = moves[0];
+                    moves[0] = ttMove;
+                    break;
+                }
+            }
+        }
+
+        int alphaStart = alpha;
+        int best = -INFINITY;
+        int bestMove = moves[0];
+        boolean allExact = multiPv && ply == 0; // Análise: valor exato de cada jogada da raiz
+        for (int i = 0; i < width; i++) {
+            int move = moves[i];
+            make(move, color);
+            int score = -negamax(depth - 1, -beta, allExact ? INFINITY : -alpha, 3 - color, ply + 1);
+            unmake(move, color);
+            if (aborted) return 0;
+            if (allExact) {
+                iterationMoves[i] = move;
+                iterationScores[i] = score;
+                iterationCount = i + 1;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (ply == 0) rootBest = move;
+                if (score > alpha) alpha = score;
+                if (alpha >= beta) break;
+            }
+        }
+
+        int type = best <= alphaStart ? TranspositionTable.UPPER
+                : best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+        table.store(key, depth, type, best, bestMove);
+        return best;
+    }
+
+    /**
+     * Avaliação estática do ponto de vista de quem joga (usa o resultado da última generate()):
+     * quem joga pode concretizar a sua melhor ameaça, por isso conta mais.
+     */
+    private int evaluate() {
+        long value = ownMax * 2 + ownSum / 4 - opponentSum / 4;
+        return (int) Math.max(-WIN / 2, Math.min(WIN / 2, value / 16));
+    }
+
+    /**
+     * Preenche moveBuffers[ply] com as casas candidatas, as melhores primeiro (até WIDTH/ROOT_WIDTH ordenadas),
+     * e os campos ownMax, opponentFives, etc.
+     * @return número de candidatas
+     */
+    private int generate(int color, int ply) {
+        int minRow = 0, maxRow = size - 1, minCol = 0, maxCol = size - 1;
+        while (rowStones[minRow] == 0) minRow++;
+        while (rowStones[maxRow] == 0) maxRow--;
+        while (colStones[minCol] == 0) minCol++;
+        while (colStones[maxCol] == 0) maxCol--;
+        minRow = Math.max(0, minRow - 2);
+        maxRow = Math.min(size - 1, maxRow + 2);
+        minCol = Math.max(0, minCol - 2);
+        maxCol = Math.min(size - 1, maxCol + 2);
+
+        int capacity = (maxRow - minRow + 1) * (maxCol - minCol + 1);
+        if (moveBuffers[ply] == null || moveBuffers[ply].length < capacity) {
+            moveBuffers[ply] = new int[capacity];
+            scoreBuffers[ply] = new long[capacity];
+        }
+        int[] moves = moveBuffers[ply];
+        long[] scores = scoreBuffers[ply];
+
+        int opponent = 3 - color;
+        int n = 0;
+        ownMax = -1;
+        ownBest = -1;
+        opponentFives = 0;
+        opponentFive = -1;
+        ownSum = 0;
+        opponentSum = 0;
+        for (int r = minRow; r <= maxRow; r++) {
+            for (int c = minCol; c <= maxCol; c++) {
+                int i = r * size + c;
+                if (cells[i] != 0 || near[i] == 0) continue;
+                long own = threat(r, c, color);
+                long other = threat(r, c, opponent);
+                if (own > ownMax) {
+                    ownMax = own;
+                    ownBest = i;
+                }
+                if (other >= FIVE) {
+                    opponentFives++;
+                    opponentFive = i;
+                }
+                ownSum += own;
+                opponentSum += other;
+                moves[n] = i;
+                scores[n] = own + other - other / 8; // Atacar vale um pouco mais do que defender
+                n++;
+            }
+        }
+
+        // Ordena só as primeiras (as únicas que vão ser pesquisadas)
+        int sorted = Math.min(n, ply == 0 ? ROOT_WIDTH : WIDTH);
+        for (int i = 0; i < sorted; i++) {
+            int bestIndex = i;
+            for (int j = i + 1; j < n; j++) {
+                if (scores[j] > scores[bestIndex]) bestIndex = j;
+            }
+            long score = scores[i];
+            scores[i] = scores[bestIndex];
+            scores[bestIndex] = score;
+            int move = moves[i];
+            moves[i] = moves[bestIndex];
+            moves[bestIndex] = move;
+        }
+        return n;
+    }
+
+    /**
+     * Valor de jogar "color" em (row, col): soma, nas 4 direções, do padrão formado
+     * (peças seguidas incluindo a nova e pontas livres).
+     */
+    private long threat(int row, int col, int color) {
+        long total = 0;
+        for (int[] d : DIRECTIONS) {
+            int count = 1;
+            int open = 0;
+            for (int dir = 1; dir >= -1; dir -= 2) {
+                int r = row + d[0] * dir;
+                int c = col + d[1] * dir;
+                while (r >= 0 && r < size && c >= 0 && c < size && cells[r * size + c] == color) {
+                    count++;
+                    r += d[0] * dir;
+                    c += d[1] * dir;
+                }
+                if (r >= 0 && r < size && c >= 0 && c < size && cells[r * size + c] == 0) open++;
+            }
+            total += lineValue(count, open);
+        }
+        return total;
+    }
+
+    private int lineValue(int count, int open) {
+        if (count >= winLength) return FIVE;
+        if (open == 0) return 0;
+        switch (winLength - count) {
+            case 1: return open == 2 ? OPEN_FOUR : FOUR;
+            case 2: return open == 2 ? OPEN_THREE : THREE;
+            case 3: return open == 2 ? OPEN_TWO : TWO;
+            default: return open == 2 ? 10 : 1;
+        }
+    }
+
+    private void make(int cell, int color) {
+        int row = cell / size, col = cell % size;
+        cells[cell] = (byte) color;
+        hash ^= Zobrist.cell(color - 1, row, col);
+        stones++;
+        rowStones[row]++;
+        colStones[col]++;
+        updateNear(row, col, 1);
+    }
+
+    private void unmake(int cell, int color) {
+        int row = cell / size, col = cell % size;
+        cells[cell] = 0;
+        hash ^= Zobrist.cell(color - 1, row, col);
+        stones--;
+        rowStones[row]--;
+        colStones[col]--;
+        updateNear(row, col, -1);
+    }
+
+    private void updateNear(int row, int col, int delta) {
+        for (int r = Math.max(0, row - 2); r <= Math.min(size - 1, row + 2); r++) {
+            for (int c = Math.max(0, col - 2); c <= Math.min(size - 1, col + 2); c++) {
+                near[r * size + c] += delta;
+            }
+        }
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- ParallelSearch: uma pesquisa por thread (principal + ajudantes), todas com a mesma tabela de transposição.
+- benchmark.SearchBenchmark: nós/segundo com 1..N threads.
+*/
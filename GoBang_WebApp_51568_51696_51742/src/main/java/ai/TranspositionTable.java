@@ -0,0 +1,87 @@
+package ai;
+
+import java.util.Arrays;
+
+/**
+ * Tabela de transposição de tamanho fixo: guarda, por posição (chave de Zobrist), o resultado de uma pesquisa
+ * (profundidade, valor, tipo de limite e melhor jogada), para não repetir pesquisas de posições já vistas
+ * e para ordenar primeiro a melhor jogada da iteração anterior.
+ *
+ * Memória limitada: dois long[] com o número de entradas fixo (16 bytes por entrada; 2^18 entradas = 4 MB),
+ * sem objetos por entrada. Quando duas posições caem no mesmo índice, fica a pesquisada com mais profundidade
+ * (ou a mais recente, em caso de empate).
+ *
+ * Cada entrada em "data": bit 0 válida; bits 1-2 tipo (EXACT/LOWER/UPPER); bits 3-10 profundidade;
+ * bits 11-30 jogada + 1 (índice da casa); bits 32-63 valor.
+ *
+ * Partilhável entre threads sem locks (pesquisa paralela, ParallelSearch): "keys" guarda chave XOR dados,
+ * por isso uma entrada escrita ao mesmo tempo por duas threads (chave de uma, dados da outra) não passa
+ * a verificação de probe() e conta como ausente. Perder uma entrada numa corrida só custa uma pesquisa repetida.
+ *
+ * Ligações:
+ * - Search.negamax(): probe() e store().
+ * - BotPlayer: cria uma por thread principal de pesquisa (gobang.bot.tableEntries), partilhada pelos ajudantes.
+ */
+public class TranspositionTable {
+    public static final int EXACT = 0; // Valor exato
+    public static final int LOWER = 1; // Valor >= guardado (corte beta)
+    public static final int UPPER = 2; // Valor <= guardado (nenhuma jogada passou alpha)
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+
+    /**
+     * @param entries número de entradas (arredondado para baixo a uma potência de 2)
+     */
+    public TranspositionTable(int entries) {
+        int capacity = Integer.highestOneBit(Math.max(entries, 1024));
+        keys = new long[capacity];
+        data = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Entrada da posição, ou 0 se não existir.
+     */
+    public long probe(long key) {
+        int i = index(key);
+        long entry = data[i];
+        return (keys[i] ^ entry) == key ? entry : 0;
+    }
+
+    public void store(long key, int depth, int type, int score, int move) {
+        int i = index(key);
+        long old = data[i];
+        if ((keys[i] ^ old) != key && (old & 1) != 0 && depth(old) > depth) {
+            return; // Mantém a pesquisa mais profunda de outra posição
+        }
+        long entry = (long) score << 32 | (long) (move + 1) << 11 | (long) Math.min(depth, 255) << 3 | (long) type << 1 | 1;
+        data[i] = entry;
+        keys[i] = key ^ entry;
+    }
+
+    /**
+     * Apaga todas as entradas (ex: ao mudar para outro jogo).
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(data, 0);
+    }
+
+    public static int depth(long entry) { return (int) (entry >>> 3) & 0xFF; }
+    public static int type(long entry) { return (int) (entry >>> 1) & 3; }
+    public static int move(long entry) { return (int) ((entry >>> 11) & 0xFFFFF) - 1; }
+    public static int score(long entry) { return (int) (entry >> 32); }
+
+    private int index(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- Search: consulta e grava posições durante o alpha-beta.
+- BotPlayer: uma tabela por thread principal (memória total = gobang.bot.threads x entradas x 16 bytes).
+- ParallelSearch: a mesma tabela é usada em simultâneo pelas threads ajudantes (Lazy SMP).
+*/
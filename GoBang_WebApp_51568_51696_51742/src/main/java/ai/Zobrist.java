@@ -0,0 +1,81 @@
+package ai;
+
+import game.Board;
+import game.GameRules;
+import java.util.SplittableRandom;
+
+/**
+ * Chaves de Zobrist: um long aleatório por (jogador, casa). A chave de uma posição é o XOR das chaves
+ * das peças, por isso é atualizada com um XOR em cada jogada/anulação (Search.make()/unmake()).
+ * As casas são indexadas com passo GameRules.MAX_SIZE (linha * 100 + coluna), o que serve para
+ * qualquer tamanho de tabuleiro; o tamanho, as peças para ganhar e o jogador a jogar entram com chaves próprias.
+ *
+ * Ligações:
+ * - Search: calcula e atualiza a chave da posição.
+ * - TranspositionTable: indexada por estas chaves.
+ * - OpeningBook: position() é a chave das entradas do livro (a semente fixa torna-a igual entre processos).
+ */
+public final class Zobrist {
+    private static final long[][] CELLS = new long[2][GameRules.MAX_SIZE * GameRules.MAX_SIZE];
+    private static final long[] SIZES = new long[GameRules.MAX_SIZE + 1];
+    private static final long[] WIN_LENGTHS = new long[GameRules.MAX_SIZE + 1];
+    private static final long SIDE; // Joga 'O'
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x60BA46L); // Semente fixa: chaves iguais em todas as execuções
+        for (long[] player : CELLS) {
+            for (int i = 0; i < player.length; i++) {
+                player[i] = random.nextLong();
+            }
+        }
+        for (int i = 0; i < SIZES.length; i++) {
+            SIZES[i] = random.nextLong();
+            WIN_LENGTHS[i] = random.nextLong();
+        }
+        SIDE = random.nextLong();
+    }
+
+    private Zobrist() {}
+
+    /**
+     * Chave de uma peça.
+     * @param player 0 = 'X', 1 = 'O'
+     */
+    public static long cell(int player, int row, int col) {
+        return CELLS[player][row * GameRules.MAX_SIZE + col];
+    }
+
+    /**
+     * Chave das regras (distingue posições iguais em tabuleiros ou regras diferentes).
+     */
+    public static long rules(int size, int winLength) {
+        return SIZES[size] ^ WIN_LENGTHS[winLength];
+    }
+
+    /**
+     * Chave do jogador a jogar ('O'); aplicada ao consultar a tabela.
+     */
+    public static long side() {
+        return SIDE;
+    }
+
+    /**
+     * Chave completa de uma posição (a mesma que Search usa na tabela de transposição).
+     * @param stones peças no formato Board.stone() (ex: BoardView.getStones())
+     * @param symbol quem joga ('X' ou 'O')
+     */
+    public static long position(int size, int winLength, int[] stones, char symbol) {
+        long key = rules(size, winLength);
+        for (int stone : stones) {
+            key ^= cell(Board.stoneSymbol(stone) == 'X' ? 0 : 1, Board.stoneRow(stone), Board.stoneCol(stone));
+        }
+        return symbol == 'O' ? key ^ SIDE : key;
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- Search: chave incremental da posição.
+- TranspositionTable: as entradas guardam a chave completa para detetar colisões de índice.
+- OpeningBook/benchmark.OpeningBookBuilder: chaves das posições do livro de aberturas.
+*/
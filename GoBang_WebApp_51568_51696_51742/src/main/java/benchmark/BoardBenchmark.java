@@ -0,0 +1,200 @@
+package benchmark;
+
+import game.ArrayBoard;
+import game.BitBoard;
+import game.Board;
+import game.SparseBoard;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+/**
+ * Microbenchmark das implementações de game.Board: ArrayBoard (procura casa a casa, o antigo
+ * Game.countInDirection) contra BitBoard (AND/shift por linha de bits) e SparseBoard (tabela de dispersão,
+ * para tabuleiros grandes).
+ * Feito à mão no estilo do JMH (o projeto não tem sistema de build para o correr): iterações de aquecimento,
+ * iterações medidas, resultado em ns/op com média e desvio padrão, e um "sink" para o JIT não eliminar o trabalho.
+ *
+ * Cenários:
+ * - isWinningMove: posições de meio de jogo geradas ao acaso (sem 5 em linha), verifica cada peça.
+ * - playout: jogos completos ao acaso (place + isWinningMove até haver vencedor ou o tabuleiro encher),
+ *   o padrão de uso de bots e simulações.
+ * Antes de medir, confirma que as duas implementações dão os mesmos resultados nas mesmas posições.
+ *
+ * Utilização:
+ *   java benchmark.BoardBenchmark [tamanho] [posições] [iterações]
+ *
+ * Resultado: ns/op de cada cenário para cada implementação (BitBoard só até BitBoard.MAX_SIZE).
+ */
+public class BoardBenchmark {
+    private static final int WARMUP_ITERATIONS = 5;
+    private static volatile long sink; // Impede o JIT de descartar os resultados
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 15;
+        int positions = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        Random random = new Random(42);
+        List<int[]> games = new ArrayList<>();
+        for (int i = 0; i < positions; i++) {
+            games.add(randomOrder(size, random));
+        }
+
+        verify(size, games);
+        System.out.println("Tabuleiro " + size + "x" + size + ", " + positions + " jogos, "
+                + WARMUP_ITERATIONS + " iterações de aquecimento + " + iterations + " medidas");
+
+        List<Board[]> middleGames = new ArrayList<>();
+        List<Board[]> middleGamesBit = new ArrayList<>();
+        List<Board[]> middleGamesSparse = new ArrayList<>();
+        boolean bits = size <= BitBoard.MAX_SIZE;
+        for (int[] order : games) {
+            middleGames.add(new Board[] { middleGame(new ArrayBoard(size), order) });
+            if (bits) middleGamesBit.add(new Board[] { middleGame(new BitBoard(size), order) });
+            middleGamesSparse.add(new Board[] { middleGame(new SparseBoard(size, Board.DEFAULT_WIN_LENGTH), order) });
+        }
+        report("isWinningMove", "ArrayBoard ", iterations, () -> checkAll(middleGames));
+        if (bits) report("isWinningMove", "BitBoard   ", iterations, () -> checkAll(middleGamesBit));
+        report("isWinningMove", "SparseBoard", iterations, () -> checkAll(middleGamesSparse));
+        report("playout      ", "ArrayBoard ", iterations, () -> playAll(ArrayBoard::new, size, games));
+        if (bits) report("playout      ", "BitBoard   ", iterations, () -> playAll(BitBoard::new, size, games));
+        report("playout      ", "SparseBoard", iterations, () -> playAll(n -> new SparseBoard(n, Board.DEFAULT_WIN_LENGTH), size, games));
+    }
+
+    /**
+     * Ordem aleatória das casas (codificadas como linha * tamanho + coluna) para um jogo.
+     */
+    private static int[] randomOrder(int size, Random random) {
+        int[] order = new int[size * size];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+        return order;
+    }
+
+    /**
+     * Joga pela ordem indicada até à jogada anterior à primeira vitória (ou até metade do tabuleiro):
+     * uma posição de meio de jogo ainda sem 5 em linha.
+     */
+    private static Board middleGame(Board board, int[] order) {
+        int size = board.size();
+        Board probe = new ArrayBoard(size); // Só serve para saber quando parar
+        for (int i = 0; i < order.length / 2; i++) {
+            int row = order[i] / size, col = order[i] % size;
+            char symbol = i % 2 == 0 ? 'X' : 'O';
+            probe.place(row, col, symbol);
+            if (probe.isWinningMove(row, col)) break;
+            board.place(row, col, symbol);
+        }
+        return board;
+    }
+
+    /**
+     * Um "op" do cenário isWinningMove: verificar uma casa ocupada.
+     * @return número de ops
+     */
+    private static long checkAll(List<Board[]> boards) {
+        long ops = 0, wins = 0;
+        for (Board[] holder : boards) {
+            Board board = holder[0];
+            int size = board.size();
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    if (board.get(row, col) == Board.EMPTY) continue;
+                    if (board.isWinningMove(row, col)) wins++;
+                    ops++;
+                }
+            }
+        }
+        sink += wins;
+        return ops;
+    }
+
+    /**
+     * Um "op" do cenário playout: uma jogada (place + isWinningMove + isFull).
+     * @return número de ops
+     */
+    private static long playAll(IntFunction<Board> factory, int size, List<int[]> games) {
+        long ops = 0, wins = 0;
+        for (int[] order : games) {
+            Board board = factory.apply(size);
+            for (int i = 0; i < order.length; i++) {
+                int row = order[i] / size, col = order[i] % size;
+                board.place(row, col, i % 2 == 0 ? 'X' : 'O');
+                ops++;
+                if (board.isWinningMove(row, col)) {
+                    wins++;
+                    break;
+                }
+                if (board.isFull()) break;
+            }
+        }
+        sink += wins;
+        return ops;
+    }
+
+    /**
+     * Confirma que todas as implementações concordam com ArrayBoard em todas as jogadas de todos os jogos.
+     */
+    private static void verify(int size, List<int[]> games) {
+        for (int[] order : games) {
+            Board array = new ArrayBoard(size);
+            List<Board> others = new ArrayList<>();
+            if (size <= BitBoard.MAX_SIZE) others.add(new BitBoard(size));
+            others.add(new SparseBoard(size, Board.DEFAULT_WIN_LENGTH));
+            for (int i = 0; i < order.length; i++) {
+                int row = order[i] / size, col = order[i] % size;
+                char symbol = i % 2 == 0 ? 'X' : 'O';
+                array.place(row, col, symbol);
+                for (Board other : others) {
+                    other.place(row, col, symbol);
+                    if (array.isWinningMove(row, col) != other.isWinningMove(row, col)
+                            || array.isFull() != other.isFull() || other.get(row, col) != symbol) {
+                        throw new IllegalStateException("ArrayBoard e " + other.getClass().getSimpleName()
+                                + " discordam na jogada " + i + " (" + row + ", " + col + ")");
+                    }
+                }
+            }
+        }
+        System.out.println("Verificação: as implementações dão os mesmos resultados.");
+    }
+
+    /**
+     * Corre o cenário (aquecimento + iterações medidas) e mostra ns/op.
+     */
+    private static void report(String scenario, String implementation, int iterations, Scenario run) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            run.run();
+        }
+        double[] nsPerOp = new double[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            long ops = run.run();
+            nsPerOp[i] = (System.nanoTime() - start) / (double) ops;
+        }
+        double mean = 0;
+        for (double v : nsPerOp) mean += v;
+        mean /= iterations;
+        double variance = 0;
+        for (double v : nsPerOp) variance += (v - mean) * (v - mean);
+        double stddev = iterations > 1 ? Math.sqrt(variance / (iterations - 1)) : 0;
+        System.out.printf("%s  %s  %8.2f ± %.2f ns/op%n", scenario, implementation, mean, stddev);
+    }
+
+    private interface Scenario {
+        long run();
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- Ferramenta de linha de comandos (não é usada pelo servidor nem pelos JSPs).
+- Usa game.ArrayBoard, game.BitBoard e game.SparseBoard diretamente (a mesma interface Board usada por Game).
+- Serve para decidir o valor de gobang.board e para medir o custo da deteção de vitória em bots/simulações.
+*/
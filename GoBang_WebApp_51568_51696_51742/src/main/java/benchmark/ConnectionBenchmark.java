@@ -0,0 +1,153 @@
+package benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import protocol.CommandProtocol;
+
+/**
+ * Gerador de carga para comparar os modos de execução do GoBangServer
+ * (gobang.server.mode = thread | virtual | nio).
+ *
+ * Simula o que a camada web faz em cada pedido AJAX: abre um socket novo,
+ * envia /login e /get, lê as respostas e fecha a ligação. Os dois comandos vão numa só escrita,
+ * como pedidos com id ("#id comando"), por isso cada ciclo custa uma ida e volta em vez de duas. Opcionalmente mantém
+ * também um número de ligações inativas abertas (como os sockets guardados na sessão por login.jsp),
+ * para medir o comportamento com muitas ligações em simultâneo.
+ *
+ * Como comparar os modos:
+ *   java -Dgobang.server.mode=thread  server.GoBangServer   (e correr este benchmark)
+ *   java -Dgobang.server.mode=virtual server.GoBangServer   (Java 21+, e correr de novo)
+ *
+ * Utilização:
+ *   java benchmark.ConnectionBenchmark [host] [porta] [clientes] [segundos] [ligaçõesInativas]
+ *
+ * Utilização (uma ida e volta por comando, sem ids, como antes):
+ *   java -Dgobang.bench.pipeline=false benchmark.ConnectionBenchmark ...
+ *
+ * Resultado: pedidos/s e latência (p50/p99/máx) de cada ciclo login+get.
+ */
+public class ConnectionBenchmark {
+    private static final String NICKNAME = "bench";
+    private static final String PASSWORD = "bench";
+    private static final boolean PIPELINE = Boolean.parseBoolean(System.getProperty("gobang.bench.pipeline", "true"));
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "127.0.0.1";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 1234;
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        int idleConnections = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+
+        // Garante que o utilizador do benchmark existe (se já existir, o servidor responde "Nickname já em uso!")
+        try (Socket socket = new Socket(host, port)) {
+            PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            out.println("/register " + NICKNAME + " " + PASSWORD + " PT 20");
+            in.readLine();
+        }
+
+        // Ligações inativas: ocupam um handler no servidor mas não enviam comandos
+        List<Socket> idle = new ArrayList<>();
+        for (int i = 0; i < idleConnections; i++) {
+            idle.add(new Socket(host, port));
+        }
+        System.out.println("Ligações inativas abertas: " + idle.size());
+
+        final long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        final AtomicLong completed = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final long[][] latencies = new long[clients][];
+        final int[] counts = new int[clients];
+        final CountDownLatch done = new CountDownLatch(clients);
+
+        for (int c = 0; c < clients; c++) {
+            final int id = c;
+            Thread t = new Thread(() -> {
+                long[] samples = new long[1024];
+                int n = 0;
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        pollOnce(host, port);
+                        completed.incrementAndGet();
+                    } catch (IOException e) {
+                        errors.incrementAndGet();
+                    }
+                    if (n == samples.length) samples = Arrays.copyOf(samples, n * 2);
+                    samples[n++] = System.nanoTime() - start;
+                }
+                latencies[id] = samples;
+                counts[id] = n;
+                done.countDown();
+            }, "bench-client-" + c);
+            t.setDaemon(true);
+            t.start();
+        }
+        done.await();
+
+        for (Socket s : idle) {
+            try { s.close(); } catch (IOException ignored) {}
+        }
+
+        int total = 0;
+        for (int n : counts) total += n;
+        long[] all = new long[total];
+        int pos = 0;
+        for (int c = 0; c < clients; c++) {
+            System.arraycopy(latencies[c], 0, all, pos, counts[c]);
+            pos += counts[c];
+        }
+        Arrays.sort(all);
+
+        System.out.println("Clientes: " + clients + ", duração: " + seconds + "s");
+        System.out.println("Pedidos concluídos: " + completed.get() + " (erros: " + errors.get() + ")");
+        System.out.printf("Débito: %.1f pedidos/s%n", completed.get() / (double) seconds);
+        if (all.length > 0) {
+            System.out.printf("Latência p50: %.2f ms, p99: %.2f ms, máx: %.2f ms%n",
+                    all[all.length / 2] / 1e6,
+                    all[Math.min(all.length - 1, (int) (all.length * 0.99))] / 1e6,
+                    all[all.length - 1] / 1e6);
+        }
+    }
+
+    /**
+     * Um ciclo igual ao dos JSPs: novo socket, /login, /get, fecho.
+     * Com pipelining, os dois pedidos seguem numa só escrita e as respostas são lidas pelo id.
+     */
+    private static void pollOnce(String host, int port) throws IOException {
+        try (Socket socket = new Socket(host, port)) {
+            PrintWriter out = new PrintWriter(socket.getOutputStream(), !PIPELINE);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            if (PIPELINE) {
+                out.println(CommandProtocol.formatTaggedRequest("1", "/login " + NICKNAME + " " + PASSWORD));
+                out.println(CommandProtocol.formatTaggedRequest("2", "/get " + NICKNAME));
+                out.flush();
+                Map<String, List<String>> responses = CommandProtocol.readTaggedResponses(in, Arrays.asList("1", "2"));
+                if (responses.get("1").isEmpty() || responses.get("2").isEmpty()) {
+                    throw new IOException("Ligação fechada antes das respostas");
+                }
+                return;
+            }
+            out.println("/login " + NICKNAME + " " + PASSWORD);
+            if (in.readLine() == null) throw new IOException("Ligação fechada no login");
+            out.println("/get " + NICKNAME);
+            if (in.readLine() == null) throw new IOException("Ligação fechada no /get");
+        }
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- Ferramenta de linha de comandos (não é usada pelo servidor nem pelos JSPs).
+- Comunica com GoBangServer via socket TCP, tal como gameAction.jsp, play.jsp e activeGames.jsp.
+- Serve para comparar os modos thread, virtual e nio do servidor (ver GoBangServer.main()).
+*/
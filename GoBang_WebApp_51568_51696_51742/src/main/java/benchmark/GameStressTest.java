@@ -0,0 +1,201 @@
+package benchmark;
+
+import game.Board;
+import game.Game;
+import game.GameRules;
+import game.MoveLog;
+import game.Player;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Teste de stress da concorrência de game.Game (lock por jogo, game.GameMailbox), sem servidor:
+ * muitas threads disparam ao mesmo tempo, sobre os mesmos jogos, jogadas dos dois jogadores (muitas em conflito:
+ * fora de vez, na mesma casa) e timeouts, e no fim cada thread tenta terminar cada jogo.
+ *
+ * Verifica, jogo a jogo:
+ * - cada jogada aceite por processMove() está no MoveLog e no tabuleiro com o símbolo certo, e só lá está uma vez
+ *   (nenhuma jogada perdida nem duplicada, nenhuma casa escrita duas vezes);
+ * - jogadas aceites = getMoveCount() = MoveLog.size(), e as jogadas alternam X/O exceto depois de timeouts;
+ * - a versão avançou exatamente uma vez por jogada aceite e por timeout aceite;
+ * - markEnded() devolveu true exatamente uma vez.
+ * Termina com código 1 se alguma verificação falhar.
+ *
+ * Utilização:
+ *   java benchmark.GameStressTest [jogos] [threads] [operações por thread] [tamanho]
+ */
+public class GameStressTest {
+    private final Game[] games;
+    private final Queue<Long>[] accepted; // Por jogo: jogadas aceites (linha, coluna, símbolo)
+    private final AtomicInteger[] passes; // Por jogo: timeouts aceites
+    private final AtomicInteger[] ends; // Por jogo: chamadas a markEnded() que devolveram true
+    private final long[] initialVersions;
+    private final LongAdder operations = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private GameStressTest(int count, GameRules rules) {
+        games = new Game[count];
+        accepted = new Queue[count];
+        passes = new AtomicInteger[count];
+        ends = new AtomicInteger[count];
+        initialVersions = new long[count];
+        for (int i = 0; i < count; i++) {
+            games[i] = new Game(new Player("stress-x" + i, "", "", 0, null), new Player("stress-o" + i, "", "", 0, null), rules);
+            accepted[i] = new ConcurrentLinkedQueue<>();
+            passes[i] = new AtomicInteger();
+            ends[i] = new AtomicInteger();
+            initialVersions[i] = games[i].getVersion();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int operationsPerThread = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+        int size = args.length > 3 ? Integer.parseInt(args[3]) : 15;
+
+        GameRules rules = new GameRules(size, Math.min(Board.DEFAULT_WIN_LENGTH, size), GameRules.defaults().getMoveTimeSeconds());
+        GameStressTest test = new GameStressTest(count, rules);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1); // Todas as threads começam ao mesmo tempo
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long seed = t * 0x9E3779B97F4A7C15L + 1;
+            results.add(pool.submit(() -> {
+                start.await();
+                test.run(new SplittableRandom(seed), operationsPerThread);
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(); // Relança exceções das threads (ex: estado inconsistente dentro do Game)
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+
+        long total = test.operations.sum();
+        System.out.printf("%d jogos %dx%d, %d threads: %,d operações em %.2f s (%,.0f/s), %,d rejeitadas%n",
+                count, size, size, threads, total, seconds, total / seconds, test.rejected.sum());
+        int failures = test.verify();
+        if (failures > 0) {
+            System.err.println("FALHOU: " + failures + " jogos inconsistentes");
+            System.exit(1);
+        }
+        System.out.println("OK: nenhuma jogada perdida ou duplicada");
+    }
+
+    /**
+     * Operações ao acaso sobre jogos ao acaso; no fim, tenta terminar todos os jogos.
+     */
+    private void run(SplittableRandom random, int count) {
+        for (int i = 0; i < count; i++) {
+            int index = random.nextInt(games.length);
+            Game game = games[index];
+            Player player = random.nextBoolean() ? game.getPlayer1() : game.getPlayer2();
+            if (random.nextInt(16) == 0) {
+                if (game.passTurnOnTimeout(player)) {
+                    passes[index].incrementAndGet();
+                } else {
+                    rejected.increment();
+                }
+            } else {
+                int size = game.getBoardSize();
+                int row = random.nextInt(size), col = random.nextInt(size);
+                if (game.processMove(player, row, col).startsWith("error")) {
+                    rejected.increment();
+                } else {
+                    char symbol = player == game.getPlayer1() ? 'X' : 'O';
+                    accepted[index].add((long) row << 16 | col << 8 | symbol);
+                }
+            }
+            operations.increment();
+        }
+        for (int index = 0; index < games.length; index++) {
+            if (games[index].markEnded()) {
+                ends[index].incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @return número de jogos com alguma inconsistência
+     */
+    private int verify() {
+        int failures = 0;
+        for (int i = 0; i < games.length; i++) {
+            String problem = verify(i);
+            if (problem != null) {
+                failures++;
+                if (failures <= 10) {
+                    System.err.println("Jogo " + i + ": " + problem);
+                }
+            }
+        }
+        return failures;
+    }
+
+    private String verify(int index) {
+        Game game = games[index];
+        MoveLog log = game.getMoveLog();
+        int size = game.getBoardSize();
+        List<Long> moves = new ArrayList<>(accepted[index]);
+        if (moves.size() != game.getMoveCount() || moves.size() != log.size()) {
+            return "jogadas aceites " + moves.size() + ", getMoveCount " + game.getMoveCount() + ", MoveLog " + log.size();
+        }
+        BitSet cells = new BitSet(size * size);
+        for (long move : moves) {
+            int row = (int) (move >>> 16), col = (int) (move >>> 8) & 0xFF;
+            char symbol = (char) (move & 0xFF);
+            if (cells.get(row * size + col)) {
+                return "casa " + row + "," + col + " aceite duas vezes";
+            }
+            cells.set(row * size + col);
+            if (game.getCell(row, col) != symbol) {
+                return "casa " + row + "," + col + " tem " + game.getCell(row, col) + " em vez de " + symbol;
+            }
+        }
+        int stones = 0;
+        for (int ply = 0; ply < log.size(); ply++) {
+            if (!cells.get(log.row(ply) * size + log.col(ply))) {
+                return "jogada " + ply + " do MoveLog não foi aceite por ninguém";
+            }
+            if (game.getCell(log.row(ply), log.col(ply)) != log.symbol(ply)) {
+                return "jogada " + ply + " do MoveLog não corresponde ao tabuleiro";
+            }
+            stones++;
+        }
+        if (stones != cells.cardinality()) {
+            return "MoveLog com casas repetidas";
+        }
+        long expectedVersion = initialVersions[index] + moves.size() + passes[index].get();
+        if (game.getVersion() != expectedVersion) {
+            return "versão " + game.getVersion() + " em vez de " + expectedVersion;
+        }
+        if (ends[index].get() != 1) {
+            return "markEnded() aceite " + ends[index].get() + " vezes";
+        }
+        return null;
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- Ferramenta de linha de comandos (não é usada pelo servidor nem pelos JSPs).
+- Usa game.Game diretamente (processMove, passTurnOnTimeout, markEnded, MoveLog), como GameService e os bots.
+- Verifica a serialização das alterações de cada jogo pela game.GameMailbox.
+*/
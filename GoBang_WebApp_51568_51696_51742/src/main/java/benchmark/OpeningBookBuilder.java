@@ -0,0 +1,175 @@
+package benchmark;
+
+import ai.OpeningBook;
+import ai.ParallelSearch;
+import ai.TranspositionTable;
+import ai.Zobrist;
+import game.Board;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Gera o livro de aberturas do bot (ai.OpeningBook) offline.
+ *
+ * Posições:
+ * - Jogos do bot contra si próprio: em cada jogada, com probabilidade "ruído", joga uma casa ao acaso
+ *   perto das peças em vez da melhor, para o livro cobrir as respostas variadas de jogadores humanos.
+ * - Jogos arquivados (opcional): um jogo por linha, jogadas "linha,coluna" separadas por espaços, 'X' começa
+ *   (o formato escrito pelo SelfPlaySimulation; o resultado no fim da linha é ignorado).
+ * Cada posição nova (até "plies" peças) é pesquisada uma vez com ai.ParallelSearch (todas as threads
+ * da máquina) e a melhor jogada fica no livro com o seu valor.
+ *
+ * Utilização:
+ *   java benchmark.OpeningBookBuilder [ficheiro] [jogos] [plies] [ms por posição] [tamanho] [jogos arquivados]
+ * Por omissão escreve user.home/GoBangData/opening-book.bin (o caminho lido pelo servidor, gobang.bot.book).
+ */
+public class OpeningBookBuilder {
+    private static final double NOISE = 0.3; // Probabilidade de uma jogada ao acaso nos jogos gerados
+    private static final int TABLE_ENTRIES = 1 << 22;
+
+    private final int size;
+    private final int plies;
+    private final long millis;
+    private final ParallelSearch search;
+    private final int threads = Runtime.getRuntime().availableProcessors();
+    private final TranspositionTable table = new TranspositionTable(TABLE_ENTRIES);
+    private final Map<Long, int[]> book = new HashMap<>(); // chave -> {jogada, valor}
+
+    private OpeningBookBuilder(int size, int plies, long millis) {
+        this.size = size;
+        this.plies = plies;
+        this.millis = millis;
+        this.search = new ParallelSearch(threads - 1);
+    }
+
+    public static void main(String[] args) throws IOException {
+        File output = new File(args.length > 0 ? args[0] : System.getProperty("user.home") + "/GoBangData/opening-book.bin");
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int plies = args.length > 2 ? Integer.parseInt(args[2]) : 12;
+        long millis = args.length > 3 ? Long.parseLong(args[3]) : 500;
+        int size = args.length > 4 ? Integer.parseInt(args[4]) : 15;
+
+        OpeningBookBuilder builder = new OpeningBookBuilder(size, plies, millis);
+        long start = System.nanoTime();
+        if (args.length > 5) {
+            builder.addArchivedGames(new File(args[5]));
+        }
+        SplittableRandom random = new SplittableRandom(7);
+        for (int g = 0; g < games; g++) {
+            builder.selfPlay(random);
+            if ((g + 1) % 10 == 0) {
+                System.out.println((g + 1) + "/" + games + " jogos, " + builder.book.size() + " posições");
+            }
+        }
+        builder.write(output);
+        System.out.printf("%d posições escritas em %s (%.1f s)%n", builder.book.size(), output, (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Um jogo do bot contra si próprio até "plies" peças (ou até alguém ganhar).
+     */
+    private void selfPlay(SplittableRandom random) {
+        Board board = Board.create(size, Board.DEFAULT_WIN_LENGTH);
+        char symbol = 'X';
+        for (int ply = 0; ply < plies; ply++) {
+            int best = analyse(board, symbol);
+            int move = ply > 0 && random.nextDouble() < NOISE ? randomNearMove(board, random) : best;
+            if (move < 0) return;
+            board.place(move / size, move % size, symbol);
+            if (board.isWinningMove(move / size, move % size)) return;
+            symbol = symbol == 'X' ? 'O' : 'X';
+        }
+    }
+
+    /**
+     * Posições de jogos arquivados (antes de cada jogada, até "plies" peças).
+     */
+    private void addArchivedGames(File file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Board board = Board.create(size, Board.DEFAULT_WIN_LENGTH);
+                char symbol = 'X';
+                for (String token : line.trim().split("\\s+")) {
+                    if (token.indexOf(',') < 0 || board.stones().length >= plies) break; // Fim das jogadas (ex: resultado)
+                    String[] cell = token.split(",");
+                    int row = Integer.parseInt(cell[0]);
+                    int col = Integer.parseInt(cell[1]);
+                    if (row < 0 || row >= size || col < 0 || col >= size || board.get(row, col) != Board.EMPTY) break;
+                    analyse(board, symbol);
+                    board.place(row, col, symbol);
+                    if (board.isWinningMove(row, col)) break;
+                    symbol = symbol == 'X' ? 'O' : 'X';
+                }
+            }
+        }
+    }
+
+    /**
+     * Melhor jogada da posição (casa linha * tamanho + coluna), pesquisada só da primeira vez que a posição aparece.
+     */
+    private int analyse(Board board, char symbol) {
+        int[] stones = board.stones();
+        long key = Zobrist.position(size, Board.DEFAULT_WIN_LENGTH, stones, symbol);
+        int[] known = book.get(key);
+        if (known != null) {
+            return OpeningBook.moveRow(known[0]) * size + OpeningBook.moveCol(known[0]);
+        }
+        ParallelSearch.Result result = search.search(size, Board.DEFAULT_WIN_LENGTH, table, stones, symbol,
+                millis, threads, Integer.MAX_VALUE);
+        int move = result.getMove();
+        if (move >= 0) {
+            book.put(key, new int[] { OpeningBook.move(move / size, move % size), result.getScore() });
+        }
+        return move;
+    }
+
+    /**
+     * Casa vazia ao acaso a distância <= 2 de alguma peça.
+     */
+    private int randomNearMove(Board board, SplittableRandom random) {
+        List<Integer> candidates = new ArrayList<>();
+        for (int stone : board.stones()) {
+            for (int dr = -2; dr <= 2; dr++) {
+                for (int dc = -2; dc <= 2; dc++) {
+                    int r = Board.stoneRow(stone) + dr;
+                    int c = Board.stoneCol(stone) + dc;
+                    if (r >= 0 && r < size && c >= 0 && c < size && board.get(r, c) == Board.EMPTY) {
+                        candidates.add(r * size + c);
+                    }
+                }
+            }
+        }
+        return candidates.isEmpty() ? -1 : candidates.get(random.nextInt(candidates.size()));
+    }
+
+    private void write(File output) throws IOException {
+        long[] keys = new long[book.size()];
+        int[] moves = new int[keys.length];
+        int[] scores = new int[keys.length];
+        int i = 0;
+        for (Map.Entry<Long, int[]> entry : book.entrySet()) {
+            keys[i] = entry.getKey();
+            moves[i] = entry.getValue()[0];
+            scores[i] = entry.getValue()[1];
+            i++;
+        }
+        File parent = output.getAbsoluteFile().getParentFile();
+        if (parent != null) parent.mkdirs();
+        OpeningBook.write(output, keys, moves, scores);
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- Ferramenta de linha de comandos (não é usada pelo servidor nem pelos JSPs).
+- Escreve o ficheiro lido por ai.OpeningBook (ai.BotPlayer mapeia-o no arranque).
+- Usa ai.ParallelSearch e ai.Zobrist.position(), as mesmas do bot, para as chaves e jogadas coincidirem.
+*/
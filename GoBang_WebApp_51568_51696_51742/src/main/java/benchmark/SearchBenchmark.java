@@ -0,0 +1,104 @@
+package benchmark;
+
+import ai.ParallelSearch;
+import ai.Search;
+import ai.TranspositionTable;
+import game.Board;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Escalabilidade da pesquisa paralela do bot (ai.ParallelSearch, Lazy SMP): nós por segundo e profundidade
+ * atingida com 1, 2, ... N threads, no mesmo conjunto de posições e com o mesmo tempo por jogada.
+ *
+ * As posições de meio de jogo são geradas com jogos do próprio bot a profundidade fixa (determinístico).
+ * Cada pesquisa começa com uma tabela de transposição vazia, para as medições não dependerem da ordem.
+ * Há uma ronda de aquecimento (JIT) antes das medições.
+ *
+ * Em Lazy SMP os nós por segundo devem crescer quase linearmente com as threads (não há sincronização além
+ * da tabela partilhada); o ganho real é a profundidade, que cresce mais devagar.
+ *
+ * Utilização:
+ *   java benchmark.SearchBenchmark [threads máx] [ms por pesquisa] [posições] [tamanho]
+ *
+ * Resultado: para cada número de threads, nós/s, aceleração face a 1 thread e profundidade média.
+ */
+public class SearchBenchmark {
+    private static final int TABLE_ENTRIES = 1 << 20;
+
+    public static void main(String[] args) {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+        int positions = args.length > 2 ? Integer.parseInt(args[2]) : 6;
+        int size = args.length > 3 ? Integer.parseInt(args[3]) : 15;
+
+        List<int[]> games = middleGames(size, positions);
+        ParallelSearch search = new ParallelSearch(maxThreads - 1);
+        System.out.println("Tabuleiro " + size + "x" + size + ", " + positions + " posições, " + millis
+                + " ms por pesquisa, " + Runtime.getRuntime().availableProcessors() + " núcleos");
+
+        run(search, size, games, millis, maxThreads); // Aquecimento
+        double base = 0;
+        for (int threads = 1; threads <= maxThreads; threads++) {
+            long start = System.nanoTime();
+            long[] totals = run(search, size, games, millis, threads);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            double nodesPerSecond = totals[0] / seconds;
+            if (threads == 1) base = nodesPerSecond;
+            System.out.printf("%2d threads  %,12.0f nós/s  x%.2f  profundidade média %.1f%n",
+                    threads, nodesPerSecond, nodesPerSecond / base, totals[1] / (double) games.size());
+        }
+    }
+
+    /**
+     * Pesquisa todas as posições com o número de threads dado.
+     * @return {nós visitados, soma das profundidades completas}
+     */
+    private static long[] run(ParallelSearch search, int size, List<int[]> games, long millis, int threads) {
+        long nodes = 0;
+        long depths = 0;
+        for (int i = 0; i < games.size(); i++) {
+            char symbol = games.get(i).length % 2 == 0 ? 'X' : 'O'; // X começa
+            ParallelSearch.Result result = search.search(size, Board.DEFAULT_WIN_LENGTH,
+                    new TranspositionTable(TABLE_ENTRIES), games.get(i), symbol, millis, threads, Integer.MAX_VALUE);
+            nodes += result.getNodes();
+            depths += result.getDepth();
+        }
+        return new long[] { nodes, depths };
+    }
+
+    /**
+     * Posições de meio de jogo: o bot joga contra si próprio a profundidade 2, começando em aberturas diferentes.
+     * Devolve as peças no formato Board.stone() (o mesmo de BoardView.getStones()).
+     */
+    private static List<int[]> middleGames(int size, int count) {
+        List<int[]> games = new ArrayList<>();
+        for (int g = 0; g < count; g++) {
+            Board board = Board.create(size, Board.DEFAULT_WIN_LENGTH);
+            int center = size / 2;
+            board.place(center, center, 'X');
+            board.place(center - 1 + g % 3, center + 1 - g / 3 % 3, 'O');
+            char symbol = 'X';
+            for (int ply = 0; ply < 10 + g % 4; ply++) {
+                Search search = new Search(size, Board.DEFAULT_WIN_LENGTH, new TranspositionTable(1 << 12));
+                search.setMaxDepth(2);
+                int move = search.bestMove(board.stones(), symbol, 10_000);
+                board.place(move / size, move % size, symbol);
+                if (board.isWinningMove(move / size, move % size)) {
+                    board.remove(move / size, move % size); // Posição ainda por decidir
+                    break;
+                }
+                symbol = symbol == 'X' ? 'O' : 'X';
+            }
+            games.add(board.stones());
+        }
+        return games;
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- Ferramenta de linha de comandos (não é usada pelo servidor nem pelos JSPs).
+- Usa ai.ParallelSearch como o ai.BotPlayer (mesma pesquisa, sem servidor).
+- Serve para escolher gobang.bot.helperThreads e o número de threads de cada nível (ai.Difficulty).
+*/
@@ -0,0 +1,257 @@
+package benchmark;
+
+import ai.Search;
+import ai.TranspositionTable;
+import game.Board;
+import game.Game;
+import game.GameRules;
+import game.MoveLog;
+import game.Player;
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simulação em lote, sem servidor nem sockets: milhares de game.Game a correr ao mesmo tempo entre jogadores
+ * automáticos, numa ForkJoinPool (work-stealing) com uma thread por núcleo.
+ *
+ * Para que serve:
+ * - Teste de regressão de desempenho de Game.processMove() e da deteção de vitória (Board): mede jogos/s,
+ *   jogadas/s e bytes alocados por jogada; com um mínimo de jogadas/s, termina com código 1 se não for atingido.
+ * - Geração de dados: escreve cada jogo numa linha ("linha,coluna" por jogada, a partir do MoveLog do jogo,
+ *   e no fim X, O ou = para o resultado), o formato de jogos arquivados do OpeningBookBuilder.
+ *
+ * Jogadores:
+ * - random: jogada ao acaso perto das peças (sem pesquisa; mede quase só o custo do Game).
+ * - bot: ai.Search com profundidade máxima "depth" e tempo "ms" por jogada (uma tabela de transposição por thread).
+ *
+ * Trabalho: o intervalo de jogos é dividido ao meio (RecursiveAction) até blocos de BATCH jogos; as threads
+ * livres roubam metades às ocupadas, por isso jogos de durações diferentes não deixam núcleos parados.
+ * Alocação: com.sun.management.ThreadMXBean (bytes alocados por cada thread durante os seus blocos).
+ *
+ * Utilização:
+ *   java benchmark.SelfPlaySimulation [jogos] [random|bot] [tamanho] [threads] [depth] [ms] [mínimo jogadas/s] [ficheiro de jogos]
+ */
+public class SelfPlaySimulation {
+    private static final int BATCH = 16; // Jogos por bloco (abaixo disto não divide mais)
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final String mode;
+    private final GameRules rules;
+    private final int depth;
+    private final long millis;
+    private final Writer output; // null = não guarda os jogos
+    private final ThreadLocal<TranspositionTable> tables = ThreadLocal.withInitial(() -> new TranspositionTable(1 << 16));
+
+    private final LongAdder games = new LongAdder();
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder winsX = new LongAdder();
+    private final LongAdder winsO = new LongAdder();
+    private final LongAdder allocated = new LongAdder();
+
+    private SelfPlaySimulation(String mode, GameRules rules, int depth, long millis, Writer output) {
+        this.mode = mode;
+        this.rules = rules;
+        this.depth = depth;
+        this.millis = millis;
+        this.output = output;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        String mode = args.length > 1 ? args[1] : "random";
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 15;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        int depth = args.length > 4 ? Integer.parseInt(args[4]) : 2;
+        long millis = args.length > 5 ? Long.parseLong(args[5]) : 50;
+        double minMovesPerSecond = args.length > 6 ? Double.parseDouble(args[6]) : 0;
+        String file = args.length > 7 ? args[7] : null;
+
+        if (!"random".equals(mode) && !"bot".equals(mode)) {
+            System.err.println("Jogadores desconhecidos: " + mode + " (random ou bot)");
+            System.exit(2);
+        }
+        GameRules rules = new GameRules(size, Math.min(Board.DEFAULT_WIN_LENGTH, size), GameRules.defaults().getMoveTimeSeconds());
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            ((com.sun.management.ThreadMXBean) THREADS).setThreadAllocatedMemoryEnabled(true);
+        }
+
+        // Aquecimento (JIT), sem guardar jogos nem contar para o resultado
+        SelfPlaySimulation warmup = new SelfPlaySimulation(mode, rules, depth, millis, null);
+        pool.invoke(warmup.new Batch(0, Math.max(BATCH, count / 10)));
+
+        try (Writer output = file == null ? null : new BufferedWriter(new FileWriter(file))) {
+            SelfPlaySimulation simulation = new SelfPlaySimulation(mode, rules, depth, millis, output);
+            long gcBefore = gcMillis();
+            long start = System.nanoTime();
+            pool.invoke(simulation.new Batch(0, count));
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long gc = gcMillis() - gcBefore;
+            double movesPerSecond = simulation.report(seconds, threads, size, gc);
+            pool.shutdown();
+            if (minMovesPerSecond > 0 && movesPerSecond < minMovesPerSecond) {
+                System.err.printf("REGRESSÃO: %.0f jogadas/s abaixo do mínimo %.0f%n", movesPerSecond, minMovesPerSecond);
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * Bloco de jogos [from, to): divide ao meio enquanto for maior do que BATCH.
+     */
+    private class Batch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        Batch(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > BATCH) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Batch(from, middle), new Batch(middle, to));
+                return;
+            }
+            long thread = Thread.currentThread().getId();
+            long before = allocatedBytes(thread);
+            StringBuilder lines = output == null ? null : new StringBuilder();
+            SplittableRandom random = new SplittableRandom(from * 0x9E3779B97F4A7C15L);
+            Player x = new Player("sim-x", "", "", 0, null);
+            Player o = new Player("sim-o", "", "", 0, null);
+            for (int i = from; i < to; i++) {
+                play(new Game(x, o, rules), random, lines);
+            }
+            long after = allocatedBytes(thread);
+            if (before >= 0 && after >= 0) allocated.add(after - before);
+            if (lines != null) write(lines);
+        }
+    }
+
+    /**
+     * Um jogo completo (até alguém ganhar ou o tabuleiro encher), sempre por Game.processMove().
+     */
+    private void play(Game game, SplittableRandom random, StringBuilder lines) {
+        int size = game.getBoardSize();
+        int center = size / 2;
+        int minRow = center, maxRow = center, minCol = center, maxCol = center; // Retângulo ocupado
+        while (!game.isGameOver()) {
+            int cell = "bot".equals(mode) ? botMove(game) : randomMove(game, random, minRow, maxRow, minCol, maxCol);
+            int row = cell / size, col = cell % size;
+            if (!game.processMove(game.getCurrentPlayer(), row, col).startsWith("error")) {
+                minRow = Math.min(minRow, row);
+                maxRow = Math.max(maxRow, row);
+                minCol = Math.min(minCol, col);
+                maxCol = Math.max(maxCol, col);
+            }
+        }
+        MoveLog log = game.getMoveLog();
+        moves.add(log.size());
+        games.increment();
+        char result = '=';
+        if (game.getWinner() != null) {
+            result = game.getWinner() == game.getPlayer1() ? 'X' : 'O';
+            (result == 'X' ? winsX : winsO).increment();
+        }
+        if (lines != null) {
+            for (int i = 0; i < log.size(); i++) {
+                lines.append(log.row(i)).append(',').append(log.col(i)).append(' ');
+            }
+            lines.append(result).append('\n');
+        }
+    }
+
+    /**
+     * Casa vazia ao acaso no retângulo ocupado alargado de uma casa (o tabuleiro todo se falhar várias vezes).
+     */
+    private static int randomMove(Game game, SplittableRandom random, int minRow, int maxRow, int minCol, int maxCol) {
+        int size = game.getBoardSize();
+        if (game.getMoveCount() == 0) return (size / 2) * size + size / 2;
+        int r0 = Math.max(0, minRow - 1), r1 = Math.min(size - 1, maxRow + 1);
+        int c0 = Math.max(0, minCol - 1), c1 = Math.min(size - 1, maxCol + 1);
+        for (int attempt = 0; attempt < 32; attempt++) {
+            int row = r0 + random.nextInt(r1 - r0 + 1);
+            int col = c0 + random.nextInt(c1 - c0 + 1);
+            if (game.getCell(row, col) == Board.EMPTY) return row * size + col;
+        }
+        int start = random.nextInt(size * size);
+        for (int i = 0; i < size * size; i++) {
+            int cell = (start + i) % (size * size);
+            if (game.getCell(cell / size, cell % size) == Board.EMPTY) return cell;
+        }
+        return -1; // Não acontece: o jogo acaba quando o tabuleiro enche
+    }
+
+    private int botMove(Game game) {
+        Search search = new Search(game.getBoardSize(), game.getRules().getWinLength(), tables.get());
+        search.setMaxDepth(depth);
+        char symbol = game.getCurrentPlayer() == game.getPlayer1() ? 'X' : 'O';
+        return search.bestMove(game.getBoardView().getStones(), symbol, millis);
+    }
+
+    private void write(StringBuilder lines) {
+        synchronized (output) {
+            try {
+                output.write(lines.toString());
+            } catch (IOException e) {
+                throw new IllegalStateException("Erro ao escrever os jogos", e);
+            }
+        }
+    }
+
+    /**
+     * Mostra o resultado.
+     * @return jogadas por segundo
+     */
+    private double report(double seconds, int threads, int size, long gcMillis) {
+        long totalGames = games.sum();
+        long totalMoves = moves.sum();
+        double movesPerSecond = totalMoves / seconds;
+        System.out.printf("%d jogos (%s, %dx%d) em %.2f s com %d threads%n", totalGames, mode, size, size, seconds, threads);
+        System.out.printf("  %,.0f jogos/s  %,.0f jogadas/s  %.1f jogadas por jogo%n",
+                totalGames / seconds, movesPerSecond, totalMoves / (double) totalGames);
+        System.out.printf("  vitórias X %d, O %d, empates %d%n", winsX.sum(), winsO.sum(), totalGames - winsX.sum() - winsO.sum());
+        if (allocated.sum() > 0) {
+            System.out.printf("  alocação %,.1f MB/s, %,.0f bytes por jogada, GC %d ms%n",
+                    allocated.sum() / seconds / 1e6, allocated.sum() / (double) totalMoves, gcMillis);
+        } else {
+            System.out.println("  alocação: não disponível nesta JVM");
+        }
+        return movesPerSecond;
+    }
+
+    private static long allocatedBytes(long thread) {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(thread);
+        }
+        return -1;
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- Ferramenta de linha de comandos (não é usada pelo servidor nem pelos JSPs).
+- Usa game.Game (processMove, MoveLog) como o servidor, sem GoBangServer/SessionManager.
+- ai.Search para os jogadores "bot"; os jogos escritos servem de entrada ao OpeningBookBuilder (jogos arquivados).
+*/
@@ -0,0 +1,121 @@
+package benchmark;
+
+import game.Game;
+import game.Player;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import session.SessionManager;
+
+/**
+ * Mede e verifica os índices do session.SessionManager com milhares de jogos e várias threads ao mesmo tempo,
+ * sem sockets (o servidor não é arrancado; as notificações não têm destinatários).
+ *
+ * 1. As threads criam jogos em paralelo (addGameForPlayers()), cada jogador num jogo.
+ * 2. As threads fazem as consultas do caminho quente (getGameByPlayer(), getGameById(), getGamesForPlayer(),
+ *    isWaiting()) enquanto metade dos jogos é terminada (removeGame()): mede ns por consulta.
+ * 3. Verifica que os jogos que ficaram são encontrados por jogador e por id e que os removidos desapareceram.
+ * Termina com código 1 se algum índice estiver inconsistente.
+ *
+ * Utilização:
+ *   java benchmark.SessionIndexBenchmark [jogos] [threads] [consultas por thread]
+ */
+public class SessionIndexBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int lookups = args.length > 2 ? Integer.parseInt(args[2]) : 2_000_000;
+
+        SessionManager session = new SessionManager();
+        Game[] games = new Game[count];
+        for (int i = 0; i < count; i++) {
+            games[i] = new Game(new Player("idx-x" + i, "", "", 0, null), new Player("idx-o" + i, "", "", 0, null));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+        long start = System.nanoTime();
+        run(pool, threads, t -> {
+            for (int i = t; i < count; i += threads) {
+                session.addGameForPlayers(games[i].getPlayer1(), games[i].getPlayer2(), games[i]);
+            }
+        });
+        System.out.printf("%,d jogos criados por %d threads em %.2f s%n", count, threads, (System.nanoTime() - start) / 1e9);
+
+        AtomicLong misses = new AtomicLong();
+        start = System.nanoTime();
+        run(pool, threads, t -> {
+            if (t == 0) {
+                for (int i = 1; i < count; i += 2) {
+                    session.removeGame(games[i]); // Metade dos jogos termina durante as consultas
+                }
+            }
+            SplittableRandom random = new SplittableRandom(t);
+            for (int n = 0; n < lookups; n++) {
+                int i = random.nextInt(count / 2) * 2; // Jogos que nunca são removidos
+                Game game = games[i];
+                if (session.getGameByPlayer(game.getPlayer2()) != game
+                        || session.getGameById(game.getPlayer1().getNickname(), game.getId()) != game
+                        || session.getGamesForPlayer(game.getPlayer1().getNickname()).isEmpty()
+                        || session.isWaiting(game.getPlayer1())) {
+                    misses.incrementAndGet();
+                }
+            }
+        });
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("  %,d consultas (4 índices cada) em %.2f s com %d threads: %,.0f consultas/s%n",
+                (long) lookups * threads, seconds, threads, lookups * (double) threads / seconds);
+        pool.shutdown();
+
+        int failures = (int) Math.min(Integer.MAX_VALUE, misses.get());
+        for (int i = 0; i < count; i++) {
+            Game game = games[i];
+            boolean removed = i % 2 == 1;
+            Game byPlayer = session.getGameByPlayer(game.getPlayer1());
+            Game byId = session.getGameById(game.getPlayer2().getNickname(), game.getId());
+            if (removed ? byPlayer != null || byId != null : byPlayer != game || byId != game) {
+                failures++;
+            }
+        }
+        if (session.getActiveGames().size() != (count + 1) / 2) {
+            failures++;
+        }
+        if (failures > 0) {
+            System.err.println("FALHOU: " + failures + " consultas ou jogos inconsistentes");
+            System.exit(1);
+        }
+        System.out.println("OK: " + session.getActiveGames().size() + " jogos ativos, índices coerentes");
+    }
+
+    private interface Task {
+        void run(int thread) throws Exception;
+    }
+
+    /**
+     * Corre a tarefa em todas as threads e espera por todas (relança exceções).
+     */
+    private static void run(ExecutorService pool, int threads, Task task) throws Exception {
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            results.add(pool.submit((Callable<Void>) () -> {
+                task.run(thread);
+                return null;
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- Ferramenta de linha de comandos (não é usada pelo servidor nem pelos JSPs).
+- Usa session.SessionManager como GoBangServer (addGameForPlayers, consultas do /move e /get, removeGame).
+*/
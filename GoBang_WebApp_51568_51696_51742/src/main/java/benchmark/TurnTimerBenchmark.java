@@ -0,0 +1,114 @@
+package benchmark;
+
+import game.Board;
+import game.Game;
+import game.GameRules;
+import game.Player;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import service.TurnTimer;
+
+/**
+ * Mede o custo do tempo de jogada no servidor (service.TurnTimer sobre server.TimerWheel) com muitos jogos ativos.
+ *
+ * 1. Cria N jogos (por omissão 100 000) e regista-os no temporizador.
+ * 2. Faz jogadas ao acaso (Game.processMove()) sem e com o TurnTimer como GameListener: a diferença é o
+ *    custo por jogada do temporizador, que deve ser O(1) (não depende de N).
+ * 3. Deixa de jogar e espera que o tempo de cada jogo esgote: conta as vezes passadas pelo servidor
+ *    e o atraso de cada uma em relação ao prazo (deve ficar abaixo de um tick, gobang.timer.tickMillis).
+ * Termina com código 1 se algum jogo ativo não tiver passado a vez.
+ *
+ * Utilização:
+ *   java benchmark.TurnTimerBenchmark [jogos] [jogadas] [segundos por jogada]
+ */
+public class TurnTimerBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int moves = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        GameRules rules = new GameRules(15, Board.DEFAULT_WIN_LENGTH, seconds);
+        Game[] games = new Game[count];
+        Map<String, Integer> indexes = new HashMap<>();
+        long[] expected = new long[count]; // Prazo de cada jogo depois da última jogada
+        boolean[] counted = new boolean[count]; // Só a primeira vez passada de cada jogo (uma única thread de expiração)
+        AtomicBoolean measuring = new AtomicBoolean(); // Vezes passadas durante as jogadas não contam
+        AtomicInteger expired = new AtomicInteger();
+        AtomicInteger early = new AtomicInteger();
+        AtomicLong maxDelay = new AtomicLong();
+        AtomicLong totalDelay = new AtomicLong();
+        TurnTimer timer = new TurnTimer((game, player, timeouts) -> {
+            int index = indexes.get(game.getId());
+            if (!measuring.get()) {
+                early.incrementAndGet();
+            } else if (!counted[index]) {
+                counted[index] = true;
+                long delay = System.currentTimeMillis() - expected[index];
+                expired.incrementAndGet();
+                totalDelay.addAndGet(delay);
+                maxDelay.accumulateAndGet(delay, Math::max);
+            }
+        });
+
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            games[i] = new Game(new Player("timer-x" + i, "", "", 0, null), new Player("timer-o" + i, "", "", 0, null), rules);
+            indexes.put(games[i].getId(), i);
+        }
+        for (Game game : games) {
+            timer.onGameStarted(game);
+        }
+        System.out.printf("%,d jogos registados em %.2f s (%d na roda)%n", count, (System.nanoTime() - start) / 1e9, timer.size());
+
+        double without = play(games, moves / 2, new SplittableRandom(1));
+        Game.addListener(timer);
+        double with = play(games, moves / 2, new SplittableRandom(2));
+        System.out.printf("  jogadas: %.0f ns sem temporizador, %.0f ns com temporizador (%+.0f ns por jogada), %,d timeouts durante as jogadas%n",
+                without, with, with - without, early.get());
+
+        int active = 0;
+        for (int i = 0; i < count; i++) {
+            expected[i] = games[i].getCurrentMoveStartMillis() + seconds * 1000L;
+            if (!games[i].isGameOver()) {
+                active++;
+            } else {
+                timer.onGameEnded(games[i]);
+            }
+        }
+        measuring.set(true);
+        long deadline = System.currentTimeMillis() + seconds * 1000L + 5000;
+        while (expired.get() < active && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        System.out.printf("  vezes passadas pelo servidor: %,d de %,d jogos ativos, atraso médio %.1f ms, máximo %d ms%n",
+                expired.get(), active, totalDelay.get() / (double) Math.max(1, expired.get()), maxDelay.get());
+        if (expired.get() < active) {
+            System.err.println("FALHOU: " + (active - expired.get()) + " jogos sem timeout");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Jogadas do jogador da vez em casas ao acaso (as inválidas também contam: passam pelo mesmo Game).
+     * @return nanossegundos por jogada
+     */
+    private static double play(Game[] games, int moves, SplittableRandom random) {
+        long start = System.nanoTime();
+        for (int i = 0; i < moves; i++) {
+            Game game = games[random.nextInt(games.length)];
+            game.processMove(game.getCurrentPlayer(), random.nextInt(15), random.nextInt(15));
+        }
+        return (System.nanoTime() - start) / (double) moves;
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- Ferramenta de linha de comandos (não é usada pelo servidor nem pelos JSPs).
+- Usa service.TurnTimer com um ExpiryHandler próprio (sem GoBangServer) e game.Game como o servidor.
+*/
@@ -1,20 +1,40 @@
 package client;
 
+import ai.Analysis;
+import ai.HintService;
 import game.Game;
+import game.GameRules;
 import game.Player;
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.PrintWriter;
 import java.net.Socket;
+import java.util.ArrayDeque;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+import protocol.BinaryProtocol;
 import protocol.CommandProtocol;
 import server.GoBangServer;
+import server.NioConnection;
+import server.QueuedSocketWriter;
+import service.GameState;
+import service.GameSummary;
+import service.MoveResult;
 
 /**
  * Classe responsável por gerir a ligação de um cliente ao servidor.
- * Cada cliente ligado ao servidor tem uma instância de ClientHandler a correr numa thread.
+ * Cada cliente ligado ao servidor tem uma instância de ClientHandler a correr numa thread
+ * (modo clássico) ou associada a uma NioConnection (modo NIO, sem thread própria).
+ * Numa ligação multiplexada (gateway da camada web), cada nickname tem ainda um ClientHandler
+ * "filho" sem socket próprio, que responde através da ligação do handler pai.
  * 
  * Responsabilidades:
  * - Receber e interpretar comandos do cliente (via socket TCP).
@@ -23,16 +43,36 @@ import server.GoBangServer;
  * - Comunicar com as classes Game, Player, GoBangServer e CommandProtocol.
  * 
  * Relações:
- * - GoBangServer mantém uma lista de ClientHandler ativos.
+ * - GoBangServer mantém um ConnectionRegistry com os ClientHandler ativos (indexados por nickname).
  * - Cada ClientHandler referencia um Player autenticado (após login).
- * - Usa Game para gerir o estado dos jogos.
+ * - Usa Game para gerir o estado dos jogos; os comandos de jogo (/move, /get, /getgames, ...)
+ *   são delegados no GameService e aqui apenas convertidos de/para texto.
  * - Usa CommandProtocol para validar e formatar comandos/mensagens.
+ * - Usa BinaryProtocol se o cliente o escolher ao ligar-se (ver handleFrame()); as mensagens de texto
+ *   passam então a ir dentro de tramas TEXT/EVENT.
+ * - Aceita pedidos com id ("#id comando", ver handleTaggedRequest()) para o cliente poder enviar vários
+ *   comandos de seguida e distinguir as respostas das notificações.
  */
 public class ClientHandler implements Runnable {
 	private Socket socket; // Socket TCP do cliente
-    private PrintWriter out; // Para enviar mensagens ao cliente
+    private QueuedSocketWriter out; // Fila de saída para o cliente (escrita assíncrona, modo thread/virtual)
     private BufferedReader in; // Para ler mensagens do cliente
-    private Player player; // Jogador autenticado (null até login)
+    private volatile Player player; // Jogador autenticado (null até login); lido por outras threads via getPlayer()
+    private NioConnection connection; // Ligação NIO (só no modo NIO; null no modo thread-por-cliente)
+    private final ConcurrentMap<String, ClientHandler> muxSessions = new ConcurrentHashMap<>(); // nickname -> sessão multiplexada (gateway)
+    private ClientHandler parent; // Handler da ligação real (só nas sessões multiplexadas)
+    private String muxNickname; // Nickname da sessão multiplexada
+    private ReentrantLock muxLock; // Protege a fila de pedidos da sessão multiplexada (só nas sessões multiplexadas)
+    private Queue<String[]> muxPending; // Pedidos da sessão por executar ({id, comando}), pela ordem de chegada
+    private boolean muxRunning; // Há uma tarefa no executor a esvaziar muxPending
+    private boolean muxEnded; // O último pedido foi um /disconnect: a sessão sai do mapa quando a fila ficar vazia
+    private boolean muxClosed; // A sessão já saiu do mapa: os pedidos seguintes vão para uma sessão nova
+    private volatile String requestId; // Id do pedido em curso (sessão multiplexada ou pedido "#id comando")
+    private volatile Thread requestThread; // Thread que está a processar esse pedido
+    private volatile boolean tagged; // O cliente usa pedidos com id: as notificações passam a ir em "#!nickname texto"
+    private volatile boolean binary; // O cliente escolheu o protocolo binário (BinaryProtocol)
+    private volatile int binaryRequestId; // Id do pedido binário em curso
+    private volatile Thread binaryRequestThread; // Thread que está a processar esse pedido
 
     /**
      * Construtor: recebe o socket do cliente.
@@ -41,7 +81,31 @@ public class ClientHandler implements Runnable {
     public ClientHandler(Socket socket) {
         this.socket = socket;
     }
-    
+
+    /**
+     * Construtor para o modo NIO: o handler não tem thread própria,
+     * recebe as linhas via handleLine() a partir de um worker do NioServer (uma de cada vez, por ordem).
+     * @param connection Ligação NIO já registada no servidor.
+     */
+    public ClientHandler(NioConnection connection) {
+        this.connection = connection;
+        this.socket = connection.getSocket();
+    }
+
+    /**
+     * Construtor para uma sessão multiplexada: um jogador que comunica através
+     * da ligação persistente do gateway web (ver handleMuxFrame()).
+     * @param parent Handler da ligação real
+     * @param nickname Nickname indicado nas tramas "#id@nickname comando"
+     */
+    private ClientHandler(ClientHandler parent, String nickname) {
+        this.parent = parent;
+        this.muxNickname = nickname;
+        this.socket = parent.socket;
+        this.muxLock = new ReentrantLock();
+        this.muxPending = new ArrayDeque<>();
+    }
+
     /**
      * Retorna o jogador autenticado neste handler.
      * Usado por GoBangServer e outros handlers.
@@ -50,100 +114,442 @@ public class ClientHandler implements Runnable {
         return player;
     }
 
+    /**
+     * Passa a ligação para o protocolo binário (chamado quando o preâmbulo BinaryProtocol.MAGIC é recebido).
+     */
+    public void setBinary(boolean binary) {
+        this.binary = binary;
+    }
+
     /**
      * Envia uma mensagem ao cliente (linha terminada por \n).
-     * Usado em todos os métodos de resposta.
+     * Usado em todos os métodos de resposta e nas notificações feitas por outros handlers.
+     * Não escreve no socket na thread chamadora: a mensagem vai para a fila de saída da ligação
+     * (QueuedSocketWriter ou NioConnection), por isso um cliente lento não atrasa quem o notifica.
      */
     public void sendMessage(String message) {
-        out.println(message);
+        if (parent != null) {
+            // Sessão multiplexada: respostas ao pedido em curso levam o id do pedido; o resto são eventos
+            parent.sendMessage(Thread.currentThread() == requestThread
+                    ? CommandProtocol.formatMuxResponse(requestId, message)
+                    : CommandProtocol.formatMuxEvent(muxNickname, message));
+        } else if (binary) {
+            // Protocolo binário: respostas ao pedido em curso vão em TEXT com o id do pedido; o resto são eventos
+            sendFrame(Thread.currentThread() == binaryRequestThread
+                    ? BinaryProtocol.text(BinaryProtocol.OP_TEXT, binaryRequestId, message)
+                    : BinaryProtocol.text(BinaryProtocol.OP_EVENT, 0, message));
+        } else if (tagged) {
+            // Pedidos com id: respostas ao pedido em curso levam o id (se tiver); o resto são eventos do jogador desta ligação
+            if (Thread.currentThread() != requestThread) {
+                sendLine(CommandProtocol.formatMuxEvent(player != null ? player.getNickname() : "*", message));
+            } else {
+                String id = requestId;
+                sendLine(id != null ? CommandProtocol.formatMuxResponse(id, message) : message);
+            }
+        } else {
+            sendLine(message);
+        }
     }
 
     /**
-     * Método principal da thread do handler.
-     * Inicializa streams, lê comandos do cliente e processa-os.
-     * Cada comando é validado e encaminhado para o método respetivo.
+     * Coloca uma linha, tal como está, na fila de saída da ligação (QueuedSocketWriter ou NioConnection).
+     */
+    private void sendLine(String line) {
+        if (connection != null) {
+            connection.send(line);
+        } else if (out != null) {
+            out.send(line);
+        }
+    }
+
+    /**
+     * Notifica o cliente de uma jogada (delta), já formatada pelo GoBangServer para os dois protocolos:
+     * clientes de texto recebem a linha "JOGADA;..." e clientes binários a trama MOVE_EVENT.
      * 
      * Ligações:
-     * - Usa CommandProtocol para validar e parsear comandos.
-     * - Usa GoBangServer para aceder a jogadores, jogos, sessões, etc.
-     * - Chama métodos como handleRegister, handleLogin, handleMove, etc.
+     * - Usado por GoBangServer.notifyMove() (jogadas feitas em GameService.move()).
+     */
+    public void sendMoveDelta(String text, byte[] frame) {
+        if (binary && parent == null) {
+            sendFrame(frame);
+        } else {
+            sendMessage(text);
+        }
+    }
+
+    /**
+     * Envia uma trama já codificada do protocolo binário pela fila de saída da ligação.
+     */
+    private void sendFrame(byte[] frame) {
+        if (connection != null) {
+            connection.sendBytes(frame);
+        } else if (out != null) {
+            out.sendBytes(frame);
+        }
+    }
+
+    /**
+     * Método principal da thread do handler (modo thread-por-cliente).
+     * Inicializa streams, lê comandos do cliente e entrega cada linha a handleLine().
+     * Se o primeiro byte for BinaryProtocol.MAGIC, lê tramas binárias e entrega-as a handleFrame().
+     * 
+     * Ligações:
+     * - Usado por GoBangServer.main() no modo clássico (new Thread(clientHandler)).
+     * - No modo NIO este método não é usado: as linhas chegam via NioConnection.
      */
     @Override
     public void run() {
         try {
-            out = new PrintWriter(socket.getOutputStream(), true);
-            in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            out = new QueuedSocketWriter(socket);
+            BufferedInputStream input = new BufferedInputStream(socket.getInputStream());
+            if (BinaryProtocol.detect(input)) {
+                binary = true;
+                DataInputStream frames = new DataInputStream(input);
+                BinaryProtocol.Frame frame;
+                while ((frame = BinaryProtocol.readFrame(frames)) != null) {
+                    if (!handleFrame(frame)) {
+                        return;
+                    }
+                }
+                return;
+            }
+            in = new BufferedReader(new InputStreamReader(input));
 
             String inputLine;
             while ((inputLine = in.readLine()) != null) {
-                System.out.println("Mensagem recebida: " + inputLine);
+                if (!handleLine(inputLine)) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println(CommandProtocol.formatMessage("Erro na comunicação com o cliente: " + e.getMessage()));
+        } finally {
+            onConnectionClosed();
+        }
+    }
+
+    /**
+     * Processa uma linha (comando) recebida do cliente.
+     * Cada comando é validado e encaminhado para o método respetivo.
+     * Independente do transporte: usado pelo ciclo de leitura do run() e pelo NioConnection.
+     * 
+     * Ligações:
+     * - Usa CommandProtocol para validar e parsear comandos.
+     * - Usa GoBangServer para aceder a jogadores, jogos, sessões, etc.
+     * - Chama métodos como handleRegister, handleLogin, handleMove, etc.
+     * 
+     * @param inputLine Linha recebida (sem o terminador \n)
+     * @return false se a ligação deve terminar (ex: /disconnect), true caso contrário
+     */
+    public boolean handleLine(String inputLine) {
+        System.out.println("Mensagem recebida: " + inputLine);
 
-                // Valida o comando recebido
-                if (!CommandProtocol.isValidCommand(inputLine)) {
-                    sendMessage(CommandProtocol.formatMessage("Comando inválido!"));
-                    continue;
+        // Pedido com id ("#id comando") ou pedido multiplexado do gateway web ("#id@nickname comando")
+        if (parent == null && CommandProtocol.isMuxFrame(inputLine)) {
+            // No protocolo binário as tramas já têm id próprio (só o formato multiplexado é aceite)
+            String[] request = binary ? null : CommandProtocol.parseTaggedRequest(inputLine);
+            if (request != null) {
+                return handleTaggedRequest(request[0], request[1]);
+            }
+            handleMuxFrame(inputLine);
+            return true;
+        }
+
+        if (tagged && parent == null) {
+            // Comando sem id numa ligação que já usou ids: a resposta continua a ir em texto simples
+            requestThread = Thread.currentThread();
+            try {
+                return executeCommand(inputLine);
+            } finally {
+                requestThread = null;
+            }
+        }
+        return executeCommand(inputLine);
+    }
+
+    /**
+     * Valida um comando e encaminha-o para o método respetivo (depois de handleLine() tratar as tramas com id).
+     * @return false se a ligação deve terminar (ex: /disconnect), true caso contrário
+     */
+    private boolean executeCommand(String inputLine) {
+        // Valida o comando recebido
+        if (!CommandProtocol.isValidCommand(inputLine)) {
+            sendMessage(CommandProtocol.formatMessage("Comando inválido!"));
+            return true;
+        }
+
+        // Faz parsing do comando para um mapa de parâmetros
+        Map<String, String> parsedCommand = CommandProtocol.parseCommand(inputLine);
+        String command = parsedCommand.get("command");
+
+        // Encaminha para o handler apropriado
+        switch (command) {
+            case "/register":
+                handleRegister(parsedCommand);
+                break;
+            case "/login":
+                handleLogin(parsedCommand);
+                break;
+            case "/move":
+                handleMove(parsedCommand);
+                break;
+            case "/disconnect":
+                disconnectClient();
+                return false;
+            case "/shutdown":
+                shutdown();
+                break;
+            case "/get":
+                handleGet(parsedCommand);
+                break;
+            case "/comandos":
+                sendMessage(CommandProtocol.getAvailableCommands());
+                break;
+            case "/play":
+                handlePlay();
+                break;
+            case "/waitingList":
+            	sendMessage(CommandProtocol.formatMessage(GoBangServer.getSession().getWaitingList()));
+                break;
+            case "/surrender":
+                handleSurrender();
+                break;
+            case "/startgame":
+                handleStartGame(parsedCommand);
+                break;
+            case "/timeout":
+                handleTimeout();
+                break;
+            case "/getgames":
+                handleGetGames(parsedCommand);
+                break;
+            case "/resync":
+                handleResync(parsedCommand);
+                break;
+            case "/hint":
+                handleHint(parsedCommand);
+                break;
+            default:
+                sendMessage(CommandProtocol.formatMessage("Comando desconhecido."));
+        }
+        return true;
+    }
+
+    /**
+     * Processa uma trama do protocolo binário.
+     * - TEXT: comando de texto, tratado por handleLine(); as respostas levam o id do pedido e no fim é enviado END.
+     * - LOGIN, MOVE, STATE: respostas tipadas, codificadas diretamente a partir do GameService (sem texto).
+     * Independente do transporte: usado pelo run() e pelo NioConnection.
+     * 
+     * Ligações:
+     * - Usa BinaryProtocol para ler os pedidos e codificar as respostas.
+     * 
+     * @return false se a ligação deve terminar (ex: /disconnect), true caso contrário
+     */
+    public boolean handleFrame(BinaryProtocol.Frame frame) throws IOException {
+        int id = frame.requestId;
+        switch (frame.opcode) {
+            case BinaryProtocol.OP_TEXT:
+                String command = frame.data.readUTF();
+                binaryRequestId = id;
+                binaryRequestThread = Thread.currentThread();
+                try {
+                    if (!handleLine(command)) {
+                        return false;
+                    }
+                } finally {
+                    binaryRequestThread = null;
+                }
+                sendFrame(BinaryProtocol.end(id));
+                return true;
+            case BinaryProtocol.OP_LOGIN:
+                sendFrame(BinaryProtocol.login(id, login(frame.data.readUTF(), frame.data.readUTF())));
+                return true;
+            case BinaryProtocol.OP_MOVE:
+                int row = frame.data.readUnsignedByte();
+                int col = frame.data.readUnsignedByte();
+                if (player == null) {
+                    sendFrame(BinaryProtocol.text(BinaryProtocol.OP_ERROR, id, "Faça login primeiro!"));
+                } else {
+                    sendFrame(BinaryProtocol.move(id, GoBangServer.getGameService().move(player, row, col)));
                 }
+                return true;
+            case BinaryProtocol.OP_STATE:
+                if (player == null) {
+                    sendFrame(BinaryProtocol.text(BinaryProtocol.OP_ERROR, id, "Faça login primeiro!"));
+                } else {
+                    sendFrame(BinaryProtocol.state(BinaryProtocol.OP_STATE, id,
+                            GoBangServer.getGameService().getState(player.getNickname())));
+                }
+                return true;
+            default:
+                sendFrame(BinaryProtocol.text(BinaryProtocol.OP_ERROR, id, "Opcode desconhecido: " + frame.opcode));
+                return true;
+        }
+    }
 
-                // Faz parsing do comando para um mapa de parâmetros
-                Map<String, String> parsedCommand = CommandProtocol.parseCommand(inputLine);
-                String command = parsedCommand.get("command");
-
-                // Encaminha para o handler apropriado
-                switch (command) {
-                    case "/register":
-                        handleRegister(parsedCommand);
-                        break;
-                    case "/login":
-                        handleLogin(parsedCommand);
-                        break;
-                    case "/move":
-                        handleMove(parsedCommand);
-                        break;
-                    case "/disconnect":
-                        disconnectClient();
-                        return;
-                    case "/shutdown":
-                        shutdown();
-                        break;
-                    case "/get":
-                        handleGet(parsedCommand);
-                        break;
-                    case "/comandos":
-                        sendMessage(CommandProtocol.getAvailableCommands());
-                        break;
-                    case "/play":
-                        handlePlay();
-                        break;
-                    case "/waitingList":
-                    	sendMessage(CommandProtocol.formatMessage(GoBangServer.getSession().getWaitingList()));
-                        break;
-                    case "/surrender":
-                        handleSurrender();
-                        break;
-                    case "/startgame":
-                        handleStartGame(parsedCommand);
-                        break;
-                    case "/timeout":
-                        handleTimeout();
-                        break;
-                    case "/getgames":
-                        handleGetGames(parsedCommand);
-                        break;
-                    default:
-                        sendMessage(CommandProtocol.formatMessage("Comando desconhecido."));
+    /**
+     * Processa um pedido com id de um cliente normal ("#id comando").
+     * As respostas são enviadas como "#id texto" e terminam com "#id$", por isso o cliente pode enviar
+     * vários pedidos numa só escrita (ex: /login, /getgames e /get) e associar cada resposta ao seu pedido.
+     * A partir do primeiro pedido com id, as notificações vindas de outros jogadores (notifyPlayers, etc)
+     * são enviadas como "#!nickname texto" e nunca se confundem com uma resposta.
+     * Os pedidos são executados pela ordem de chegada (um /get depois de um /login já vê o login feito).
+     * 
+     * Ligações:
+     * - Usa CommandProtocol.parseTaggedRequest()/formatMuxResponse()/formatMuxEnd().
+     * - Do lado do cliente: CommandProtocol.formatTaggedRequest()/readTaggedResponses().
+     * 
+     * @return false se a ligação deve terminar (/disconnect: a resposta não tem "#id$", a ligação fecha)
+     */
+    private boolean handleTaggedRequest(String id, String command) {
+        tagged = true;
+        requestId = id;
+        requestThread = Thread.currentThread();
+        try {
+            if (!executeCommand(command)) {
+                return false;
+            }
+        } finally {
+            requestThread = null;
+            requestId = null;
+        }
+        sendLine(CommandProtocol.formatMuxEnd(id));
+        return true;
+    }
+
+    /**
+     * Processa um pedido multiplexado vindo do gateway da camada web.
+     * O comando é executado pela sessão do nickname indicado (criada no primeiro pedido),
+     * como se tivesse chegado por uma ligação própria desse jogador; no fim é enviado "#id$".
+     * Um /disconnect termina apenas a sessão desse jogador, não a ligação do gateway.
+     *
+     * O pedido não corre na thread da ligação do gateway: vai para a fila da sessão, esvaziada no executor
+     * (workers do NioServer ou GoBangServer.getRequestExecutor()). Os pedidos de um jogador correm por ordem,
+     * mas um pedido lento (ex: fim de jogo a gravar o XML) já não atrasa os pedidos dos outros jogadores.
+     * 
+     * Ligações:
+     * - Usa CommandProtocol.parseMuxRequest()/formatMuxEnd().
+     * - O pedido vem de GatewayConnection.send() (JSPs via GameGateway).
+     */
+    private void handleMuxFrame(String inputLine) {
+        String[] frame = CommandProtocol.parseMuxRequest(inputLine);
+        if (frame == null) {
+            sendMessage(CommandProtocol.formatMessage("Comando inválido!"));
+            return;
+        }
+        ClientHandler session;
+        do {
+            // Uma sessão que acabou de sair do mapa (/disconnect) recusa o pedido: tenta-se com a sessão nova
+            session = muxSessions.computeIfAbsent(frame[1], nick -> new ClientHandler(this, nick));
+        } while (!session.offerMuxRequest(frame[0], frame[2]));
+    }
+
+    /**
+     * Junta um pedido à fila desta sessão multiplexada e agenda o seu processamento, se ainda não estiver agendado.
+     * @return false se a sessão já terminou (não aceita mais pedidos)
+     */
+    private boolean offerMuxRequest(String id, String command) {
+        boolean schedule;
+        muxLock.lock();
+        try {
+            if (muxClosed) {
+                return false;
+            }
+            muxPending.add(new String[] { id, command });
+            schedule = !muxRunning;
+            muxRunning = true;
+        } finally {
+            muxLock.unlock();
+        }
+        if (schedule) {
+            parent.requestExecutor().execute(this::runMuxRequests);
+        }
+        return true;
+    }
+
+    /**
+     * Executa os pedidos pendentes desta sessão, um de cada vez e por ordem (corre no executor).
+     * Depois de um /disconnect, a sessão sai do mapa do gateway quando não tiver mais pedidos.
+     */
+    private void runMuxRequests() {
+        while (true) {
+            String[] request;
+            muxLock.lock();
+            try {
+                request = muxPending.poll();
+                if (request == null) {
+                    muxRunning = false;
+                    if (muxEnded) {
+                        muxClosed = true;
+                        parent.muxSessions.remove(muxNickname, this);
+                    }
+                    return;
                 }
+            } finally {
+                muxLock.unlock();
             }
-        } catch (IOException e) {
-            System.err.println(CommandProtocol.formatMessage("Erro na comunicação com o cliente: " + e.getMessage()));
+            runMuxRequest(request[0], request[1]);
+        }
+    }
+
+    /**
+     * Executa um pedido multiplexado nesta sessão: as respostas levam o id do pedido e no fim é enviado "#id$".
+     */
+    private void runMuxRequest(String id, String command) {
+        requestId = id;
+        requestThread = Thread.currentThread();
+        try {
+            muxEnded = !handleLine(command);
+            if (muxEnded) {
+                player = null; // /disconnect: um pedido seguinte deste nickname começa sem login
+            }
+        } catch (RuntimeException e) {
+            System.err.println(CommandProtocol.formatMessage("Erro no pedido de " + muxNickname + ": " + e));
+        } finally {
+            requestThread = null;
+            requestId = null;
+            parent.sendMessage(CommandProtocol.formatMuxEnd(id));
+        }
+    }
+
+    /**
+     * Executor onde correm as sessões multiplexadas desta ligação.
+     */
+    private Executor requestExecutor() {
+        return connection != null ? connection.getWorkers() : GoBangServer.getRequestExecutor();
+    }
+
+    /**
+     * Descarta os pedidos ainda por executar e não aceita mais (a ligação do gateway fechou).
+     */
+    private void closeMuxSession() {
+        muxLock.lock();
+        try {
+            muxClosed = true;
+            muxPending.clear();
         } finally {
-            // Remove sempre este handler da lista global
-            GoBangServer.getClients().remove(this);
-            System.out.println("DEBUG: Handler removido. Handlers ativos: " + GoBangServer.getClients().size());
-            // Fecha recursos
-            try { if (in != null) in.close(); } catch (Exception ignored) {}
-            try { if (out != null) out.close(); } catch (Exception ignored) {}
-            try { if (socket != null && !socket.isClosed()) socket.close(); } catch (Exception ignored) {}
+            muxLock.unlock();
+        }
+    }
+
+    /**
+     * Limpeza final da ligação: remove este handler da lista global e fecha os recursos.
+     * Chamado no fim do run() (modo clássico) ou por NioConnection.close() (modo NIO).
+     */
+    public void onConnectionClosed() {
+        // Remove sempre este handler (e as sessões multiplexadas que transportava) do registo global de ligações
+        GoBangServer.getConnections().unregister(this);
+        for (ClientHandler session : muxSessions.values()) {
+            session.closeMuxSession();
+            GoBangServer.getConnections().unregister(session);
         }
+        muxSessions.clear();
+        System.out.println("DEBUG: Handler removido. Handlers ativos: " + GoBangServer.getConnections().size());
+        // Fecha recursos (no modo NIO o canal já foi fechado pela NioConnection)
+        try { if (in != null) in.close(); } catch (Exception ignored) {}
+        try { if (out != null) out.close(); } catch (Exception ignored) {}
+        try { if (socket != null && !socket.isClosed()) socket.close(); } catch (Exception ignored) {}
     }
 
     /**
@@ -161,17 +567,17 @@ public class ClientHandler implements Runnable {
         }
         
         String nickname = params.get("param1");
-        if (GoBangServer.getPlayers().containsKey(nickname)) {
+        Player player = new Player(
+            nickname, 
+            params.get("param2"), 
+            params.get("param3"), 
+            Integer.parseInt(params.get("param4")), 
+            ""
+        );
+        // putIfAbsent: dois registos simultâneos com o mesmo nickname não se sobrepõem
+        if (GoBangServer.getPlayers().putIfAbsent(nickname, player) != null) {
             sendMessage(CommandProtocol.formatMessage("Nickname já em uso!"));
         } else {
-            Player player = new Player(
-                nickname, 
-                params.get("param2"), 
-                params.get("param3"), 
-                Integer.parseInt(params.get("param4")), 
-                ""
-            );
-            GoBangServer.getPlayers().put(nickname, player);
             sendMessage(CommandProtocol.formatMessage("Registo bem-sucedido!"));
             GoBangServer.savePlayersToXML();
         }
@@ -189,27 +595,42 @@ public class ClientHandler implements Runnable {
             return;
         }
         
-        String nickname = params.get("param1");
-        Player player = GoBangServer.getPlayers().get(nickname);
-        if (player != null && player.getPassword().equals(params.get("param2"))) {
-            this.player = player;
+        if (login(params.get("param1"), params.get("param2"))) {
             sendMessage(CommandProtocol.formatMessage("Login bem-sucedido!"));
         } else {
             sendMessage(CommandProtocol.formatMessage("Falha no login!"));
         }
     }
 
+    /**
+     * Valida as credenciais e associa o Player a este handler.
+     * Usado por handleLogin() (/login) e pela trama LOGIN do protocolo binário.
+     * @return true se o login foi feito
+     */
+    private boolean login(String nickname, String password) {
+        Player player = GoBangServer.getGameService().authenticate(nickname, password);
+        if (player == null) {
+            return false;
+        }
+        // Atualiza o índice nickname -> ligações (a mesma ligação pode mudar de jogador, ex: aceitarConvite.jsp)
+        if (this.player != null && !this.player.equals(player)) {
+            GoBangServer.getConnections().unbind(this.player.getNickname(), this);
+        }
+        this.player = player;
+        GoBangServer.getConnections().bind(nickname, this);
+        return true;
+    }
+
     /**
      * Processa uma jogada (/move linha coluna).
-     * Valida se o jogador está autenticado, se está num jogo, e executa a jogada.
-     * Lê o resultado do método Game.processMove e trata respostas como "error:game_over":
-     * - Se for "error:game_over", envia ao cliente e termina.
-     * - Se for vitória/empate, termina o jogo e notifica ambos os jogadores.
-     * - Caso contrário, envia o resultado e o tabuleiro atualizado.
+     * Valida se o jogador está autenticado e os parâmetros; a jogada é feita pelo GameService.
+     * Traduz o MoveResult para texto:
+     * - Resultado pendente de fim de jogo: envia-o ao cliente e termina.
+     * - Vitória/empate: envia a mensagem final (o adversário é notificado pelo GameService).
+     * - Caso contrário, envia "RESULTADO: ...".
      * 
      * Ligações:
-     * - Usa Game.processMove (ver comentários em Game.java).
-     * - Usa GoBangServer.getLastGameResults() para polling de fim de jogo.
+     * - Usa GameService.move() (que usa Game.processMove e GoBangServer.getLastGameResults()).
      */
     private void handleMove(Map<String, String> params) {
         if (player == null) {
@@ -225,99 +646,33 @@ public class ClientHandler implements Runnable {
         try {
             int row = Integer.parseInt(params.get("param1"));
             int col = Integer.parseInt(params.get("param2"));
-            Game game = GoBangServer.getSession().getGameByPlayer(player);
-
-            if (game != null) {
-            	// Verifica se há resultado pendente (fim de jogo por polling)
-            	String lastResult = GoBangServer.getLastGameResults().get(player.getNickname());
-                if (lastResult != null) {
-                    sendMessage(CommandProtocol.formatMessage(lastResult));
-                    GoBangServer.getLastGameResults().remove(player.getNickname());
-                    return;
-                }
-            	
-                String result = game.processMove(player, row, col); // <- Aqui pode retornar "error:game_over", "refresh", "VITÓRIA...", "EMPATE!"
-                String boardState = game.getBoardAsString();
-
-                // Mensagens personalizadas para cada jogador
-                String symbolCurrent = (game.getCurrentPlayer() == game.getPlayer1()) ? "O" : "X";
-                String messagePlayer1 = CommandProtocol.formatMessage(
-                    "RESULTADO: " + result +
-                    "\nSeu símbolo: X" +
-                    "\nPróximo jogador: " + symbolCurrent +
-                    "\n\nTABULEIRO:\n" + boardState
-                );
-                String messagePlayer2 = CommandProtocol.formatMessage(
-                    "RESULTADO: " + result +
-                    "\nSeu símbolo: O" +
-                    "\nPróximo jogador: " + symbolCurrent +
-                    "\n\nTABULEIRO:\n" + boardState
-                );
-                GoBangServer.notifyPlayers(
-                    game.getPlayer1(),
-                    game.getPlayer2(),
-                    messagePlayer1,
-                    messagePlayer2
-                );
-
-                // Se o resultado indica fim de jogo, termina e notifica ambos
-                if (result.startsWith("VITÓRIA") || result.equals("EMPATE")) {
-                    // Guarda o resultado para polling (usado em AJAX global)
-                    if (result.startsWith("VITÓRIA")) {
-                        Player winner = game.getWinner();
-                        Player loser = game.getOtherPlayer(winner);
-
-                        GoBangServer.getLastGameResults().put(winner.getNickname(), "game_over:FIM DE JOGO! Ganhaste!");
-                        GoBangServer.getLastGameResults().put(loser.getNickname(), "game_over:FIM DE JOGO! Perdeste!");
-                    } else {
-                        // Empate
-                        GoBangServer.getLastGameResults().put(game.getPlayer1().getNickname(), "game_over:FIM DE JOGO! O jogo terminou num empate.");
-                        GoBangServer.getLastGameResults().put(game.getPlayer2().getNickname(), "game_over:FIM DE JOGO! O jogo terminou num empate.");
-                    }
-
-                    GoBangServer.getSession().endGame(game);
-
-                    String winnerMsg = CommandProtocol.formatMessage("FIM DE JOGO! Ganhaste!");
-                    String loserMsg = CommandProtocol.formatMessage("FIM DE JOGO! Perdeste!");
-                    String drawMsg = CommandProtocol.formatMessage("FIM DE JOGO! O jogo terminou num empate.");
-
-                    if (result.startsWith("VITÓRIA")) {
-                        Player winner = game.getWinner();
-                        Player loser = game.getOtherPlayer(winner);
-
-                        // Resposta direta ao jogador que fez a jogada final
-                        if (player.equals(winner)) {
-                            sendMessage(winnerMsg);
-                            GoBangServer.notifyPlayer(loser, loserMsg);
-                        } else {
-                            sendMessage(loserMsg);
-                            GoBangServer.notifyPlayer(winner, winnerMsg);
-                        }
-                    } else {
-                        // Empate
-                        sendMessage(drawMsg);
-                        GoBangServer.notifyPlayer(game.getOtherPlayer(player), drawMsg);
-                    }
-                    return; // IMPORTANTE: não enviar mais nada depois deste return
-                }
-
-                // Resposta normal para jogada não-final
-                sendMessage(CommandProtocol.formatMessage("RESULTADO: " + result));
-            } else {
-                sendMessage(CommandProtocol.formatMessage("Você não está num jogo ativo!"));
+            // O tabuleiro atualizado chega a ambos os jogadores via GoBangServer.notifyPlayers (dentro do GameService)
+            MoveResult result = GoBangServer.getGameService().move(player, row, col);
+            switch (result.getStatus()) {
+                case NOT_IN_GAME:
+                    sendMessage(CommandProtocol.formatMessage("Você não está num jogo ativo!"));
+                    break;
+                case PENDING_RESULT:
+                    sendMessage(CommandProtocol.formatMessage(result.getResult()));
+                    break;
+                default:
+                    // Fim de jogo: mensagem final para quem jogou; caso contrário, o resultado da jogada
+                    sendMessage(result.isGameOver()
+                            ? result.getFinalMessage()
+                            : CommandProtocol.formatMessage("RESULTADO: " + result.getResult()));
             }
         } catch (NumberFormatException e) {
             sendMessage(CommandProtocol.formatMessage("Coordenadas inválidas! Use números."));
         }
     }
     
+
     /**
      * Devolve o estado do jogo ou fila de espera para o frontend.
      * Também devolve resultados pendentes de fim de jogo (polling).
      * 
      * Ligações:
-     * - Usa GoBangServer.getLastGameResults() para respostas como "error:game_over".
-     * - Usa Game.getCurrentMoveStartMillis() e getMaxMoveTimeSeconds() para timeout.
+     * - Usa GameService.getState() e formata o GameState como "JOGO INICIADO;PLAYER1:...;TABULEIRO:...".
      */
     private void handleGet(Map<String, String> params) {
         if (!params.containsKey("param1")) {
@@ -326,59 +681,45 @@ public class ClientHandler implements Runnable {
         }
 
         String nickname = params.get("param1");
-        Player player = GoBangServer.getPlayers().get(nickname);
-
-        // Se o jogador tem um resultado pendente de fim de jogo, devolve-o e remove do mapa
-        String lastResult = GoBangServer.getLastGameResults().get(nickname);
-        if (lastResult != null) {
-            sendMessage(CommandProtocol.formatMessage(lastResult));
-            GoBangServer.getLastGameResults().remove(nickname);
-            return;
-        }
-
-        if (player != null) {
-            Game game = GoBangServer.getSession().getGameByPlayer(player);
-            if (game != null) {
-            	Player current = game.getCurrentPlayer();
-                long jogadaInicio = game.getCurrentMoveStartMillis();
-                int tempoMaximo = game.getMaxMoveTimeSeconds();
-                int tempoRestante = tempoMaximo - (int)((System.currentTimeMillis() - jogadaInicio) / 1000);
-                if (tempoRestante <= 0 && !game.isGameOver()) {
-                    game.passTurnOnTimeout(current);
-                }
+        GameState state = GoBangServer.getGameService().getState(nickname);
+        switch (state.getStatus()) {
+            case PENDING_RESULT:
+                sendMessage(CommandProtocol.formatMessage(state.getPendingResult()));
+                break;
+            case PLAYING:
                 // Devolve info do jogo para o frontend
                 StringBuilder sb = new StringBuilder();
                 sb.append("JOGO INICIADO;");
-                sb.append("PLAYER1:").append(game.getPlayer1().getNickname()).append(";");
-                sb.append("PLAYER2:").append(game.getPlayer2().getNickname()).append(";");
-                sb.append("OPONENTE:").append(game.getOtherPlayer(player).getNickname()).append(";");
-                sb.append("TABULEIRO:");
-                char[][] board = game.getBoard();
-                for (int i = 0; i < board.length; i++) {
-                    for (int j = 0; j < board[i].length; j++) {
-                        sb.append(board[i][j]);
-                    }
-                    if (i < board.length - 1) sb.append("|");
+                sb.append("PLAYER1:").append(state.getPlayer1()).append(";");
+                sb.append("PLAYER2:").append(state.getPlayer2()).append(";");
+                sb.append("OPONENTE:").append(state.getOpponent()).append(";");
+                sb.append("TABULEIRO:").append(state.getBoardView().getCompact()).append(";"); // Em cache até à próxima jogada
+                sb.append("VERSAO:").append(state.getVersion()).append(";");
+                sb.append("JOGADAS:").append(state.getMoveCount()).append(";");
+                if (state.getLastMove() != null) {
+                    sb.append("ULTIMA:").append(state.getLastMove().getRow()).append(",").append(state.getLastMove().getCol()).append(";");
                 }
-                sb.append(";");
-                if (game.getCurrentPlayer().equals(player)) {
+                if (state.isYourTurn()) {
                     sb.append("SUA_VEZ;");
-                    sb.append("JOGADA_INICIO:").append(game.getCurrentMoveStartMillis()).append(";");
-                    sb.append("TEMPO_MAXIMO:").append(game.getMaxMoveTimeSeconds()).append(";");
+                    sb.append("JOGADA_INICIO:").append(state.getMoveStartMillis()).append(";");
+                    sb.append("TEMPO_MAXIMO:").append(state.getMaxMoveTimeSeconds()).append(";");
                 } else {
                     sb.append("AGUARDA");
                 }
                 sendMessage(CommandProtocol.formatMessage(sb.toString()));
-            } else if (GoBangServer.getSession().getWaitingPlayers().contains(player)) {
+                break;
+            case WAITING:
                 sendMessage(CommandProtocol.formatMessage("AGUARDANDO"));
-            } else {
+                break;
+            case NOT_IN_QUEUE:
                 sendMessage(CommandProtocol.formatMessage("NÃO_ESTÁS_NA_FILA"));
-            }
-        } else {
-            sendMessage(CommandProtocol.formatMessage("Jogador '" + nickname + "' não foi encontrado."));
+                break;
+            default:
+                sendMessage(CommandProtocol.formatMessage("Jogador '" + nickname + "' não foi encontrado."));
         }
     }
     
+
     /**
      * Adiciona o jogador à fila de espera para jogar.
      * Valida se já está num jogo ou na fila.
@@ -397,7 +738,7 @@ public class ClientHandler implements Runnable {
         }
         
         // Verifica se o jogador já está na fila de espera
-        if (GoBangServer.getSession().getWaitingPlayers().contains(player)) {
+        if (GoBangServer.getSession().isWaiting(player)) {
             sendMessage(CommandProtocol.formatMessage("Já estás na lista de espera. Aguarda..."));
             return;
         }
@@ -412,8 +753,7 @@ public class ClientHandler implements Runnable {
      * Marca o adversário como vencedor, termina o jogo e notifica ambos.
      * 
      * Ligações:
-     * - Usa GoBangServer.getLastGameResults() para polling.
-     * - Usa Game.getOtherPlayer() para identificar o adversário.
+     * - Usa GameService.surrender() (resultados para polling e notificação do adversário).
      */
     private void handleSurrender() { //NOVO -> PARA LIDAR COM DESISTÊNCIAS
         if (player == null) {
@@ -421,54 +761,44 @@ public class ClientHandler implements Runnable {
             return;
         }
         System.out.println("[DEBUG] handleSurrender chamado por " + player.getNickname());
-        Game game = GoBangServer.getSession().getGameByPlayer(player);
-        if (game != null && !game.isEnded()) {
-        	Player opponent = game.getOtherPlayer(player);
-            String opponentNick = opponent.getNickname();
-            ClientHandler opponentHandler = null;
-            for (ClientHandler ch : GoBangServer.getClients()) {
-                if (ch.getPlayer() != null && ch.getPlayer().getNickname().equals(opponentNick)) {
-                    opponentHandler = ch;
-                    break;
-                }
-            }
-            
-            // Define o adversário como vencedor ANTES de terminar o jogo
-            game.setWinner(opponent);
-
-            // Guarda resultado para polling
-            GoBangServer.getLastGameResults().put(player.getNickname(), "FIM DE JOGO! Desististe! Perdeste!");
-            GoBangServer.getLastGameResults().put(opponentNick, "FIM DE JOGO! O teu adversário desistiu. Ganhaste!");
-
-            // Termina o jogo primeiro
-            GoBangServer.getSession().endGame(game);
-
-            // Só depois de terminar o jogo, notifica ambos
+        if (GoBangServer.getGameService().surrender(player)) {
             sendMessage(CommandProtocol.formatMessage("FIM DE JOGO! Desististe! Perdeste!"));
-            if (opponentHandler != null) {
-                System.out.println("[DEBUG] Enviando mensagem de vitória para " + opponentNick);
-                opponentHandler.sendMessage(CommandProtocol.formatMessage("FIM DE JOGO! O teu adversário desistiu. Ganhaste!"));
-            } else {
-                System.out.println("[DEBUG] Não foi encontrado handler para " + opponentNick);
-            }
         } else {
             sendMessage(CommandProtocol.formatMessage("Não estás num jogo ativo."));
         }
     }
     
+
     /**
      * Inicia um novo jogo entre dois jogadores específicos (convite).
      * Garante que não existe já um jogo entre os dois.
      * Notifica ambos os jogadores com o ID do novo jogo.
+     * Parâmetros opcionais: tamanho do tabuleiro, peças para ganhar e segundos por jogada
+     * (ex: "/startgame ana rui 19 5 60"); os que faltarem vêm de GameRules.defaults().
      */
     private void handleStartGame(Map<String, String> params) { //NOVO -> PARA LIDAR COM CONVITES
     	if (!params.containsKey("param1") || !params.containsKey("param2")) {
-            sendMessage(CommandProtocol.formatMessage("Uso: /startgame jogador1 jogador2"));
+            sendMessage(CommandProtocol.formatMessage("Uso: /startgame jogador1 jogador2 [tamanho] [peças] [segundos]"));
             return;
         }
         String nick1 = params.get("param1");
         String nick2 = params.get("param2");
 
+        GameRules defaults = GameRules.defaults();
+        GameRules rules;
+        try {
+            rules = new GameRules(
+                    params.containsKey("param3") ? Integer.parseInt(params.get("param3")) : defaults.getSize(),
+                    params.containsKey("param4") ? Integer.parseInt(params.get("param4")) : defaults.getWinLength(),
+                    params.containsKey("param5") ? Integer.parseInt(params.get("param5")) : defaults.getMoveTimeSeconds());
+        } catch (NumberFormatException e) {
+            sendMessage(CommandProtocol.formatMessage("Tamanho, peças e segundos devem ser números."));
+            return;
+        } catch (IllegalArgumentException e) {
+            sendMessage(CommandProtocol.formatMessage(e.getMessage()));
+            return;
+        }
+
         Player p1 = GoBangServer.getPlayers().get(nick1);
         Player p2 = GoBangServer.getPlayers().get(nick2);
 
@@ -494,15 +824,16 @@ public class ClientHandler implements Runnable {
             return;
         }
 
-        Game newGame = new game.Game(p1, p2);
+        Game newGame = new game.Game(p1, p2, rules);
         GoBangServer.getSession().addGameForPlayers(p1, p2, newGame);
 
         // Retorna o ID do jogo criado
         sendMessage("GAMEID:" + newGame.getId());
 
-        // Notifica ambos os jogadores
-        String msg1 = "JOGO INICIADO;OPONENTE:" + p2.getNickname() + ";PLAYER1:" + p1.getNickname() + ";PLAYER2:" + p2.getNickname() + ";TABULEIRO:" + boardToString(newGame.getBoard()) + ";SUA_VEZ";
-        String msg2 = "JOGO INICIADO;OPONENTE:" + p1.getNickname() + ";PLAYER1:" + p1.getNickname() + ";PLAYER2:" + p2.getNickname() + ";TABULEIRO:" + boardToString(newGame.getBoard()) + ";AGUARDA";
+        // Notifica ambos os jogadores (o tabuleiro é serializado uma vez para as duas mensagens)
+        String tabuleiro = newGame.getBoardView().getCompact();
+        String msg1 = "JOGO INICIADO;OPONENTE:" + p2.getNickname() + ";PLAYER1:" + p1.getNickname() + ";PLAYER2:" + p2.getNickname() + ";TABULEIRO:" + tabuleiro + ";SUA_VEZ";
+        String msg2 = "JOGO INICIADO;OPONENTE:" + p1.getNickname() + ";PLAYER1:" + p1.getNickname() + ";PLAYER2:" + p2.getNickname() + ";TABULEIRO:" + tabuleiro + ";AGUARDA";
         GoBangServer.notifyPlayers(p1, p2, msg1, msg2);
     }
     
@@ -512,77 +843,110 @@ public class ClientHandler implements Runnable {
      * Caso contrário, envia "timeout_ignored".
      * 
      * Ligações:
-     * - Usa Game.passTurnOnTimeout().
+     * - Usa GameService.timeout() (Game.passTurnOnTimeout()).
      */
     private void handleTimeout() { //NOVO -> PARA LIDAR COM O TEMPORIZADOR CHEGAR A 0s
-        Game game = GoBangServer.getSession().getGameByPlayer(player);
-        if (game != null && game.getCurrentPlayer().equals(player)) {
-            game.passTurnOnTimeout(player);
+        if (GoBangServer.getGameService().timeout(player)) {
             sendMessage(CommandProtocol.formatMessage("refresh"));
         } else {
             sendMessage(CommandProtocol.formatMessage("timeout_ignored"));
         }
     }
     
+
     /**
      * Devolve a lista de jogos ativos do jogador, com tempo restante e se é a sua vez.
      * Também trata timeouts automáticos.
      * 
      * Ligações:
-     * - Usa Game.passTurnOnTimeout() se o tempo esgotou.
+     * - Usa GameService.getGames() e formata cada GameSummary como "GAMEID:...;OPONENTE:...;SUA_VEZ:...;TEMPO:...;".
      */
     private void handleGetGames(Map<String, String> params) {
         if (!params.containsKey("param1")) {
             sendMessage(CommandProtocol.formatMessage("Formato inválido! Use: /getgames nickname"));
             return;
         }
-        String nickname = params.get("param1");
-        List<Game> games = GoBangServer.getSession().getGamesForPlayer(nickname);
+        List<GameSummary> games = GoBangServer.getGameService().getGames(params.get("param1"));
         if (games.isEmpty()) {
             sendMessage(CommandProtocol.formatMessage("NO_GAMES"));
             return;
         }
         StringBuilder sb = new StringBuilder();
-        for (Game game : games) {
-            Player opponent = game.getOtherPlayer(GoBangServer.getPlayers().get(nickname));
-            boolean isCurrent = game.getCurrentPlayer().getNickname().equals(nickname);
-            long jogadaInicio = game.getCurrentMoveStartMillis();
-            int tempoMaximo = game.getMaxMoveTimeSeconds();
-            int tempoRestante = tempoMaximo - (int)((System.currentTimeMillis() - jogadaInicio) / 1000);
-
-            // Se o tempo esgotou e o jogo não acabou, passa o turno
-            if (tempoRestante <= 0 && !game.isGameOver()) {
-                game.passTurnOnTimeout(game.getCurrentPlayer());
-                // Atualiza para o novo jogador e tempo
-                isCurrent = game.getCurrentPlayer().getNickname().equals(nickname);
-                jogadaInicio = game.getCurrentMoveStartMillis();
-                tempoRestante = tempoMaximo - (int)((System.currentTimeMillis() - jogadaInicio) / 1000);
-                if (tempoRestante < 0) tempoRestante = 0;
-            }
-            if (tempoRestante < 0) tempoRestante = 0;
-
+        for (GameSummary game : games) {
             // Adiciona as informações deste jogo ao sb
-            sb.append("GAMEID:").append(game.getId())
-              .append(";OPONENTE:").append(opponent.getNickname())
-              .append(";SUA_VEZ:").append(isCurrent)
-              .append(";TEMPO:").append(tempoRestante)
+            sb.append("GAMEID:").append(game.getGameId())
+              .append(";OPONENTE:").append(game.getOpponent())
+              .append(";SUA_VEZ:").append(game.isYourTurn())
+              .append(";TEMPO:").append(game.getSecondsLeft())
               .append(";");
         }
         sendMessage(CommandProtocol.formatMessage(sb.toString()));
     }
 
     /**
-     * Converte o tabuleiro para string (usado em notificações).
+     * Reenvia o estado completo de um jogo (snapshot), para clientes que perderam jogadas
+     * (salto no seq das notificações "JOGADA;...") ou que acabaram de abrir o jogo.
+     * Sem gameId, usa o jogo ativo do jogador.
+     * 
+     * Ligações:
+     * - Usa SessionManager.getGameById()/getGameByPlayer() e GameService.snapshot().
      */
-    private String boardToString(char[][] board) {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < board.length; i++) {
-            for (int j = 0; j < board[i].length; j++) {
-                sb.append(board[i][j]);
-            }
-            if (i < board.length - 1) sb.append("|");
+    private void handleResync(Map<String, String> params) {
+        if (player == null) {
+            sendMessage(CommandProtocol.formatMessage("Faça login primeiro!"));
+            return;
+        }
+        Game game = params.containsKey("param1")
+                ? GoBangServer.getSession().getGameById(player.getNickname(), params.get("param1"))
+                : GoBangServer.getSession().getGameByPlayer(player);
+        if (game == null) {
+            sendMessage(CommandProtocol.formatMessage("Você não está num jogo ativo!"));
+            return;
+        }
+        sendMessage(GoBangServer.getGameService().snapshot(game));
+    }
+
+    /**
+     * Dicas para o jogo ativo do jogador: as melhores jogadas com o valor de cada uma (CommandProtocol.formatHints()).
+     * Não espera pela pesquisa: a thread do pedido (no modo NIO, um worker partilhado pelas ligações) fica logo livre.
+     * Se a posição estiver na cache do HintService responde logo; senão responde "pendente" e as dicas chegam
+     * como notificação quando a pesquisa acabar.
+     * 
+     * Ligações:
+     * - Usa GameService.hint() (HintService, pool própria).
+     */
+    private void handleHint(Map<String, String> params) {
+        if (player == null) {
+            sendMessage(CommandProtocol.formatMessage("Faça login primeiro!"));
+            return;
+        }
+        if (!HintService.ENABLED) {
+            sendMessage(CommandProtocol.formatMessage("As dicas estão desligadas neste servidor."));
+            return;
+        }
+        Game game = GoBangServer.getSession().getGameByPlayer(player);
+        CompletableFuture<Analysis> hints = GoBangServer.getGameService().hint(game, player);
+        if (hints == null) {
+            sendMessage(CommandProtocol.formatMessage("Você não está num jogo ativo!"));
+            return;
+        }
+        int count = 3;
+        try {
+            if (params.containsKey("param1")) count = Integer.parseInt(params.get("param1"));
+        } catch (NumberFormatException e) {
+            // Mantém o número por omissão
+        }
+        int limit = Math.max(1, Math.min(count, HintService.MAX_COUNT));
+        String gameId = game.getId();
+        int seq = game.getMoveCount();
+        if (hints.isDone() && !hints.isCompletedExceptionally()) {
+            sendMessage(CommandProtocol.formatHints(gameId, seq, hints.join().limit(limit)));
+            return;
         }
-        return sb.toString();
+        sendMessage(CommandProtocol.formatHintsPending(gameId, seq));
+        hints.whenComplete((analysis, error) -> sendMessage(analysis != null
+                ? CommandProtocol.formatHints(gameId, seq, analysis.limit(limit))
+                : CommandProtocol.formatMessage("Dicas indisponíveis de momento (servidor ocupado).")));
     }
     
     /**
@@ -609,17 +973,23 @@ public class ClientHandler implements Runnable {
                     GoBangServer.getSession().endGame(activeGame); // Encerra o jogo
                 }
             }
-            if (!socket.isClosed()) {
-                out.println(CommandProtocol.formatMessage("A desconectar do servidor...")); // Mensagem final para o cliente
-                out.close();
-                in.close();
-                socket.close(); // Fecha o socket completamente
+            if (parent != null) {
+                // Sessão multiplexada: a ligação do gateway continua aberta para os outros jogadores
+                sendMessage(CommandProtocol.formatMessage("A desconectar do servidor..."));
+            } else if (connection != null) {
+                // Modo NIO: a mensagem final é escrita pelo EventLoop antes de fechar o canal
+                sendMessage(CommandProtocol.formatMessage("A desconectar do servidor..."));
+                connection.closeGracefully();
+            } else if (!socket.isClosed()) {
+                sendMessage(CommandProtocol.formatMessage("A desconectar do servidor...")); // Mensagem final para o cliente
+                out.closeGracefully(); // Escreve o que está pendente e fecha o socket
+                if (in != null) in.close(); // null no protocolo binário (lê tramas, não linhas)
             }
         } catch (IOException e) {
             System.err.println(CommandProtocol.formatMessage("Erro ao desconectar: " + e.getMessage()));
         } finally {
-            // Remover este handler da lista global de clientes
-            GoBangServer.getClients().remove(this);
+            // Remover este handler do registo global de ligações
+            GoBangServer.getConnections().unregister(this);
         }
     }
     
@@ -2,8 +2,13 @@ package client;
 
 import java.io.*;
 import java.net.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
+import protocol.BinaryProtocol;
 import protocol.CommandProtocol;
+import service.GameState;
 
 /**
  * Classe principal do cliente GoBang.
@@ -17,12 +22,19 @@ import protocol.CommandProtocol;
  * - Comunica com o servidor, que por sua vez usa ClientHandler para cada cliente.
  * - O servidor espera comandos como /login, /register, /move, etc.
  * - O método main é o ponto de entrada da aplicação cliente.
+ * - Com o argumento "binario" usa o BinaryProtocol em vez do protocolo de texto (ver runBinary()).
+ * - Mantém uma cópia local do tabuleiro de cada jogo: o servidor envia o estado completo (SNAPSHOT) no início
+ *   e depois só as jogadas (JOGADA); se faltar alguma jogada (salto no seq), pede /resync.
  */
 public class GoBangClient {
 	// IP e porta do servidor (pode ser alterado conforme necessário)
     private static final String SERVER_IP = "26.106.140.96"; //substituir pelo IP do servidor
     private static final int PORT = 1234;
 
+    // Tabuleiro e seq (número da última jogada conhecida) de cada jogo, por gameId
+    private static final Map<String, char[][]> boards = new ConcurrentHashMap<>();
+    private static final Map<String, Integer> seqs = new ConcurrentHashMap<>();
+
     /**
      * Ponto de entrada do cliente.
      * Estabelece ligação ao servidor, cria fluxos de comunicação e gere o ciclo principal.
@@ -44,6 +56,10 @@ public class GoBangClient {
             PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
             BufferedReader stdIn = new BufferedReader(new InputStreamReader(System.in));
+            if (args.length > 0 && args[0].equals("binario")) {
+                runBinary(socket, stdIn);
+                return;
+            }
 
             // Thread para receber mensagens do servidor e mostrar ao utilizador
             // Utiliza CommandProtocol.formatMessage para formatação
@@ -56,7 +72,9 @@ public class GoBangClient {
                             System.out.println(serverResponse);
                             System.exit(0);
                         }
-                        System.out.println(CommandProtocol.formatMessage(serverResponse));
+                        if (!handleGameLine(serverResponse, gameId -> out.println("/resync " + gameId))) {
+                            System.out.println(CommandProtocol.formatMessage(serverResponse));
+                        }
                         System.out.print("> ");
                     }
                 } catch (IOException e) {
@@ -85,6 +103,217 @@ public class GoBangClient {
             System.err.println(CommandProtocol.formatMessage("Erro ao conectar ao servidor: " + e.getMessage()));
         }
     }
+
+    /**
+     * Ciclo do cliente no protocolo binário (mesmos comandos para o utilizador).
+     * /login, /move e /get usam os opcodes próprios (respostas tipadas, tabuleiro compactado);
+     * os restantes comandos vão numa trama TEXT e as respostas chegam em texto.
+     * 
+     * Ligações:
+     * - BinaryProtocol: preâmbulo, leitura e escrita das tramas.
+     * - ClientHandler.handleFrame(): lado do servidor.
+     */
+    private static void runBinary(Socket socket, BufferedReader stdIn) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        out.write(BinaryProtocol.handshake());
+        out.flush();
+        Consumer<String> resync = gameId -> {
+            BinaryProtocol.FrameWriter request = new BinaryProtocol.FrameWriter(BinaryProtocol.OP_TEXT, 0);
+            try {
+                request.data.writeUTF("/resync " + gameId);
+                synchronized (out) {
+                    out.write(request.frame());
+                    out.flush();
+                }
+            } catch (IOException e) {
+                System.out.println(CommandProtocol.formatMessage("Conexão com o servidor perdida."));
+            }
+        };
+
+        // Thread para receber tramas do servidor e mostrar ao utilizador
+        new Thread(() -> {
+            try {
+                BinaryProtocol.Frame frame;
+                while ((frame = BinaryProtocol.readFrame(in)) != null) {
+                    showFrame(frame, resync);
+                }
+            } catch (IOException e) {
+                System.out.println(CommandProtocol.formatMessage("Conexão com o servidor perdida."));
+            }
+            System.exit(0);
+        }).start();
+
+        System.out.println("Bem-vindo/a ao GoBang (5 em linha), protocolo binário." + "\n" +
+                            "Para fazeres login, faz /login nickname password" + "\n" +
+                            "Se quiseres mais comandos, faz /comandos");
+        int nextId = 1;
+        String userInput;
+        while ((userInput = stdIn.readLine()) != null) {
+            if (!CommandProtocol.isValidCommand(userInput)) {
+                System.out.println(CommandProtocol.formatMessage("Comando inválido!"));
+                continue;
+            }
+            String[] parts = userInput.trim().split("\\s+");
+            BinaryProtocol.FrameWriter frame;
+            try {
+                if (parts[0].equals("/login") && parts.length == 3) {
+                    frame = new BinaryProtocol.FrameWriter(BinaryProtocol.OP_LOGIN, nextId++);
+                    frame.data.writeUTF(parts[1]);
+                    frame.data.writeUTF(parts[2]);
+                } else if (parts[0].equals("/move") && parts.length == 3) {
+                    frame = new BinaryProtocol.FrameWriter(BinaryProtocol.OP_MOVE, nextId++);
+                    frame.data.writeByte(Integer.parseInt(parts[1]));
+                    frame.data.writeByte(Integer.parseInt(parts[2]));
+                } else if (parts[0].equals("/get")) {
+                    frame = new BinaryProtocol.FrameWriter(BinaryProtocol.OP_STATE, nextId++);
+                } else {
+                    frame = new BinaryProtocol.FrameWriter(BinaryProtocol.OP_TEXT, nextId++);
+                    frame.data.writeUTF(userInput);
+                }
+            } catch (NumberFormatException e) {
+                System.out.println(CommandProtocol.formatMessage("Coordenadas inválidas! Use números."));
+                continue;
+            }
+            synchronized (out) {
+                out.write(frame.frame());
+                out.flush();
+            }
+        }
+    }
+
+    /**
+     * Trata as linhas de estado do jogo (protocolos de texto e binário):
+     * - SNAPSHOT: substitui o tabuleiro local do jogo e mostra-o.
+     * - JOGADA: aplica a jogada ao tabuleiro local (ver applyMove()).
+     * - VEZ: a vez passou por tempo (temporizador do servidor).
+     * @return false se a linha não é uma destas (deve ser mostrada tal como está)
+     */
+    private static boolean handleGameLine(String line, Consumer<String> resync) {
+        String[] snapshot = CommandProtocol.parseSnapshot(line);
+        if (snapshot != null) {
+            char[][] board = CommandProtocol.parseBoard(snapshot[5]);
+            boards.put(snapshot[0], board);
+            seqs.put(snapshot[0], Integer.parseInt(snapshot[1]));
+            System.out.println("Jogo " + snapshot[0] + ": " + snapshot[2] + " (X) contra " + snapshot[3] + " (O)"
+                    + ("-".equals(snapshot[4]) ? "" : ", joga " + snapshot[4]));
+            System.out.print(renderBoard(board));
+            System.out.print("> ");
+            return true;
+        }
+        String[] move = CommandProtocol.parseMoveDelta(line);
+        if (move != null) {
+            applyMove(move[0], Integer.parseInt(move[1]), Integer.parseInt(move[2]), Integer.parseInt(move[3]),
+                    move[4].charAt(0), move[5], resync);
+            return true;
+        }
+        String[] turn = CommandProtocol.parseTurnPassed(line);
+        if (turn != null) {
+            System.out.println("Tempo esgotado no jogo " + turn[0] + ", joga " + turn[2]);
+            System.out.print("> ");
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Aplica uma jogada ao tabuleiro local e mostra-o.
+     * Se o seq não for o seguinte ao último conhecido (jogada perdida, ou jogo ainda sem snapshot), pede /resync.
+     */
+    private static void applyMove(String gameId, int seq, int row, int col, char symbol, String nextPlayer,
+                                  Consumer<String> resync) {
+        char[][] board = boards.get(gameId);
+        Integer known = seqs.get(gameId);
+        if (board == null || known == null || seq != known + 1) {
+            resync.accept(gameId);
+            return;
+        }
+        board[row][col] = symbol;
+        seqs.put(gameId, seq);
+        System.out.println("Jogada " + seq + ": " + symbol + " em (" + row + ", " + col + ")"
+                + ("-".equals(nextPlayer) ? "" : ", joga " + nextPlayer));
+        System.out.print(renderBoard(board));
+        System.out.print("> ");
+    }
+
+    /**
+     * Desenha um tabuleiro com os números das linhas e colunas (feito no cliente, não no servidor).
+     */
+    private static String renderBoard(char[][] board) {
+        StringBuilder sb = new StringBuilder("   ");
+        for (int col = 0; col < board.length; col++) {
+            sb.append(String.format("%2d", col));
+        }
+        sb.append('\n');
+        for (int row = 0; row < board.length; row++) {
+            sb.append(String.format("%2d ", row));
+            for (char cell : board[row]) {
+                sb.append(' ').append(cell);
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Mostra uma trama recebida no protocolo binário.
+     * @param resync Pede o snapshot de um jogo (trama TEXT "/resync gameId")
+     */
+    private static void showFrame(BinaryProtocol.Frame frame, Consumer<String> resync) throws IOException {
+        switch (frame.opcode) {
+            case BinaryProtocol.OP_TEXT:
+            case BinaryProtocol.OP_EVENT:
+            case BinaryProtocol.OP_ERROR:
+                String text = frame.data.readUTF();
+                if (handleGameLine(text, resync)) {
+                    return; // Snapshot/jogada já mostrados
+                }
+                System.out.println(CommandProtocol.formatMessage(text));
+                if (text.equals("A desconectar do servidor...")) {
+                    System.exit(0);
+                }
+                break;
+            case BinaryProtocol.OP_LOGIN:
+                System.out.println(CommandProtocol.formatMessage(frame.data.readBoolean() ? "Login bem-sucedido!" : "Falha no login!"));
+                break;
+            case BinaryProtocol.OP_MOVE:
+                frame.data.readUnsignedByte(); // Estado (MoveResult.Status), já refletido nos textos
+                String result = frame.data.readUTF();
+                String finalMessage = frame.data.readUTF();
+                System.out.println(CommandProtocol.formatMessage(finalMessage.isEmpty() ? "RESULTADO: " + result : finalMessage));
+                break;
+            case BinaryProtocol.OP_STATE:
+                showState(BinaryProtocol.readState(frame.data));
+                break;
+            case BinaryProtocol.OP_MOVE_EVENT:
+                String gameId = frame.data.readUTF();
+                int seq = frame.data.readInt();
+                int row = frame.data.readUnsignedByte();
+                int col = frame.data.readUnsignedByte();
+                char symbol = (char) frame.data.readUnsignedByte();
+                applyMove(gameId, seq, row, col, symbol, frame.data.readUTF(), resync);
+                return; // applyMove() já mostra o tabuleiro
+            default:
+                return; // END: fim da resposta a um comando TEXT
+        }
+        System.out.print("> ");
+    }
+
+    /**
+     * Desenha o estado do jogo recebido numa trama STATE.
+     */
+    private static void showState(GameState state) {
+        if (state.getStatus() == GameState.Status.PENDING_RESULT) {
+            System.out.println(CommandProtocol.formatMessage(state.getPendingResult()));
+            return;
+        }
+        if (state.getStatus() != GameState.Status.PLAYING) {
+            System.out.println(CommandProtocol.formatMessage(state.getStatus().toString()));
+            return;
+        }
+        System.out.println("Jogo contra " + state.getOpponent() + (state.isYourTurn() ? " (é a tua vez)" : " (vez do adversário)"));
+        System.out.print(renderBoard(state.getBoard()));
+    }
 }
 
 /*
@@ -94,5 +323,6 @@ UTILIZAÇÕES E LIGAÇÕES:
 - Comunica com GoBangServer (src/server/GoBangServer.java) via socket TCP.
 - O servidor cria um ClientHandler (src/client/ClientHandler.java) para cada cliente.
 - Os comandos enviados pelo cliente são processados por ClientHandler, que interage com Player, Game, etc.
+- Modo "binario": usa BinaryProtocol (src/protocol/BinaryProtocol.java); o servidor deteta-o pelo primeiro byte.
 - As respostas do servidor podem ser mensagens de erro, estado do jogo, notificações de vitória/empate, etc.
 */
@@ -0,0 +1,125 @@
+package game;
+
+/**
+ * Tabuleiro guardado numa matriz char[][].
+ * A vitória é procurada a partir da última peça, casa a casa, nas quatro direções
+ * (o algoritmo que Game usava antes de existir a interface Board).
+ *
+ * Ligações:
+ * - Usado por Game com gobang.board=array, e por benchmark.BoardBenchmark como referência.
+ */
+public class ArrayBoard implements Board {
+    private final char[][] cells; // Matriz do tabuleiro ('.' = vazio, 'X'/'O' = peças)
+    private final int winLength;
+    private int stones = 0; // Peças no tabuleiro (isFull() sem percorrer as casas)
+
+    public ArrayBoard(int size) {
+        this(size, DEFAULT_WIN_LENGTH);
+    }
+
+    public ArrayBoard(int size, int winLength) {
+        this.winLength = winLength;
+        cells = new char[size][size];
+        for (char[] row : cells) {
+            java.util.Arrays.fill(row, EMPTY);
+        }
+    }
+
+    @Override
+    public int size() {
+        return cells.length;
+    }
+
+    @Override
+    public int winLength() {
+        return winLength;
+    }
+
+    @Override
+    public char get(int row, int col) {
+        return cells[row][col];
+    }
+
+    @Override
+    public void place(int row, int col, char symbol) {
+        cells[row][col] = symbol;
+        stones++;
+    }
+
+    @Override
+    public void remove(int row, int col) {
+        cells[row][col] = EMPTY;
+        stones--;
+    }
+
+    /**
+     * Procura winLength peças consecutivas do mesmo símbolo em todas as direções a partir de (row, col).
+     */
+    @Override
+    public boolean isWinningMove(int row, int col) {
+        char symbol = cells[row][col];
+        if (symbol == EMPTY) return false;
+        return checkDirection(row, col, 1, 0, symbol) ||  // Vertical
+               checkDirection(row, col, 0, 1, symbol) ||  // Horizontal
+               checkDirection(row, col, 1, 1, symbol) ||  // Diagonal \
+               checkDirection(row, col, 1, -1, symbol);   // Diagonal /
+    }
+
+    /**
+     * Conta peças consecutivas do mesmo símbolo para ambos os lados de (row, col).
+     * @return true se encontrou winLength ou mais consecutivas
+     */
+    private boolean checkDirection(int row, int col, int rowDir, int colDir, char symbol) {
+        int count = 1;
+        count += countInDirection(row, col, rowDir, colDir, symbol);
+        count += countInDirection(row, col, -rowDir, -colDir, symbol);
+        return count >= winLength;
+    }
+
+    /**
+     * Conta peças consecutivas numa direção a partir de (row, col), sem contar a própria casa.
+     */
+    private int countInDirection(int row, int col, int rowDir, int colDir, char symbol) {
+        int size = cells.length;
+        int count = 0;
+        int r = row + rowDir;
+        int c = col + colDir;
+        while (r >= 0 && r < size && c >= 0 && c < size && cells[r][c] == symbol) {
+            count++;
+            r += rowDir;
+            c += colDir;
+        }
+        return count;
+    }
+
+    @Override
+    public boolean isFull() {
+        return stones == cells.length * cells.length;
+    }
+
+    @Override
+    public int[] stones() {
+        int[] result = new int[stones];
+        int n = 0;
+        for (int r = 0; r < cells.length; r++) {
+            for (int c = 0; c < cells.length; c++) {
+                if (cells[r][c] != EMPTY) result[n++] = Board.stone(r, c, cells[r][c]);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public char[][] toArray() {
+        char[][] copy = new char[cells.length][];
+        for (int i = 0; i < cells.length; i++) {
+            copy[i] = cells[i].clone();
+        }
+        return copy;
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- Board.create() (gobang.board=array) e benchmark.BoardBenchmark.
+*/
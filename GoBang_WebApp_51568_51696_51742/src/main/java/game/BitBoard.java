@@ -0,0 +1,159 @@
+package game;
+
+/**
+ * Tabuleiro guardado em bits: para cada jogador, um long por linha, por coluna e por cada diagonal,
+ * com um bit por casa. As casas seguidas de uma linha/coluna/diagonal são bits seguidos, por isso
+ * "5 em linha" numa delas é simplesmente: x & (x >> 1) & (x >> 2) & (x >> 3) & (x >> 4) != 0
+ * (com winLength - 1 shifts para outras regras).
+ * Uma jogada só pode criar 5 em linha nas 4 linhas que passam por ela: isWinningMove() faz 4 destes testes,
+ * sem percorrer casas.
+ *
+ * Índices (n = tamanho):
+ * - linhas[r], bit c;  colunas[c], bit r;
+ * - diagonais "\" [r - c + n - 1], bit c;  diagonais "/" [r + c], bit c.
+ * Limite: n <= MAX_SIZE = 64 (um long por linha); Board.create() usa SparseBoard acima disso.
+ *
+ * Ligações:
+ * - Implementação por omissão de Board (Board.create(), gobang.board=bitboard).
+ * - benchmark.BoardBenchmark compara-a com ArrayBoard.
+ */
+public class BitBoard implements Board {
+    public static final int MAX_SIZE = 64; // Bits de um long
+    private static final int X = 0; // Índice do jogador 'X' nos arrays
+    private static final int O = 1; // Índice do jogador 'O'
+
+    private final int size;
+    private final int winLength;
+    private final long[][] rows;      // [jogador][linha]
+    private final long[][] cols;      // [jogador][coluna]
+    private final long[][] diagonals; // [jogador][r - c + size - 1], diagonal "\"
+    private final long[][] antiDiagonals; // [jogador][r + c], diagonal "/"
+    private int stones = 0; // Peças no tabuleiro
+
+    public BitBoard(int size) {
+        this(size, DEFAULT_WIN_LENGTH);
+    }
+
+    public BitBoard(int size, int winLength) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("BitBoard suporta tabuleiros até " + MAX_SIZE + "x" + MAX_SIZE + ": " + size);
+        }
+        this.size = size;
+        this.winLength = winLength;
+        this.rows = new long[2][size];
+        this.cols = new long[2][size];
+        this.diagonals = new long[2][2 * size - 1];
+        this.antiDiagonals = new long[2][2 * size - 1];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int winLength() {
+        return winLength;
+    }
+
+    @Override
+    public char get(int row, int col) {
+        long bit = 1L << col;
+        if ((rows[X][row] & bit) != 0) return 'X';
+        if ((rows[O][row] & bit) != 0) return 'O';
+        return EMPTY;
+    }
+
+    @Override
+    public void place(int row, int col, char symbol) {
+        int p = symbol == 'X' ? X : O;
+        rows[p][row] |= 1L << col;
+        cols[p][col] |= 1L << row;
+        diagonals[p][row - col + size - 1] |= 1L << col;
+        antiDiagonals[p][row + col] |= 1L << col;
+        stones++;
+    }
+
+    @Override
+    public void remove(int row, int col) {
+        int p = get(row, col) == 'X' ? X : O;
+        rows[p][row] &= ~(1L << col);
+        cols[p][col] &= ~(1L << row);
+        diagonals[p][row - col + size - 1] &= ~(1L << col);
+        antiDiagonals[p][row + col] &= ~(1L << col);
+        stones--;
+    }
+
+    @Override
+    public boolean isWinningMove(int row, int col) {
+        char symbol = get(row, col);
+        if (symbol == EMPTY) return false;
+        int p = symbol == 'X' ? X : O;
+        return hasRunThrough(rows[p][row], col)
+                || hasRunThrough(cols[p][col], row)
+                || hasRunThrough(diagonals[p][row - col + size - 1], col)
+                || hasRunThrough(antiDiagonals[p][row + col], col);
+    }
+
+    /**
+     * Indica se a linha de bits tem winLength bits seguidos que incluem o bit "pos".
+     * Depois dos AND, cada bit i de "runs" a 1 marca uma sequência que começa em i;
+     * as que passam por pos começam entre pos - (winLength - 1) e pos.
+     * As sequências são duplicadas a cada AND (1, 2, 4... bits), por isso 5 em linha são 3 AND e não 4.
+     */
+    private boolean hasRunThrough(long line, int pos) {
+        long runs = line;
+        int length = 1; // Cada bit a 1 de runs começa uma sequência de "length" peças
+        while (length * 2 <= winLength) {
+            runs &= runs >>> length;
+            length *= 2;
+        }
+        if (length < winLength) {
+            runs &= runs >>> (winLength - length);
+        }
+        int from = Math.max(0, pos - (winLength - 1));
+        long window = (-1L >>> (63 - (pos - from))) << from; // Bits from..pos
+        return (runs & window) != 0;
+    }
+
+    @Override
+    public boolean isFull() {
+        return stones == size * size;
+    }
+
+    /**
+     * Percorre só os bits a 1 de cada linha: custo proporcional ao número de linhas mais o de peças.
+     */
+    @Override
+    public int[] stones() {
+        int[] result = new int[stones];
+        int n = 0;
+        for (int r = 0; r < size; r++) {
+            for (int p = X; p <= O; p++) {
+                long line = rows[p][r];
+                while (line != 0) {
+                    result[n++] = Board.stone(r, Long.numberOfTrailingZeros(line), p == X ? 'X' : 'O');
+                    line &= line - 1; // Apaga o bit mais baixo
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public char[][] toArray() {
+        char[][] copy = new char[size][size];
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                copy[r][c] = get(r, c);
+            }
+        }
+        return copy;
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- Board.create() (implementação por omissão) e benchmark.BoardBenchmark.
+- Game.processMove(): place() + isWinningMove() a cada jogada.
+*/
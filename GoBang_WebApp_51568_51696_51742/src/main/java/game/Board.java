@@ -0,0 +1,105 @@
+package game;
+
+/**
+ * Tabuleiro de um jogo de GoBang (casas vazias '.', peças 'X' e 'O').
+ * Separa a representação do tabuleiro das regras do jogo (turnos, tempos, resultado), que ficam em Game.
+ *
+ * Implementações:
+ * - ArrayBoard: matriz char[][]; a vitória é procurada casa a casa nas quatro direções (algoritmo original de Game).
+ * - BitBoard: bits por jogador em cada linha, coluna e diagonal; a vitória é detetada com meia dúzia de AND/shift.
+ * - SparseBoard: só as casas ocupadas (tabela de dispersão), para tabuleiros grandes.
+ * A implementação usada pelos jogos é escolhida com gobang.board = bitboard (omissão) | array | sparse;
+ * tabuleiros maiores que BitBoard.MAX_SIZE usam sempre SparseBoard em vez de BitBoard.
+ * O número de peças seguidas para ganhar é de cada tabuleiro (GameRules.getWinLength()).
+ *
+ * As peças podem ser listadas com stones(), cada uma codificada num int (ver stone()): serializar um tabuleiro
+ * grande custa o número de peças e não a área.
+ *
+ * Ligações:
+ * - Game.processMove() usa place() e isWinningMove(); Game.getBoard() usa toArray().
+ *   (O empate é decidido pelo contador de casas vazias de Game; isFull() serve bots e benchmarks.)
+ * - benchmark.BoardBenchmark compara as duas implementações.
+ */
+public interface Board {
+    char EMPTY = '.';
+    int DEFAULT_WIN_LENGTH = 5; // Peças seguidas necessárias para ganhar no GoBang clássico
+
+    /**
+     * Cria um tabuleiro vazio com a implementação configurada (gobang.board).
+     */
+    static Board create(int size, int winLength) {
+        String type = System.getProperty("gobang.board", "bitboard");
+        if ("array".equalsIgnoreCase(type)) {
+            return new ArrayBoard(size, winLength);
+        }
+        if ("sparse".equalsIgnoreCase(type) || size > BitBoard.MAX_SIZE) {
+            return new SparseBoard(size, winLength);
+        }
+        return new BitBoard(size, winLength);
+    }
+
+    /**
+     * Codifica uma peça num int: linha nos bits 16-23, coluna nos bits 8-15, símbolo nos bits 0-7.
+     */
+    static int stone(int row, int col, char symbol) {
+        return row << 16 | col << 8 | symbol;
+    }
+
+    static int stoneRow(int stone) { return stone >>> 16; }
+    static int stoneCol(int stone) { return (stone >>> 8) & 0xFF; }
+    static char stoneSymbol(int stone) { return (char) (stone & 0xFF); }
+
+    /**
+     * Número de linhas (e de colunas) do tabuleiro.
+     */
+    int size();
+
+    /**
+     * Peças seguidas necessárias para ganhar.
+     */
+    int winLength();
+
+    /**
+     * Conteúdo de uma casa: EMPTY, 'X' ou 'O'.
+     */
+    char get(int row, int col);
+
+    /**
+     * Coloca uma peça numa casa vazia (a validação da jogada é feita por Game.processMove()).
+     */
+    void place(int row, int col, char symbol);
+
+    /**
+     * Retira a peça de uma casa ocupada (anular jogadas: Game.undoLastMove(), pesquisa dos bots).
+     */
+    void remove(int row, int col);
+
+    /**
+     * Indica se a peça em (row, col) faz parte de winLength() ou mais peças seguidas do mesmo símbolo
+     * (na horizontal, vertical ou numa das diagonais).
+     */
+    boolean isWinningMove(int row, int col);
+
+    /**
+     * Indica se não há casas vazias.
+     */
+    boolean isFull();
+
+    /**
+     * Peças no tabuleiro, codificadas com stone() (a ordem não é garantida).
+     */
+    int[] stones();
+
+    /**
+     * Cópia do tabuleiro como matriz (alterá-la não altera o tabuleiro).
+     */
+    char[][] toArray();
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- Game: guarda um Board por jogo (criado com Board.create()).
+- ArrayBoard/BitBoard/SparseBoard: implementações.
+- Game.getBoardView(): serializa o tabuleiro a partir de stones().
+- benchmark.BoardBenchmark: comparação de desempenho e verificação de que as duas dão os mesmos resultados.
+*/
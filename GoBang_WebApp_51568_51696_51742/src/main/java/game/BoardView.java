@@ -0,0 +1,179 @@
+package game;
+
+import protocol.BinaryProtocol;
+import protocol.CommandProtocol;
+
+/**
+ * Cópia imutável do tabuleiro de um jogo numa versão (Game.getVersion()), com as serializações já prontas.
+ * Cada formato é calculado só no primeiro pedido e reutilizado por todos os leitores dessa versão
+ * (polls do /get, /startgame, snapshots, clientes binários, JSPs), em vez de reconstruir a mesma String
+ * a cada pedido. Quando o jogo muda de versão, Game cria uma vista nova e a antiga deixa de ser usada.
+ *
+ * A vista guarda só as peças (Board.stones()); a matriz de casas só é criada se alguém a pedir (getCells()).
+ *
+ * Formatos:
+ * - compacto: até DENSE_MAX_SIZE (15x15, 19x19), uma letra por casa com CommandProtocol.formatBoard();
+ *   em tabuleiros maiores, só a lista de peças (CommandProtocol.formatSparseBoard()), que não depende da área.
+ *   CommandProtocol.parseBoard() lê os dois (campo TABULEIRO do /get e dos snapshots).
+ * - desenho: tabuleiro ASCII com numeração (Game.getBoardAsString()).
+ * - binário: BinaryProtocol.packBoard() (2 bits por casa); em tabuleiros grandes BinaryProtocol envia a lista de peças.
+ * Os campos são calculados sem locks: dois leitores podem calcular o mesmo formato ao mesmo tempo,
+ * mas o resultado é igual e só um fica guardado.
+ *
+ * Ligações:
+ * - Criada por Game com cada GameSnapshot (Game.getBoardView()); transportada por service.GameState.
+ * - Não alterar o array devolvido por getCells() (é partilhado por todos os leitores).
+ */
+public class BoardView {
+    public static final int DENSE_MAX_SIZE = 19; // Maior tabuleiro serializado casa a casa
+
+    private final long version; // Versão do jogo a que corresponde
+    private final int size;
+    private final int[] stones; // Peças (Board.stone()), nunca alteradas
+    private volatile char[][] cells; // Calculados no primeiro pedido
+    private volatile String compact;
+    private volatile String pretty;
+    private volatile byte[] packed;
+
+    public BoardView(long version, int size, int[] stones) {
+        this.version = version;
+        this.size = size;
+        this.stones = stones;
+    }
+
+    /**
+     * Vista a partir de uma matriz de casas (tabuleiros recebidos pela rede: GameFacade, BinaryProtocol).
+     */
+    public static BoardView fromCells(long version, char[][] cells) {
+        int count = 0;
+        for (char[] row : cells) {
+            for (char c : row) {
+                if (c != Board.EMPTY) count++;
+            }
+        }
+        int[] stones = new int[count];
+        int n = 0;
+        for (int r = 0; r < cells.length; r++) {
+            for (int c = 0; c < cells[r].length; c++) {
+                if (cells[r][c] != Board.EMPTY) stones[n++] = Board.stone(r, c, cells[r][c]);
+            }
+        }
+        BoardView view = new BoardView(version, cells.length, stones);
+        view.cells = cells;
+        return view;
+    }
+
+    public long getVersion() { return version; }
+    public int size() { return size; }
+    public int[] getStones() { return stones; } // Não alterar (partilhado)
+
+    /**
+     * Matriz das casas (criada no primeiro pedido; custo proporcional à área). Não alterar (partilhada).
+     */
+    public char[][] getCells() {
+        char[][] result = cells;
+        if (result == null) {
+            result = new char[size][size];
+            for (char[] row : result) {
+                java.util.Arrays.fill(row, Board.EMPTY);
+            }
+            for (int stone : stones) {
+                result[Board.stoneRow(stone)][Board.stoneCol(stone)] = Board.stoneSymbol(stone);
+            }
+            cells = result;
+        }
+        return result;
+    }
+
+    /**
+     * Indica se o tabuleiro é serializado casa a casa (até DENSE_MAX_SIZE) ou como lista de peças.
+     */
+    public boolean isDense() {
+        return size <= DENSE_MAX_SIZE;
+    }
+
+    /**
+     * Formato compacto: "...X...|....O..|..." (CommandProtocol.formatBoard()) ou, em tabuleiros grandes,
+     * a lista de peças (CommandProtocol.formatSparseBoard()).
+     */
+    public String getCompact() {
+        String result = compact;
+        if (result == null) {
+            result = isDense() ? CommandProtocol.formatBoard(getCells()) : CommandProtocol.formatSparseBoard(size, stones);
+            compact = result;
+        }
+        return result;
+    }
+
+    /**
+     * Tabuleiro desenhado em ASCII, com o número das linhas e colunas (para mostrar ao cliente).
+     */
+    public String getPretty() {
+        String result = pretty;
+        if (result == null) {
+            pretty = result = formatPretty();
+        }
+        return result;
+    }
+
+    /**
+     * Tabuleiro com 2 bits por casa, igual a BinaryProtocol.packBoard().
+     * O array é partilhado: não alterar.
+     */
+    public byte[] getPacked() {
+        byte[] result = packed;
+        if (result == null) {
+            packed = result = BinaryProtocol.packBoard(getCells());
+        }
+        return result;
+    }
+
+    private String formatPretty() {
+        char[][] cells = getCells();
+        StringBuilder sb = new StringBuilder();
+
+        // Cabeçalho com números das colunas
+        sb.append("   "); // Espaço inicial para alinhar os números às colunas
+        for (int col = 0; col < size; col++) {
+            sb.append(String.format(" %-2d ", col));
+        }
+        sb.append("\n");
+
+        // Linha separadora
+        sb.append("  +");
+        for (int col = 0; col < size; col++) {
+            sb.append("---+");
+        }
+        sb.append("\n");
+
+        // Tabuleiro com números das linhas
+        for (int row = 0; row < size; row++) {
+            sb.append(String.format("%2d|", row));
+            for (int col = 0; col < size; col++) {
+                char c = cells[row][col];
+                String piece = (c == 'X') ? "X" : (c == 'O') ? "O" : " ";
+                sb.append(String.format(" %s |", piece));
+            }
+            sb.append("\n");
+
+            // Linha separadora
+            sb.append("  +");
+            for (int col = 0; col < size; col++) {
+                sb.append("---+");
+            }
+            sb.append("\n");
+        }
+
+        return sb.toString();
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- GameSnapshot: uma vista por versão do jogo, criada com Board.stones() quando Game publica o snapshot
+  (Game.getBoardView() devolve a do snapshot atual).
+- Game.getBoardAsString(): usa getPretty().
+- GameService.stateOf()/snapshot(): o GameState e o snapshot usam a vista em cache.
+- ClientHandler.handleGet()/handleStartGame(): campo TABULEIRO com getCompact().
+- BinaryProtocol.writeState(): getPacked(); readState() e GameFacade criam vistas a partir do que recebem.
+*/
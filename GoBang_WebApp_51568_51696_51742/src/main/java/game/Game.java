@@ -1,8 +1,13 @@
 package game;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
 
 /**
  * Classe que representa um jogo de GoBang entre dois jogadores.
@@ -13,51 +18,107 @@ import java.util.UUID;
  * - session.SessionManager: para criar, terminar e gerir jogos ativos.
  * - client.ClientHandler: para processar comandos dos clientes (ex: /move, /get).
  * - server.GoBangServer: para aceder ao estado dos jogos e notificar jogadores.
+ * - game.GameListener: observadores notificados de jogadas e passagem de vez.
+ * - game.Board: guarda as peças e deteta N em linha (BitBoard por omissão, SparseBoard em tabuleiros grandes).
+ * - game.GameRules: tamanho do tabuleiro, peças para ganhar e tempo por jogada (de cada jogo).
+ * - game.MoveLog: histórico das jogadas (replayTo(), undoLastMove()).
+ * - game.GameMailbox: as alterações (jogadas, timeouts, vencedor, fim) correm uma de cada vez por jogo,
+ *   mesmo quando chegam ao mesmo tempo das threads dos dois jogadores, dos JSPs e dos bots; os campos lidos
+ *   por outras threads são voláteis. Os observadores são avisados depois da alteração, fora do lock do jogo.
+ * - game.GameSnapshot: estado imutável publicado no fim de cada alteração (getSnapshot()); os leitores
+ *   (/get, /getgames, JSPs, notificações, bots, temporizador) leem um snapshot inteiro sem locks.
  */
 public class Game {
 	private final String id; // Identificador único do jogo (UUID)
-    private static final int BOARD_SIZE = 15; // Tamanho do tabuleiro (15x15)
-    private char[][] board; // Matriz do tabuleiro ('.' = vazio, 'X'/'O' = peças)
+    private final GameRules rules; // Tamanho do tabuleiro, peças para ganhar e tempo por jogada deste jogo
+    private final int boardSize; // rules.getSize(), usado na validação de cada jogada
+    private final Board board; // Tabuleiro ('.' = vazio, 'X'/'O' = peças); implementação escolhida por Board.create()
     // Jogadores do jogo
     private Player player1; 
     private Player player2;
-    private Player currentPlayer; // Jogador cuja vez é atualmente
-    private boolean isGameOver; // Indica se o jogo terminou (vitória/empate)
-    private boolean ended = false; // Indica se o jogo já foi processado como terminado (para evitar repetições)
-    private int checksAfterEnd = 0; // Contador de verificações após o fim (para polling)
-    private Player winner; // Jogador vencedor (null se empate)
+    private volatile Player currentPlayer; // Jogador cuja vez é atualmente
+    private volatile boolean isGameOver; // Indica se o jogo terminou (vitória/empate)
+    private volatile boolean ended = false; // Indica se o jogo já foi processado como terminado (para evitar repetições)
+    private volatile int checksAfterEnd = 0; // Contador de verificações após o fim (para polling)
+    private volatile Player winner; // Jogador vencedor (null se empate)
     private long startTime; // Timestamp do início do jogo
-    private Map<Player, Long> lastMoveTime = new HashMap<>(); // Mapa: jogador -> timestamp da última jogada (para timeout)
+    private Map<Player, Long> lastMoveTime = new ConcurrentHashMap<>(); // Mapa: jogador -> timestamp da última jogada (para timeout)
+    private volatile int moveCount = 0; // Número de peças no tabuleiro (atualizado em processMove, evita percorrer as 225 casas)
+    private volatile int emptyCells; // Casas vazias (atualizado em processMove; 0 = empate)
+    private final GameMailbox mailbox = new GameMailbox(); // Alterações deste jogo, uma de cada vez
+    private volatile Move lastMove; // Última jogada (null antes da primeira)
+    private final MoveLog moveLog = new MoveLog(); // Todas as jogadas (replay, undo, arquivo)
+    private volatile GameSnapshot snapshot; // Estado da versão atual, publicado no fim de cada alteração
+    private long version = 0; // Versão do estado: aumenta a cada jogada, passagem de vez ou fim de jogo (protegida por versionLock)
+    private CompletableFuture<Long> nextChange = new CompletableFuture<>(); // Completado (com a nova versão) na próxima alteração
+    private final Object versionLock = new Object();
+    private static final List<GameListener> listeners = new CopyOnWriteArrayList<>(); // Observadores de todos os jogos (ex: EventBus)
+
+    /**
+     * Construtor do jogo com as regras por omissão (GameRules.defaults()).
+     * @param player1 Jogador 1 (começa sempre)
+     * @param player2 Jogador 2
+     */
+    public Game(Player player1, Player player2) {
+        this(player1, player2, GameRules.defaults());
+    }
 
     /**
      * Construtor do jogo.
      * Inicializa o tabuleiro, define o jogador inicial, regista tempos de início.
      * @param player1 Jogador 1 (começa sempre)
      * @param player2 Jogador 2
+     * @param rules Tamanho do tabuleiro, peças para ganhar e tempo por jogada
      */
-    public Game(Player player1, Player player2) {
+    public Game(Player player1, Player player2, GameRules rules) {
     	this.id = UUID.randomUUID().toString(); // Gera um UUID único para o jogo
         this.player1 = player1;
         this.player2 = player2;
         this.currentPlayer = player1; // Jogador 1 começa
-        this.board = new char[BOARD_SIZE][BOARD_SIZE];
+        this.rules = rules;
+        this.boardSize = rules.getSize();
+        this.emptyCells = boardSize * boardSize;
+        this.board = Board.create(boardSize, rules.getWinLength()); // Tabuleiro vazio
         this.startTime = System.currentTimeMillis();
-        initializeBoard(); // Preenche o tabuleiro com '.'
         lastMoveTime.put(currentPlayer, startTime); // Marca início da 1ª jogada
         lastMoveTime.put(player1, System.currentTimeMillis());
         lastMoveTime.put(player2, System.currentTimeMillis());
+        snapshot = createSnapshot(version);
     }
 
     /**
-     * Inicializa o tabuleiro vazio, preenchendo todas as casas com '.'.
-     * Usado apenas no início do jogo.
+     * Regista um observador de eventos de jogo (para todos os jogos).
+     * Usado em GoBangServer para ligar o EventBus (server push para a camada web).
      */
-    private void initializeBoard() {
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            for (int j = 0; j < BOARD_SIZE; j++) {
-                board[i][j] = '.';
-            }
-        }
+    public static void addListener(GameListener listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeListener(GameListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Executa uma operação composta (ler o estado e alterá-lo) na vez deste jogo, sem outras alterações pelo meio.
+     * As operações deste jogo chamadas dentro da ação correm logo (reentrante). A ação não deve esperar
+     * por outros jogos nem por locks (ver GameMailbox).
+     * 
+     * Usado em:
+     * - service.GameService: jogada + notificação, timeouts, desistência.
+     */
+    public <T> T call(Supplier<T> action) {
+        return mailbox.call(action);
+    }
+
+    /**
+     * Regista uma notificação a entregar quando a operação do jogo em curso terminar (fora do lock do jogo),
+     * pela ordem das alterações. Chamado dentro de call(); quem notifica deve usar o snapshot lido na operação.
+     * 
+     * Usado em:
+     * - service.GameService.move() (GoBangServer.notifyMove()) e fireMove()/passTurnOnTimeout() (observadores).
+     */
+    public void publish(Runnable notification) {
+        mailbox.publish(notification);
     }
 
     /**
@@ -81,40 +142,100 @@ public class Game {
      * - gameAction.jsp e play.jsp tratam as respostas para mostrar ao utilizador.
      */
     public String processMove(Player player, int row, int col) {
+        return mailbox.call(() -> applyMove(player, row, col));
+    }
+
+    private String applyMove(Player player, int row, int col) {
         if (isGameOver) { // Se o jogo já terminou, não permite mais jogadas
             return "error:game_over";
         }
         if (!player.equals(currentPlayer)) { // Só o jogador da vez pode jogar
             return "error:not_your_turn";
         }
-        if (row < 0 || row >= BOARD_SIZE || col < 0 || col >= BOARD_SIZE || board[row][col] != '.') { // Jogada fora do tabuleiro ou casa ocupada
+        if (row < 0 || row >= boardSize || col < 0 || col >= boardSize || board.get(row, col) != Board.EMPTY) { // Jogada fora do tabuleiro ou casa ocupada
             return "error:invalid_move";
         }
 
-        // Marca a peça no tabuleiro ('X' para player1, 'O' para player2)
-        board[row][col] = (currentPlayer == player1) ? 'X' : 'O';
-        // Atualiza o tempo da última jogada deste jogador
-        lastMoveTime.put(currentPlayer, System.currentTimeMillis()); // Atualiza o tempo da última jogada
+        // Marca a peça no tabuleiro ('X' para player1, 'O' para player2) e atualiza os contadores
+        char symbol = (currentPlayer == player1) ? 'X' : 'O';
+        board.place(row, col, symbol);
+        moveCount++;
+        emptyCells--;
+        lastMove = new Move(row, col, symbol, moveCount);
+        // Atualiza o tempo da última jogada deste jogador e regista a jogada no histórico
+        long now = System.currentTimeMillis();
+        lastMoveTime.put(currentPlayer, now); // Atualiza o tempo da última jogada
+        moveLog.append(row, col, symbol, now - startTime);
 
         // Verifica se esta jogada deu vitória
-        if (checkWinner(row, col)) {
+        if (board.isWinningMove(row, col)) {
             isGameOver = true;
             winner = currentPlayer;
+            bumpVersion();
+            fireMove(player, row, col);
             return "VITÓRIA de " + currentPlayer.getNickname();
         }
         
         // Verifica empate (tabuleiro cheio)
-        if (isBoardFull()) {
+        if (emptyCells == 0) {
             isGameOver = true;
+            bumpVersion();
+            fireMove(player, row, col);
             return "EMPATE!";
         }
 
         // Passa a vez ao outro jogador
         currentPlayer = (currentPlayer == player1) ? player2 : player1;
         lastMoveTime.put(currentPlayer, System.currentTimeMillis());
+        bumpVersion();
+        fireMove(player, row, col);
         return "refresh";
     }
     
+    /**
+     * Anula a última jogada: a peça sai do tabuleiro, a vez volta a quem a jogou e, se a jogada tinha
+     * terminado o jogo, o jogo reabre (só enquanto o SessionManager não o deu como terminado, ver isEnded()).
+     * Os clientes TCP não recebem aviso: a jogada seguinte chega com um seq repetido e o GoBangClient
+     * pede /resync (ver GoBangServer.notifyMove()).
+     * 
+     * Usado em:
+     * - Análise e bots (repor posições); disponível para correções de um árbitro.
+     * @return false se não há jogadas ou o jogo já foi terminado
+     */
+    public boolean undoLastMove() {
+        return mailbox.call(this::applyUndo);
+    }
+
+    private boolean applyUndo() {
+        if (moveLog.size() == 0 || ended) {
+            return false;
+        }
+        long entry = moveLog.removeLast();
+        board.remove(MoveLog.rowOf(entry), MoveLog.colOf(entry));
+        moveCount--;
+        emptyCells++;
+        int previous = moveLog.size() - 1;
+        lastMove = previous >= 0 ? moveLog.getMove(previous) : null;
+        // A vez volta a quem fez a jogada anulada (que pode ter sido a vencedora)
+        currentPlayer = MoveLog.symbolOf(entry) == 'X' ? player1 : player2;
+        isGameOver = false;
+        winner = null;
+        lastMoveTime.put(currentPlayer, System.currentTimeMillis());
+        bumpVersion();
+        return true;
+    }
+
+    /**
+     * Tabuleiro novo com as primeiras "plies" jogadas deste jogo (0 = vazio, getMoveCount() = atual).
+     * Não altera o jogo.
+     * 
+     * Usado em:
+     * - Auditoria/análise de jogos e para retomar jogos a partir do histórico.
+     */
+    public Board replayTo(int plies) {
+        return moveLog.replay(plies, Board.create(boardSize, rules.getWinLength()));
+    }
+
     /**
      * Em caso de timeout, passa a vez ao próximo jogador.
      * Só executa se ainda não terminou e se for a vez do jogador indicado.
@@ -122,81 +243,135 @@ public class Game {
      * Usado em:
      * - client.ClientHandler.handleGet() e handleGetGames() para forçar passagem de turno.
      */
-    public void passTurnOnTimeout(Player player) {
-        if (!isGameOver && getCurrentPlayer().equals(player)) {
+    public boolean passTurnOnTimeout(Player player) {
+        return mailbox.call(() -> {
+            if (isGameOver || !currentPlayer.equals(player)) {
+                return false;
+            }
             currentPlayer = getOtherPlayer(player);
             lastMoveTime.put(currentPlayer, System.currentTimeMillis());
-        }
+            bumpVersion();
+            mailbox.publish(() -> {
+                for (GameListener listener : listeners) {
+                    listener.onTurnPassed(this);
+                }
+            });
+            return true;
+        });
     }
 
     /**
-     * Verifica se a jogada feita na posição (row, col) resultou em vitória.
-     * Procura 5 peças consecutivas do mesmo símbolo em todas as direções.
+     * Passa a vez se o tempo da jogada atual esgotou (verificação e passagem na mesma operação do jogo).
+     * @return true se a vez foi passada
      * 
-     * @param row Linha da jogada
-     * @param col Coluna da jogada
-     * @return true se encontrou 5 ou mais peças consecutivas
+     * Usado em:
+     * - service.GameService.getState() e getGames() (polling do /get e /getgames).
      */
-    private boolean checkWinner(int row, int col) {
-        char symbol = board[row][col];
-        return checkDirection(row, col, 1, 0, symbol) ||  // Horizontal
-               checkDirection(row, col, 0, 1, symbol) ||  // Vertical
-               checkDirection(row, col, 1, 1, symbol) ||  // Diagonal \
-               checkDirection(row, col, 1, -1, symbol);   // Diagonal /
+    public boolean passTurnIfExpired() {
+        return mailbox.call(() -> {
+            long elapsed = System.currentTimeMillis() - getCurrentMoveStartMillis();
+            return !isGameOver && elapsed >= getMaxMoveTimeSeconds() * 1000L && passTurnOnTimeout(currentPlayer);
+        });
     }
 
     /**
-     * Verifica uma direção específica a partir de (row, col).
-     * Conta peças consecutivas do mesmo símbolo para ambos os lados.
-     * 
-     * @param row Linha inicial
-     * @param col Coluna inicial
-     * @param rowDir Direção linha (+1, 0, -1)
-     * @param colDir Direção coluna (+1, 0, -1)
-     * @param symbol Símbolo a procurar ('X' ou 'O')
-     * @return true se encontrou 5 ou mais consecutivas
+     * Devolve a versão atual do estado do jogo.
+     * Usado pelo long-poll (gameAction.jsp?action=check&version=...) em vez de comparar moveCount.
      */
-    private boolean checkDirection(int row, int col, int rowDir, int colDir, char symbol) {
-        int count = 1;
-        count += countInDirection(row, col, rowDir, colDir, symbol);
-        count += countInDirection(row, col, -rowDir, -colDir, symbol);
-        return count >= 5;
+    public long getVersion() {
+        return snapshot.getVersion(); // Sem lock: o snapshot é publicado com a versão (ver bumpVersion())
     }
 
     /**
-     * Conta peças consecutivas numa direção a partir de (row, col).
+     * Estado imutável da versão atual (tabuleiro, vez, prazo, resultado), para ler sem locks.
+     * Todos os campos de um snapshot são da mesma versão; para decisões que juntam vários campos
+     * (ex: "é a minha vez e o tempo ainda não acabou") ler um único snapshot em vez de vários getters.
      * 
-     * @param row Linha inicial
-     * @param col Coluna inicial
-     * @param rowDir Incremento linha
-     * @param colDir Incremento coluna
-     * @param symbol Símbolo a procurar
-     * @return Número de peças consecutivas encontradas
+     * Usado em:
+     * - service.GameService, server.GoBangServer (notificações), service.TurnTimer, ai.BotPlayer, ai.HintService.
      */
-    private int countInDirection(int row, int col, int rowDir, int colDir, char symbol) {
-        int count = 0;
-        int r = row + rowDir;
-        int c = col + colDir;
-        while (r >= 0 && r < BOARD_SIZE && c >= 0 && c < BOARD_SIZE && board[r][c] == symbol) {
-            count++;
-            r += rowDir;
-            c += colDir;
-        }
-        return count;
+    public GameSnapshot getSnapshot() {
+        return snapshot;
     }
 
     /**
-     * Verifica se o tabuleiro está cheio (empate).
-     * 
-     * @return true se não há casas vazias
+     * Devolve um futuro completado quando a versão do jogo passar de knownVersion
+     * (já completado se isso já aconteceu). Todos os pedidos à espera da mesma versão
+     * partilham o mesmo futuro interno: registar um pedido é O(1) e não há listas de espera por pedido.
+     * O futuro devolvido é próprio de quem chama (pode ser cancelado sem afetar os outros).
+     *
+     * Usado em:
+     * - GameService.awaitChange() (long-poll da camada web).
      */
-    private boolean isBoardFull() {
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            for (int j = 0; j < BOARD_SIZE; j++) {
-                if (board[i][j] == '.') return false;
+    public CompletableFuture<Long> awaitChange(long knownVersion) {
+        synchronized (versionLock) {
+            if (version != knownVersion) {
+                return CompletableFuture.completedFuture(version);
             }
+            return nextChange.thenApply(v -> v);
         }
-        return true;
+    }
+
+    /**
+     * Regista uma alteração de estado feita fora desta classe e acorda os pedidos à espera.
+     * Usado por SessionManager.endGame() depois de guardar os resultados do jogo.
+     */
+    public void markChanged() {
+        mailbox.call(() -> {
+            bumpVersion();
+            return null;
+        });
+    }
+
+    /**
+     * Incrementa a versão e acorda os pedidos à espera da versão anterior.
+     * Os futuros são completados fora do lock (os callbacks podem escrever respostas HTTP).
+     */
+    private void bumpVersion() {
+        CompletableFuture<Long> changed;
+        long newVersion = version + 1; // Só há um escritor de cada vez (lock da GameMailbox)
+        GameSnapshot published = createSnapshot(newVersion); // Cópia das peças feita fora do lock
+        synchronized (versionLock) {
+            version = newVersion;
+            snapshot = published; // Antes de acordar os pedidos: quem acorda já lê a versão nova
+            changed = nextChange;
+            nextChange = new CompletableFuture<>();
+        }
+        changed.complete(newVersion);
+    }
+
+    /**
+     * Estado atual como snapshot imutável (chamado na vez do jogo, depois de cada alteração).
+     * As peças são copy-on-write a partir do snapshot anterior: uma jogada acrescenta uma peça,
+     * uma passagem de vez ou fim de jogo partilha o mesmo array; só depois de anular jogadas se lê o tabuleiro.
+     */
+    private GameSnapshot createSnapshot(long snapshotVersion) {
+        GameSnapshot previous = snapshot;
+        int[] stones;
+        if (previous != null && previous.getMoveCount() == moveCount) {
+            stones = previous.getBoard().getStones(); // Mesmas peças (imutável, partilhado)
+        } else if (previous != null && previous.getMoveCount() + 1 == moveCount) {
+            stones = Arrays.copyOf(previous.getBoard().getStones(), moveCount);
+            stones[moveCount - 1] = Board.stone(lastMove.getRow(), lastMove.getCol(), lastMove.getSymbol());
+        } else {
+            stones = board.stones();
+        }
+        BoardView view = new BoardView(snapshotVersion, boardSize, stones); // Só as peças: não depende da área
+        return new GameSnapshot(this, snapshotVersion, view, currentPlayer, isGameOver, winner, moveCount, lastMove,
+                getCurrentMoveStartMillis());
+    }
+
+    /**
+     * Avisa os observadores de uma jogada válida. Chamado depois de bumpVersion(); os observadores correm
+     * quando a operação do jogo termina (GameMailbox.publish()), sem atrasar as alterações do jogo.
+     */
+    private void fireMove(Player player, int row, int col) {
+        if (listeners.isEmpty()) return; // Ex: simulações sem servidor
+        mailbox.publish(() -> {
+            for (GameListener listener : listeners) {
+                listener.onMove(this, player, row, col);
+            }
+        });
     }
 
     /**
@@ -206,23 +381,23 @@ public class Game {
     public void displayBoard() {
         // Cabeçalho com números das colunas
         System.out.print("   ");
-        for (int col = 0; col < BOARD_SIZE; col++) {
+        for (int col = 0; col < boardSize; col++) {
             System.out.printf("%2d ", col);
         }
         System.out.println();
 
         // Linha separadora
         System.out.print("  +");
-        for (int col = 0; col < BOARD_SIZE; col++) {
+        for (int col = 0; col < boardSize; col++) {
             System.out.print("---+");
         }
         System.out.println();
 
         // Tabuleiro com números das linhas e peças
-        for (int row = 0; row < BOARD_SIZE; row++) {
+        for (int row = 0; row < boardSize; row++) {
             System.out.printf("%2d|", row);
-            for (int col = 0; col < BOARD_SIZE; col++) {
-                char c = board[row][col];
+            for (int col = 0; col < boardSize; col++) {
+                char c = board.get(row, col);
                 // Adiciona cores
                 String piece = (c == 'X') ? "\u001B[31mX\u001B[0m" : 
                               (c == 'O') ? "\u001B[34mO\u001B[0m" : " ";
@@ -232,7 +407,7 @@ public class Game {
 
             // Linha separadora
             System.out.print("  +");
-            for (int col = 0; col < BOARD_SIZE; col++) {
+            for (int col = 0; col < boardSize; col++) {
                 System.out.print("---+");
             }
             System.out.println();
@@ -246,61 +421,55 @@ public class Game {
      * @return String com o tabuleiro desenhado
      */
     public String getBoardAsString() {
-        StringBuilder sb = new StringBuilder();
-        
-        // Cabeçalho com números das colunas
-        sb.append("   "); // Espaço inicial para alinhar os números às colunas
-        for (int col = 0; col < board[0].length; col++) {
-            sb.append(String.format(" %-2d ", col));
-        }
-        sb.append("\n");
-
-        // Linha separadora
-        sb.append("  +");
-        for (int col = 0; col < BOARD_SIZE; col++) {
-            sb.append("---+");
-        }
-        sb.append("\n");
-
-        // Tabuleiro com números das linhas
-        for (int row = 0; row < BOARD_SIZE; row++) {
-            sb.append(String.format("%2d|", row));
-            for (int col = 0; col < BOARD_SIZE; col++) {
-                char c = board[row][col];
-                String piece = (c == 'X') ? "X" : (c == 'O') ? "O" : " ";
-                sb.append(String.format(" %s |", piece));
-            }
-            sb.append("\n");
-
-            // Linha separadora
-            sb.append("  +");
-            for (int col = 0; col < BOARD_SIZE; col++) {
-                sb.append("---+");
-            }
-            sb.append("\n");
-        }
+        return getBoardView().getPretty();
+    }
 
-        return sb.toString();
+    /**
+     * Devolve a vista imutável do tabuleiro na versão atual, com as serializações em cache.
+     * Só é criada uma vista (uma cópia das peças) por versão, com o snapshot; entre alterações, todos os leitores
+     * (/get, snapshots, clientes binários, JSPs) partilham a mesma vista e as mesmas Strings.
+     * 
+     * Usado em:
+     * - ClientHandler.handleStartGame(); para juntar o tabuleiro com a vez ou a versão, usar getSnapshot().
+     */
+    public BoardView getBoardView() {
+        return snapshot.getBoard();
     }
     
     //FUNÇÃO NOVA
     /**
-     * Conta o número de jogadas feitas (casas ocupadas).
-     * Usado para polling e para saber se houve novas jogadas.
+     * Devolve o número de jogadas feitas (casas ocupadas).
+     * Mantido como contador em processMove(): O(1), sem percorrer o tabuleiro.
      * 
      * Usado em:
-     * - play.jsp (JS) e gameAction.jsp para comparar moveCount.
+     * - play.jsp (JS) e gameAction.jsp para comparar moveCount (clientes sem versão).
      */
     public int getMoveCount() {
-        int count = 0;
-        for (int i = 0; i < board.length; i++) {
-            for (int j = 0; j < board[i].length; j++) {
-                if (board[i][j] == 'X' || board[i][j] == 'O') {
-                    count++;
-                }
-            }
-        }
-        return count;
+        return moveCount;
+    }
+
+    /**
+     * Devolve o número de casas vazias (contador mantido em processMove()).
+     */
+    public int getEmptyCells() {
+        return emptyCells;
+    }
+
+    /**
+     * Indica se o tabuleiro está cheio, sem percorrer as casas.
+     */
+    public boolean isBoardFull() {
+        return emptyCells == 0;
+    }
+
+    /**
+     * Devolve a última jogada feita (null se ainda não houve jogadas).
+     * 
+     * Usado em:
+     * - GameService.stateOf() para o /get e gameAction.jsp.
+     */
+    public Move getLastMove() {
+        return lastMove;
     }
     
     //FUNÇÃO NOVA
@@ -319,19 +488,38 @@ public class Game {
     
     //FUNÇÃO NOVA
     /**
-     * Retorna o tempo máximo permitido para cada jogada (em segundos).
-     * Valor fixo (30s), deve ser igual ao usado no frontend (play.jsp).
+     * Retorna o tempo máximo permitido para cada jogada (em segundos), definido nas regras do jogo.
+     * O frontend (play.jsp) recebe-o no estado do jogo (GameState.getMaxMoveTimeSeconds()).
      */
     public int getMaxMoveTimeSeconds() {
-        return 30; // igual ao play.jsp
+        return rules.getMoveTimeSeconds();
     }
     
     public void setWinner(Player winner) {
-        this.winner = winner;
-        this.isGameOver = true;
+        mailbox.call(() -> {
+            this.winner = winner;
+            this.isGameOver = true;
+            bumpVersion();
+            return null;
+        });
+    }
+
+    /**
+     * Marca o jogo como terminado pelo SessionManager, uma única vez.
+     * @return true se foi esta chamada que o terminou (false se já estava terminado)
+     */
+    public boolean markEnded() {
+        return mailbox.call(() -> {
+            if (ended) return false;
+            ended = true;
+            return true;
+        });
     }
 
     // Getters
+    public GameRules getRules() { return rules; }
+    public MoveLog getMoveLog() { return moveLog; } // Só leitura fora do pacote game
+    public int getBoardSize() { return boardSize; }
     public Player getPlayer1() { return player1; }
     public Player getPlayer2() { return player2; }
     public Player getCurrentPlayer() { return currentPlayer; }
@@ -339,10 +527,18 @@ public class Game {
     public boolean isGameOver() { return isGameOver; }
     public long getStartTime() { return startTime; }
     public Player getOtherPlayer(Player current) { return player1.equals(current) ? player2 : player1; }
-    public char[][] getBoard() { return board; }
+    public char[][] getBoard() { // Cópia da versão atual (pode ser alterada por quem a pede)
+        char[][] cells = snapshot.getBoard().getCells();
+        char[][] copy = new char[cells.length][];
+        for (int row = 0; row < cells.length; row++) {
+            copy[row] = cells[row].clone();
+        }
+        return copy;
+    }
+    public char getCell(int row, int col) { return board.get(row, col); }
     public String getId() { return id; }
     public boolean isEnded() { return ended;}
     public void setEnded(boolean ended) { this.ended = ended; }
     public int getChecksAfterEnd() { return checksAfterEnd; }
-    public void incrementChecksAfterEnd() { this.checksAfterEnd++; }
+    public void incrementChecksAfterEnd() { mailbox.call(() -> ++checksAfterEnd); }
 }
\ No newline at end of file
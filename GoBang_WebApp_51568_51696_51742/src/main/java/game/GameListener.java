@@ -0,0 +1,38 @@
+package game;
+
+/**
+ * Observador de eventos de um jogo (jogadas e passagem de vez).
+ * Permite empurrar alterações para os clientes (ex: Server-Sent Events na camada web)
+ * em vez de estes terem de fazer polling ao estado do jogo.
+ *
+ * Os métodos são chamados depois da alteração, fora do lock do jogo e pela ordem das alterações,
+ * normalmente na thread que alterou o jogo (ClientHandler, pedido HTTP, etc); as implementações devem
+ * ser rápidas, porque as notificações seguintes do mesmo jogo esperam por elas.
+ *
+ * Ligações:
+ * - Registado com Game.addListener() (ex: service.EventBus, em GoBangServer).
+ * - Chamado por Game.processMove() e Game.passTurnOnTimeout().
+ * - O início e o fim de jogo são avisados pelo SessionManager (depois de guardar os resultados).
+ */
+public interface GameListener {
+
+    /**
+     * Uma jogada válida foi feita no tabuleiro.
+     * @param game Jogo onde foi feita a jogada
+     * @param player Jogador que jogou
+     * @param row Linha da jogada
+     * @param col Coluna da jogada
+     */
+    void onMove(Game game, Player player, int row, int col);
+
+    /**
+     * A vez passou para o outro jogador sem jogada (timeout).
+     */
+    void onTurnPassed(Game game);
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- Game: guarda os observadores registados e chama-os após cada alteração de estado.
+- service.EventBus: implementação que encaminha os eventos para os jogadores (SSE).
+*/
@@ -0,0 +1,84 @@
+package game;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Caixa de um jogo: todas as alterações de um Game correm uma de cada vez, sem locks globais.
+ * Jogos diferentes correm em paralelo.
+ *
+ * - A ação corre na thread que a pede, com o lock do jogo (sem pool nem threads à espera de um resultado):
+ *   quem pede nunca fica bloqueado num join, só espera enquanto outra alteração do mesmo jogo está a correr.
+ * - Reentrante: uma ação que chama outra operação do mesmo jogo executa-a logo (mesma thread, já tem o lock).
+ * - Notificações (observadores, avisos aos clientes TCP): as ações só as registam com publish(); são entregues
+ *   depois de o lock ser libertado, pela ordem das alterações, por uma thread de cada vez. Um observador lento
+ *   atrasa quem está a entregar, mas nunca as alterações do jogo.
+ *
+ * Regra: uma ação nunca deve esperar por outro jogo nem por locks que possam estar presos por quem espera
+ * por este jogo (ex: fila de espera do SessionManager); só altera o jogo e regista notificações.
+ *
+ * Ligações:
+ * - Game: uma caixa por jogo; processMove(), undoLastMove(), passTurnOnTimeout(), setWinner(), markEnded(),
+ *   call() e publish().
+ * - service.GameService: operações compostas (verificar e alterar) com Game.call().
+ */
+final class GameMailbox {
+    // ReentrantLock em vez de synchronized para não fixar (pin) virtual threads à carrier thread (modo "virtual")
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Queue<Runnable> outbox = new ConcurrentLinkedQueue<>(); // Notificações por entregar, pela ordem das alterações
+    private final AtomicBoolean delivering = new AtomicBoolean(); // Alguém está a entregar as notificações
+
+    /**
+     * Executa a ação na vez deste jogo e devolve o resultado (as exceções da ação são relançadas).
+     * No fim da ação mais exterior, entrega as notificações registadas.
+     */
+    <T> T call(Supplier<T> action) {
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+            if (!lock.isHeldByCurrentThread()) {
+                deliver();
+            }
+        }
+    }
+
+    /**
+     * Regista uma notificação, a entregar quando a alteração em curso terminar. Chamado dentro de call().
+     */
+    void publish(Runnable notification) {
+        outbox.add(notification);
+    }
+
+    /**
+     * Entrega as notificações pendentes, uma thread de cada vez (as outras deixam-nas a quem já está a entregar).
+     * Volta a verificar a fila depois de largar a entrega, para não deixar para trás notificações que chegaram entretanto.
+     */
+    private void deliver() {
+        while (!outbox.isEmpty() && delivering.compareAndSet(false, true)) {
+            try {
+                Runnable notification;
+                while ((notification = outbox.poll()) != null) {
+                    try {
+                        notification.run();
+                    } catch (RuntimeException e) {
+                        // Um observador com erro não impede as notificações seguintes nem falha a jogada
+                        System.err.println("Erro ao notificar alteração do jogo: " + e);
+                    }
+                }
+            } finally {
+                delivering.set(false);
+            }
+        }
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- Game: campo "mailbox" (uma caixa por jogo); todas as alterações passam por call() e as notificações por publish().
+- benchmark.GameStressTest: verifica que jogadas e timeouts simultâneos não se perdem nem se duplicam.
+*/
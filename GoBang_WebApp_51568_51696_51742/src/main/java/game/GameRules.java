@@ -0,0 +1,68 @@
+package game;
+
+/**
+ * Parâmetros de um jogo: tamanho do tabuleiro, peças seguidas para ganhar e tempo máximo por jogada.
+ * Cada Game tem as suas regras (ex: 15x15 clássico, 19x19, tabuleiros grandes de eventos até 100x100).
+ *
+ * Valores por omissão (jogos da fila de espera e convites sem parâmetros), configuráveis por propriedades:
+ * - gobang.game.size (15), gobang.game.win (5), gobang.game.movetime (30 segundos).
+ *
+ * Ligações:
+ * - Game(player1, player2, rules); Game(player1, player2) usa defaults().
+ * - ClientHandler.handleStartGame(): "/startgame jogador1 jogador2 [tamanho] [peças] [segundos]".
+ * - Board.create(): escolhe a implementação conforme o tamanho.
+ */
+public class GameRules {
+    public static final int MIN_SIZE = 5;
+    public static final int MAX_SIZE = 100;
+
+    private static final GameRules DEFAULTS = new GameRules(
+            Integer.getInteger("gobang.game.size", 15),
+            Integer.getInteger("gobang.game.win", 5),
+            Integer.getInteger("gobang.game.movetime", 30));
+
+    private final int size; // Linhas (e colunas) do tabuleiro
+    private final int winLength; // Peças seguidas necessárias para ganhar
+    private final int moveTimeSeconds; // Tempo máximo de cada jogada
+
+    /**
+     * @throws IllegalArgumentException se algum valor estiver fora dos limites
+     */
+    public GameRules(int size, int winLength, int moveTimeSeconds) {
+        if (size < MIN_SIZE || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Tamanho do tabuleiro deve estar entre " + MIN_SIZE + " e " + MAX_SIZE + ".");
+        }
+        if (winLength < 3 || winLength > size) {
+            throw new IllegalArgumentException("Peças para ganhar devem estar entre 3 e o tamanho do tabuleiro.");
+        }
+        if (moveTimeSeconds < 5 || moveTimeSeconds > 3600) {
+            throw new IllegalArgumentException("Tempo por jogada deve estar entre 5 e 3600 segundos.");
+        }
+        this.size = size;
+        this.winLength = winLength;
+        this.moveTimeSeconds = moveTimeSeconds;
+    }
+
+    /**
+     * Regras por omissão (propriedades gobang.game.*).
+     */
+    public static GameRules defaults() {
+        return DEFAULTS;
+    }
+
+    public int getSize() { return size; }
+    public int getWinLength() { return winLength; }
+    public int getMoveTimeSeconds() { return moveTimeSeconds; }
+
+    @Override
+    public String toString() {
+        return size + "x" + size + ", " + winLength + " em linha, " + moveTimeSeconds + "s por jogada";
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- Game: tamanho do tabuleiro, deteção de vitória (via Board) e getMaxMoveTimeSeconds().
+- ClientHandler.handleStartGame(): regras pedidas no convite.
+- SessionManager (fila de espera): defaults().
+*/
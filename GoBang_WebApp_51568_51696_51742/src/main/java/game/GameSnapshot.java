@@ -0,0 +1,102 @@
+package game;
+
+import protocol.CommandProtocol;
+
+/**
+ * Estado imutável de um jogo numa versão: tabuleiro, vez, prazo da jogada, resultado e última jogada.
+ * Game cria um snapshot novo no fim de cada alteração (na vez do jogo, ver GameMailbox) e publica-o numa
+ * referência volátil; qualquer número de leitores lê getSnapshot() sem locks e vê sempre um estado coerente
+ * (nunca um tabuleiro a meio de uma jogada, nem a vez de uma versão com o tabuleiro de outra).
+ *
+ * O tabuleiro é uma BoardView (só as peças, com as serializações calculadas no primeiro pedido e partilhadas);
+ * o texto "SNAPSHOT;..." para os clientes TCP também fica em cache (getText()).
+ *
+ * Ligações:
+ * - Criado por Game a cada alteração (getSnapshot(); getBoardView() e getVersion() leem daqui).
+ * - service.GameService (stateOf(), snapshot(), getGames()), GoBangServer.notifyMove()/notifyTurnPassed(),
+ *   service.TurnTimer (prazo), ai.BotPlayer e ai.HintService (peças e vez) leem sempre de um único snapshot.
+ */
+public final class GameSnapshot {
+    private final Game game;
+    private final long version;
+    private final BoardView board;
+    private final Player currentPlayer; // De quem é a vez (se o jogo acabou, quem estava na vez)
+    private final boolean gameOver;
+    private final Player winner; // null se não acabou ou se foi empate
+    private final int moveCount;
+    private final Move lastMove; // null antes da primeira jogada
+    private final long moveStartMillis; // Início da jogada atual
+    private volatile String text; // formatSnapshot(), calculado no primeiro pedido
+
+    GameSnapshot(Game game, long version, BoardView board, Player currentPlayer, boolean gameOver, Player winner,
+                 int moveCount, Move lastMove, long moveStartMillis) {
+        this.game = game;
+        this.version = version;
+        this.board = board;
+        this.currentPlayer = currentPlayer;
+        this.gameOver = gameOver;
+        this.winner = winner;
+        this.moveCount = moveCount;
+        this.lastMove = lastMove;
+        this.moveStartMillis = moveStartMillis;
+    }
+
+    public Game getGame() { return game; }
+    public long getVersion() { return version; }
+    public BoardView getBoard() { return board; }
+    public Player getCurrentPlayer() { return currentPlayer; }
+    public boolean isGameOver() { return gameOver; }
+    public Player getWinner() { return winner; }
+    public int getMoveCount() { return moveCount; }
+    public Move getLastMove() { return lastMove; }
+    public long getMoveStartMillis() { return moveStartMillis; }
+
+    /**
+     * Fim do tempo da jogada atual (início + tempo máximo das regras do jogo).
+     */
+    public long getDeadlineMillis() {
+        return moveStartMillis + game.getMaxMoveTimeSeconds() * 1000L;
+    }
+
+    /**
+     * Segundos que faltam para o fim da jogada atual (0 se já passou).
+     */
+    public int getSecondsLeft(long nowMillis) {
+        return Math.max(0, game.getMaxMoveTimeSeconds() - (int) ((nowMillis - moveStartMillis) / 1000));
+    }
+
+    /**
+     * Indica se é a vez do jogador (false se o jogo acabou).
+     */
+    public boolean isTurnOf(Player player) {
+        return !gameOver && currentPlayer.equals(player);
+    }
+
+    /**
+     * Nickname de quem joga a seguir, ou "-" se o jogo acabou (como em JOGADA;... e SNAPSHOT;...).
+     */
+    public String getNextPlayerName() {
+        return gameOver ? "-" : currentPlayer.getNickname();
+    }
+
+    /**
+     * Estado completo para os clientes TCP ("SNAPSHOT;...", CommandProtocol.formatSnapshot()),
+     * formatado uma vez por versão.
+     */
+    public String getText() {
+        String result = text;
+        if (result == null) {
+            text = result = CommandProtocol.formatSnapshot(game.getId(), moveCount, game.getPlayer1().getNickname(),
+                    game.getPlayer2().getNickname(), getNextPlayerName(), board.getCompact());
+        }
+        return result;
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- Game: publica um snapshot por versão (campo volátil "snapshot"), criado em publish().
+- service.GameService: GameState, GameSummary e o texto SNAPSHOT saem de um único snapshot.
+- server.GoBangServer: notifyMove()/notifyTurnPassed() usam o snapshot da versão notificada.
+- service.TurnTimer: getDeadlineMillis(); ai.BotPlayer/ai.HintService: peças, vez e versão.
+*/
@@ -0,0 +1,36 @@
+package game;
+
+/**
+ * Uma jogada já aplicada ao tabuleiro (imutável).
+ * Game guarda a última jogada para que os leitores (/get, gameAction.jsp) não tenham de procurar diferenças no tabuleiro.
+ *
+ * Ligações:
+ * - Criada em Game.processMove(); lida com Game.getLastMove().
+ * - GameState leva-a para play.jsp e para o protocolo (campo ULTIMA do /get).
+ */
+public class Move {
+    private final int row;
+    private final int col;
+    private final char symbol; // 'X' (player1) ou 'O' (player2)
+    private final int seq; // Número da jogada no jogo (1 = primeira), igual a Game.getMoveCount() logo a seguir
+
+    public Move(int row, int col, char symbol, int seq) {
+        this.row = row;
+        this.col = col;
+        this.symbol = symbol;
+        this.seq = seq;
+    }
+
+    public int getRow() { return row; }
+    public int getCol() { return col; }
+    public char getSymbol() { return symbol; }
+    public int getSeq() { return seq; }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- Game.processMove(): cria a jogada depois de a colocar no tabuleiro.
+- GameService.stateOf(): passa-a para GameState.
+- ClientHandler.handleGet() / GameFacade.parseState(): campo "ULTIMA:linha,coluna" do /get.
+- BinaryProtocol.writeState()/readState(): última jogada no estado binário.
+*/
@@ -0,0 +1,112 @@
+package game;
+
+import java.util.Arrays;
+
+/**
+ * Histórico das jogadas de um jogo, só de acrescentar, guardado num long[] (8 bytes por jogada,
+ * sem um objeto por jogada). Permite repetir o jogo até qualquer jogada (replay), anular a última
+ * jogada e exportar o histórico para arquivo ou análise.
+ *
+ * Cada jogada é um long:
+ * - bits 0-7: coluna; bits 8-15: linha; bit 16: jogador (0 = 'X'/player1, 1 = 'O'/player2);
+ * - bits 17-63: milissegundos desde o início do jogo (Game.getStartTime()).
+ *
+ * Escrito só pelo Game (append/removeLast são de pacote); os leitores usam os métodos públicos.
+ *
+ * Ligações:
+ * - Game.processMove() acrescenta; Game.undoLastMove() remove; Game.replayTo() usa replay().
+ */
+public class MoveLog {
+    private static final int INITIAL_CAPACITY = 32;
+
+    private long[] entries = new long[INITIAL_CAPACITY];
+    private volatile int size; // Publicado depois de escrever a jogada (leitores veem jogadas completas)
+
+    /**
+     * Codifica uma jogada (ver o formato na descrição da classe).
+     */
+    public static long encode(int row, int col, char symbol, long offsetMillis) {
+        return offsetMillis << 17 | (symbol == 'O' ? 1L << 16 : 0L) | (long) row << 8 | col;
+    }
+
+    void append(int row, int col, char symbol, long offsetMillis) {
+        if (size == entries.length) {
+            entries = Arrays.copyOf(entries, entries.length * 2);
+        }
+        entries[size] = encode(row, col, symbol, offsetMillis);
+        size = size + 1;
+    }
+
+    /**
+     * Remove a última jogada.
+     * @return a jogada removida (codificada)
+     */
+    long removeLast() {
+        long entry = entries[size - 1];
+        size = size - 1;
+        return entry;
+    }
+
+    /**
+     * Número de jogadas registadas.
+     */
+    public int size() {
+        return size;
+    }
+
+    public int row(int ply) { return rowOf(entry(ply)); }
+    public int col(int ply) { return colOf(entry(ply)); }
+    public char symbol(int ply) { return symbolOf(entry(ply)); }
+    public long offsetMillis(int ply) { return offsetOf(entry(ply)); }
+
+    // Descodificação de uma jogada (encode())
+    public static int rowOf(long entry) { return (int) (entry >>> 8) & 0xFF; }
+    public static int colOf(long entry) { return (int) entry & 0xFF; }
+    public static char symbolOf(long entry) { return (entry & 1L << 16) != 0 ? 'O' : 'X'; }
+    public static long offsetOf(long entry) { return entry >>> 17; }
+
+    /**
+     * Jogada "ply" (0 = primeira) codificada.
+     */
+    public long entry(int ply) {
+        if (ply < 0 || ply >= size) {
+            throw new IndexOutOfBoundsException("Jogada " + ply + " de " + size);
+        }
+        return entries[ply];
+    }
+
+    /**
+     * Jogada "ply" como objeto (para quem só precisa de poucas jogadas; seq = ply + 1).
+     */
+    public Move getMove(int ply) {
+        return new Move(row(ply), col(ply), symbol(ply), ply + 1);
+    }
+
+    /**
+     * Cópia das jogadas codificadas (para arquivo/análise; ver encode()).
+     */
+    public long[] toArray() {
+        return Arrays.copyOf(entries, size);
+    }
+
+    /**
+     * Aplica as primeiras "plies" jogadas a um tabuleiro vazio.
+     * @param board tabuleiro vazio (ex: Board.create(tamanho, peças))
+     * @return o próprio tabuleiro
+     */
+    public Board replay(int plies, Board board) {
+        if (plies < 0 || plies > size) {
+            throw new IndexOutOfBoundsException("Jogada " + plies + " de " + size);
+        }
+        for (int ply = 0; ply < plies; ply++) {
+            board.place(row(ply), col(ply), symbol(ply));
+        }
+        return board;
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- Game: um MoveLog por jogo (getMoveLog()), escrito em processMove() e undoLastMove().
+- Game.replayTo(): tabuleiro numa jogada anterior (auditoria, análise, retomar jogos).
+*/
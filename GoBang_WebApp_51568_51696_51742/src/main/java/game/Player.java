@@ -1,6 +1,5 @@
 package game;
 
-import client.ClientHandler;
 import java.util.ArrayList;
 import java.util.List;
 import server.GoBangServer;
@@ -224,27 +223,14 @@ public class Player {
     
     /**
      * Verifica se o jogador está atualmente ligado ao servidor.
-     * Procura nos clientes ativos do GoBangServer.
+     * Lookup O(1) no registo de ligações do GoBangServer (ConnectionRegistry).
      * 
      * Usado em:
      * - [SessionManager.endGame()](../session/SessionManager.java) para saber se pode notificar o jogador.
      * - [GoBangServer.notifyPlayer()](../server/GoBangServer.java)
      */
     public boolean isConnected() {
-        for (client.ClientHandler client : server.GoBangServer.getClients()) {
-            if (client.getPlayer() != null) {
-                System.out.println("[DEBUG] Comparar " + client.getPlayer().getNickname() + " com " + this.nickname);
-                if (client.getPlayer().equals(this)) {
-                    try {
-                        System.out.println("[DEBUG] Socket fechado? " + client.getSocket().isClosed());
-                        return !client.getSocket().isClosed();
-                    } catch (Exception e) {
-                        return false;
-                    }
-                }
-            }
-        }
-        return false;
+        return GoBangServer.getConnections().isConnected(nickname) || GoBangServer.getBots().isBot(nickname); // Os bots estão sempre "ligados"
     }
     
     //métodos de verificação -> NOVO
@@ -0,0 +1,172 @@
+package game;
+
+/**
+ * Tabuleiro esparso para tabuleiros grandes: só guarda as casas ocupadas, numa tabela de dispersão
+ * de endereçamento aberto (chave = linha * tamanho + coluna, sem objetos por peça).
+ * A memória cresce com o número de peças e não com a área (um 100x100 com 40 peças ocupa ~1 KB).
+ * A vitória é procurada a partir da última peça nas quatro direções, no máximo 2 * (winLength - 1)
+ * consultas por direção: o custo não depende do tamanho do tabuleiro.
+ *
+ * Ligações:
+ * - Board.create(): gobang.board=sparse, ou automaticamente quando o tamanho passa o limite do BitBoard.
+ */
+public class SparseBoard implements Board {
+    private static final int INITIAL_CAPACITY = 64; // Potência de 2
+
+    private final int size;
+    private final int winLength;
+    private int[] keys = new int[INITIAL_CAPACITY]; // linha * size + coluna + 1 (0 = posição livre)
+    private char[] symbols = new char[INITIAL_CAPACITY];
+    private int stones = 0;
+
+    public SparseBoard(int size, int winLength) {
+        this.size = size;
+        this.winLength = winLength;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int winLength() {
+        return winLength;
+    }
+
+    @Override
+    public char get(int row, int col) {
+        int key = row * size + col + 1;
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) return symbols[i];
+        }
+        return EMPTY;
+    }
+
+    @Override
+    public void place(int row, int col, char symbol) {
+        if ((stones + 1) * 2 > keys.length) {
+            grow();
+        }
+        insert(row * size + col + 1, symbol);
+        stones++;
+    }
+
+    private void insert(int key, char symbol) {
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != 0 && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        symbols[i] = symbol;
+    }
+
+    /**
+     * Remove a peça e volta a arrumar as chaves seguintes do mesmo grupo (sem marcas de "apagado"),
+     * para que as procuras continuem a parar na primeira posição livre.
+     */
+    @Override
+    public void remove(int row, int col) {
+        int key = row * size + col + 1;
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != key) {
+            if (keys[i] == 0) return; // Casa vazia
+            i = (i + 1) & mask;
+        }
+        keys[i] = 0;
+        stones--;
+        for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            int movedKey = keys[j];
+            char movedSymbol = symbols[j];
+            keys[j] = 0;
+            insert(movedKey, movedSymbol);
+        }
+    }
+
+    /**
+     * Duplica a tabela (mantém a ocupação abaixo de 50%).
+     */
+    private void grow() {
+        int[] oldKeys = keys;
+        char[] oldSymbols = symbols;
+        keys = new int[oldKeys.length * 2];
+        symbols = new char[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) insert(oldKeys[i], oldSymbols[i]);
+        }
+    }
+
+    /**
+     * Espalha as chaves (casas vizinhas têm chaves seguidas).
+     */
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public boolean isWinningMove(int row, int col) {
+        char symbol = get(row, col);
+        if (symbol == EMPTY) return false;
+        return countLine(row, col, 1, 0, symbol) >= winLength    // Vertical
+                || countLine(row, col, 0, 1, symbol) >= winLength  // Horizontal
+                || countLine(row, col, 1, 1, symbol) >= winLength  // Diagonal \
+                || countLine(row, col, 1, -1, symbol) >= winLength; // Diagonal /
+    }
+
+    /**
+     * Peças seguidas do mesmo símbolo na linha que passa por (row, col), parando ao chegar a winLength.
+     */
+    private int countLine(int row, int col, int rowDir, int colDir, char symbol) {
+        int count = 1;
+        for (int dir = 1; dir >= -1; dir -= 2) {
+            int r = row + rowDir * dir;
+            int c = col + colDir * dir;
+            while (count < winLength && r >= 0 && r < size && c >= 0 && c < size && get(r, c) == symbol) {
+                count++;
+                r += rowDir * dir;
+                c += colDir * dir;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public boolean isFull() {
+        return stones == size * size;
+    }
+
+    @Override
+    public int[] stones() {
+        int[] result = new int[stones];
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                int cell = keys[i] - 1;
+                result[n++] = Board.stone(cell / size, cell % size, symbols[i]);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public char[][] toArray() {
+        char[][] copy = new char[size][size];
+        for (char[] row : copy) {
+            java.util.Arrays.fill(row, EMPTY);
+        }
+        for (int stone : stones()) {
+            copy[Board.stoneRow(stone)][Board.stoneCol(stone)] = Board.stoneSymbol(stone);
+        }
+        return copy;
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- Board.create(): tabuleiros maiores que 64x64 (limite do BitBoard) ou gobang.board=sparse.
+- stones(): usado por Game.getBoardView() para serializar só as peças.
+*/
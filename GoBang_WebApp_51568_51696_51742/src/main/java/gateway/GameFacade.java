@@ -0,0 +1,255 @@
+package gateway;
+
+import ai.Analysis;
+import ai.HintService;
+import game.BoardView;
+import game.Game;
+import game.Move;
+import game.Player;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import protocol.CommandProtocol;
+import server.GoBangServer;
+import service.EventBus;
+import service.GameService;
+import service.GameState;
+import service.GameSummary;
+import service.MoveResult;
+
+/**
+ * Ponto de entrada da camada web para os comandos de jogo, com respostas tipadas.
+ * Escolhe o transporte:
+ * - Em processo: se o GoBangServer corre na mesma JVM que os JSPs, chama o GameService diretamente
+ *   (sem socket, sem formatar nem voltar a interpretar texto).
+ * - Remoto: caso contrário, envia o comando pelo GameGateway (TCP) e converte a resposta de texto
+ *   nos mesmos objetos (MoveResult, GameState, GameSummary).
+ *
+ * Configuração: gobang.webapp.transport = auto (omissão) | local | remote.
+ *
+ * Ligações:
+ * - Usado por gameAction.jsp, play.jsp e activeGames.jsp.
+ * - Usa GameService (em processo) ou GameGateway (remoto).
+ */
+public class GameFacade {
+    private static final String TRANSPORT = System.getProperty("gobang.webapp.transport", "auto");
+
+    private static final GameFacade instance = new GameFacade(); // Instância única (partilhada por todos os JSPs)
+
+    private GameFacade() {}
+
+    public static GameFacade getInstance() {
+        return instance;
+    }
+
+    /**
+     * Indica se os pedidos são tratados em processo (GameService) em vez de TCP.
+     */
+    public boolean isLocal() {
+        if ("local".equalsIgnoreCase(TRANSPORT)) return true;
+        if ("remote".equalsIgnoreCase(TRANSPORT)) return false;
+        return GoBangServer.isRunning();
+    }
+
+    /**
+     * Valida as credenciais do jogador (em modo remoto, faz login na ligação do gateway).
+     */
+    public boolean login(String nickname, String password) throws IOException {
+        if (isLocal()) {
+            return service().authenticate(nickname, password) != null;
+        }
+        return GameGateway.getInstance().login(nickname, password);
+    }
+
+    /**
+     * Jogada do jogador no seu jogo ativo (/move).
+     */
+    public MoveResult move(String nickname, int row, int col) throws IOException {
+        if (isLocal()) {
+            return service().move(findPlayer(nickname), row, col);
+        }
+        List<String> lines = GameGateway.getInstance().requestAll(nickname, "/move " + row + " " + col);
+        // A última linha é a resposta direta ao /move; as anteriores são a notificação da jogada (JOGADA;...)
+        String last = lastLine(lines);
+        if (last.startsWith("RESULTADO: ")) {
+            return new MoveResult(MoveResult.Status.PLAYED, last.substring("RESULTADO: ".length()), null);
+        }
+        if (last.startsWith("FIM DE JOGO")) {
+            // Quem jogou a última jogada ganhou, a não ser que tenha sido empate (igual a Game.processMove())
+            String result = last.contains("empate") ? "EMPATE!" : "VITÓRIA de " + nickname;
+            return new MoveResult(MoveResult.Status.PLAYED, result, last);
+        }
+        if (last.endsWith("num jogo ativo!")) { // "Você não está num jogo ativo!" (sem depender da codificação dos acentos)
+            return new MoveResult(MoveResult.Status.NOT_IN_GAME, null, null);
+        }
+        return new MoveResult(MoveResult.Status.PENDING_RESULT, last, null);
+    }
+
+    /**
+     * Estado do jogo (ou da fila) do jogador (/get).
+     */
+    public GameState getState(String nickname) throws IOException {
+        if (isLocal()) {
+            return nickname != null ? service().getState(nickname) : GameState.of(GameState.Status.UNKNOWN_PLAYER);
+        }
+        return parseState(GameGateway.getInstance().request(nickname, "/get " + nickname));
+    }
+
+    /**
+     * Futuro completado quando o jogo do jogador mudar depois de knownVersion (usado pelo long-poll).
+     * - Em processo: Game.awaitChange() via GameService.
+     * - Remoto: o servidor está noutra JVM, por isso espera pela próxima notificação TCP ao jogador
+     *   (evento "update" no EventBus, ver GatewayConnection). Cancelar o futuro remove a subscrição.
+     */
+    public CompletableFuture<Long> awaitChange(String nickname, long knownVersion) {
+        if (isLocal()) {
+            return service().awaitChange(nickname, knownVersion);
+        }
+        CompletableFuture<Long> changed = new CompletableFuture<>();
+        EventBus bus = GoBangServer.getEventBus();
+        EventBus.Subscriber subscriber = (type, data) -> {
+            changed.complete(knownVersion + 1);
+            return false; // Só interessa o primeiro evento
+        };
+        bus.subscribe(nickname, subscriber);
+        changed.whenComplete((version, error) -> bus.unsubscribe(nickname, subscriber));
+        return changed;
+    }
+
+    /**
+     * Jogos ativos do jogador (/getgames).
+     */
+    public List<GameSummary> getGames(String nickname) throws IOException {
+        if (isLocal()) {
+            return service().getGames(nickname);
+        }
+        String response = GameGateway.getInstance().request(nickname, "/getgames " + nickname);
+        List<GameSummary> games = new ArrayList<>();
+        if (response == null || response.contains("NO_GAMES")) {
+            return games;
+        }
+        String gameId = null, opponent = null;
+        boolean yourTurn = false;
+        for (String part : response.split(";")) {
+            if (part.startsWith("GAMEID:")) gameId = part.substring("GAMEID:".length());
+            else if (part.startsWith("OPONENTE:")) opponent = part.substring("OPONENTE:".length());
+            else if (part.startsWith("SUA_VEZ:")) yourTurn = "true".equals(part.substring("SUA_VEZ:".length()));
+            else if (part.startsWith("TEMPO:")) {
+                games.add(new GameSummary(gameId, opponent, yourTurn, Integer.parseInt(part.substring("TEMPO:".length()))));
+            }
+        }
+        return games;
+    }
+
+    /**
+     * Dicas para o jogo ativo do jogador (/hint).
+     * @return null se o jogador não estiver num jogo ativo; senão um futuro que pode ainda não estar completo
+     *         (pesquisa em curso: a página volta a pedir e recebe a análise da cache)
+     */
+    public CompletableFuture<Analysis> hint(String nickname) throws IOException {
+        if (isLocal()) {
+            Player player = findPlayer(nickname);
+            Game game = player == null ? null : GoBangServer.getSession().getGameByPlayer(player);
+            return service().hint(game, player);
+        }
+        String response = GameGateway.getInstance().request(nickname, "/hint " + HintService.MAX_COUNT);
+        if (response == null || !response.startsWith("DICAS;")) {
+            return null;
+        }
+        Analysis analysis = CommandProtocol.parseHints(response);
+        return analysis != null ? CompletableFuture.completedFuture(analysis) : new CompletableFuture<>();
+    }
+
+    /**
+     * Timeout da jogada atual (/timeout).
+     * @return true se a vez foi passada
+     */
+    public boolean timeout(String nickname) throws IOException {
+        if (isLocal()) {
+            return service().timeout(findPlayer(nickname));
+        }
+        return "refresh".equals(lastLine(GameGateway.getInstance().requestAll(nickname, "/timeout")));
+    }
+
+    /**
+     * Desistência do jogo ativo (/surrender).
+     * @return false se o jogador não estava num jogo ativo
+     */
+    public boolean surrender(String nickname) throws IOException {
+        if (isLocal()) {
+            Player player = findPlayer(nickname);
+            return player != null && service().surrender(player);
+        }
+        // Antes da resposta direta chegam as notificações de fim de jogo (SessionManager.endGame)
+        return lastLine(GameGateway.getInstance().requestAll(nickname, "/surrender")).startsWith("FIM DE JOGO! Desististe");
+    }
+
+    private static String lastLine(List<String> lines) {
+        return lines.isEmpty() ? "" : lines.get(lines.size() - 1);
+    }
+
+    /**
+     * Jogador registado com este nickname, ou null (nickname desconhecido ou null; o mapa de jogadores não aceita chaves null).
+     */
+    private static Player findPlayer(String nickname) {
+        return nickname != null ? GoBangServer.getPlayers().get(nickname) : null;
+    }
+
+    private GameService service() {
+        return GoBangServer.getGameService();
+    }
+
+    /**
+     * Converte a resposta de texto ao /get num GameState (modo remoto).
+     */
+    private GameState parseState(String response) {
+        if (response == null) {
+            return GameState.of(GameState.Status.UNKNOWN_PLAYER);
+        }
+        if (response.equals("AGUARDANDO")) return GameState.of(GameState.Status.WAITING);
+        if (response.endsWith("_NA_FILA")) return GameState.of(GameState.Status.NOT_IN_QUEUE); // "NÃO_ESTÁS_NA_FILA"
+        if (!response.startsWith("JOGO INICIADO")) {
+            return response.startsWith("Jogador '")
+                    ? GameState.of(GameState.Status.UNKNOWN_PLAYER)
+                    : GameState.pending(response);
+        }
+        String player1 = null, player2 = null, opponent = null;
+        char[][] board = null;
+        boolean yourTurn = false;
+        long moveStart = 0;
+        int maxMoveTime = 0;
+        long version = 0;
+        int moveCount = 0;
+        String lastMoveCell = null;
+        for (String part : response.split(";")) {
+            if (part.startsWith("PLAYER1:")) player1 = part.substring("PLAYER1:".length());
+            else if (part.startsWith("PLAYER2:")) player2 = part.substring("PLAYER2:".length());
+            else if (part.startsWith("OPONENTE:")) opponent = part.substring("OPONENTE:".length());
+            else if (part.equals("SUA_VEZ")) yourTurn = true;
+            else if (part.startsWith("JOGADA_INICIO:")) moveStart = Long.parseLong(part.substring("JOGADA_INICIO:".length()));
+            else if (part.startsWith("TEMPO_MAXIMO:")) maxMoveTime = Integer.parseInt(part.substring("TEMPO_MAXIMO:".length()));
+            else if (part.startsWith("VERSAO:")) version = Long.parseLong(part.substring("VERSAO:".length()));
+            else if (part.startsWith("JOGADAS:")) moveCount = Integer.parseInt(part.substring("JOGADAS:".length()));
+            else if (part.startsWith("ULTIMA:")) lastMoveCell = part.substring("ULTIMA:".length());
+            else if (part.startsWith("TABULEIRO:")) board = CommandProtocol.parseBoard(part.substring("TABULEIRO:".length()));
+        }
+        Move lastMove = null;
+        if (lastMoveCell != null && board != null) {
+            int row = Integer.parseInt(lastMoveCell.substring(0, lastMoveCell.indexOf(',')));
+            int col = Integer.parseInt(lastMoveCell.substring(lastMoveCell.indexOf(',') + 1));
+            lastMove = new Move(row, col, board[row][col], moveCount);
+        }
+        return new GameState(GameState.Status.PLAYING, null, player1, player2, opponent,
+                board != null ? BoardView.fromCells(version, board) : null, yourTurn, moveStart, maxMoveTime, version,
+                moveCount, lastMove);
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- gameAction.jsp: move(), getState(), timeout(), surrender(); awaitChange() no long-poll (web.LongPoll).
+- play.jsp: getState() para desenhar o tabuleiro e o temporizador.
+- activeGames.jsp: getGames() para a tabela de jogos ativos.
+- GameService (em processo) e GameGateway (TCP): os dois transportes possíveis.
+*/
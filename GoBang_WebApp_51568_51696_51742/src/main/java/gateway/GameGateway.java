@@ -0,0 +1,122 @@
+package gateway;
+
+import java.io.IOException;
+import java.util.List;
+import protocol.CommandProtocol;
+
+/**
+ * Gateway da camada web para o GoBangServer.
+ * Antes, cada pedido AJAX dos JSPs abria um socket novo e fazia /login antes do comando real
+ * (handshake TCP + login a cada 500 ms por separador aberto). Agora os JSPs usam este gateway,
+ * que mantém um pequeno conjunto de ligações persistentes e multiplexa nelas os pedidos
+ * de todos os utilizadores (ver GatewayConnection).
+ *
+ * Cada nickname fica sempre na mesma ligação (escolhida pelo hash do nickname),
+ * por isso o login de um jogador só é enviado ao servidor uma vez por ligação.
+ *
+ * Configuração (propriedades de sistema do contentor web):
+ * - gobang.server.host / gobang.server.port: endereço do GoBangServer.
+ * - gobang.gateway.connections: número de ligações persistentes.
+ * - gobang.gateway.timeoutMillis: tempo máximo de espera por uma resposta.
+ *
+ * Ligações:
+ * - Usado por gameAction.jsp, activeGames.jsp, play.jsp e aceitarConvite.jsp.
+ */
+public class GameGateway {
+    private static final String HOST = System.getProperty("gobang.server.host", "26.106.140.96");
+    private static final int PORT = Integer.getInteger("gobang.server.port", 1234);
+    private static final int CONNECTIONS = Math.max(1, Integer.getInteger("gobang.gateway.connections", 4));
+    private static final long TIMEOUT_MILLIS = Long.getLong("gobang.gateway.timeoutMillis", 5000L);
+    private static final int CONNECT_TIMEOUT_MILLIS = 3000;
+
+    private static final GameGateway instance = new GameGateway(); // Instância única (partilhada por todos os JSPs)
+
+    private final GatewayConnection[] pool = new GatewayConnection[CONNECTIONS]; // Ligações (criadas quando são precisas)
+    private final Object[] poolLocks = new Object[CONNECTIONS]; // Um lock por posição do pool
+
+    private GameGateway() {
+        for (int i = 0; i < CONNECTIONS; i++) {
+            poolLocks[i] = new Object();
+        }
+    }
+
+    public static GameGateway getInstance() {
+        return instance;
+    }
+
+    /**
+     * Garante que o jogador está autenticado na ligação que lhe corresponde.
+     * Só envia /login ao servidor se ainda não o fez nesta ligação (ou se a password mudou).
+     * @return true se o login foi aceite
+     * @throws IOException se não for possível comunicar com o servidor
+     */
+    public boolean login(String nickname, String password) throws IOException {
+        GatewayConnection connection = connectionFor(nickname);
+        if (connection.isAuthenticated(nickname, password)) {
+            return true;
+        }
+        List<String> response = connection.send(nickname, "/login " + nickname + " " + password, TIMEOUT_MILLIS);
+        if (!response.isEmpty() && response.get(0).toLowerCase().contains("bem-sucedido")) {
+            connection.markAuthenticated(nickname, password);
+            return true;
+        }
+        connection.forget(nickname);
+        return false;
+    }
+
+    /**
+     * Envia um comando em nome de um jogador (já autenticado com login()).
+     * @return Primeira linha da resposta (o que os JSPs liam com readLine()), ou null se não houver
+     */
+    public String request(String nickname, String command) throws IOException {
+        List<String> response = requestAll(nickname, command);
+        return response.isEmpty() ? null : response.get(0);
+    }
+
+    /**
+     * Envia um comando em nome de um jogador e devolve todas as linhas da resposta.
+     */
+    public List<String> requestAll(String nickname, String command) throws IOException {
+        List<String> response = connectionFor(nickname).send(nickname, command, TIMEOUT_MILLIS);
+        if ("/disconnect".equals(command)) {
+            // A sessão deste jogador no servidor terminou: o próximo pedido tem de voltar a fazer login
+            connectionFor(nickname).forget(nickname);
+        }
+        return response;
+    }
+
+    /**
+     * Devolve a ligação associada a um nickname, (re)abrindo-a se necessário.
+     */
+    private GatewayConnection connectionFor(String nickname) throws IOException {
+        int slot = (nickname.hashCode() & 0x7fffffff) % CONNECTIONS;
+        synchronized (poolLocks[slot]) {
+            GatewayConnection connection = pool[slot];
+            if (connection == null || connection.isClosed()) {
+                System.out.println(CommandProtocol.formatMessage("Gateway: a abrir ligação " + slot + " para " + HOST + ":" + PORT));
+                connection = new GatewayConnection(HOST, PORT, CONNECT_TIMEOUT_MILLIS);
+                pool[slot] = connection;
+            }
+            return connection;
+        }
+    }
+
+    /**
+     * Fecha todas as ligações (ex: ao parar a aplicação web).
+     */
+    public void close() {
+        for (int i = 0; i < CONNECTIONS; i++) {
+            synchronized (poolLocks[i]) {
+                if (pool[i] != null) pool[i].close();
+                pool[i] = null;
+            }
+        }
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- JSPs (gameAction, activeGames, play, aceitarConvite): GameGateway.getInstance().login(...) e request(...).
+- GatewayConnection: cada ligação persistente do pool.
+- GoBangServer/ClientHandler: o servidor trata as linhas "#id@nickname comando" em handleMuxFrame().
+*/
@@ -0,0 +1,166 @@
+package gateway;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import protocol.CommandProtocol;
+import server.GoBangServer;
+
+/**
+ * Uma ligação TCP persistente entre a camada web e o GoBangServer, partilhada por vários jogadores.
+ * Cada pedido é enviado como "#id@nickname comando" e as linhas da resposta chegam como "#id texto",
+ * terminando com "#id$" (ver CommandProtocol). Vários pedidos podem estar em curso ao mesmo tempo:
+ * a thread de leitura entrega cada linha ao pedido com o mesmo id.
+ *
+ * Ligações:
+ * - Criada e gerida por GameGateway (pool de ligações).
+ * - No servidor, cada nickname usado nesta ligação tem uma sessão própria (ClientHandler.handleMuxFrame()).
+ */
+class GatewayConnection {
+    private final Socket socket; // Socket TCP para o GoBangServer
+    private final PrintWriter out; // Escrita dos pedidos (sincronizada em send())
+    private final BufferedReader in; // Lida apenas pela thread de leitura
+    private final AtomicLong nextId = new AtomicLong(1); // Ids dos pedidos desta ligação
+    private final Map<Long, PendingRequest> pending = new ConcurrentHashMap<>(); // Pedidos à espera de resposta
+    private final Map<String, String> authenticated = new ConcurrentHashMap<>(); // nickname -> password já autenticados nesta ligação
+    private volatile boolean closed = false;
+
+    /**
+     * Respostas acumuladas de um pedido em curso.
+     */
+    private static class PendingRequest {
+        final List<String> lines = new ArrayList<>();
+        final CompletableFuture<List<String>> result = new CompletableFuture<>();
+    }
+
+    GatewayConnection(String host, int port, int connectTimeoutMillis) throws IOException {
+        socket = new Socket();
+        socket.connect(new InetSocketAddress(host, port), connectTimeoutMillis);
+        socket.setTcpNoDelay(true);
+        out = new PrintWriter(socket.getOutputStream(), true);
+        in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+
+        Thread reader = new Thread(this::readLoop, "gobang-gateway-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Indica se o jogador já fez login (com esta password) nesta ligação.
+     */
+    boolean isAuthenticated(String nickname, String password) {
+        return password != null && password.equals(authenticated.get(nickname));
+    }
+
+    void markAuthenticated(String nickname, String password) {
+        authenticated.put(nickname, password);
+    }
+
+    void forget(String nickname) {
+        authenticated.remove(nickname);
+    }
+
+    /**
+     * Envia um comando em nome de um jogador e espera pela resposta completa.
+     * @return Linhas da resposta, pela ordem em que o servidor as enviou (pode ser vazia)
+     * @throws IOException se a ligação falhar ou o servidor não responder a tempo
+     */
+    List<String> send(String nickname, String command, long timeoutMillis) throws IOException {
+        if (closed) throw new IOException("Ligação ao servidor GoBang fechada");
+        long id = nextId.getAndIncrement();
+        PendingRequest request = new PendingRequest();
+        pending.put(id, request);
+        try {
+            synchronized (out) {
+                out.println(CommandProtocol.formatMuxRequest(Long.toString(id), nickname, command));
+            }
+            return request.result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IOException("Sem resposta do servidor GoBang a " + command);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Pedido interrompido");
+        } catch (ExecutionException e) {
+            throw new IOException("Ligação ao servidor GoBang perdida", e.getCause());
+        } finally {
+            pending.remove(id);
+        }
+    }
+
+    /**
+     * Thread de leitura: encaminha cada linha para o pedido respetivo.
+     * Linhas de eventos (#!nickname ...) são convertidas num evento "update" no EventBus,
+     * para as páginas abertas do jogador voltarem a pedir o estado (o servidor está noutra JVM).
+     * As várias linhas da mesma notificação (ex: tabuleiro) dão origem a um único evento.
+     */
+    private void readLoop() {
+        try {
+            String line;
+            String lastEventNickname = null; // Jogador do último evento publicado nesta rajada de linhas
+            while ((line = in.readLine()) != null) {
+                String[] event = CommandProtocol.parseMuxEvent(line);
+                if (event != null) {
+                    if (event[1].startsWith("DICAS;")) continue; // Dicas que chegaram depois do /hint: não mudam o jogo
+                    if (!event[0].equals(lastEventNickname)) {
+                        GoBangServer.getEventBus().publish(event[0], "update", "");
+                        lastEventNickname = event[0];
+                    }
+                    if (!in.ready()) lastEventNickname = null; // Fim da rajada: o próximo evento é uma notificação nova
+                    continue;
+                }
+                lastEventNickname = null;
+                String[] frame = CommandProtocol.parseMuxResponse(line);
+                if (frame == null) continue; // Evento ou linha fora do protocolo
+                PendingRequest request = pending.get(Long.parseLong(frame[0]));
+                if (request == null) continue; // Pedido que já expirou
+                if (frame[1] == null) {
+                    request.result.complete(request.lines); // Fim da resposta
+                } else {
+                    request.lines.add(frame[1]);
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println(CommandProtocol.formatMessage("Gateway: erro na ligação ao servidor: " + e.getMessage()));
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Fecha a ligação e falha todos os pedidos em curso. Idempotente.
+     */
+    void close() {
+        if (closed) return;
+        closed = true;
+        try { socket.close(); } catch (IOException ignored) {}
+        for (PendingRequest request : pending.values()) {
+            request.result.completeExceptionally(new IOException("Ligação fechada"));
+        }
+        pending.clear();
+        authenticated.clear();
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- GameGateway: mantém um conjunto fixo de GatewayConnection e escolhe uma por nickname.
+- CommandProtocol: formatMuxRequest()/parseMuxResponse()/parseMuxEvent() definem o formato das linhas.
+- service.EventBus: recebe um evento "update" por cada notificação do servidor a um jogador.
+- GoBangServer/ClientHandler: do lado do servidor, handleMuxFrame() processa os pedidos desta ligação.
+*/
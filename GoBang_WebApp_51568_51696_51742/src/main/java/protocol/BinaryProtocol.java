@@ -0,0 +1,359 @@
+package protocol;
+
+import game.Board;
+import game.BoardView;
+import game.Move;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import service.GameState;
+import service.MoveResult;
+
+/**
+ * Protocolo binário opcional, alternativo ao protocolo de texto (CommandProtocol).
+ * O cliente escolhe-o ao ligar-se, enviando primeiro os bytes MAGIC e VERSION; qualquer outro primeiro byte
+ * (ex: '/' de um comando) mantém a ligação em modo texto, por isso GoBangClient e o gateway web não mudam.
+ *
+ * Formato de cada trama (big-endian, como DataOutputStream):
+ *   [int tamanho][byte opcode][int id do pedido][dados...]
+ * - tamanho: número de bytes a seguir ao próprio tamanho (opcode + id + dados).
+ * - id: escolhido pelo cliente e repetido nas respostas; 0 nas notificações do servidor (EVENT, MOVE_EVENT).
+ * - Strings em DataOutputStream.writeUTF (2 bytes de tamanho + UTF-8).
+ *
+ * Opcodes (cliente -> servidor):
+ * - TEXT  (utf comando): qualquer comando do protocolo de texto; respostas em TEXT, terminadas por END
+ *   (ex: "/resync", cuja resposta é o snapshot de texto CommandProtocol.formatSnapshot()).
+ * - LOGIN (utf nickname, utf password) -> LOGIN (boolean ok).
+ * - MOVE  (byte linha, byte coluna)    -> MOVE (byte estado, utf resultado, utf mensagem final ou "").
+ * - STATE (sem dados)                  -> STATE (estado do jogo, ver writeState()).
+ * Opcodes (servidor -> cliente): TEXT, END, LOGIN, MOVE, STATE, EVENT (utf texto), MOVE_EVENT (jogada, ver moveEvent()),
+ * ERROR (utf mensagem).
+ *
+ * O tabuleiro vai compactado com 2 bits por casa (0 vazio, 1 'X', 2 'O'): 57 bytes para 15x15,
+ * em vez do desenho ASCII de Game.getBoardAsString() (~1.5 KB) ou das 225 letras do /get.
+ *
+ * Ligações:
+ * - ClientHandler.handleFrame()/sendFrame(): lado do servidor (modos thread, virtual e NIO).
+ * - NioConnection/ClientHandler.run(): deteção do protocolo pelo primeiro byte.
+ * - GoBangClient (argumento "binario"): cliente de referência.
+ */
+public class BinaryProtocol {
+    public static final byte MAGIC = (byte) 0xB1; // Primeiro byte de uma ligação binária (nunca é o início de um comando de texto)
+    public static final byte VERSION = 1;
+    public static final int MAX_FRAME_LENGTH = 64 * 1024; // Tramas maiores são consideradas abuso e fecham a ligação
+
+    public static final byte OP_TEXT = 0x01;
+    public static final byte OP_END = 0x02;
+    public static final byte OP_LOGIN = 0x03;
+    public static final byte OP_MOVE = 0x04;
+    public static final byte OP_STATE = 0x05;
+    public static final byte OP_EVENT = 0x06;
+    public static final byte OP_MOVE_EVENT = 0x07;
+    public static final byte OP_ERROR = 0x08;
+
+    private static final char[] CELLS = { '.', 'X', 'O' }; // Valor de 2 bits -> símbolo
+
+    /**
+     * Uma trama recebida: opcode, id do pedido e dados (já sem o cabeçalho).
+     */
+    public static class Frame {
+        public final byte opcode;
+        public final int requestId;
+        public final DataInputStream data;
+
+        Frame(byte opcode, int requestId, DataInputStream data) {
+            this.opcode = opcode;
+            this.requestId = requestId;
+            this.data = data;
+        }
+    }
+
+    /**
+     * Escritor de uma trama: os dados são escritos em "data" e frame() devolve os bytes prontos a enviar.
+     */
+    public static class FrameWriter {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        public final DataOutputStream data = new DataOutputStream(bytes);
+
+        public FrameWriter(byte opcode, int requestId) {
+            try {
+                data.writeInt(0); // Tamanho, preenchido em frame()
+                data.writeByte(opcode);
+                data.writeInt(requestId);
+            } catch (IOException e) {
+                throw new IllegalStateException(e); // ByteArrayOutputStream não lança IOException
+            }
+        }
+
+        public byte[] frame() {
+            byte[] frame = bytes.toByteArray();
+            int length = frame.length - 4;
+            frame[0] = (byte) (length >>> 24);
+            frame[1] = (byte) (length >>> 16);
+            frame[2] = (byte) (length >>> 8);
+            frame[3] = (byte) length;
+            return frame;
+        }
+    }
+
+    /**
+     * Preâmbulo que o cliente envia ao ligar-se para escolher o protocolo binário.
+     */
+    public static byte[] handshake() {
+        return new byte[] { MAGIC, VERSION };
+    }
+
+    /**
+     * Tamanho indicado no cabeçalho de uma trama (4 bytes big-endian a partir de offset).
+     */
+    public static int readLength(byte[] buffer, int offset) {
+        return ((buffer[offset] & 0xFF) << 24) | ((buffer[offset + 1] & 0xFF) << 16)
+                | ((buffer[offset + 2] & 0xFF) << 8) | (buffer[offset + 3] & 0xFF);
+    }
+
+    /**
+     * Interpreta o conteúdo de uma trama (opcode + id + dados), já sem o tamanho.
+     */
+    public static Frame parse(byte[] body, int offset, int length) throws IOException {
+        DataInputStream in = new DataInputStream(new java.io.ByteArrayInputStream(body, offset, length));
+        byte opcode = in.readByte();
+        int requestId = in.readInt();
+        return new Frame(opcode, requestId, in);
+    }
+
+    /**
+     * Lê uma trama completa de um stream bloqueante (modo thread/virtual e cliente).
+     * @return a trama, ou null se o stream terminou
+     */
+    public static Frame readFrame(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (java.io.EOFException e) {
+            return null;
+        }
+        if (length < 5 || length > MAX_FRAME_LENGTH) {
+            throw new IOException("Trama com tamanho inválido: " + length);
+        }
+        byte[] body = new byte[length];
+        in.readFully(body);
+        return parse(body, 0, length);
+    }
+
+    /**
+     * Verifica o preâmbulo de uma ligação (depois de MAGIC já ter sido lido).
+     * @return true se a versão é suportada
+     */
+    public static boolean acceptVersion(int version) {
+        return version == VERSION;
+    }
+
+    /**
+     * Trama com um texto (TEXT, EVENT, ERROR).
+     */
+    public static byte[] text(byte opcode, int requestId, String text) {
+        FrameWriter writer = new FrameWriter(opcode, requestId);
+        try {
+            writer.data.writeUTF(text);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Texto demasiado longo para uma trama", e);
+        }
+        return writer.frame();
+    }
+
+    public static byte[] end(int requestId) {
+        return new FrameWriter(OP_END, requestId).frame();
+    }
+
+    public static byte[] login(int requestId, boolean ok) {
+        FrameWriter writer = new FrameWriter(OP_LOGIN, requestId);
+        try {
+            writer.data.writeBoolean(ok);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return writer.frame();
+    }
+
+    /**
+     * Resposta a MOVE: estado (MoveResult.Status.ordinal()), resultado e mensagem final ("" se o jogo continua).
+     */
+    public static byte[] move(int requestId, MoveResult result) {
+        FrameWriter writer = new FrameWriter(OP_MOVE, requestId);
+        try {
+            writer.data.writeByte(result.getStatus().ordinal());
+            writer.data.writeUTF(result.getResult() != null ? result.getResult() : "");
+            writer.data.writeUTF(result.getFinalMessage() != null ? result.getFinalMessage() : "");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return writer.frame();
+    }
+
+    /**
+     * Notificação de uma jogada (id 0): [utf gameId][int seq][byte linha][byte coluna][byte símbolo][utf próximo jogador].
+     * seq é o número da jogada (ver CommandProtocol.formatMoveDelta()); se houver um salto, o cliente pede STATE.
+     */
+    public static byte[] moveEvent(String gameId, int seq, int row, int col, char symbol, String nextPlayer) {
+        FrameWriter writer = new FrameWriter(OP_MOVE_EVENT, 0);
+        try {
+            writer.data.writeUTF(gameId);
+            writer.data.writeInt(seq);
+            writer.data.writeByte(row);
+            writer.data.writeByte(col);
+            writer.data.writeByte(symbol);
+            writer.data.writeUTF(nextPlayer);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return writer.frame();
+    }
+
+    /**
+     * Trama de estado (resposta a STATE).
+     */
+    public static byte[] state(byte opcode, int requestId, GameState state) {
+        FrameWriter writer = new FrameWriter(opcode, requestId);
+        try {
+            writeState(writer.data, state);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return writer.frame();
+    }
+
+    /**
+     * Codifica um GameState:
+     * [byte estado] e, conforme o estado:
+     * - PENDING_RESULT: [utf resultado]
+     * - PLAYING: [utf player1][utf player2][utf adversário][boolean sua vez][long início da jogada]
+     *            [short tempo máximo][long versão][short jogadas][byte linha][byte coluna] (última jogada, -1 se não há)
+     *            [byte tamanho][tabuleiro 2 bits/casa]
+     *            (tabuleiros maiores que BoardView.DENSE_MAX_SIZE: [byte tamanho][short n][n x (byte linha, byte coluna, byte símbolo)])
+     */
+    public static void writeState(DataOutputStream out, GameState state) throws IOException {
+        out.writeByte(state.getStatus().ordinal());
+        if (state.getStatus() == GameState.Status.PENDING_RESULT) {
+            out.writeUTF(state.getPendingResult());
+        } else if (state.getStatus() == GameState.Status.PLAYING) {
+            out.writeUTF(state.getPlayer1());
+            out.writeUTF(state.getPlayer2());
+            out.writeUTF(state.getOpponent());
+            out.writeBoolean(state.isYourTurn());
+            out.writeLong(state.getMoveStartMillis());
+            out.writeShort(state.getMaxMoveTimeSeconds());
+            out.writeLong(state.getVersion());
+            out.writeShort(state.getMoveCount());
+            out.writeByte(state.getLastMove() != null ? state.getLastMove().getRow() : -1);
+            out.writeByte(state.getLastMove() != null ? state.getLastMove().getCol() : -1);
+            BoardView board = state.getBoardView();
+            out.writeByte(board.size());
+            if (board.isDense()) {
+                out.write(board.getPacked()); // Em cache: compactado uma vez por versão do jogo
+            } else {
+                out.writeShort(board.getStones().length); // Só as peças: não depende da área
+                for (int stone : board.getStones()) {
+                    out.writeByte(Board.stoneRow(stone));
+                    out.writeByte(Board.stoneCol(stone));
+                    out.writeByte(Board.stoneSymbol(stone));
+                }
+            }
+        }
+    }
+
+    /**
+     * Descodifica um GameState escrito por writeState() (lado do cliente).
+     */
+    public static GameState readState(DataInputStream in) throws IOException {
+        GameState.Status status = GameState.Status.values()[in.readUnsignedByte()];
+        if (status == GameState.Status.PENDING_RESULT) {
+            return GameState.pending(in.readUTF());
+        }
+        if (status != GameState.Status.PLAYING) {
+            return GameState.of(status);
+        }
+        String player1 = in.readUTF();
+        String player2 = in.readUTF();
+        String opponent = in.readUTF();
+        boolean yourTurn = in.readBoolean();
+        long moveStart = in.readLong();
+        int maxMoveTime = in.readUnsignedShort();
+        long version = in.readLong();
+        int moveCount = in.readUnsignedShort();
+        int lastRow = in.readByte();
+        int lastCol = in.readByte();
+        int size = in.readUnsignedByte();
+        BoardView board;
+        if (size <= BoardView.DENSE_MAX_SIZE) {
+            byte[] packed = new byte[(size * size + 3) / 4];
+            in.readFully(packed);
+            board = BoardView.fromCells(version, unpackBoard(packed, size));
+        } else {
+            int[] stones = new int[in.readUnsignedShort()];
+            for (int i = 0; i < stones.length; i++) {
+                stones[i] = Board.stone(in.readUnsignedByte(), in.readUnsignedByte(), (char) in.readUnsignedByte());
+            }
+            board = new BoardView(version, size, stones);
+        }
+        Move lastMove = lastRow >= 0 ? new Move(lastRow, lastCol, board.getCells()[lastRow][lastCol], moveCount) : null;
+        return new GameState(status, null, player1, player2, opponent, board,
+                yourTurn, moveStart, maxMoveTime, version, moveCount, lastMove);
+    }
+
+    /**
+     * Compacta o tabuleiro com 2 bits por casa, linha a linha (4 casas por byte, a primeira nos bits mais altos).
+     */
+    public static byte[] packBoard(char[][] board) {
+        int size = board.length;
+        byte[] packed = new byte[(size * size + 3) / 4];
+        int cell = 0;
+        for (char[] row : board) {
+            for (char c : row) {
+                int value = c == 'X' ? 1 : c == 'O' ? 2 : 0;
+                packed[cell >> 2] |= value << (6 - 2 * (cell & 3));
+                cell++;
+            }
+        }
+        return packed;
+    }
+
+    /**
+     * Operação inversa de packBoard().
+     */
+    public static char[][] unpackBoard(byte[] packed, int size) {
+        char[][] board = new char[size][size];
+        for (int cell = 0; cell < size * size; cell++) {
+            int value = (packed[cell >> 2] >> (6 - 2 * (cell & 3))) & 3;
+            board[cell / size][cell % size] = CELLS[Math.min(value, 2)];
+        }
+        return board;
+    }
+
+    /**
+     * Lê o preâmbulo de uma ligação bloqueante: devolve true (e consome MAGIC + versão) se o cliente escolheu
+     * o protocolo binário. O stream tem de suportar mark/reset (ex: BufferedInputStream).
+     */
+    public static boolean detect(InputStream in) throws IOException {
+        in.mark(1);
+        int first = in.read();
+        if (first != (MAGIC & 0xFF)) {
+            in.reset();
+            return false;
+        }
+        int version = in.read();
+        if (!acceptVersion(version)) {
+            throw new IOException("Versão do protocolo binário não suportada: " + version);
+        }
+        return true;
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- ClientHandler: handleFrame() interpreta os pedidos; sendMessage()/sendMoveDelta() respondem com tramas em modo binário.
+- QueuedSocketWriter/NioConnection: enviam as tramas já codificadas (byte[]), tal como as linhas de texto.
+- GameState/MoveResult: os mesmos objetos tipados da camada web, codificados sem texto intermédio.
+- GoBangClient: "java client.GoBangClient binario" usa este protocolo (comandos em TEXT, /move e /get com opcodes próprios).
+*/
@@ -1,7 +1,18 @@
 package protocol;
 
+import ai.Analysis;
+import game.Board;
+import game.GameRules;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Classe utilitária para gerir comandos do protocolo entre cliente e servidor.
@@ -20,6 +31,12 @@ public class CommandProtocol {
 	// Mapa de comandos disponíveis e respetivas instruções de uso
     private static final Map<String, String> commands = new HashMap<>();
 
+    // Tramas multiplexadas (gateway da camada web): "#id@nickname comando", "#id texto", "#id$", "#!nickname texto"
+    // Pedidos com id de um cliente normal (pipelining): "#id comando", com as mesmas respostas, fim e eventos
+    private static final String MUX_PREFIX = "#";
+    private static final String MUX_END = "$";
+    private static final String MUX_EVENT = "!";
+
     // Bloco estático: inicializa o mapa de comandos e instruções
     static {
         commands.put("/register", "Para te registares faz: /register nickname password nationality age");
@@ -32,9 +49,11 @@ public class CommandProtocol {
         commands.put("/comandos", "Para veres os comandos disponíveis faz: /comandos");
         commands.put("/shutdown", "Para desligares o servidor faz: /shutdown");
         commands.put("/surrender", "Para desistires faz: /shutdown"); //NOVO -> CRIADO DEVIDO À IMPLEMENTAÇÃO DE UM BOTÃO DE DESISTÊNCIA NA WEB
-        commands.put("/startgame", "Para convidares alguém para jogar faz: /startgame tu jogador 2"); //NOVO -> CRIADO DEVIDO À IMPLEMENTAÇÃO DE UM SISTEMA DE CONVITES
+        commands.put("/startgame", "Para convidares alguém para jogar faz: /startgame tu jogador 2 [tamanho] [peças] [segundos]"); //NOVO -> CRIADO DEVIDO À IMPLEMENTAÇÃO DE UM SISTEMA DE CONVITES
         commands.put("/timeout", "NÃO UTILIZAR -> SERVE PARA ACABAR COM O TEMPORIZADOR"); //NOVO -> CRIADO DEVIDO À IMPLEMENTAÇÃO DE UM TIMER POR JOGADA
         commands.put("/getgames", "Para veres os teus jogos ativos faz: /getgames"); //NOVO -> CRIADO DEVIDO À IMPLEMENTAÇÃO DE VÁRIOS JOGOS EM SIMULTÂNEO
+        commands.put("/resync", "Para voltares a receber o tabuleiro completo faz: /resync [gameId]");
+        commands.put("/hint", "Para veres as melhores jogadas no teu jogo faz: /hint [quantas]");
     }
 
     /**
@@ -88,6 +107,347 @@ public class CommandProtocol {
         return parameters;
     }
 
+    /**
+     * Indica se a linha é uma trama multiplexada ("#id@nickname comando"), usada pelo gateway da camada web
+     * para enviar pedidos de vários jogadores pela mesma ligação.
+     * 
+     * Usado em:
+     * - ClientHandler: antes de validar o comando (handleLine).
+     */
+    public static boolean isMuxFrame(String line) {
+        return line.startsWith(MUX_PREFIX);
+    }
+
+    /**
+     * Faz parsing de um pedido multiplexado.
+     * Exemplo: "#12@alice /get alice" -> {"12", "alice", "/get alice"}
+     * 
+     * Usado em:
+     * - ClientHandler.handleMuxFrame().
+     * 
+     * @return {id, nickname, comando}, ou null se a trama estiver mal formada
+     */
+    public static String[] parseMuxRequest(String line) {
+        int at = line.indexOf('@');
+        int space = line.indexOf(' ', at + 1);
+        if (!isMuxFrame(line) || at <= 1 || space <= at + 1 || line.lastIndexOf(' ', at) >= 0) {
+            return null;
+        }
+        return new String[] { line.substring(1, at), line.substring(at + 1, space), line.substring(space + 1) };
+    }
+
+    /**
+     * Faz parsing de um pedido com id de um cliente normal (sem nickname).
+     * Exemplo: "#7 /get alice" -> {"7", "/get alice"}
+     * 
+     * Usado em:
+     * - ClientHandler.handleTaggedRequest().
+     * 
+     * @return {id, comando}, ou null se a linha não for um pedido com id (ex: trama multiplexada com '@')
+     */
+    public static String[] parseTaggedRequest(String line) {
+        int space = line.indexOf(' ');
+        if (!isMuxFrame(line) || space <= 1) {
+            return null;
+        }
+        String id = line.substring(1, space);
+        if (id.indexOf('@') >= 0 || id.startsWith(MUX_EVENT) || id.endsWith(MUX_END)) {
+            return null;
+        }
+        return new String[] { id, line.substring(space + 1) };
+    }
+
+    /**
+     * Formata um pedido com id (lado do cliente): "#id comando".
+     * Vários pedidos podem ser enviados de seguida, sem esperar pelas respostas.
+     */
+    public static String formatTaggedRequest(String id, String command) {
+        return MUX_PREFIX + id + " " + command;
+    }
+
+    /**
+     * Lê as respostas de pedidos com id já enviados (lado do cliente), por qualquer ordem,
+     * até todos terem chegado ao fim ("#id$") ou a ligação fechar (ex: /disconnect não tem fim).
+     * As notificações ("#!nickname texto") e as linhas de outros pedidos são ignoradas.
+     * 
+     * Usado em:
+     * - login.jsp, logout.jsp e ConnectionBenchmark.
+     * 
+     * @return id -> linhas da resposta (sem o prefixo "#id ")
+     */
+    public static Map<String, List<String>> readTaggedResponses(BufferedReader in, Collection<String> ids) throws IOException {
+        Map<String, List<String>> responses = new HashMap<>();
+        Set<String> pending = new HashSet<>(ids);
+        for (String id : ids) {
+            responses.put(id, new ArrayList<>());
+        }
+        String line;
+        while (!pending.isEmpty() && (line = in.readLine()) != null) {
+            String[] parsed = parseMuxResponse(line);
+            if (parsed == null || !responses.containsKey(parsed[0])) {
+                continue;
+            }
+            if (parsed[1] == null) {
+                pending.remove(parsed[0]);
+            } else {
+                responses.get(parsed[0]).add(parsed[1]);
+            }
+        }
+        return responses;
+    }
+
+    /**
+     * Formata um pedido multiplexado (lado do gateway).
+     */
+    public static String formatMuxRequest(String id, String nickname, String command) {
+        return MUX_PREFIX + id + "@" + nickname + " " + command;
+    }
+
+    /**
+     * Formata uma mensagem de resposta a um pedido multiplexado: "#id texto".
+     * Mensagens com várias linhas dão origem a várias linhas com o mesmo id.
+     */
+    public static String formatMuxResponse(String id, String message) {
+        String prefix = MUX_PREFIX + id + " ";
+        return prefix + message.replace("\n", "\n" + prefix);
+    }
+
+    /**
+     * Formata o marcador de fim de resposta de um pedido multiplexado: "#id$".
+     */
+    public static String formatMuxEnd(String id) {
+        return MUX_PREFIX + id + MUX_END;
+    }
+
+    /**
+     * Formata uma notificação assíncrona (fora de um pedido) para um jogador de uma ligação multiplexada:
+     * "#!nickname texto".
+     */
+    public static String formatMuxEvent(String nickname, String message) {
+        String prefix = MUX_PREFIX + MUX_EVENT + nickname + " ";
+        return prefix + message.replace("\n", "\n" + prefix);
+    }
+
+    /**
+     * Faz parsing de uma notificação assíncrona multiplexada (lado do gateway).
+     * Exemplo: "#!alice FIM DE JOGO! Ganhaste!" -> {"alice", "FIM DE JOGO! Ganhaste!"}
+     * 
+     * Usado em:
+     * - GatewayConnection: para avisar as páginas web do jogador (EventBus) em modo remoto.
+     * 
+     * @return {nickname, texto}, ou null se a linha não for uma notificação
+     */
+    public static String[] parseMuxEvent(String line) {
+        if (!line.startsWith(MUX_PREFIX + MUX_EVENT)) {
+            return null;
+        }
+        int space = line.indexOf(' ');
+        if (space <= 2) {
+            return null;
+        }
+        return new String[] { line.substring(2, space), line.substring(space + 1) };
+    }
+
+    /**
+     * Faz parsing de uma linha de resposta multiplexada (lado do gateway).
+     * 
+     * Usado em:
+     * - GatewayConnection: para entregar cada linha ao pedido respetivo.
+     * 
+     * @return {id, texto} para linhas de resposta, {id, null} para o fim da resposta,
+     *         ou null para eventos e linhas fora do protocolo
+     */
+    public static String[] parseMuxResponse(String line) {
+        if (!isMuxFrame(line) || line.startsWith(MUX_PREFIX + MUX_EVENT)) {
+            return null;
+        }
+        if (line.endsWith(MUX_END) && line.indexOf(' ') < 0) {
+            return new String[] { line.substring(1, line.length() - 1), null };
+        }
+        int space = line.indexOf(' ');
+        if (space <= 1) {
+            return null;
+        }
+        return new String[] { line.substring(1, space), line.substring(space + 1) };
+    }
+
+    /**
+     * Formata a notificação de uma jogada (delta): "JOGADA;gameId;seq;linha;coluna;símbolo;próximoJogador".
+     * seq é o número da jogada no jogo (1, 2, 3, ...): um cliente que receba um seq diferente do último + 1
+     * perdeu jogadas e deve pedir /resync. O próximo jogador é "-" se a jogada terminou o jogo.
+     * O tamanho da mensagem não depende do tamanho do tabuleiro.
+     * 
+     * Usado em:
+     * - GoBangServer.notifyMove() (após cada jogada), GoBangClient (aplica a jogada ao tabuleiro local).
+     */
+    public static String formatMoveDelta(String gameId, int seq, int row, int col, char symbol, String nextPlayer) {
+        return "JOGADA;" + gameId + ";" + seq + ";" + row + ";" + col + ";" + symbol + ";" + nextPlayer;
+    }
+
+    /**
+     * Faz parsing de uma notificação de jogada.
+     * @return {gameId, seq, linha, coluna, símbolo, próximoJogador}, ou null se a linha não for uma jogada
+     */
+    public static String[] parseMoveDelta(String line) {
+        if (!line.startsWith("JOGADA;")) {
+            return null;
+        }
+        String[] parts = line.split(";");
+        return parts.length == 7 ? Arrays.copyOfRange(parts, 1, 7) : null;
+    }
+
+    /**
+     * Formata o aviso de vez passada por tempo: "VEZ;gameId;seq;próximoJogador".
+     * seq é o número de jogadas do jogo (não muda: não houve jogada), para o cliente ignorar avisos antigos.
+     * 
+     * Usado em:
+     * - GoBangServer.notifyTurnPassed() (temporizador do servidor), GoBangClient (mostra quem joga).
+     */
+    public static String formatTurnPassed(String gameId, int seq, String nextPlayer) {
+        return "VEZ;" + gameId + ";" + seq + ";" + nextPlayer;
+    }
+
+    /**
+     * Faz parsing de um aviso de vez passada.
+     * @return {gameId, seq, próximoJogador}, ou null se a linha não for um aviso de vez passada
+     */
+    public static String[] parseTurnPassed(String line) {
+        if (!line.startsWith("VEZ;")) {
+            return null;
+        }
+        String[] parts = line.split(";");
+        return parts.length == 4 ? Arrays.copyOfRange(parts, 1, 4) : null;
+    }
+
+    /**
+     * Formata as dicas de um jogo: "DICAS;gameId;seq;profundidade;linha,coluna,valor|linha,coluna,valor|...",
+     * da melhor jogada para a pior. seq é o número de jogadas do jogo quando as dicas foram pedidas (como em JOGADA;...),
+     * para o cliente ignorar dicas de uma posição que já passou.
+     * 
+     * Usado em:
+     * - ClientHandler.handleHint() (/hint); GameFacade.hint() faz o parsing em modo remoto.
+     */
+    public static String formatHints(String gameId, int seq, Analysis analysis) {
+        StringBuilder sb = new StringBuilder("DICAS;").append(gameId).append(';').append(seq).append(';')
+                .append(analysis.getDepth()).append(';');
+        for (int i = 0; i < analysis.count(); i++) {
+            if (i > 0) sb.append('|');
+            sb.append(analysis.getRow(i)).append(',').append(analysis.getCol(i)).append(',').append(analysis.getScore(i));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Resposta a /hint enquanto a pesquisa decorre: "DICAS;gameId;seq;pendente".
+     * As dicas chegam depois numa notificação formatHints() (ou num novo /hint, já da cache).
+     */
+    public static String formatHintsPending(String gameId, int seq) {
+        return "DICAS;" + gameId + ";" + seq + ";pendente";
+    }
+
+    /**
+     * Faz parsing de uma linha de dicas.
+     * @return a análise, ou null se a linha não for de dicas ou se as dicas ainda estiverem pendentes
+     */
+    public static Analysis parseHints(String line) {
+        if (line == null || !line.startsWith("DICAS;")) {
+            return null;
+        }
+        String[] parts = line.split(";", -1);
+        if (parts.length != 5 || "pendente".equals(parts[3])) {
+            return null;
+        }
+        String[] hints = parts[4].isEmpty() ? new String[0] : parts[4].split("\\|");
+        int[] moves = new int[hints.length];
+        int[] scores = new int[hints.length];
+        for (int i = 0; i < hints.length; i++) {
+            String[] hint = hints[i].split(",");
+            moves[i] = Integer.parseInt(hint[0]) * GameRules.MAX_SIZE + Integer.parseInt(hint[1]); // Casas com passo MAX_SIZE
+            scores[i] = Integer.parseInt(hint[2]);
+        }
+        return new Analysis(GameRules.MAX_SIZE, moves, scores, Integer.parseInt(parts[3]));
+    }
+
+    /**
+     * Formata o estado completo de um jogo (snapshot):
+     * "SNAPSHOT;gameId;seq;player1;player2;próximoJogador;linha0|linha1|..." (player1 joga com 'X', player2 com 'O').
+     * O tabuleiro já vem no formato de formatBoard() (normalmente da cache do jogo, Game.getBoardView()).
+     * Enviado só quando o jogo começa e em resposta a /resync; entre snapshots chegam apenas jogadas (formatMoveDelta).
+     * 
+     * Usado em:
+     * - SessionManager.addGameForPlayers() e ClientHandler.handleResync(); GoBangClient (tabuleiro local).
+     */
+    public static String formatSnapshot(String gameId, int seq, String player1, String player2, String nextPlayer, String board) {
+        return "SNAPSHOT;" + gameId + ";" + seq + ";" + player1 + ";" + player2 + ";" + nextPlayer + ";" + board;
+    }
+
+    /**
+     * Faz parsing de um snapshot.
+     * @return {gameId, seq, player1, player2, próximoJogador, tabuleiro}, ou null se a linha não for um snapshot
+     */
+    public static String[] parseSnapshot(String line) {
+        if (!line.startsWith("SNAPSHOT;")) {
+            return null;
+        }
+        String[] parts = line.split(";");
+        return parts.length == 7 ? Arrays.copyOfRange(parts, 1, 7) : null;
+    }
+
+    /**
+     * Converte o tabuleiro para texto compacto: uma letra por casa ('.', 'X', 'O'), linhas separadas por '|'.
+     * Mesmo formato do campo TABULEIRO do /get (tabuleiros até game.BoardView.DENSE_MAX_SIZE; maiores usam formatSparseBoard()).
+     */
+    public static String formatBoard(char[][] board) {
+        StringBuilder sb = new StringBuilder(board.length * (board.length + 1));
+        for (int i = 0; i < board.length; i++) {
+            sb.append(board[i]);
+            if (i < board.length - 1) sb.append('|');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Converte um tabuleiro grande para texto só com as peças: "N<tamanho>/linha,colunaS/linha,colunaS..."
+     * (ex: "N40/20,20X/20,21O"). O tamanho do texto depende do número de peças e não da área.
+     * 
+     * Usado em:
+     * - game.BoardView.getCompact() para tabuleiros maiores que BoardView.DENSE_MAX_SIZE.
+     */
+    public static String formatSparseBoard(int size, int[] stones) {
+        StringBuilder sb = new StringBuilder(4 + stones.length * 7);
+        sb.append('N').append(size);
+        for (int stone : stones) {
+            sb.append('/').append(Board.stoneRow(stone)).append(',').append(Board.stoneCol(stone)).append(Board.stoneSymbol(stone));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Operação inversa de formatBoard() e de formatSparseBoard().
+     */
+    public static char[][] parseBoard(String text) {
+        if (text.startsWith("N")) {
+            String[] parts = text.split("/");
+            int size = Integer.parseInt(parts[0].substring(1));
+            char[][] board = new char[size][size];
+            for (char[] row : board) {
+                Arrays.fill(row, Board.EMPTY);
+            }
+            for (int i = 1; i < parts.length; i++) {
+                int comma = parts[i].indexOf(',');
+                int last = parts[i].length() - 1;
+                board[Integer.parseInt(parts[i].substring(0, comma))][Integer.parseInt(parts[i].substring(comma + 1, last))] = parts[i].charAt(last);
+            }
+            return board;
+        }
+        String[] rows = text.split("\\|");
+        char[][] board = new char[rows.length][];
+        for (int i = 0; i < rows.length; i++) {
+            board[i] = rows[i].toCharArray();
+        }
+        return board;
+    }
+
     /**
      * Formata uma mensagem para envio ao cliente ou servidor.
      * Atualmente, apenas devolve a mensagem tal como está.
@@ -105,5 +465,9 @@ public class CommandProtocol {
 UTILIZAÇÕES E LIGAÇÕES:
 - GoBangClient: valida comandos antes de enviar (isValidCommand), mostra ajuda (getAvailableCommands), formata mensagens (formatMessage).
 - ClientHandler: valida comandos recebidos (isValidCommand), faz parsing (parseCommand), responde a /comandos (getAvailableCommands), envia mensagens (formatMessage).
+- GameGateway/GatewayConnection e ClientHandler.handleMuxFrame(): formato das tramas multiplexadas (#id@nickname comando).
+- GoBangServer.notifyMove(), SessionManager, ClientHandler.handleResync() e GoBangClient: jogadas (JOGADA;...) e snapshots (SNAPSHOT;...).
+- ClientHandler.handleHint() e GameFacade.hint(): dicas (DICAS;...).
+- ClientHandler.handleTaggedRequest(), login.jsp, logout.jsp, ConnectionBenchmark: pedidos com id de um cliente normal (#id comando).
 - Todos os comandos aceites pelo sistema estão definidos aqui, garantindo centralização e consistência.
 */
\ No newline at end of file
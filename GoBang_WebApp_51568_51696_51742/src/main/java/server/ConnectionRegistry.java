@@ -0,0 +1,110 @@
+package server;
+
+import client.ClientHandler;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registo concorrente das ligações ativas do servidor, indexado por nickname.
+ * Substitui a antiga lista de ClientHandler percorrida linearmente em cada notificação.
+ *
+ * Responsável por:
+ * - Guardar todas as ligações abertas (para broadcast, ex: /shutdown).
+ * - Associar cada jogador (nickname) ao conjunto das suas ligações: um jogador pode ter várias
+ *   (cliente de consola, socket guardado na sessão por login.jsp, pedidos AJAX em curso...).
+ * - Responder em O(1) a "que ligações tem este jogador?" e "este jogador está ligado?".
+ *
+ * Ligações:
+ * - GoBangServer regista/remove ligações ao aceitar e ao fechar (via ClientHandler).
+ * - ClientHandler.handleLogin() associa a ligação ao nickname (bind); o fecho remove-a (unregister).
+ * - GoBangServer.notifyPlayer/notifyPlayers e Player.isConnected() fazem lookups por nickname.
+ */
+public class ConnectionRegistry {
+    private final Set<ClientHandler> connections = ConcurrentHashMap.newKeySet(); // Todas as ligações abertas
+    private final ConcurrentMap<String, Set<ClientHandler>> byNickname = new ConcurrentHashMap<>(); // nickname -> ligações autenticadas
+
+    /**
+     * Regista uma nova ligação (ainda sem jogador autenticado).
+     */
+    public void register(ClientHandler handler) {
+        connections.add(handler);
+    }
+
+    /**
+     * Remove uma ligação do registo e do índice do jogador autenticado nela (se houver).
+     * Idempotente: pode ser chamado mais do que uma vez para a mesma ligação.
+     */
+    public void unregister(ClientHandler handler) {
+        connections.remove(handler);
+        if (handler.getPlayer() != null) {
+            unbind(handler.getPlayer().getNickname(), handler);
+        }
+    }
+
+    /**
+     * Associa uma ligação a um nickname (após login bem-sucedido).
+     * compute() é atómico por chave no ConcurrentHashMap, por isso não há corridas com unbind().
+     */
+    public void bind(String nickname, ClientHandler handler) {
+        byNickname.compute(nickname, (nick, set) -> {
+            if (set == null) set = ConcurrentHashMap.newKeySet();
+            set.add(handler);
+            return set;
+        });
+    }
+
+    /**
+     * Desassocia uma ligação de um nickname (fecho da ligação ou login com outro jogador).
+     * Remove a entrada do mapa quando o jogador fica sem ligações.
+     */
+    public void unbind(String nickname, ClientHandler handler) {
+        byNickname.computeIfPresent(nickname, (nick, set) -> {
+            set.remove(handler);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * Devolve as ligações autenticadas de um jogador (vazio se não estiver ligado).
+     * O conjunto devolvido é uma vista concorrente: pode ser percorrido sem cópias.
+     */
+    public Set<ClientHandler> getConnections(String nickname) {
+        Set<ClientHandler> set = byNickname.get(nickname);
+        return set != null ? set : Collections.<ClientHandler>emptySet();
+    }
+
+    /**
+     * Indica se o jogador tem pelo menos uma ligação aberta.
+     * Usado por Player.isConnected().
+     */
+    public boolean isConnected(String nickname) {
+        for (ClientHandler handler : getConnections(nickname)) {
+            if (handler.getSocket() != null && !handler.getSocket().isClosed()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Vista (só de leitura) de todas as ligações abertas.
+     */
+    public Collection<ClientHandler> getAll() {
+        return Collections.unmodifiableSet(connections);
+    }
+
+    public int size() {
+        return connections.size();
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- Instância única em GoBangServer (GoBangServer.getConnections()).
+- ClientHandler: bind() no login, unregister() no fecho/desconexão.
+- GoBangServer.main() e NioServer: register() ao aceitar uma ligação.
+- GoBangServer.notifyPlayer/notifyPlayers, Player.isConnected(), ClientHandler.handleSurrender(): lookups por nickname.
+*/
@@ -1,10 +1,21 @@
 package server;
 
+import ai.BotPlayer;
+import ai.HintService;
 import client.ClientHandler;
+import game.Game;
+import game.GameSnapshot;
 import game.Player;
 import java.io.*;
+import java.lang.reflect.Method;
 import java.net.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 import javax.xml.XMLConstants;
 import javax.xml.parsers.*;
 import javax.xml.transform.*;
@@ -15,7 +26,11 @@ import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 import javax.xml.validation.Validator;
 import org.w3c.dom.*;
+import protocol.BinaryProtocol;
 import protocol.CommandProtocol;
+import service.EventBus;
+import service.GameService;
+import service.TurnTimer;
 import session.SessionManager;
 
 /**
@@ -35,14 +50,40 @@ import session.SessionManager;
  */
 public class GoBangServer {
     private static final int PORT = 1234;
-    private static Map<String, Player> players = new HashMap<>(); // Mapa de jogadores registados (nickname -> Player)
-    private static List<ClientHandler> clients = new ArrayList<>(); // Lista de clientes ligados (um ClientHandler por cliente)
+    // Modo de execução: "thread" (uma thread por cliente, por omissão), "virtual" (uma virtual thread por cliente)
+    // ou "nio" (Selector com poucas threads de I/O)
+    private static final String SERVER_MODE = System.getProperty("gobang.server.mode", "thread");
+    private static final int IO_THREADS = Integer.getInteger("gobang.server.ioThreads", Runtime.getRuntime().availableProcessors());
+    // Threads que executam os comandos no modo NIO (podem bloquear em XML, joins de jogos, etc; os EventLoops só fazem I/O)
+    private static final int WORKER_THREADS = Integer.getInteger("gobang.server.workerThreads", Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+    // Mapa de jogadores registados (nickname -> Player). Concorrente: lido e alterado pelos handlers, workers NIO,
+    // JSPs em processo, bots e temporizador ao mesmo tempo (não aceita chaves null)
+    private static final Map<String, Player> players = new ConcurrentHashMap<>();
+    private static ConnectionRegistry connections = new ConnectionRegistry(); // Ligações abertas, indexadas por nickname (um ClientHandler por ligação)
     private static SessionManager sessionManager = new SessionManager(); // Gerente de sessões de jogo (um por servidor)
+    private static final GameService gameService = new GameService(); // Lógica dos comandos de jogo (partilhada por TCP e pela camada web)
+    private static final EventBus eventBus = new EventBus(); // Eventos para as páginas web abertas (server push, em vez de polling)
+    private static final BotPlayer bots = new BotPlayer(); // Adversários controlados pelo servidor (ai.BotPlayer)
+    private static final HintService hints = new HintService(); // Dicas (/hint e página de jogo), com cache por posição
+    private static final TurnTimer turnTimer = new TurnTimer(gameService::turnExpired); // Tempo de jogada de todos os jogos (roda de temporizadores)
+    private static volatile boolean running = false; // true enquanto o servidor corre nesta JVM (ver isRunning())
     private static volatile boolean isShuttingDown = false; //volatile - indicado para variáveis que são utilizadas/modificadas entre threads
     private static ServerSocket serverSocket; // Socket do servidor (aceita novas ligações)
-    private static Map<String, String> lastGameResults = new HashMap<>(); 
+    private static NioServer nioServer; // Servidor NIO (só no modo "nio")
+    private static ExecutorService clientExecutor; // Executor dos ClientHandler (só no modo "virtual")
+    // Pedidos que não correm na thread da própria ligação (sessões multiplexadas do gateway, modos thread/virtual)
+    private static final ExecutorService requestExecutor = createRequestExecutor();
+    private static final ReentrantLock persistenceLock = new ReentrantLock(); // Serializa escritas dos XML (ReentrantLock em vez de synchronized: não fixa virtual threads ao carrier)
+    private static final Map<String, String> lastGameResults = new ConcurrentHashMap<>();
     // Mapa de resultados finais de jogos (nickname -> mensagem de fim de jogo)
-    // Usado para polling no frontend (ex: "FIM DE JOGO! Ganhaste!")
+    // Usado para polling no frontend (ex: "FIM DE JOGO! Ganhaste!"); concorrente porque cada /move e /get
+    // lhe faz remove() e os fins de jogo (jogadas, desistências, timeouts) fazem put() de threads diferentes
+
+    static {
+        Game.addListener(eventBus); // Jogadas e timeouts de todos os jogos chegam às páginas abertas
+        Game.addListener(bots); // Os bots jogam quando a vez passa para eles
+        Game.addListener(turnTimer); // Jogadas põem a zero os timeouts seguidos
+    }
 
     /**
      * Ponto de entrada do servidor.
@@ -50,25 +91,44 @@ public class GoBangServer {
      * - Aceita ligações de clientes e cria um ClientHandler para cada um.
      * - Guarda jogadores no XML ao terminar.
      * 
+     * Modos (propriedade de sistema gobang.server.mode):
+     * - "thread" (omissão): cada ClientHandler corre na sua própria thread.
+     * - "virtual": cada ClientHandler corre numa virtual thread (Java 21+), através de um executor.
+     * - "nio": NioServer com um Selector por thread de I/O (gobang.server.ioThreads).
+     * 
      * Ligações:
-     * - Para cada cliente, cria um ClientHandler (thread).
+     * - Para cada cliente, cria um ClientHandler (thread ou NioConnection).
      * - Usa CommandProtocol para mensagens de log.
      * - Usa loadPlayersFromXML/savePlayersToXML para persistência.
      */
     public static void main(String[] args) {
     	try {
             loadPlayersFromXML();
+            bots.install(players); // Contas dos bots (só em memória, não vão para o players.xml)
+            running = true;
+            if ("nio".equalsIgnoreCase(SERVER_MODE)) {
+                nioServer = new NioServer(PORT, IO_THREADS, WORKER_THREADS);
+                nioServer.run();
+                return;
+            }
+            if ("virtual".equalsIgnoreCase(SERVER_MODE)) {
+                clientExecutor = createVirtualThreadExecutor();
+            }
             serverSocket = new ServerSocket(PORT);
-            System.out.println("Servidor iniciado na porta " + PORT);
+            System.out.println("Servidor iniciado na porta " + PORT + " (modo " + SERVER_MODE + ")");
             
             while (!isShuttingDown) {
                 try {
                     Socket socket = serverSocket.accept();
 	                System.out.println(CommandProtocol.formatMessage("Novo cliente conectado: " + socket.getInetAddress().getHostAddress()));
 	                ClientHandler clientHandler = new ClientHandler(socket);
-	                getClients().add(clientHandler);
-	                System.out.println("DEBUG: Número de handlers ativos: " + GoBangServer.getClients().size());
-	                new Thread(clientHandler).start();
+	                getConnections().register(clientHandler);
+	                System.out.println("DEBUG: Número de handlers ativos: " + getConnections().size());
+	                if (clientExecutor != null) {
+	                    clientExecutor.execute(clientHandler);
+	                } else {
+	                    new Thread(clientHandler).start();
+	                }
                 } catch (SocketException e) {
                     if (isShuttingDown) {
                         System.out.println(CommandProtocol.formatMessage("Servidor encerrando normalmente..."));
@@ -80,6 +140,7 @@ public class GoBangServer {
         } catch (IOException e) {
             System.err.println(CommandProtocol.formatMessage("Erro ao iniciar o servidor: " + e.getMessage()));
         } finally {
+            running = false;
         	GoBangServer.saveRankingToXML();
             savePlayersToXML();
         }
@@ -87,14 +148,16 @@ public class GoBangServer {
 
     /**
      * Guarda todos os jogadores no ficheiro players.xml (com validação XSD).
-     * Cada jogador é guardado com estatísticas, cor, jogos e tempos.
+     * Cada jogador é guardado com estatísticas, cor, jogos e tempos (os bots de ai.BotPlayer não são guardados).
      * 
      * Ligações:
      * - Chamado no fim do main() e em shutdownServer().
+     * - Pode ser chamado em simultâneo por vários handlers: as escritas são serializadas por persistenceLock.
      * - Usa Player.getFormattedPlayTimes(), getGameUUIDs(), etc.
      * - O ficheiro é lido por loadPlayersFromXML().
      */
     public static void savePlayersToXML() {
+        persistenceLock.lock();
         try {
             System.out.println("DEBUG: Número de jogadores a guardar: " + getPlayers().size());
 
@@ -106,6 +169,8 @@ public class GoBangServer {
             doc.appendChild(root);
 
             for (Player player : getPlayers().values()) {
+                if (bots.isBot(player.getNickname())) continue; // Os bots são recriados por BotPlayer.install() em cada arranque
+
                 Element playerElement = doc.createElement("Player");
 
                 Element nickname = doc.createElement("Nickname");
@@ -200,6 +265,8 @@ public class GoBangServer {
             System.out.println("Jogadores guardados em players.xml");
         } catch (Exception e) {
             e.printStackTrace();
+        } finally {
+            persistenceLock.unlock();
         }
     }
 
@@ -286,6 +353,7 @@ public class GoBangServer {
      * O ficheiro é guardado por omissão em user.home/GoBangData/ranking_backup.xml.
      */
     public static void saveRankingToXML() {
+        persistenceLock.lock();
         try {
             // Caminho por omissão
             String userHome = System.getProperty("user.home");
@@ -356,6 +424,8 @@ public class GoBangServer {
             System.out.println("Ranking guardado em " + filePath);
         } catch (Exception e) {
             e.printStackTrace();
+        } finally {
+            persistenceLock.unlock();
         }
     }
 
@@ -394,19 +464,64 @@ public class GoBangServer {
         return ranking;
     }
     
+    /**
+     * Cria o executor de virtual threads (Executors.newVirtualThreadPerTaskExecutor, Java 21+).
+     * Obtido por reflexão para o servidor continuar a compilar e a correr em JDKs anteriores;
+     * nesse caso usa um pool de threads de plataforma e avisa no log.
+     * 
+     * As chamadas bloqueantes dos handlers (readLine, sendMessage, savePlayersToXML) libertam
+     * a carrier thread enquanto esperam, desde que não estejam dentro de blocos synchronized
+     * (por isso SessionManager e a persistência XML usam ReentrantLock).
+     */
+    private static ExecutorService createVirtualThreadExecutor() {
+        ExecutorService executor = newVirtualThreadExecutorOrNull();
+        if (executor == null) {
+            System.err.println(CommandProtocol.formatMessage("Virtual threads indisponíveis neste JDK (requer Java 21+). A usar threads de plataforma."));
+            return Executors.newCachedThreadPool();
+        }
+        return executor;
+    }
+
+    /**
+     * Cria o executor de getRequestExecutor(): virtual threads quando disponíveis, senão um pool
+     * limitado de threads daemon (gobang.server.workerThreads, o mesmo tamanho dos workers do modo NIO).
+     */
+    private static ExecutorService createRequestExecutor() {
+        ExecutorService executor = newVirtualThreadExecutorOrNull();
+        if (executor != null) {
+            return executor;
+        }
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, WORKER_THREADS), task -> {
+            Thread thread = new Thread(task, "gobang-request-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Executor de virtual threads (uma por tarefa), ou null se o JDK não as suportar.
+     * Usado também por QueuedSocketWriter, que nesse caso escolhe o seu próprio pool limitado.
+     */
+    static ExecutorService newVirtualThreadExecutorOrNull() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
     /**
      * Notifica um jogador específico com uma mensagem.
-     * Procura o ClientHandler correspondente e envia a mensagem.
+     * Envia a mensagem a todas as ligações do jogador (lookup O(1) no ConnectionRegistry).
      * 
      * Ligações:
      * - Usado por ClientHandler (ex: handleMove, handleSurrender, disconnectClient).
      */
     public static void notifyPlayer(Player player, String message) {
-        for (ClientHandler client : getClients()) {
-            if (client.getPlayer() != null && client.getPlayer().equals(player)) {
-                client.sendMessage(message);
-                break;
-            }
+        for (ClientHandler client : connections.getConnections(player.getNickname())) {
+            client.sendMessage(message);
         }
     }
     
@@ -418,28 +533,87 @@ public class GoBangServer {
      * - Usado por ClientHandler.handleMove(), handleStartGame(), etc.
      */
     public static void notifyPlayers(Player player1, Player player2, String messagePlayer1, String messagePlayer2) {
-        // Cria uma cópia para evitar ConcurrentModificationException
-        List<ClientHandler> clientsCopy = new ArrayList<>(getClients());
-        for (ClientHandler client : clientsCopy) {
-            if (client.getPlayer() != null) {
-                if (client.getPlayer().equals(player1)) {
-                    client.sendMessage(messagePlayer1);
-                } else if (client.getPlayer().equals(player2)) {
-                    client.sendMessage(messagePlayer2);
-                }
-            }
+        // Os conjuntos do registo são concorrentes: não é preciso copiar nada
+        notifyPlayer(player1, messagePlayer1);
+        notifyPlayer(player2, messagePlayer2);
+    }
+
+    /**
+     * Notifica os dois jogadores de um jogo de uma jogada (delta: gameId, seq, linha, coluna, símbolo, próximo jogador).
+     * A mensagem é a mesma para os dois jogadores e é formatada uma única vez (texto e trama binária),
+     * com um tamanho que não depende do tabuleiro; o tabuleiro completo só é enviado no início do jogo
+     * e a pedido (/resync).
+     * 
+     * Ligações:
+     * - Usado por GameService.move(), com o snapshot da jogada (entregue depois da jogada, por Game.publish()).
+     * - ClientHandler.sendMoveDelta() escolhe o formato de cada ligação.
+     */
+    public static void notifyMove(Game game, GameSnapshot snapshot, int row, int col) {
+        char symbol = snapshot.getLastMove().getSymbol();
+        String nextPlayer = snapshot.getNextPlayerName();
+        int seq = snapshot.getMoveCount();
+        String text = CommandProtocol.formatMoveDelta(game.getId(), seq, row, col, symbol, nextPlayer);
+        byte[] frame = BinaryProtocol.moveEvent(game.getId(), seq, row, col, symbol, nextPlayer);
+        for (ClientHandler client : connections.getConnections(game.getPlayer1().getNickname())) {
+            client.sendMoveDelta(text, frame);
+        }
+        for (ClientHandler client : connections.getConnections(game.getPlayer2().getNickname())) {
+            client.sendMoveDelta(text, frame);
         }
     }
 
-    public static List<ClientHandler> getClients() {
-		return clients;
+    /**
+     * Avisa os dois jogadores de um jogo de que a vez passou por tempo ("VEZ;gameId;seq;próximoJogador").
+     * 
+     * Ligações:
+     * - Usado por GameService.turnExpired() (TurnTimer).
+     */
+    public static void notifyTurnPassed(Game game) {
+        GameSnapshot snapshot = game.getSnapshot();
+        String text = CommandProtocol.formatTurnPassed(game.getId(), snapshot.getMoveCount(), snapshot.getNextPlayerName());
+        notifyPlayers(game.getPlayer1(), game.getPlayer2(), text, text);
+    }
+
+    /**
+     * Devolve todas as ligações abertas (vista só de leitura, ex: para broadcast no /shutdown).
+     */
+    public static Collection<ClientHandler> getClients() {
+		return connections.getAll();
 	}
 
+    public static ConnectionRegistry getConnections() {
+        return connections;
+    }
+
 	public static Map<String, Player> getPlayers() {
 		return players;
 	}
 	
 	public static SessionManager getSession() { return sessionManager; }
+
+	public static GameService getGameService() { return gameService; }
+
+	public static EventBus getEventBus() { return eventBus; }
+
+	public static TurnTimer getTurnTimer() { return turnTimer; }
+
+	public static BotPlayer getBots() { return bots; }
+
+	public static HintService getHints() { return hints; }
+
+	/**
+	 * Executor para pedidos que não correm na thread da ligação que os recebeu, nos modos thread/virtual
+	 * (ex: as sessões multiplexadas do gateway, ver ClientHandler.handleMuxFrame()). No modo NIO usa-se a pool de workers.
+	 */
+	public static Executor getRequestExecutor() { return requestExecutor; }
+
+	/**
+	 * Indica se o servidor GoBang está a correr nesta JVM.
+	 * Usado por GameFacade para decidir entre chamadas em processo (GameService) e TCP (GameGateway).
+	 */
+	public static boolean isRunning() {
+		return running && !isShuttingDown;
+	}
 	
 	public static Map<String, String> getLastGameResults() { return lastGameResults; }
 
@@ -467,6 +641,12 @@ public class GoBangServer {
         } catch (IOException e) {
             System.err.println(CommandProtocol.formatMessage("Erro ao fechar ServerSocket: " + e.getMessage()));
         }
+        if (nioServer != null) {
+            nioServer.close();
+        }
+        if (clientExecutor != null) {
+            clientExecutor.shutdown();
+        }
         savePlayersToXML();
         System.exit(0);
     }
@@ -475,9 +655,15 @@ public class GoBangServer {
 UTILIZAÇÕES E LIGAÇÕES:
 - GoBangServer é o ponto central do servidor.
 - ClientHandler: cada ligação de cliente é gerida por um ClientHandler, que usa GoBangServer para aceder a jogadores, sessões, notificações, etc.
+- NioServer/NioConnection: alternativa ao modo thread-por-cliente (gobang.server.mode=nio).
+- Modo "virtual": os mesmos ClientHandler bloqueantes, mas em virtual threads (ver createVirtualThreadExecutor).
+- benchmark.ConnectionBenchmark: gerador de carga para comparar os modos thread/virtual/nio.
 - Player: representa cada utilizador registado, guardado/carregado em XML.
 - SessionManager: gere jogos ativos, fila de espera, etc.
+- GameService: lógica dos comandos de jogo, usada pelo ClientHandler (TCP) e pela camada web em processo (GameFacade).
+- EventBus: eventos de jogo/convites empurrados para as páginas web (web.EventStreamServlet), ligado a Game como GameListener.
+- TurnTimer: tempo de jogada de todos os jogos no servidor (TimerWheel); notifyTurnPassed() avisa os clientes TCP.
 - CommandProtocol: usado para formatar mensagens de log e protocolo.
-- Métodos como notifyPlayer, notifyPlayers são usados para comunicação entre threads/handlers.
+- Métodos como notifyPlayer, notifyPlayers e notifyMove são usados para comunicação entre threads/handlers (via ConnectionRegistry).
 - lastGameResults é usado para polling de resultados finais (ex: "error:game_over" ou "FIM DE JOGO! Ganhaste!").
 */
\ No newline at end of file
@@ -0,0 +1,396 @@
+package server;
+
+import client.ClientHandler;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import protocol.BinaryProtocol;
+import protocol.CommandProtocol;
+
+/**
+ * Representa uma ligação de cliente no modo NIO do servidor (NioServer).
+ * Substitui o par Socket + thread do modo clássico por um SocketChannel não bloqueante.
+ *
+ * Responsável por:
+ * - Ler bytes do canal para um buffer de leitura e separá-los em linhas (framing por '\n').
+ * - Entregar cada linha completa ao ClientHandler associado (handleLine), numa thread da pool de workers:
+ *   os comandos de uma ligação correm um de cada vez e pela ordem de chegada (dispatch()).
+ * - Se o primeiro byte recebido for BinaryProtocol.MAGIC, passar ao protocolo binário:
+ *   o framing passa a ser pelo tamanho de cada trama e as tramas vão para ClientHandler.handleFrame().
+ * - Deixar de ler do canal enquanto houver demasiados comandos por executar (o cliente espera pelo TCP).
+ * - Manter uma fila limitada (OutboundQueue) de mensagens pendentes e escrevê-las, juntas num só buffer,
+ *   quando o canal está pronto.
+ *
+ * Ligações:
+ * - Criada por NioServer.EventLoop ao registar um canal aceite.
+ * - Usada por ClientHandler.sendMessage() quando o handler está em modo NIO.
+ * - Todas as operações de I/O correm na thread do EventLoop que é dona da ligação; os comandos nunca
+ *   correm nessa thread (podem bloquear: escrita do players.xml, espera pela vez num jogo, etc).
+ */
+public class NioConnection {
+    private static final int READ_BUFFER_SIZE = 4096; // Tamanho do buffer de leitura por ligação
+    private static final int MAX_LINE_LENGTH = 16 * 1024; // Linhas maiores do que isto são consideradas abuso e fecham a ligação
+    private static final Charset CHARSET = Charset.defaultCharset(); // Igual ao InputStreamReader/PrintWriter do modo clássico
+    private static final int MAX_PENDING_COMMANDS = 256; // A partir daqui deixa de ler do canal até os workers recuperarem
+    private static final int COMMAND_BATCH = 32; // Comandos seguidos de uma ligação antes de devolver o worker à pool
+
+    private final SocketChannel channel; // Canal TCP do cliente (não bloqueante)
+    private final NioServer.EventLoop loop; // EventLoop dono desta ligação
+    private final ClientHandler handler; // Handler que interpreta os comandos recebidos
+    private final Executor workers; // Pool onde correm os comandos (partilhada por todas as ligações)
+    private final Queue<Command> commands = new ConcurrentLinkedQueue<>(); // Comandos recebidos, por executar (pela ordem de chegada)
+    private final AtomicInteger pendingCommands = new AtomicInteger(); // Tamanho de commands
+    private final AtomicBoolean commandsScheduled = new AtomicBoolean(false); // Já há um worker a executar os comandos desta ligação?
+    private volatile boolean stopped = false; // /disconnect ou erro: os comandos seguintes são ignorados
+    private boolean readPaused = false; // OP_READ desligado por excesso de comandos (só acedido pelo EventLoop)
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE); // Buffer de leitura
+    private final ByteArrayOutputStream lineBuffer = new ByteArrayOutputStream(128); // Bytes da linha atual (ainda sem '\n')
+    private final OutboundQueue<byte[]> pendingWrites = new OutboundQueue<>(); // Mensagens por escrever, já codificadas (podem vir de outras threads)
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false); // Já há um flush agendado no EventLoop?
+    private ByteBuffer writeBuffer; // Lote atual a ser escrito (só acedido pelo EventLoop)
+    private SelectionKey key; // Chave de registo no Selector do EventLoop
+    private volatile boolean closed = false; // Indica se a ligação já foi fechada
+    private volatile boolean closeAfterFlush = false; // Fecha a ligação assim que a fila de escrita esvaziar
+    private int protocolState = PROTOCOL_UNKNOWN; // Protocolo escolhido pelo cliente (só acedido pelo EventLoop)
+
+    private static final int PROTOCOL_UNKNOWN = 0; // Ainda não chegou nenhum byte
+    private static final int PROTOCOL_VERSION = 1; // Recebido MAGIC, falta a versão
+    private static final int PROTOCOL_TEXT = 2;
+    private static final int PROTOCOL_BINARY = 3;
+
+    NioConnection(SocketChannel channel, NioServer.EventLoop loop, Executor workers) {
+        this.channel = channel;
+        this.loop = loop;
+        this.workers = workers;
+        this.handler = new ClientHandler(this);
+    }
+
+    void setKey(SelectionKey key) {
+        this.key = key;
+    }
+
+    public ClientHandler getHandler() {
+        return handler;
+    }
+
+    /**
+     * Devolve o Socket associado ao canal.
+     * Usado por ClientHandler.getSocket() (ex: Player.isConnected()).
+     */
+    public Socket getSocket() {
+        return channel.socket();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Pool de workers do NioServer onde correm os comandos desta ligação.
+     * Usado por ClientHandler para as sessões multiplexadas do gateway (cada uma com a sua fila).
+     */
+    public Executor getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Envia uma mensagem ao cliente (linha terminada por \n).
+     * Pode ser chamado de qualquer thread: a mensagem é colocada na fila
+     * e a escrita é feita pela thread do EventLoop, juntando todas as mensagens
+     * acumuladas até lá numa única escrita.
+     */
+    public void send(String message) {
+        byte[] text = message.getBytes(CHARSET);
+        byte[] line = new byte[text.length + 1];
+        System.arraycopy(text, 0, line, 0, text.length);
+        line[text.length] = '\n';
+        sendBytes(line);
+    }
+
+    /**
+     * Envia bytes já codificados (ex: uma trama do protocolo binário), com as mesmas regras de send().
+     */
+    public void sendBytes(byte[] data) {
+        if (closed) return;
+        // Na thread do EventLoop não se pode esperar por espaço na fila (é ela que a esvazia)
+        switch (pendingWrites.offer(data, !loop.inEventLoop())) {
+            case ACCEPTED:
+                scheduleFlush();
+                break;
+            case DROPPED:
+                System.err.println(CommandProtocol.formatMessage("Cliente lento: mensagem descartada."));
+                break;
+            case OVERFLOW:
+                System.err.println(CommandProtocol.formatMessage("Cliente lento: fila de saída cheia, a desligar."));
+                loop.execute(this::close);
+                break;
+        }
+    }
+
+    /**
+     * Fecha a ligação depois de escrever tudo o que está pendente.
+     * Usado em ClientHandler.disconnectClient() para garantir que a mensagem final chega ao cliente.
+     */
+    public void closeGracefully() {
+        closeAfterFlush = true;
+        scheduleFlush();
+    }
+
+    /**
+     * Agenda um flush no EventLoop, no máximo um de cada vez: as mensagens que chegarem
+     * entretanto são escritas no mesmo lote.
+     */
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            loop.execute(() -> {
+                flushScheduled.set(false);
+                flush();
+            });
+        }
+    }
+
+    /**
+     * Lê o que estiver disponível no canal e processa todas as linhas completas.
+     * Chamado pelo EventLoop quando o canal fica legível (OP_READ).
+     */
+    void onReadable() {
+        int read;
+        try {
+            read = channel.read(readBuffer);
+        } catch (IOException e) {
+            System.err.println(CommandProtocol.formatMessage("Erro na comunicação com o cliente: " + e.getMessage()));
+            close();
+            return;
+        }
+        if (read < 0) { // O cliente fechou a ligação
+            close();
+            return;
+        }
+
+        readBuffer.flip();
+        if (protocolState != PROTOCOL_TEXT) {
+            readPreambleOrFrames();
+        }
+        while (protocolState == PROTOCOL_TEXT && readBuffer.hasRemaining() && !closed && !stopped) {
+            byte b = readBuffer.get();
+            if (b == '\n') {
+                String line = new String(lineBuffer.toByteArray(), CHARSET);
+                lineBuffer.reset();
+                if (line.endsWith("\r")) line = line.substring(0, line.length() - 1);
+                final String command = line;
+                dispatch(() -> handler.handleLine(command));
+            } else {
+                lineBuffer.write(b);
+                if (lineBuffer.size() > MAX_LINE_LENGTH) {
+                    System.err.println(CommandProtocol.formatMessage("Linha demasiado longa, a fechar ligação."));
+                    close();
+                }
+            }
+        }
+        readBuffer.clear();
+    }
+
+    /**
+     * Escolha do protocolo pelos primeiros bytes e, no protocolo binário, separação das tramas
+     * ([int tamanho][tamanho bytes]). As tramas podem chegar partidas entre leituras: os bytes
+     * ficam em lineBuffer até a trama estar completa.
+     */
+    private void readPreambleOrFrames() {
+        if (protocolState == PROTOCOL_UNKNOWN && readBuffer.hasRemaining()) {
+            if (readBuffer.get(readBuffer.position()) != BinaryProtocol.MAGIC) {
+                protocolState = PROTOCOL_TEXT; // Cliente de texto: o byte é o início do primeiro comando
+                return;
+            }
+            readBuffer.get();
+            protocolState = PROTOCOL_VERSION;
+        }
+        if (protocolState == PROTOCOL_VERSION && readBuffer.hasRemaining()) {
+            byte version = readBuffer.get();
+            if (!BinaryProtocol.acceptVersion(version)) {
+                System.err.println(CommandProtocol.formatMessage("Versão do protocolo binário não suportada: " + version));
+                close();
+                return;
+            }
+            protocolState = PROTOCOL_BINARY;
+            handler.setBinary(true);
+        }
+        if (protocolState != PROTOCOL_BINARY) return;
+
+        lineBuffer.write(readBuffer.array(), readBuffer.position(), readBuffer.remaining());
+        readBuffer.position(readBuffer.limit());
+        byte[] pending = lineBuffer.toByteArray();
+        int offset = 0;
+        while (!closed && !stopped && pending.length - offset >= 4) {
+            int length = BinaryProtocol.readLength(pending, offset);
+            if (length < 5 || length > BinaryProtocol.MAX_FRAME_LENGTH) {
+                System.err.println(CommandProtocol.formatMessage("Trama com tamanho inválido, a fechar ligação."));
+                close();
+                return;
+            }
+            if (pending.length - offset - 4 < length) break; // Trama incompleta: espera pela próxima leitura
+            try {
+                BinaryProtocol.Frame frame = BinaryProtocol.parse(pending, offset + 4, length);
+                dispatch(() -> handler.handleFrame(frame));
+            } catch (IOException e) {
+                System.err.println(CommandProtocol.formatMessage("Trama inválida: " + e.getMessage()));
+                close();
+                return;
+            }
+            offset += 4 + length;
+        }
+        lineBuffer.reset();
+        lineBuffer.write(pending, offset, pending.length - offset);
+    }
+
+    /**
+     * Entrega um comando aos workers. Os comandos de uma ligação correm um de cada vez e pela ordem
+     * de chegada (como no modo clássico, em que a thread do handler lê e executa uma linha de cada vez),
+     * mas nunca na thread do EventLoop. Com MAX_PENDING_COMMANDS por executar, deixa de ler do canal.
+     * Chamado pelo EventLoop.
+     */
+    private void dispatch(Command command) {
+        commands.add(command);
+        if (pendingCommands.incrementAndGet() >= MAX_PENDING_COMMANDS && !readPaused && key != null && key.isValid()) {
+            readPaused = true;
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+        }
+        scheduleCommands();
+    }
+
+    /**
+     * Agenda a execução dos comandos pendentes num worker, no máximo um de cada vez por ligação.
+     */
+    private void scheduleCommands() {
+        if (commandsScheduled.compareAndSet(false, true)) {
+            try {
+                workers.execute(this::runCommands);
+            } catch (RejectedExecutionException e) { // Servidor a encerrar
+                commandsScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Executa até COMMAND_BATCH comandos desta ligação (num worker) e volta a agendar-se se ainda houver mais,
+     * para que uma ligação com muitos pedidos não ocupe um worker indefinidamente.
+     */
+    private void runCommands() {
+        Command command;
+        int done = 0;
+        while (done < COMMAND_BATCH && (command = commands.poll()) != null) {
+            done++;
+            if (pendingCommands.decrementAndGet() == MAX_PENDING_COMMANDS / 2) {
+                loop.execute(this::resumeReading);
+            }
+            if (stopped || closed) continue;
+            try {
+                if (!command.run()) {
+                    stopped = true; // /disconnect: o handler já pediu o fecho da ligação
+                }
+            } catch (IOException e) {
+                System.err.println(CommandProtocol.formatMessage("Trama inválida: " + e.getMessage()));
+                stopped = true;
+                loop.execute(this::close);
+            } catch (RuntimeException e) {
+                // Tal como no modo clássico (onde a thread do handler morre), fecha só esta ligação
+                System.err.println(CommandProtocol.formatMessage("Erro ao processar comando, a fechar ligação: " + e));
+                stopped = true;
+                loop.execute(this::close);
+            }
+        }
+        commandsScheduled.set(false);
+        if (!commands.isEmpty()) {
+            scheduleCommands();
+        }
+    }
+
+    /**
+     * Volta a ler do canal depois de os workers terem esvaziado metade da fila de comandos. Corre no EventLoop.
+     */
+    private void resumeReading() {
+        if (!readPaused || closed || key == null || !key.isValid()) return;
+        readPaused = false;
+        key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+    }
+
+    /**
+     * Escreve as mensagens pendentes: junta todas as que estão na fila num só buffer
+     * e faz uma única escrita no canal. Se o socket não aceitar tudo, ativa OP_WRITE
+     * e o EventLoop volta a chamar este método quando houver espaço.
+     */
+    void flush() {
+        if (closed || key == null) return;
+        try {
+            while (true) {
+                if (writeBuffer == null || !writeBuffer.hasRemaining()) {
+                    List<byte[]> batch = pendingWrites.drain();
+                    if (batch.isEmpty()) {
+                        writeBuffer = null;
+                        break;
+                    }
+                    int size = 0;
+                    for (byte[] message : batch) {
+                        size += message.length;
+                    }
+                    writeBuffer = ByteBuffer.allocate(size);
+                    for (byte[] message : batch) {
+                        writeBuffer.put(message);
+                    }
+                    writeBuffer.flip();
+                }
+                channel.write(writeBuffer);
+                if (writeBuffer.hasRemaining()) {
+                    key.interestOps(key.interestOps() | SelectionKey.OP_WRITE); // Socket cheio, espera por OP_WRITE
+                    return;
+                }
+            }
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            if (closeAfterFlush) close();
+        } catch (IOException e) {
+            System.err.println(CommandProtocol.formatMessage("Erro ao enviar para o cliente: " + e.getMessage()));
+            close();
+        }
+    }
+
+    /**
+     * Fecha o canal e avisa o handler (remove-o da lista global de clientes).
+     * Idempotente: pode ser chamado várias vezes.
+     */
+    void close() {
+        if (closed) return;
+        closed = true;
+        if (key != null) key.cancel();
+        try { channel.close(); } catch (IOException ignored) {}
+        pendingWrites.clear();
+        writeBuffer = null;
+        handler.onConnectionClosed();
+    }
+
+    /**
+     * Comando recebido (linha de texto ou trama binária), executado por um worker.
+     * Devolve false se a ligação deve terminar (/disconnect).
+     */
+    private interface Command {
+        boolean run() throws IOException;
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- NioServer.EventLoop cria uma NioConnection por cada SocketChannel aceite e chama onReadable()/flush().
+- ClientHandler (modo NIO) recebe as linhas via handleLine() (ou as tramas binárias via handleFrame()), numa thread
+  da pool de workers do NioServer, e responde via send()/sendBytes().
+- GoBangServer.notifyPlayer/notifyPlayers podem chamar send() a partir de outras threads (a escrita é sempre feita no EventLoop).
+- OutboundQueue: fila limitada de mensagens pendentes, com a política para clientes lentos.
+*/
@@ -0,0 +1,209 @@
+package server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import protocol.CommandProtocol;
+
+/**
+ * Modo NIO do servidor GoBang (alternativa ao modo "uma thread por cliente").
+ * Aceita ligações num ServerSocketChannel e distribui-as (round-robin) por um número
+ * pequeno de EventLoops, cada um com o seu Selector e a sua thread.
+ *
+ * Vantagens:
+ * - Milhares de ligações (ex: polling AJAX dos JSPs) sem milhares de stacks de threads.
+ * - Leitura/escrita não bloqueante com buffers por ligação (ver NioConnection).
+ * - Os comandos (que podem bloquear: escrita do players.xml, espera pela vez num jogo, etc) correm
+ *   numa pool de workers, pela ordem de chegada em cada ligação; os EventLoops só fazem framing e I/O.
+ *
+ * Ligações:
+ * - Criado por GoBangServer.main() quando gobang.server.mode=nio.
+ * - Cada ligação é representada por uma NioConnection com o seu ClientHandler,
+ *   que continua a despachar os mesmos comandos (/login, /move, /get, ...).
+ */
+public class NioServer {
+    private final int port; // Porta onde o servidor escuta
+    private final EventLoop[] loops; // EventLoops de I/O (um Selector + uma thread cada)
+    private final ExecutorService workers; // Threads que executam os comandos das ligações (ver NioConnection.dispatch())
+    private ServerSocketChannel serverChannel; // Canal que aceita novas ligações
+    private int nextLoop = 0; // Índice do próximo EventLoop (round-robin)
+
+    /**
+     * @param port Porta TCP do servidor
+     * @param ioThreads Número de threads de I/O (EventLoops)
+     * @param workerThreads Número de threads que executam os comandos
+     */
+    public NioServer(int port, int ioThreads, int workerThreads) {
+        this.port = port;
+        this.loops = new EventLoop[Math.max(1, ioThreads)];
+        AtomicInteger count = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, workerThreads), task -> {
+            Thread thread = new Thread(task, "gobang-worker-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Arranca os EventLoops e fica a aceitar ligações até o servidor ser encerrado.
+     * Bloqueia a thread chamadora (tal como o ciclo accept() do modo clássico).
+     */
+    public void run() throws IOException {
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new EventLoop("gobang-io-" + i, workers);
+            loops[i].start();
+        }
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        System.out.println("Servidor iniciado na porta " + port + " (modo NIO, " + loops.length + " threads de I/O)");
+
+        while (!GoBangServer.isShuttingDown()) {
+            try {
+                SocketChannel channel = serverChannel.accept(); // Aceitação bloqueante; o I/O dos clientes é não bloqueante
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                System.out.println(CommandProtocol.formatMessage("Novo cliente conectado: " + channel.socket().getInetAddress().getHostAddress()));
+                EventLoop loop = loops[nextLoop];
+                nextLoop = (nextLoop + 1) % loops.length;
+                loop.register(channel);
+            } catch (ClosedChannelException e) {
+                if (GoBangServer.isShuttingDown()) {
+                    System.out.println(CommandProtocol.formatMessage("Servidor encerrando normalmente..."));
+                } else {
+                    System.err.println(CommandProtocol.formatMessage("Erro inesperado no ServerSocketChannel: " + e.getMessage()));
+                }
+                break;
+            } catch (IOException e) {
+                System.err.println(CommandProtocol.formatMessage("Erro ao aceitar cliente: " + e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Fecha o canal de aceitação e pára os EventLoops.
+     * Chamado por GoBangServer.shutdownServer().
+     */
+    public void close() {
+        try {
+            if (serverChannel != null && serverChannel.isOpen()) {
+                serverChannel.close();
+            }
+        } catch (IOException e) {
+            System.err.println(CommandProtocol.formatMessage("Erro ao fechar ServerSocketChannel: " + e.getMessage()));
+        }
+        for (EventLoop loop : loops) {
+            if (loop != null) loop.shutdown();
+        }
+        workers.shutdown();
+    }
+
+    /**
+     * Thread de I/O com um Selector próprio.
+     * Todas as leituras, escritas e fechos das suas ligações acontecem nesta thread;
+     * outras threads pedem trabalho através de execute() (fila de tarefas + wakeup()).
+     * Os comandos lidos são entregues à pool de workers (nunca correm nesta thread).
+     */
+    static class EventLoop implements Runnable {
+        private final Selector selector;
+        private final Thread thread;
+        private final ExecutorService workers; // Pool partilhada de workers do NioServer
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>(); // Tarefas vindas de outras threads
+        private volatile boolean running = true;
+
+        EventLoop(String name, ExecutorService workers) throws IOException {
+            this.selector = Selector.open();
+            this.thread = new Thread(this, name);
+            this.workers = workers;
+        }
+
+        void start() {
+            thread.start();
+        }
+
+        boolean inEventLoop() {
+            return Thread.currentThread() == thread;
+        }
+
+        /**
+         * Agenda uma tarefa para correr nesta thread de I/O e acorda o Selector.
+         */
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        /**
+         * Regista um canal aceite neste EventLoop (o registo é feito na própria thread do loop).
+         */
+        void register(SocketChannel channel) {
+            execute(() -> {
+                NioConnection connection = new NioConnection(channel, this, workers);
+                try {
+                    SelectionKey key = channel.register(selector, SelectionKey.OP_READ, connection);
+                    connection.setKey(key);
+                    GoBangServer.getConnections().register(connection.getHandler());
+                } catch (ClosedChannelException e) {
+                    connection.close();
+                }
+            });
+        }
+
+        void shutdown() {
+            running = false;
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    selector.select();
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) {
+                        task.run();
+                    }
+                    Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        SelectionKey key = it.next();
+                        it.remove();
+                        NioConnection connection = (NioConnection) key.attachment();
+                        if (!key.isValid()) continue;
+                        try {
+                            if (key.isReadable()) connection.onReadable();
+                            if (key.isValid() && key.isWritable()) connection.flush();
+                        } catch (RuntimeException e) {
+                            // Tal como no modo clássico (onde a thread do handler morre), fecha só esta ligação
+                            System.err.println(CommandProtocol.formatMessage("Erro na ligação, a fechar: " + e));
+                            connection.close();
+                        }
+                    }
+                } catch (IOException e) {
+                    System.err.println(CommandProtocol.formatMessage("Erro no EventLoop: " + e.getMessage()));
+                }
+            }
+            for (SelectionKey key : selector.keys()) {
+                ((NioConnection) key.attachment()).close();
+            }
+            try { selector.close(); } catch (IOException ignored) {}
+        }
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- GoBangServer.main() cria um NioServer quando a propriedade gobang.server.mode é "nio"
+  (número de threads de I/O em gobang.server.ioThreads).
+- Cada EventLoop gere várias NioConnection; cada NioConnection tem um ClientHandler (sem thread própria).
+- Os comandos de cada NioConnection correm na pool de workers (gobang.server.workerThreads), um de cada vez e por ordem.
+- GoBangServer.shutdownServer() chama close() para parar de aceitar ligações e terminar os loops.
+*/
@@ -0,0 +1,100 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fila limitada de mensagens por enviar a um cliente (uma por ligação).
+ * Quem envia (ex: GoBangServer.notifyPlayers a partir do handler de outro jogador) só coloca
+ * a mensagem na fila; a escrita no socket é feita pela camada de I/O (QueuedSocketWriter ou NioConnection),
+ * que junta todas as mensagens pendentes numa única escrita/flush.
+ *
+ * Política para clientes lentos (fila cheia), configurável com gobang.outbound.policy:
+ * - "drop": descarta a nova mensagem.
+ * - "disconnect" (omissão): fecha a ligação do cliente lento.
+ * - "block": espera até gobang.outbound.blockTimeoutMillis por espaço na fila; se não houver, desliga.
+ *
+ * As mensagens guardadas são do tipo T: os escritores guardam-nas já codificadas (byte[]),
+ * para que linhas de texto e tramas do protocolo binário (BinaryProtocol) partilhem a mesma fila.
+ *
+ * Ligações:
+ * - Usada por QueuedSocketWriter (modos thread/virtual) e NioConnection (modo NIO).
+ * - Capacidade configurável com gobang.outbound.capacity.
+ */
+public class OutboundQueue<T> {
+    public enum SlowConsumerPolicy { DROP, DISCONNECT, BLOCK }
+    public enum OfferResult { ACCEPTED, DROPPED, OVERFLOW }
+
+    private static final int CAPACITY = Integer.getInteger("gobang.outbound.capacity", 256);
+    private static final long BLOCK_TIMEOUT_MILLIS = Long.getLong("gobang.outbound.blockTimeoutMillis", 2000L);
+    private static final SlowConsumerPolicy POLICY = parsePolicy(System.getProperty("gobang.outbound.policy", "disconnect"));
+
+    private final BlockingQueue<T> queue = new ArrayBlockingQueue<>(CAPACITY);
+
+    /**
+     * Coloca uma mensagem na fila aplicando a política configurada.
+     * @param message Mensagem a enviar
+     * @param mayBlock false se a thread chamadora é a que esvazia a fila (ex: EventLoop do modo NIO):
+     *                 nesse caso a política "block" é tratada como "disconnect" para não haver deadlock
+     * @return ACCEPTED se ficou na fila, DROPPED se foi descartada, OVERFLOW se o cliente deve ser desligado
+     */
+    public OfferResult offer(T message, boolean mayBlock) {
+        if (queue.offer(message)) {
+            return OfferResult.ACCEPTED;
+        }
+        switch (POLICY) {
+            case DROP:
+                return OfferResult.DROPPED;
+            case BLOCK:
+                if (mayBlock) {
+                    try {
+                        if (queue.offer(message, BLOCK_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                            return OfferResult.ACCEPTED;
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return OfferResult.OVERFLOW;
+            default:
+                return OfferResult.OVERFLOW;
+        }
+    }
+
+    /**
+     * Retira todas as mensagens pendentes (para serem escritas de uma só vez).
+     * @return Lista (possivelmente vazia) com as mensagens, pela ordem de envio
+     */
+    public List<T> drain() {
+        List<T> batch = new ArrayList<>(Math.max(1, queue.size()));
+        queue.drainTo(batch);
+        return batch;
+    }
+
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    public void clear() {
+        queue.clear();
+    }
+
+    private static SlowConsumerPolicy parsePolicy(String value) {
+        try {
+            return SlowConsumerPolicy.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Política gobang.outbound.policy desconhecida: " + value + " (a usar disconnect)");
+            return SlowConsumerPolicy.DISCONNECT;
+        }
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- QueuedSocketWriter: uma OutboundQueue por ClientHandler nos modos thread/virtual.
+- NioConnection: uma OutboundQueue por ligação no modo NIO (esvaziada pelo EventLoop).
+- Garante que um cliente lento não atrasa a jogada de outro jogador (quem notifica nunca escreve no socket).
+*/
@@ -0,0 +1,202 @@
+package server;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import protocol.CommandProtocol;
+
+/**
+ * Escrita assíncrona para um socket bloqueante (modos thread e virtual do servidor).
+ * Substitui o PrintWriter com autoflush do ClientHandler: send() apenas coloca a mensagem
+ * na OutboundQueue e agenda um "drain" num executor partilhado de escrita,
+ * que escreve todas as mensagens pendentes e faz um único flush.
+ * As mensagens ficam na fila já codificadas: linhas de texto (send) ou tramas binárias (sendBytes).
+ *
+ * O executor usa virtual threads quando o JDK as tem (Java 21+): uma escrita bloqueada num cliente
+ * lento não prende uma thread de plataforma. Sem virtual threads usa um pool limitado
+ * (gobang.outbound.writerThreads). Em ambos os casos, uma escrita que demore mais do que
+ * gobang.outbound.writeTimeoutMillis desliga o cliente, libertando a thread presa.
+ *
+ * Ligações:
+ * - Criado por ClientHandler.run() (um por ligação).
+ * - Usado por ClientHandler.sendMessage(), chamado também a partir de outras threads
+ *   (GoBangServer.notifyPlayer/notifyPlayers).
+ */
+public class QueuedSocketWriter {
+    private static final int WRITER_THREADS = Integer.getInteger("gobang.outbound.writerThreads", Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+    private static final long WRITE_TIMEOUT_MILLIS = Long.getLong("gobang.outbound.writeTimeoutMillis", 10000L);
+
+    // Executor partilhado que esvazia as filas de todas as ligações (virtual threads ou pool limitado de threads daemon)
+    private static final ExecutorService WRITERS = createWriters();
+
+    // Escritas em curso, verificadas periodicamente pelo vigilante (o socket bloqueante não tem timeout de escrita)
+    private static final Set<QueuedSocketWriter> WRITING = ConcurrentHashMap.newKeySet();
+    private static final ScheduledExecutorService WATCHDOG = createWatchdog();
+
+    private static final Charset CHARSET = Charset.defaultCharset(); // Igual ao antigo OutputStreamWriter
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(CHARSET); // Igual ao antigo PrintWriter.println()
+
+    private final Socket socket; // Socket do cliente
+    private final OutputStream out; // Stream com buffer, sem autoflush (o flush é feito uma vez por lote)
+    private final OutboundQueue<byte[]> queue = new OutboundQueue<>(); // Mensagens por enviar (já codificadas)
+    private final AtomicBoolean scheduled = new AtomicBoolean(false); // Já há um drain agendado?
+    private final ReentrantLock writeLock = new ReentrantLock(); // Serializa as escritas no socket
+    private volatile boolean closed = false;
+    private volatile long writeStartedAt; // System.nanoTime() do início do lote em escrita (válido enquanto está em WRITING)
+
+    public QueuedSocketWriter(Socket socket) throws IOException {
+        this.socket = socket;
+        this.out = new BufferedOutputStream(socket.getOutputStream());
+    }
+
+    /**
+     * Coloca uma mensagem na fila de saída. Nunca escreve no socket na thread chamadora
+     * (exceto na política "block", em que pode esperar por espaço na fila).
+     */
+    public void send(String message) {
+        byte[] text = message.getBytes(CHARSET);
+        byte[] line = new byte[text.length + LINE_SEPARATOR.length];
+        System.arraycopy(text, 0, line, 0, text.length);
+        System.arraycopy(LINE_SEPARATOR, 0, line, text.length, LINE_SEPARATOR.length);
+        sendBytes(line);
+    }
+
+    /**
+     * Coloca bytes já codificados na fila de saída (ex: uma trama do protocolo binário), sem separador de linha.
+     */
+    public void sendBytes(byte[] data) {
+        if (closed) return;
+        switch (queue.offer(data, true)) {
+            case ACCEPTED:
+                schedule();
+                break;
+            case DROPPED:
+                System.err.println(CommandProtocol.formatMessage("Cliente lento: mensagem descartada."));
+                break;
+            case OVERFLOW:
+                System.err.println(CommandProtocol.formatMessage("Cliente lento: fila de saída cheia, a desligar."));
+                close();
+                break;
+        }
+    }
+
+    /**
+     * Escreve o que estiver pendente (na thread chamadora) e fecha o socket.
+     * Usado em ClientHandler.disconnectClient() para garantir que a mensagem final é enviada.
+     */
+    public void closeGracefully() {
+        drain();
+        close();
+    }
+
+    /**
+     * Fecha o socket e descarta as mensagens pendentes. Idempotente.
+     * Fechar o socket faz também terminar o readLine() da thread do handler.
+     */
+    public void close() {
+        if (closed) return;
+        closed = true;
+        queue.clear();
+        WRITING.remove(this);
+        try { socket.close(); } catch (IOException ignored) {}
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            WRITERS.execute(() -> {
+                try {
+                    drain();
+                } finally {
+                    scheduled.set(false);
+                    // Mensagens que chegaram entre o último drain e o reset da flag
+                    if (!queue.isEmpty() && !closed) schedule();
+                }
+            });
+        }
+    }
+
+    /**
+     * Escreve todas as mensagens pendentes e faz um único flush (coalescência de escritas).
+     */
+    private void drain() {
+        writeLock.lock();
+        try {
+            List<byte[]> batch;
+            while (!closed && !(batch = queue.drain()).isEmpty()) {
+                writeStartedAt = System.nanoTime();
+                WRITING.add(this);
+                for (byte[] message : batch) {
+                    out.write(message);
+                }
+                out.flush();
+                WRITING.remove(this);
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                System.err.println(CommandProtocol.formatMessage("Erro ao enviar para o cliente: " + e.getMessage()));
+            }
+            close();
+        } finally {
+            WRITING.remove(this);
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Desliga os clientes cuja escrita em curso já passou do timeout.
+     * Fechar o socket faz a escrita bloqueada falhar com IOException, libertando a thread de escrita.
+     */
+    private static void closeStuckWriters() {
+        long now = System.nanoTime();
+        for (QueuedSocketWriter writer : WRITING) {
+            if (now - writer.writeStartedAt > TimeUnit.MILLISECONDS.toNanos(WRITE_TIMEOUT_MILLIS)) {
+                System.err.println(CommandProtocol.formatMessage("Cliente preso: escrita há mais de " + WRITE_TIMEOUT_MILLIS + " ms, a desligar."));
+                writer.close();
+            }
+        }
+    }
+
+    private static ExecutorService createWriters() {
+        ExecutorService executor = GoBangServer.newVirtualThreadExecutorOrNull();
+        if (executor != null) {
+            return executor;
+        }
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, WRITER_THREADS), task -> {
+            Thread thread = new Thread(task, "gobang-writer-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static ScheduledExecutorService createWatchdog() {
+        ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "gobang-write-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(100L, Math.min(1000L, WRITE_TIMEOUT_MILLIS / 2));
+        watchdog.scheduleWithFixedDelay(QueuedSocketWriter::closeStuckWriters, period, period, TimeUnit.MILLISECONDS);
+        return watchdog;
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- ClientHandler (modos thread/virtual): sendMessage() -> send() (ou sendBytes() no protocolo binário); disconnectClient() -> closeGracefully().
+- OutboundQueue: fila limitada com a política para clientes lentos (drop/disconnect/block).
+- GoBangServer.newVirtualThreadExecutorOrNull(): executor de virtual threads para os drains (Java 21+).
+- O modo NIO não usa esta classe: NioConnection esvazia a sua OutboundQueue no EventLoop.
+*/
@@ -0,0 +1,177 @@
+package server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Roda de temporizadores (hashed wheel timer): muitos prazos com inserção O(1) e uma única thread a avançar a roda.
+ *
+ * A roda tem "size" casas de "tickMillis" cada; um prazo fica na casa (prazo / tick) % size com o número
+ * de voltas que ainda faltam. A cada tick a thread da roda só percorre a casa atual, por isso o custo
+ * não depende do número de prazos ativos (ex: 100 000 jogos) mas dos que caem nessa casa.
+ *
+ * Prazos que mudam (ex: cada jogada adia o timeout do jogo) não são retirados nem reinseridos:
+ * Timeout.deadline() é lido de novo quando a casa chega e, se o prazo passou para mais tarde, o Timeout
+ * volta a ser colocado na casa certa (re-armar tem custo zero para quem altera o prazo).
+ * Só adiar é gratuito: um prazo antecipado só é visto na casa antiga.
+ *
+ * Threads:
+ * - schedule() pode ser chamado por qualquer thread (fila concorrente, transferida para as casas a cada tick).
+ * - As casas só são tocadas pela thread da roda (listas simples, sem locks).
+ * - Os prazos expirados correm no Executor indicado (a thread da roda nunca espera por eles).
+ *
+ * Ligações:
+ * - service.TurnTimer: um Timeout por jogo ativo (tempo de cada jogada).
+ */
+public class TimerWheel {
+
+    /**
+     * Prazo na roda. Subclasses dizem quando expira e o que fazer quando expira.
+     */
+    public abstract static class Timeout {
+        private volatile boolean cancelled;
+        private long rounds; // Voltas completas que faltam (só a thread da roda mexe)
+        private Timeout next; // Próximo na mesma casa (só a thread da roda mexe)
+
+        /**
+         * Prazo atual em milissegundos (System.currentTimeMillis()); pode ter sido adiado desde o schedule().
+         */
+        protected abstract long deadline();
+
+        /**
+         * O prazo passou. Corre no Executor da roda.
+         * @return true para voltar a pôr o Timeout na roda (com o novo deadline())
+         */
+        protected abstract boolean expire();
+
+        /**
+         * Cancela o prazo (é retirado da roda quando a sua casa chegar).
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private final String name;
+    private final long tickMillis;
+    private final int mask; // size - 1 (size é potência de 2)
+    private final Timeout[] buckets; // Lista ligada de cada casa (só a thread da roda)
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>(); // Novos prazos, de qualquer thread
+    private final Executor executor;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final long startMillis = System.currentTimeMillis();
+    private long tick; // Tick atual (só a thread da roda)
+
+    /**
+     * @param name Nome da thread da roda
+     * @param tickMillis Resolução (um prazo expira até tickMillis depois do seu deadline)
+     * @param size Número de casas (arredondado para potência de 2)
+     * @param executor Onde correm os prazos expirados
+     */
+    public TimerWheel(String name, long tickMillis, int size, Executor executor) {
+        if (tickMillis <= 0 || size <= 0) {
+            throw new IllegalArgumentException("tickMillis e size devem ser positivos");
+        }
+        int buckets = Integer.highestOneBit(Math.max(1, Math.min(size, 1 << 20)) * 2 - 1);
+        this.name = name;
+        this.tickMillis = tickMillis;
+        this.mask = buckets - 1;
+        this.buckets = new Timeout[buckets];
+        this.executor = executor;
+    }
+
+    /**
+     * Coloca um prazo na roda (O(1)). A thread da roda arranca no primeiro schedule().
+     */
+    public void schedule(Timeout timeout) {
+        pending.add(timeout);
+        if (!started.get() && started.compareAndSet(false, true)) {
+            Thread thread = new Thread(this::run, name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            long tickEnd = startMillis + (tick + 1) * tickMillis;
+            long sleep = tickEnd - System.currentTimeMillis();
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            transferPending();
+            expireBucket(System.currentTimeMillis());
+            tick++;
+        }
+    }
+
+    /**
+     * Passa os novos prazos para as casas (casa do deadline, ou a atual se já passou).
+     */
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (!timeout.isCancelled()) {
+                place(timeout, tick);
+            }
+        }
+    }
+
+    /**
+     * @param from Primeiro tick cuja casa ainda vai ser percorrida
+     */
+    private void place(Timeout timeout, long from) {
+        long ticks = Math.max(from, (timeout.deadline() - startMillis) / tickMillis);
+        timeout.rounds = (ticks - from) / buckets.length; // Visitas à casa antes da do prazo
+        int index = (int) (ticks & mask);
+        timeout.next = buckets[index];
+        buckets[index] = timeout;
+    }
+
+    /**
+     * Percorre a casa atual: cancelados saem, os de voltas futuras ficam, os adiados mudam de casa
+     * e os expirados vão para o Executor.
+     */
+    private void expireBucket(long now) {
+        int index = (int) (tick & mask);
+        Timeout timeout = buckets[index];
+        buckets[index] = null;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            timeout.next = null;
+            if (timeout.isCancelled()) {
+                // Sai da roda
+            } else if (timeout.rounds > 0) {
+                timeout.rounds--;
+                timeout.next = buckets[index];
+                buckets[index] = timeout;
+            } else if (timeout.deadline() > now) {
+                place(timeout, tick + 1); // Adiado (ex: houve jogada): a casa atual já foi esvaziada
+            } else {
+                Timeout expired = timeout;
+                executor.execute(() -> {
+                    if (!expired.isCancelled() && expired.expire() && !expired.isCancelled()) {
+                        schedule(expired);
+                    }
+                });
+            }
+            timeout = next;
+        }
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- service.TurnTimer: tempo de jogada de todos os jogos ativos (uma roda, uma thread "turn-timer").
+- benchmark.TurnTimerBenchmark: custo por jogada e atraso dos prazos com muitos jogos.
+*/
@@ -0,0 +1,126 @@
+package service;
+
+import game.Game;
+import game.GameListener;
+import game.Player;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Distribuidor de eventos para os jogadores ligados à camada web (server push).
+ * Substitui o polling periódico dos JSPs: em vez de cada página perguntar ao servidor
+ * "há novidades?" a cada segundo, o EventStreamServlet subscreve o jogador aqui e recebe
+ * um evento apenas quando alguma coisa muda.
+ *
+ * Eventos (tipo -> dados):
+ * - "move"     -> "gameId;linha;coluna;símbolo"  (jogada válida, para ambos os jogadores)
+ * - "turn"     -> "gameId"                        (vez passada por timeout)
+ * - "start"    -> "gameId"                        (novo jogo, pela fila ou por convite)
+ * - "gameover" -> "gameId"                        (jogo terminado; o resultado fica em getLastGameResults())
+ * - "invite"   -> "nickname"                      (convite recebido de nickname)
+ * - "accepted" -> "gameId"                        (convite enviado foi aceite)
+ * - "update"   -> ""                              (algo mudou; usado quando o servidor é remoto)
+ *
+ * Os eventos são apenas avisos: a página volta a pedir o estado pelos pedidos que já existiam
+ * (gameAction.jsp, play.jsp, getConvites.jsp), que continuam a ser a única fonte de verdade.
+ *
+ * Ligações:
+ * - Instância única em GoBangServer (GoBangServer.getEventBus()), registada como GameListener.
+ * - SessionManager publica "start" e "gameover"; inviteUser.jsp e aceitarConvite.jsp publicam convites.
+ * - web.EventStreamServlet subscreve as páginas abertas de cada jogador.
+ */
+public class EventBus implements GameListener {
+
+    /**
+     * Destino de eventos de um jogador (ex: uma ligação SSE aberta).
+     */
+    public interface Subscriber {
+        /**
+         * Entrega um evento.
+         * @return false se o destino já não está disponível (é removido do bus)
+         */
+        boolean send(String type, String data);
+    }
+
+    private final ConcurrentMap<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>(); // nickname -> páginas abertas
+
+    /**
+     * Associa um destino de eventos a um jogador.
+     * compute() é atómico por chave, tal como em ConnectionRegistry.bind().
+     */
+    public void subscribe(String nickname, Subscriber subscriber) {
+        subscribers.compute(nickname, (nick, set) -> {
+            if (set == null) set = ConcurrentHashMap.newKeySet();
+            set.add(subscriber);
+            return set;
+        });
+    }
+
+    /**
+     * Remove um destino de eventos (página fechada, erro de escrita, timeout).
+     */
+    public void unsubscribe(String nickname, Subscriber subscriber) {
+        subscribers.computeIfPresent(nickname, (nick, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * Indica se o jogador tem alguma página a receber eventos.
+     */
+    public boolean hasSubscribers(String nickname) {
+        return subscribers.containsKey(nickname);
+    }
+
+    /**
+     * Envia um evento a todas as páginas abertas de um jogador.
+     * Se o jogador não tiver nenhuma, o evento é descartado (a página fará polling ao abrir).
+     */
+    public void publish(String nickname, String type, String data) {
+        if (nickname == null) return;
+        Set<Subscriber> set = subscribers.getOrDefault(nickname, Collections.<Subscriber>emptySet());
+        for (Subscriber subscriber : set) {
+            if (!subscriber.send(type, data)) {
+                unsubscribe(nickname, subscriber);
+            }
+        }
+    }
+
+    /**
+     * Envia o mesmo evento aos dois jogadores de um jogo.
+     */
+    public void publishToGame(Game game, String type, String data) {
+        publish(game.getPlayer1().getNickname(), type, data);
+        publish(game.getPlayer2().getNickname(), type, data);
+    }
+
+    /**
+     * Jogada válida (GameListener): avisa ambos os jogadores com a posição e o símbolo.
+     */
+    @Override
+    public void onMove(Game game, Player player, int row, int col) {
+        char symbol = player.equals(game.getPlayer1()) ? 'X' : 'O';
+        publishToGame(game, "move", game.getId() + ";" + row + ";" + col + ";" + symbol);
+    }
+
+    /**
+     * Vez passada por timeout (GameListener).
+     */
+    @Override
+    public void onTurnPassed(Game game) {
+        publishToGame(game, "turn", game.getId());
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- GoBangServer.getEventBus(): instância única, registada em Game.addListener().
+- Game: onMove() e onTurnPassed() chamados após cada jogada/timeout.
+- SessionManager.addGameForPlayers()/endGame(): eventos "start" e "gameover".
+- inviteUser.jsp/aceitarConvite.jsp: eventos "invite" e "accepted".
+- gateway.GatewayConnection: em modo remoto, converte as notificações TCP ("#!nick ...") em "update".
+- web.EventStreamServlet: subscreve cada página (play.jsp, lobby.jsp, activeGames.jsp) via Server-Sent Events.
+*/
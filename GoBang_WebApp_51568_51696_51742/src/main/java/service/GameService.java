@@ -0,0 +1,331 @@
+package service;
+
+import ai.Analysis;
+import ai.HintService;
+import game.Game;
+import game.GameSnapshot;
+import game.Player;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import protocol.CommandProtocol;
+import server.GoBangServer;
+
+/**
+ * Lógica dos comandos de jogo, independente do transporte.
+ * Antes vivia dentro do ClientHandler e só era acessível por TCP; agora o ClientHandler
+ * é apenas um adaptador de texto sobre esta classe, e a camada web (GameFacade) chama-a
+ * diretamente quando corre na mesma JVM que o servidor, sem sockets nem parsing de texto.
+ *
+ * Os efeitos secundários continuam os mesmos: notificações aos clientes TCP ligados
+ * (GoBangServer.notifyPlayers), resultados para polling (getLastGameResults) e fim de jogo (SessionManager).
+ *
+ * Ligações:
+ * - Instância única em GoBangServer (GoBangServer.getGameService()).
+ * - Usada por ClientHandler (/login, /move, /get, /getgames, /timeout, /surrender) e por GameFacade.
+ * - O tempo de jogada é controlado pelo TurnTimer (servidor), que chama turnExpired(); os pedidos de leitura
+ *   (/get, /getgames) já não passam a vez, a não ser com o temporizador desligado (gobang.timer.enabled=false).
+ */
+public class GameService {
+
+    /**
+     * Valida as credenciais de um jogador.
+     * @return O Player registado, ou null se o nickname/password não forem válidos
+     */
+    public Player authenticate(String nickname, String password) {
+        Player player = nickname != null ? GoBangServer.getPlayers().get(nickname) : null;
+        if (player != null && player.getPassword().equals(password)) {
+            return player;
+        }
+        return null;
+    }
+
+    /**
+     * Processa uma jogada do jogador no seu jogo ativo.
+     * Notifica os clientes TCP de ambos os jogadores com a jogada (delta, GoBangServer.notifyMove) e,
+     * se o jogo terminar, guarda os resultados para polling e termina o jogo.
+     *
+     * Ligações:
+     * - Usa Game.processMove (pode devolver "error:...", "refresh", "VITÓRIA...", "EMPATE!").
+     * - Usa GoBangServer.getLastGameResults() para polling de fim de jogo.
+     */
+    public MoveResult move(Player player, int row, int col) {
+        if (player == null) {
+            return new MoveResult(MoveResult.Status.UNKNOWN_PLAYER, null, null);
+        }
+        Game game = GoBangServer.getSession().getGameByPlayer(player);
+        if (game == null) {
+            return new MoveResult(MoveResult.Status.NOT_IN_GAME, null, null);
+        }
+
+        // Verifica se há resultado pendente (fim de jogo por polling)
+        String lastResult = GoBangServer.getLastGameResults().remove(player.getNickname());
+        if (lastResult != null) {
+            return new MoveResult(MoveResult.Status.PENDING_RESULT, lastResult, null);
+        }
+        return move(game, player, row, col);
+    }
+
+    /**
+     * Jogada num jogo concreto, sem entregar resultados pendentes.
+     * Usado diretamente pelos bots (ai.BotPlayer), que podem estar em vários jogos ao mesmo tempo.
+     */
+    public MoveResult move(Game game, Player player, int row, int col) {
+        // A notificação é registada na mesma operação do jogo (com o snapshot da jogada) e entregue depois de
+        // libertar o jogo, pela ordem das jogadas: os clientes recebem as jogadas pela ordem do tabuleiro
+        String result = game.call(() -> {
+            String played = game.processMove(player, row, col);
+            if (!played.startsWith("error:")) {
+                // Os clientes TCP de ambos os jogadores recebem só a jogada (delta), não o tabuleiro inteiro
+                GameSnapshot snapshot = game.getSnapshot();
+                game.publish(() -> GoBangServer.notifyMove(game, snapshot, row, col));
+            }
+            return played;
+        });
+        if (result.startsWith("error:")) {
+            return new MoveResult(MoveResult.Status.PLAYED, result, null);
+        }
+
+        if (!result.startsWith("VITÓRIA") && !result.startsWith("EMPATE")) { // Game devolve "EMPATE!"
+            return new MoveResult(MoveResult.Status.PLAYED, result, null);
+        }
+
+        // Fim de jogo: guarda o resultado para polling (usado em AJAX global) e termina o jogo
+        String winnerMsg = CommandProtocol.formatMessage("FIM DE JOGO! Ganhaste!");
+        String loserMsg = CommandProtocol.formatMessage("FIM DE JOGO! Perdeste!");
+        String drawMsg = CommandProtocol.formatMessage("FIM DE JOGO! O jogo terminou num empate.");
+        if (result.startsWith("VITÓRIA")) {
+            Player winner = game.getWinner();
+            Player loser = game.getOtherPlayer(winner);
+            GoBangServer.getLastGameResults().put(winner.getNickname(), "game_over:" + winnerMsg);
+            GoBangServer.getLastGameResults().put(loser.getNickname(), "game_over:" + loserMsg);
+        } else {
+            GoBangServer.getLastGameResults().put(game.getPlayer1().getNickname(), "game_over:" + drawMsg);
+            GoBangServer.getLastGameResults().put(game.getPlayer2().getNickname(), "game_over:" + drawMsg);
+        }
+        GoBangServer.getSession().endGame(game);
+
+        // Quem jogou recebe a mensagem na resposta; o adversário é notificado
+        String finalMessage;
+        if (result.startsWith("VITÓRIA")) {
+            Player winner = game.getWinner();
+            if (player.equals(winner)) {
+                finalMessage = winnerMsg;
+                GoBangServer.notifyPlayer(game.getOtherPlayer(winner), loserMsg);
+            } else {
+                finalMessage = loserMsg;
+                GoBangServer.notifyPlayer(winner, winnerMsg);
+            }
+        } else {
+            finalMessage = drawMsg;
+            GoBangServer.notifyPlayer(game.getOtherPlayer(player), drawMsg);
+        }
+        return new MoveResult(MoveResult.Status.PLAYED, result, finalMessage);
+    }
+
+    /**
+     * Devolve o estado do jogo (ou da fila) de um jogador.
+     * Também entrega (e remove) resultados pendentes de fim de jogo; com o TurnTimer desligado, passa a vez se o tempo esgotou.
+     *
+     * Ligações:
+     * - Usa Game.getCurrentMoveStartMillis() e getMaxMoveTimeSeconds() para timeout.
+     */
+    public GameState getState(String nickname) {
+        // Se o jogador tem um resultado pendente de fim de jogo, devolve-o e remove do mapa
+        String lastResult = GoBangServer.getLastGameResults().remove(nickname);
+        if (lastResult != null) {
+            return GameState.pending(lastResult);
+        }
+
+        Player player = GoBangServer.getPlayers().get(nickname);
+        if (player == null) {
+            return GameState.of(GameState.Status.UNKNOWN_PLAYER);
+        }
+        Game game = GoBangServer.getSession().getGameByPlayer(player);
+        if (game == null) {
+            return GameState.of(GoBangServer.getSession().isWaiting(player)
+                    ? GameState.Status.WAITING : GameState.Status.NOT_IN_QUEUE);
+        }
+
+        if (!TurnTimer.ENABLED) {
+            passTurnIfExpired(game);
+        }
+        return stateOf(game, player);
+    }
+
+    /**
+     * Estado completo de um jogo em texto (CommandProtocol.formatSnapshot()), com o seq da última jogada.
+     * Os clientes TCP recebem-no no início do jogo e com /resync; entre snapshots recebem só as jogadas.
+     *
+     * Ligações:
+     * - Usado por SessionManager.addGameForPlayers() e ClientHandler.handleResync().
+     */
+    public String snapshot(Game game) {
+        return game.getSnapshot().getText(); // Formatado uma vez por versão do jogo
+    }
+
+    /**
+     * Estado de um jogo visto por um dos jogadores, sem efeitos secundários
+     * (não entrega resultados pendentes nem passa a vez).
+     * Tudo vem do mesmo GameSnapshot: tabuleiro, vez, tempo e versão são sempre da mesma versão do jogo.
+     *
+     * Ligações:
+     * - Usado por getState().
+     */
+    public GameState stateOf(Game game, Player player) {
+        GameSnapshot snapshot = game.getSnapshot();
+        return new GameState(GameState.Status.PLAYING, null,
+                game.getPlayer1().getNickname(), game.getPlayer2().getNickname(),
+                game.getOtherPlayer(player).getNickname(), snapshot.getBoard(), // Partilhada até à próxima jogada
+                snapshot.getCurrentPlayer().equals(player),
+                snapshot.getMoveStartMillis(), game.getMaxMoveTimeSeconds(), snapshot.getVersion(),
+                snapshot.getMoveCount(), snapshot.getLastMove());
+    }
+
+    /**
+     * Espera (sem bloquear threads) por uma alteração do jogo do jogador depois da versão indicada.
+     * Se o jogador já não está num jogo, o futuro é devolvido já completado (o estado mudou: fila, fim, etc).
+     *
+     * Ligações:
+     * - Usa Game.awaitChange() (um futuro partilhado por versão do jogo).
+     * - Usado por GameFacade.awaitChange() para o long-poll de gameAction.jsp.
+     */
+    public CompletableFuture<Long> awaitChange(String nickname, long knownVersion) {
+        Player player = GoBangServer.getPlayers().get(nickname);
+        Game game = player != null ? GoBangServer.getSession().getGameByPlayer(player) : null;
+        if (game == null) {
+            return CompletableFuture.completedFuture(-1L);
+        }
+        return game.awaitChange(knownVersion);
+    }
+
+    /**
+     * Devolve os jogos ativos de um jogador, com o tempo restante e se é a sua vez.
+     * Com o TurnTimer desligado, passa a vez nos jogos em que o tempo esgotou.
+     */
+    public List<GameSummary> getGames(String nickname) {
+        List<GameSummary> summaries = new ArrayList<>();
+        Player self = GoBangServer.getPlayers().get(nickname);
+        for (Game game : GoBangServer.getSession().getGamesForPlayer(nickname)) {
+            if (!TurnTimer.ENABLED) {
+                passTurnIfExpired(game);
+            }
+            GameSnapshot snapshot = game.getSnapshot(); // Vez e tempo da mesma versão
+            summaries.add(new GameSummary(
+                    game.getId(),
+                    game.getOtherPlayer(self).getNickname(),
+                    snapshot.getCurrentPlayer().getNickname().equals(nickname),
+                    snapshot.getSecondsLeft(System.currentTimeMillis())));
+        }
+        return summaries;
+    }
+
+    /**
+     * Timeout de jogada pedido pelo cliente (o temporizador da página chegou a 0): passa a vez se for a vez
+     * do jogador e o tempo tiver mesmo esgotado no servidor (o relógio do servidor é o que conta).
+     * Normalmente o TurnTimer já passou a vez; isto só adianta o tick.
+     * @return true se a vez foi passada
+     */
+    public boolean timeout(Player player) {
+        if (player == null) return false;
+        Game game = GoBangServer.getSession().getGameByPlayer(player);
+        return game != null && game.getSnapshot().isTurnOf(player) && GoBangServer.getTurnTimer().expire(game);
+    }
+
+    /**
+     * A vez passou por tempo (TurnTimer): avisa os clientes TCP e, ao fim de TurnTimer.MAX_TIMEOUTS timeouts
+     * seguidos do mesmo jogador, termina o jogo com derrota desse jogador.
+     * As páginas web já foram avisadas pelo EventBus (evento "turn").
+     *
+     * Ligações:
+     * - Chamado pelo TurnTimer (thread "turn-timer-worker") e por timeout().
+     */
+    public void turnExpired(Game game, Player player, int timeouts) {
+        GoBangServer.notifyTurnPassed(game);
+        if (TurnTimer.MAX_TIMEOUTS > 0 && timeouts >= TurnTimer.MAX_TIMEOUTS) {
+            forfeit(game, player, "FIM DE JOGO! Esgotaste o tempo " + timeouts + " vezes seguidas. Perdeste!",
+                    "FIM DE JOGO! O teu adversário esgotou o tempo " + timeouts + " vezes seguidas. Ganhaste!");
+        }
+    }
+
+    /**
+     * Dicas para o jogador no jogo: as melhores jogadas (HintService), calculadas na pool de dicas.
+     * @return futuro com a análise (já completo se a posição estiver na cache), ou null se o jogo não estiver
+     *         ativo ou as dicas estiverem desligadas
+     *
+     * Ligações:
+     * - Usado por ClientHandler.handleHint() e GameFacade.hint().
+     */
+    public CompletableFuture<Analysis> hint(Game game, Player player) {
+        if (!HintService.ENABLED || game == null || game.isGameOver()) {
+            return null;
+        }
+        return GoBangServer.getHints().analyse(game, player);
+    }
+
+    /**
+     * Desistência: o adversário ganha, o jogo termina e o adversário é notificado (se estiver ligado).
+     * @return false se o jogador não estava num jogo ativo
+     *
+     * Ligações:
+     * - Usa GoBangServer.getLastGameResults() para polling.
+     */
+    public boolean surrender(Player player) {
+        Game game = GoBangServer.getSession().getGameByPlayer(player);
+        if (game == null || game.isEnded()) {
+            return false;
+        }
+        return forfeit(game, player, "FIM DE JOGO! Desististe! Perdeste!", "FIM DE JOGO! O teu adversário desistiu. Ganhaste!");
+    }
+
+    /**
+     * Derrota de um jogador sem ser no tabuleiro (desistência, timeouts): o adversário ganha, o jogo termina
+     * e o adversário é notificado (se estiver ligado).
+     * @return false se o jogo já tinha terminado
+     */
+    private boolean forfeit(Game game, Player player, String loserMessage, String winnerMessage) {
+        Player opponent = game.getOtherPlayer(player);
+        String opponentNick = opponent.getNickname();
+        boolean opponentConnected = opponent.isConnected();
+
+        // Define o adversário como vencedor ANTES de terminar o jogo (se uma jogada não o terminou entretanto)
+        boolean surrendered = game.call(() -> {
+            if (game.isGameOver()) return false;
+            game.setWinner(opponent);
+            return true;
+        });
+        if (!surrendered) {
+            return false;
+        }
+
+        // Guarda resultado para polling
+        GoBangServer.getLastGameResults().put(player.getNickname(), loserMessage);
+        GoBangServer.getLastGameResults().put(opponentNick, winnerMessage);
+
+        // Termina o jogo primeiro e só depois notifica
+        GoBangServer.getSession().endGame(game);
+        if (opponentConnected) {
+            GoBangServer.notifyPlayer(opponent, CommandProtocol.formatMessage(winnerMessage));
+        }
+        return true;
+    }
+
+    /**
+     * Se o tempo da jogada atual esgotou e o jogo não acabou, passa a vez (Game.passTurnIfExpired()).
+     */
+    private void passTurnIfExpired(Game game) {
+        game.passTurnIfExpired();
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- GoBangServer.getGameService(): instância única partilhada pelo servidor TCP e pela camada web.
+- ClientHandler: adaptador TCP (texto) sobre move(), getState(), getGames(), timeout(), surrender(), authenticate().
+- TurnTimer: turnExpired() a cada vez passada por tempo (GoBangServer.getTurnTimer()).
+- web.LongPoll (via GameFacade): awaitChange() para segurar pedidos até o jogo mudar.
+- GameFacade (camada web): chama estes métodos diretamente quando o servidor corre na mesma JVM.
+- Game, SessionManager, GoBangServer.notifyPlayer/notifyPlayers: estado do jogo e notificações.
+- Game.call(): jogada, timeout e desistência correm na vez do jogo (GameMailbox), sem corridas
+  entre os dois jogadores, os JSPs e os bots; Game.publish(): avisos das jogadas, entregues fora do lock do jogo.
+*/
@@ -0,0 +1,98 @@
+package service;
+
+import game.BoardView;
+import game.Move;
+
+/**
+ * Estado tipado do jogo de um jogador, visto por ele (GameService.getState()).
+ * Substitui, para os clientes em processo, a linha "JOGO INICIADO;PLAYER1:...;TABULEIRO:...;SUA_VEZ;..."
+ * do comando /get.
+ *
+ * Ligações:
+ * - Devolvido por GameService.getState() e por GameFacade.
+ * - ClientHandler.handleGet() converte-o no texto do protocolo TCP.
+ * - play.jsp e gameAction.jsp usam-no para desenhar o tabuleiro e decidir o polling.
+ */
+public class GameState {
+    public enum Status {
+        PENDING_RESULT, // Há um resultado de fim de jogo por entregar (ver getPendingResult())
+        PLAYING,        // O jogador está num jogo ativo
+        WAITING,        // O jogador está na fila de espera
+        NOT_IN_QUEUE,   // O jogador não está a jogar nem na fila
+        UNKNOWN_PLAYER  // Nickname não registado
+    }
+
+    private final Status status;
+    private final String pendingResult; // Só em PENDING_RESULT
+    private final String player1; // Restantes campos só em PLAYING
+    private final String player2;
+    private final String opponent;
+    private final BoardView board; // Tabuleiro na versão do estado (imutável, partilhado com os outros leitores)
+    private final boolean yourTurn;
+    private final long moveStartMillis;
+    private final int maxMoveTimeSeconds;
+    private final long version; // Versão do jogo (Game.getVersion()) quando o estado foi lido
+    private final int moveCount; // Peças no tabuleiro (Game.getMoveCount(), sem contar no tabuleiro)
+    private final Move lastMove; // Última jogada (null se ainda não houve jogadas)
+
+    public GameState(Status status, String pendingResult, String player1, String player2, String opponent,
+                     BoardView board, boolean yourTurn, long moveStartMillis, int maxMoveTimeSeconds, long version,
+                     int moveCount, Move lastMove) {
+        this.status = status;
+        this.pendingResult = pendingResult;
+        this.player1 = player1;
+        this.player2 = player2;
+        this.opponent = opponent;
+        this.board = board;
+        this.yourTurn = yourTurn;
+        this.moveStartMillis = moveStartMillis;
+        this.maxMoveTimeSeconds = maxMoveTimeSeconds;
+        this.version = version;
+        this.moveCount = moveCount;
+        this.lastMove = lastMove;
+    }
+
+    /**
+     * Estado sem jogo (fila, fora da fila, jogador desconhecido).
+     */
+    public static GameState of(Status status) {
+        return new GameState(status, null, null, null, null, null, false, 0, 0, 0, 0, null);
+    }
+
+    /**
+     * Estado com um resultado de fim de jogo por entregar.
+     */
+    public static GameState pending(String result) {
+        return new GameState(Status.PENDING_RESULT, result, null, null, null, null, false, 0, 0, 0, 0, null);
+    }
+
+    public Status getStatus() { return status; }
+    public String getPendingResult() { return pendingResult; }
+    public String getPlayer1() { return player1; }
+    public String getPlayer2() { return player2; }
+    public String getOpponent() { return opponent; }
+    public char[][] getBoard() { return board != null ? board.getCells() : null; } // Não alterar (partilhado)
+    public BoardView getBoardView() { return board; }
+    public boolean isYourTurn() { return yourTurn; }
+    public long getMoveStartMillis() { return moveStartMillis; }
+    public int getMaxMoveTimeSeconds() { return maxMoveTimeSeconds; }
+    public long getVersion() { return version; }
+    public Move getLastMove() { return lastMove; }
+
+    /**
+     * Número de peças no tabuleiro (usado pelo polling de gameAction.jsp para detetar jogadas novas).
+     * Vem do contador de Game: não percorre o tabuleiro.
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- GameService.getState(): cria o estado a partir de Game/SessionManager.
+- ClientHandler.handleGet(): formata-o como resposta ao /get.
+- GameFacade: em modo remoto, reconstrói-o a partir da resposta ao /get.
+- play.jsp, gameAction.jsp: leem os campos diretamente (a versão é usada pelo long-poll de gameAction.jsp;
+  o número de jogadas vem do contador de Game, não do tabuleiro).
+*/
@@ -0,0 +1,34 @@
+package service;
+
+/**
+ * Resumo tipado de um jogo ativo de um jogador (GameService.getGames()).
+ * Corresponde a um bloco "GAMEID:...;OPONENTE:...;SUA_VEZ:...;TEMPO:...;" do comando /getgames.
+ *
+ * Ligações:
+ * - Devolvido por GameService.getGames() e por GameFacade.
+ * - ClientHandler.handleGetGames() converte a lista no texto do protocolo TCP.
+ * - activeGames.jsp mostra a tabela de jogos a partir destes objetos.
+ */
+public class GameSummary {
+    private final String gameId;
+    private final String opponent;
+    private final boolean yourTurn;
+    private final int secondsLeft; // Tempo restante da jogada atual (nunca negativo)
+
+    public GameSummary(String gameId, String opponent, boolean yourTurn, int secondsLeft) {
+        this.gameId = gameId;
+        this.opponent = opponent;
+        this.yourTurn = yourTurn;
+        this.secondsLeft = secondsLeft;
+    }
+
+    public String getGameId() { return gameId; }
+    public String getOpponent() { return opponent; }
+    public boolean isYourTurn() { return yourTurn; }
+    public int getSecondsLeft() { return secondsLeft; }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- GameService.getGames(), ClientHandler.handleGetGames(), GameFacade, activeGames.jsp.
+*/
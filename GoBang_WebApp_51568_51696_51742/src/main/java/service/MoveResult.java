@@ -0,0 +1,49 @@
+package service;
+
+/**
+ * Resultado tipado de uma jogada (GameService.move()).
+ *
+ * Ligações:
+ * - Devolvido por GameService.move() (em processo) e por GameFacade (em processo ou via TCP).
+ * - ClientHandler.handleMove() converte-o nas mensagens de texto do protocolo TCP.
+ * - gameAction.jsp decide a resposta AJAX (refresh, game_over, error) a partir dele.
+ */
+public class MoveResult {
+    public enum Status {
+        NOT_IN_GAME,    // O jogador não está num jogo ativo
+        PENDING_RESULT, // Havia um resultado de fim de jogo por entregar (a jogada não foi feita)
+        PLAYED,         // A jogada foi processada por Game.processMove()
+        UNKNOWN_PLAYER  // Nickname não registado (ex: sessão web de antes de um reinício do servidor)
+    }
+
+    private final Status status;
+    private final String result; // Resultado de Game.processMove() (ex: "refresh", "VITÓRIA...", "error:...") ou o resultado pendente
+    private final String finalMessage; // Mensagem de fim de jogo para quem jogou (null se o jogo não terminou)
+
+    public MoveResult(Status status, String result, String finalMessage) {
+        this.status = status;
+        this.result = result;
+        this.finalMessage = finalMessage;
+    }
+
+    public Status getStatus() { return status; }
+    public String getResult() { return result; }
+    public String getFinalMessage() { return finalMessage; }
+
+    /**
+     * Indica se esta jogada terminou o jogo (vitória ou empate).
+     */
+    public boolean isGameOver() { return finalMessage != null; }
+
+    /**
+     * Indica se a jogada foi rejeitada pelo jogo (casa ocupada, fora da vez, etc).
+     */
+    public boolean isError() { return result != null && result.startsWith("error:"); }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- GameService.move(): cria o resultado.
+- ClientHandler.handleMove(): traduz para "RESULTADO: ...", mensagens de fim de jogo, etc.
+- GameFacade/gameAction.jsp: resposta AJAX da jogada sem reinterpretar texto.
+*/
@@ -0,0 +1,170 @@
+package service;
+
+import game.Game;
+import game.GameListener;
+import game.Player;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import server.TimerWheel;
+
+/**
+ * Tempo de jogada controlado pelo servidor: um prazo por jogo ativo numa roda de temporizadores (server.TimerWheel).
+ * Quando o tempo da jogada esgota, a vez passa no servidor mesmo que ninguém esteja a fazer polling,
+ * e os jogadores são avisados (SSE "turn" pelo EventBus, "VEZ;..." nos clientes TCP).
+ * Um jogador que deixe esgotar o tempo gobang.timer.maxTimeouts vezes seguidas (sem jogar entre elas) perde o jogo.
+ *
+ * Custo por jogada: O(1) e sem tocar na roda. O prazo de cada jogo é lido do snapshot do jogo
+ * (GameSnapshot.getDeadlineMillis()), por isso cada jogada adia-o sem mais nada;
+ * onMove() só põe a zero os timeouts seguidos de quem jogou (um lookup num ConcurrentHashMap).
+ *
+ * Propriedades:
+ * - gobang.timer.enabled (true): com false, o tempo volta a ser verificado nos pedidos /get e /getgames.
+ * - gobang.timer.tickMillis (100): resolução da roda (a vez passa até um tick depois do prazo).
+ * - gobang.timer.wheelSize (1024): casas da roda.
+ * - gobang.timer.maxTimeouts (3): timeouts seguidos até perder o jogo (0 = nunca perde por tempo).
+ *
+ * Ligações:
+ * - GoBangServer.getTurnTimer(): instância única, registada em Game.addListener().
+ * - SessionManager.addGameForPlayers()/endGame(): onGameStarted()/onGameEnded().
+ * - GameService.timeout() (/timeout do cliente) usa expire(); GameService.turnExpired() avisa os jogadores
+ *   e termina o jogo por tempo.
+ */
+public class TurnTimer implements GameListener {
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("gobang.timer.enabled", "true"));
+    public static final int MAX_TIMEOUTS = Integer.getInteger("gobang.timer.maxTimeouts", 3);
+    private static final long TICK_MILLIS = Long.getLong("gobang.timer.tickMillis", 100L);
+    private static final int WHEEL_SIZE = Integer.getInteger("gobang.timer.wheelSize", 1024);
+
+    /**
+     * O que fazer depois de a vez passar por tempo (fora da vez do jogo, sem bloquear outros jogos).
+     */
+    public interface ExpiryHandler {
+        /**
+         * @param player Jogador que deixou esgotar o tempo
+         * @param timeouts Timeouts seguidos desse jogador neste jogo (1, 2, ...)
+         */
+        void onTurnExpired(Game game, Player player, int timeouts);
+    }
+
+    private final ConcurrentMap<String, TurnDeadline> deadlines = new ConcurrentHashMap<>(); // gameId -> prazo na roda
+    private final TimerWheel wheel;
+    private final ExpiryHandler handler;
+
+    /**
+     * @param handler Chamado a cada vez passada por tempo (ex: GameService.turnExpired())
+     */
+    public TurnTimer(ExpiryHandler handler) {
+        this.handler = handler;
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService executor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "turn-timer-worker-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }); // Fins de jogo guardam os XML: não podem atrasar a roda
+        this.wheel = new TimerWheel("turn-timer", TICK_MILLIS, WHEEL_SIZE, executor);
+    }
+
+    /**
+     * Começa a contar o tempo de um jogo novo.
+     */
+    public void onGameStarted(Game game) {
+        if (!ENABLED) return;
+        TurnDeadline deadline = new TurnDeadline(game);
+        if (deadlines.putIfAbsent(game.getId(), deadline) == null) {
+            wheel.schedule(deadline);
+        }
+    }
+
+    /**
+     * O jogo terminou: o prazo sai da roda.
+     */
+    public void onGameEnded(Game game) {
+        TurnDeadline deadline = deadlines.remove(game.getId());
+        if (deadline != null) {
+            deadline.cancel();
+        }
+    }
+
+    /**
+     * Passa a vez já se o tempo esgotou (sem esperar pelo tick), com os mesmos avisos do temporizador.
+     * @return true se a vez foi passada
+     */
+    public boolean expire(Game game) {
+        TurnDeadline deadline = deadlines.get(game.getId());
+        return deadline != null ? deadline.passIfExpired() : game.passTurnIfExpired();
+    }
+
+    /**
+     * Número de jogos com prazo na roda.
+     */
+    public int size() {
+        return deadlines.size();
+    }
+
+    /**
+     * Jogada (GameListener): o prazo do jogo já avançou com ela; só põe a zero os timeouts seguidos de quem jogou.
+     */
+    @Override
+    public void onMove(Game game, Player player, int row, int col) {
+        TurnDeadline deadline = deadlines.get(game.getId());
+        if (deadline != null) {
+            deadline.timeouts.set(player == game.getPlayer1() ? 0 : 1, 0);
+        }
+    }
+
+    @Override
+    public void onTurnPassed(Game game) {
+        // O novo prazo é lido do jogo quando a casa da roda chegar
+    }
+
+    /**
+     * Prazo de um jogo: início da jogada atual + tempo máximo por jogada.
+     */
+    private class TurnDeadline extends TimerWheel.Timeout {
+        private final Game game;
+        private final AtomicIntegerArray timeouts = new AtomicIntegerArray(2); // Timeouts seguidos de X e de O
+
+        TurnDeadline(Game game) {
+            this.game = game;
+        }
+
+        @Override
+        protected long deadline() {
+            return game.getSnapshot().getDeadlineMillis(); // Sem locks: lido pela thread da roda
+        }
+
+        @Override
+        protected boolean expire() {
+            passIfExpired();
+            return !game.isGameOver();
+        }
+
+        boolean passIfExpired() {
+            // Quem perdeu a vez é lido na mesma operação do jogo que a passa
+            Player expired = game.call(() -> {
+                Player current = game.getCurrentPlayer();
+                return game.passTurnIfExpired() ? current : null;
+            });
+            if (expired == null) {
+                return false;
+            }
+            int count = timeouts.incrementAndGet(expired == game.getPlayer1() ? 0 : 1);
+            handler.onTurnExpired(game, expired, count);
+            return true;
+        }
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- GoBangServer: getTurnTimer(), Game.addListener() (jogadas põem a zero os timeouts seguidos).
+- SessionManager: onGameStarted() ao criar cada jogo, onGameEnded() em endGame().
+- GameService: turnExpired() (avisos e derrota por tempo), timeout() usa expire(); getState()/getGames()
+  só verificam o tempo se o temporizador estiver desligado.
+- server.TimerWheel: a roda de prazos (thread "turn-timer"), expirados em "turn-timer-worker-N".
+- benchmark.TurnTimerBenchmark: custo por jogada com 100 000 jogos e atraso dos prazos.
+*/
@@ -3,6 +3,10 @@ package session;
 import game.Game;
 import game.Player;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
 import protocol.CommandProtocol;
 import server.GoBangServer;
 
@@ -14,11 +18,24 @@ import server.GoBangServer;
  * - Usada por GoBangServer para gerir jogos e emparelhamentos.
  * - ClientHandler usa métodos desta classe para adicionar jogadores à fila, terminar jogos, etc.
  * - Game e Player são usados para criar e gerir jogos e estatísticas.
+ *
+ * Concorrência: os índices são concorrentes e as consultas do /move, /get e /getgames (getGameByPlayer(),
+ * getGameById(), getGamesForPlayer(), isWaiting()) são O(1) e sem locks, seja qual for o número de jogos.
+ * - gamesById: gameId -> jogo (todos os jogos ativos).
+ * - gamesByPlayer: nickname -> jogos do jogador, numa lista imutável substituída a cada alteração
+ *   (compute() é atómico por chave); quem a lê pode percorrê-la sem cópias nem locks.
+ * - waitingPlayers + waitingSet: fila de espera (ordem de chegada) e pertença O(1); só o emparelhamento
+ *   (tirar dois da fila) e as saídas da fila usam queueLock. Sair da fila só tira o jogador de waitingSet:
+ *   a entrada dele em waitingPlayers fica obsoleta e é descartada quando chega à cabeça (pollWaiting()).
  */
 public class SessionManager {
-    private Queue<Player> waitingPlayers = new LinkedList<>(); // Fila de espera de jogadores para emparelhamento automático
-    private List<Game> activeGames = new ArrayList<>(); // Lista de jogos ativos no servidor
-    private Map<String, List<Game>> gamesByPlayer = new HashMap<>(); // Mapa: nickname -> lista de jogos em que o jogador está envolvido
+    private final Queue<WaitingEntry> waitingPlayers = new ConcurrentLinkedQueue<>(); // Fila de espera de jogadores para emparelhamento automático (pode ter entradas obsoletas)
+    private final ConcurrentMap<Player, WaitingEntry> waitingSet = new ConcurrentHashMap<>(); // Jogadores em espera -> entrada válida na fila, para isWaiting() em O(1)
+    private final ConcurrentMap<String, Game> gamesById = new ConcurrentHashMap<>(); // Jogos ativos no servidor: gameId -> jogo
+    private final ConcurrentMap<String, List<Game>> gamesByPlayer = new ConcurrentHashMap<>(); // nickname -> jogos do jogador (lista imutável, por ordem de início)
+    // Protege o emparelhamento da fila de espera. ReentrantLock em vez de synchronized para não fixar (pin)
+    // virtual threads à carrier thread enquanto se notificam os jogadores (modo "virtual" do servidor)
+    private final ReentrantLock queueLock = new ReentrantLock();
 
     /**
      * Adiciona um jogador à fila de espera.
@@ -28,48 +45,98 @@ public class SessionManager {
      * Usado em:
      * - ClientHandler.handlePlay()
      */
-    public synchronized void addPlayerToQueue(Player player) {
-    	if (!waitingPlayers.contains(player)) {
-            waitingPlayers.add(player);
-            System.out.println("Jogador adicionado à fila: " + player.getNickname());
+    public void addPlayerToQueue(Player player) {
+        queueLock.lock();
+        try {
+            WaitingEntry entry = new WaitingEntry(player);
+            if (waitingSet.putIfAbsent(player, entry) == null) {
+                discardStaleHead(); // Não deixa acumular entradas de quem entra e sai da fila sem ser emparelhado
+                waitingPlayers.add(entry);
+                System.out.println("Jogador adicionado à fila: " + player.getNickname());
 
-	        if (waitingPlayers.size() >= 2) {
-	            Player player1 = waitingPlayers.poll();
-	            Player player2 = waitingPlayers.poll();
-	            Game newGame = new Game(player1, player2);
-	            addGameForPlayers(player1, player2, newGame);
-	
-	            // Mensagens personalizadas para cada jogador
-	            String messagePlayer1 = "JOGO INICIADO\nEstás a jogar contra: " + player2.getNickname() + 
-	                                 "\nO teu símbolo: X" + 
-	                                 "\nUse /move [linha] [coluna] para jogar";
-	
-	            String messagePlayer2 = "JOGO INICIADO\nEstás a jogar contra: " + player1.getNickname() + 
-	                                 "\nO teu símbolo: O" + 
-	                                 "\nUse /move [linha] [coluna] para jogar";
-	
-	            GoBangServer.notifyPlayers(player1, player2, messagePlayer1, messagePlayer2);
-	            
-	            // Notifica quem começa
-	            if (newGame.getCurrentPlayer().equals(player1)) {
-	            	String msgPlayer1 = "🏁 Começas tu " + player1.getNickname();
-	            	String msgPlayer2 = "⏳ Começa o player " + player1.getNickname() + ". Espera pela tua vez!";
-	            	GoBangServer.notifyPlayers(player1, player2, msgPlayer1, msgPlayer2);
-	            } else if (newGame.getCurrentPlayer().equals(player2)) {
-	            	String msgPlayer2 = "🏁 Começas tu " + player2.getNickname();
-	            	String msgPlayer1 = "⏳ Começa o player " + player2.getNickname() + ". Espera pela tua vez!";
-	            	GoBangServer.notifyPlayers(player1, player2, msgPlayer1, msgPlayer2);
-	            }
-	        }
-    	}
+                if (waitingSet.size() >= 2) {
+                    Player player1 = pollWaiting();
+                    Player player2 = pollWaiting();
+                    Game newGame = new Game(player1, player2);
+                    addGameForPlayers(player1, player2, newGame);
+
+                    // Mensagens personalizadas para cada jogador
+                    String messagePlayer1 = "JOGO INICIADO\nEstás a jogar contra: " + player2.getNickname() + 
+                                         "\nO teu símbolo: X" + 
+                                         "\nUse /move [linha] [coluna] para jogar";
+
+                    String messagePlayer2 = "JOGO INICIADO\nEstás a jogar contra: " + player1.getNickname() + 
+                                         "\nO teu símbolo: O" + 
+                                         "\nUse /move [linha] [coluna] para jogar";
+
+                    GoBangServer.notifyPlayers(player1, player2, messagePlayer1, messagePlayer2);
+
+                    // Notifica quem começa
+                    if (newGame.getCurrentPlayer().equals(player1)) {
+                        String msgPlayer1 = "🏁 Começas tu " + player1.getNickname();
+                        String msgPlayer2 = "⏳ Começa o player " + player1.getNickname() + ". Espera pela tua vez!";
+                        GoBangServer.notifyPlayers(player1, player2, msgPlayer1, msgPlayer2);
+                    } else if (newGame.getCurrentPlayer().equals(player2)) {
+                        String msgPlayer2 = "🏁 Começas tu " + player2.getNickname();
+                        String msgPlayer1 = "⏳ Começa o player " + player2.getNickname() + ". Espera pela tua vez!";
+                        GoBangServer.notifyPlayers(player1, player2, msgPlayer1, msgPlayer2);
+                    }
+                } else {
+                    GoBangServer.getBots().onPlayerQueued(player); // Se ninguém aparecer, joga contra um bot
+                }
+            }
+        } finally {
+            queueLock.unlock();
+        }
     }
-    
+
     /**
      * Remove um jogador da fila de espera.
-     * Usado para cancelar espera ou ao emparelhar.
+     * Usado para cancelar espera.
+     * Só o tira de waitingSet (O(1)); a entrada em waitingPlayers é ignorada por pollWaiting().
      */
-    public synchronized void removePlayerFromQueue(Player player) {
-        waitingPlayers.remove(player);
+    public void removePlayerFromQueue(Player player) {
+        queueLock.lock();
+        try {
+            waitingSet.remove(player);
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    /**
+     * Tira da fila o jogador em espera há mais tempo, descartando as entradas obsoletas
+     * (de jogadores que saíram da fila, ou que saíram e voltaram a entrar e têm uma entrada mais recente).
+     * Chamado com queueLock.
+     */
+    private Player pollWaiting() {
+        WaitingEntry entry;
+        while ((entry = waitingPlayers.poll()) != null) {
+            if (waitingSet.remove(entry.player, entry)) {
+                return entry.player;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Descarta as entradas obsoletas do início da fila. Chamado com queueLock.
+     */
+    private void discardStaleHead() {
+        WaitingEntry head;
+        while ((head = waitingPlayers.peek()) != null && waitingSet.get(head.player) != head) {
+            waitingPlayers.poll();
+        }
+    }
+
+    /**
+     * Indica se o jogador está na fila de espera (O(1), sem locks).
+     * 
+     * Usado em:
+     * - ClientHandler.handlePlay(), GameService.getState(), ai.BotPlayer.onPlayerQueued().
+     */
+    public boolean isWaiting(Player player) {
+        return waitingSet.containsKey(player);
     }
 
     /**
@@ -80,13 +147,8 @@ public class SessionManager {
      * - ClientHandler.handleMove(), handleGet(), handleSurrender(), etc.
      */
     public Game getGameByPlayer(Player player) {
-        String nick = player.getNickname();
-        for (Game game : activeGames) {
-            if (game.getPlayer1().getNickname().equals(nick) || game.getPlayer2().getNickname().equals(nick)) {
-                return game;
-            }
-        }
-        return null;
+        List<Game> games = gamesByPlayer.get(player.getNickname());
+        return games != null ? games.get(0) : null; // O jogo mais antigo do jogador (as listas nunca ficam vazias no mapa)
     }
 
     /**
@@ -97,10 +159,11 @@ public class SessionManager {
      * - Chamado por ClientHandler.handleMove(), handleSurrender(), disconnectClient(), etc.
      * - Usa GoBangServer.getLastGameResults() para guardar mensagens de fim de jogo.
      * - Usa Player.addGameUUID(), addPlayTime(), setWins(), setLosses().
+     * - Publica "gameover" no EventBus para as páginas web abertas.
      */
     public void endGame(Game game) {
-        if (game.isEnded()) return;
-        game.setEnded(true);
+        if (!game.markEnded()) return; // Só a primeira chamada termina o jogo (jogada e desistência ao mesmo tempo)
+        GoBangServer.getTurnTimer().onGameEnded(game);
 
         long gameDuration = System.currentTimeMillis() - game.getStartTime();
         game.getPlayer1().addGameUUID(game.getId());
@@ -159,22 +222,33 @@ public class SessionManager {
         GoBangServer.saveRankingToXML();
         
         removeGame(game);
+
+        // Só depois de guardar os resultados: as páginas que receberem o evento (ou que estejam em long-poll)
+        // já os encontram em getLastGameResults()
+        game.markChanged();
+        GoBangServer.getEventBus().publishToGame(game, "gameover", game.getId());
     }
 
     /**
-     * Devolve a lista de jogos ativos.
+     * Devolve os jogos ativos (vista só de leitura, atualizada à medida que os jogos começam e terminam).
      * Usado para debug ou estatísticas.
      */
-    public List<Game> getActiveGames() {
-        return activeGames;
+    public Collection<Game> getActiveGames() {
+        return Collections.unmodifiableCollection(gamesById.values());
     }
     
     /**
-     * Devolve a fila de espera de jogadores.
-     * Usado por ClientHandler e para mostrar no frontend.
+     * Devolve uma cópia da fila de espera de jogadores (por ordem de chegada, sem entradas obsoletas).
+     * Usado para mostrar no frontend; para saber se um jogador está na fila, usar isWaiting().
      */
-    public Queue<Player> getWaitingPlayers() {
-        return waitingPlayers;
+    public Collection<Player> getWaitingPlayers() {
+        List<Player> players = new ArrayList<>();
+        for (WaitingEntry entry : waitingPlayers) {
+            if (waitingSet.get(entry.player) == entry) {
+                players.add(entry.player);
+            }
+        }
+        return Collections.unmodifiableList(players);
     }
     
     /**
@@ -183,8 +257,8 @@ public class SessionManager {
      */
     public String getWaitingList(){
     	String waitingList = "Jogadores em espera:";
-    	if (!waitingPlayers.isEmpty()) {
-    		for (Player p : waitingPlayers) {
+    	if (!waitingSet.isEmpty()) {
+    		for (Player p : getWaitingPlayers()) {
         		waitingList += "\n" + p.getNickname() + " " + p.getNationality();
         	}
     	}
@@ -197,8 +271,8 @@ public class SessionManager {
      */
     public String getActiveGamesToString() {
     	String activeGamesString = "Jogos ativos de momento:";
-    	if(!activeGames.isEmpty()) {
-    		for (Game g : activeGames) {
+    	if(!gamesById.isEmpty()) {
+    		for (Game g : gamesById.values()) {
     			activeGamesString += "\nJogo de " + g.getPlayer1().getNickname() + ", contra " + g.getPlayer2().getNickname();
     		}
     	}
@@ -210,58 +284,88 @@ public class SessionManager {
     // =======================
     
     /**
-     * Devolve a lista de jogos em que o jogador está envolvido.
+     * Devolve a lista de jogos em que o jogador está envolvido (imutável, por ordem de início; O(1), sem cópias).
      * Usado em ClientHandler.handleGetGames().
      */
     public List<Game> getGamesForPlayer(String nickname) {
-        return gamesByPlayer.getOrDefault(nickname, new ArrayList<>());
+        return gamesByPlayer.getOrDefault(nickname, Collections.<Game>emptyList());
     }
     
     /**
-     * Adiciona um novo jogo às listas de ambos os jogadores e à lista global de jogos ativos.
+     * Adiciona um novo jogo às listas de ambos os jogadores e ao índice global de jogos ativos.
      * Usado ao criar jogos automáticos ou por convite.
      * 
-     * computeIfAbsent: serve para garantir que existe uma entrada (chave) no mapa. Se não existir,
-     * ele cria e associa um novo valor usando a função fornecida. Isto evita ter de se fazer um if.
-     * Neste caso:
-     * - Para cada jogador (p1 e p2), verifica se já existe uma lista de jogos associada ao nickname no mapa gamesByPlayer
-     * - Se não existir, cria uma nova ArrayList e associa ao nickname.
-     * - Depois, adiciona o jogo à lista desse jogador.
+     * compute: serve para alterar a entrada de uma chave de forma atómica (outras threads a alterar
+     * a mesma chave esperam; as outras chaves não). Neste caso, para cada jogador (p1 e p2),
+     * a lista de jogos do nickname é substituída por uma cópia com o novo jogo no fim (withGame()),
+     * e quem estiver a ler a lista antiga continua a vê-la inteira.
      */
     public void addGameForPlayers(Player p1, Player p2, Game game) {
-        gamesByPlayer.computeIfAbsent(p1.getNickname(), k -> new ArrayList<>()).add(game);
-        gamesByPlayer.computeIfAbsent(p2.getNickname(), k -> new ArrayList<>()).add(game);
-        activeGames.add(game);
+        gamesById.put(game.getId(), game);
+        gamesByPlayer.compute(p1.getNickname(), (nick, games) -> withGame(games, game));
+        gamesByPlayer.compute(p2.getNickname(), (nick, games) -> withGame(games, game));
+        // Clientes TCP: estado completo no início do jogo (depois só recebem as jogadas, ver GoBangServer.notifyMove)
+        String snapshot = GoBangServer.getGameService().snapshot(game);
+        GoBangServer.notifyPlayers(p1, p2, snapshot, snapshot);
+        GoBangServer.getEventBus().publishToGame(game, "start", game.getId()); // Páginas abertas mostram o novo jogo sem polling
+        GoBangServer.getTurnTimer().onGameStarted(game); // O tempo da primeira jogada conta a partir daqui
+        GoBangServer.getBots().onGameStarted(game); // Se o primeiro a jogar for um bot
     }
     
     /**
-     * Procura um jogo específico pelo ID, dado o nickname do jogador.
+     * Procura um jogo específico pelo ID, dado o nickname do jogador (O(1)).
      * Usado para identificar jogos em simultâneo.
+     * @return null se o jogo não existir ou se o jogador não for um dos seus jogadores
      */
     public Game getGameById(String nickname, String gameId) {
-        List<Game> games = getGamesForPlayer(nickname);
-        for (Game g : games) {
-            if (g.getId().equals(gameId)) return g;
-        }
-        return null;
+        Game game = gamesById.get(gameId);
+        if (game == null) return null;
+        boolean playing = game.getPlayer1().getNickname().equals(nickname) || game.getPlayer2().getNickname().equals(nickname);
+        return playing ? game : null;
     }
 
     /**
-     * Remove um jogo das listas de ambos os jogadores e da lista global.
+     * Remove um jogo das listas de ambos os jogadores e do índice global.
      * Usado ao terminar um jogo.
      */
     public void removeGame(Game game) {
-        List<Game> list1 = gamesByPlayer.getOrDefault(game.getPlayer1().getNickname(), new ArrayList<>());
-        list1.remove(game);
-        if (list1.isEmpty()) {
-            gamesByPlayer.remove(game.getPlayer1().getNickname());
+        gamesById.remove(game.getId());
+        gamesByPlayer.computeIfPresent(game.getPlayer1().getNickname(), (nick, games) -> withoutGame(games, game));
+        gamesByPlayer.computeIfPresent(game.getPlayer2().getNickname(), (nick, games) -> withoutGame(games, game));
+    }
+
+    /**
+     * Cópia imutável da lista de jogos de um jogador com mais um jogo (no fim).
+     */
+    private static List<Game> withGame(List<Game> games, Game game) {
+        if (games == null) {
+            return Collections.singletonList(game);
         }
-        List<Game> list2 = gamesByPlayer.getOrDefault(game.getPlayer2().getNickname(), new ArrayList<>());
-        list2.remove(game);
-        if (list2.isEmpty()) {
-            gamesByPlayer.remove(game.getPlayer2().getNickname());
+        List<Game> copy = new ArrayList<>(games.size() + 1);
+        copy.addAll(games);
+        copy.add(game);
+        return Collections.unmodifiableList(copy);
+    }
+
+    /**
+     * Cópia imutável da lista de jogos de um jogador sem um jogo; null (a entrada sai do mapa) se ficar vazia.
+     */
+    private static List<Game> withoutGame(List<Game> games, Game game) {
+        List<Game> copy = new ArrayList<>(games);
+        copy.remove(game);
+        return copy.isEmpty() ? null : Collections.unmodifiableList(copy);
+    }
+
+    /**
+     * Entrada da fila de espera. Só é válida enquanto for o valor de waitingSet para o jogador;
+     * se o jogador sair (e voltar a entrar) a entrada antiga fica obsoleta.
+     */
+    private static final class WaitingEntry {
+        final Player player;
+
+        WaitingEntry(Player player) {
+            this.player = player;
         }
-        activeGames.remove(game);
     }
 }
 
@@ -272,4 +376,7 @@ UTILIZAÇÕES E LIGAÇÕES:
 - Game é criado e terminado por esta classe.
 - Player é usado para emparelhamento, estatísticas e notificações.
 - GoBangServer.getLastGameResults() é usado para guardar mensagens de fim de jogo (ex: "error:game_over").
+- GoBangServer.getEventBus() recebe os eventos "start" e "gameover" (server push para as páginas web).
+- GameService, ClientHandler e ai.BotPlayer usam isWaiting() e os índices O(1) no caminho quente (/move, /get, /getgames).
+- benchmark.SessionIndexBenchmark: consultas e alterações concorrentes com milhares de jogos.
 */
\ No newline at end of file
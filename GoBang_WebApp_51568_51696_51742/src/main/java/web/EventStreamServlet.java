@@ -0,0 +1,240 @@
+package web;
+
+import game.Player;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import server.GoBangServer;
+import service.EventBus;
+
+/**
+ * Canal de eventos do servidor para o browser (Server-Sent Events, "text/event-stream").
+ * Cada página aberta (play.jsp, lobby.jsp, activeGames.jsp) abre um EventSource para /events
+ * e recebe os eventos do seu jogador (jogadas, vez, convites, início e fim de jogo) assim que acontecem,
+ * em vez de fazer pedidos AJAX a cada segundo.
+ *
+ * O pedido é assíncrono (startAsync): a thread do Tomcat é libertada logo a seguir,
+ * e a ligação fica apenas registada no EventBus até a página fechar ou o timeout expirar
+ * (o EventSource volta a ligar-se sozinho, ao fim de "retry" ms).
+ * Um heartbeat periódico (comentário SSE) mantém a ligação viva atrás de proxies e deteta páginas fechadas.
+ *
+ * Quem publica um evento (a thread que fez a jogada, um pedido HTTP, o heartbeat) só o coloca na fila limitada
+ * da ligação; a escrita e o flush são feitos por uma pequena pool de escritores, juntando os eventos pendentes
+ * num só flush (tal como server.OutboundQueue nas ligações TCP). Uma página que não acompanha (fila cheia) é
+ * desligada: o EventSource volta a ligar-se e a página pede o estado atual.
+ *
+ * Configuração (propriedades de sistema):
+ * - gobang.sse.timeoutMillis (omissão 300000): duração máxima de cada ligação antes de reconectar.
+ * - gobang.sse.heartbeatSeconds (omissão 20): intervalo entre heartbeats.
+ * - gobang.sse.queueCapacity (omissão 64): eventos por escrever em cada ligação antes de a desligar.
+ * - gobang.sse.writerThreads (omissão 2): threads que escrevem nas ligações.
+ *
+ * Ligações:
+ * - Registado em WEB-INF/web.xml (/events, async-supported).
+ * - Usa a sessão HTTP ("player", definido em login.jsp) para saber de quem são os eventos.
+ * - Subscreve GoBangServer.getEventBus(); os JSPs continuam com polling lento como alternativa.
+ */
+public class EventStreamServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+    private static final long TIMEOUT_MILLIS = Long.getLong("gobang.sse.timeoutMillis", 300000L);
+    private static final long HEARTBEAT_SECONDS = Long.getLong("gobang.sse.heartbeatSeconds", 20L);
+    private static final int QUEUE_CAPACITY = Integer.getInteger("gobang.sse.queueCapacity", 64);
+    private static final int WRITER_THREADS = Integer.getInteger("gobang.sse.writerThreads", 2);
+    private static final int RETRY_MILLIS = 3000; // Espera do EventSource antes de voltar a ligar
+
+    private final transient Set<SseSubscriber> openStreams = ConcurrentHashMap.newKeySet(); // Ligações abertas (para heartbeat e destroy)
+    private transient ScheduledExecutorService heartbeat;
+    private transient ExecutorService writers; // Escrevem os eventos em fila de cada ligação (SseSubscriber.drain())
+
+    @Override
+    public void init() throws ServletException {
+        heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "gobang-sse-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        heartbeat.scheduleAtFixedRate(this::sendHeartbeats, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+        AtomicInteger count = new AtomicInteger();
+        writers = Executors.newFixedThreadPool(Math.max(1, WRITER_THREADS), r -> {
+            Thread t = new Thread(r, "gobang-sse-writer-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        heartbeat.shutdownNow();
+        for (SseSubscriber stream : openStreams) {
+            stream.close();
+        }
+        writers.shutdown();
+    }
+
+    /**
+     * Abre o stream de eventos do jogador autenticado.
+     * Responde 401 se não houver sessão (a página continua com polling).
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        HttpSession session = request.getSession(false);
+        Player player = session != null ? (Player) session.getAttribute("player") : null;
+        if (player == null) {
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+
+        response.setContentType("text/event-stream");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+        response.setHeader("X-Accel-Buffering", "no"); // Evita buffering em proxies (nginx)
+
+        AsyncContext async = request.startAsync();
+        async.setTimeout(TIMEOUT_MILLIS);
+        SseSubscriber stream = new SseSubscriber(player.getNickname(), async, response.getWriter());
+        async.addListener(new AsyncListener() {
+            @Override public void onComplete(AsyncEvent event) { remove(stream); }
+            @Override public void onTimeout(AsyncEvent event) { stream.close(); }
+            @Override public void onError(AsyncEvent event) { stream.close(); }
+            @Override public void onStartAsync(AsyncEvent event) { }
+        });
+
+        openStreams.add(stream);
+        GoBangServer.getEventBus().subscribe(stream.nickname, stream);
+        stream.enqueue("retry: " + RETRY_MILLIS + "\n: ligado\n\n"); // Primeira escrita: envia os cabeçalhos ao browser
+    }
+
+    /**
+     * Envia um comentário SSE a todas as ligações; as que falham (página fechada) são fechadas pelo escritor.
+     */
+    private void sendHeartbeats() {
+        for (SseSubscriber stream : openStreams) {
+            stream.enqueue(": ping\n\n");
+        }
+    }
+
+    private void remove(SseSubscriber stream) {
+        openStreams.remove(stream);
+        GoBangServer.getEventBus().unsubscribe(stream.nickname, stream);
+    }
+
+    /**
+     * Uma ligação SSE aberta: destino de eventos de um jogador no EventBus.
+     * Os eventos chegam de várias threads (ClientHandler, pedidos HTTP, heartbeat) e só entram na fila;
+     * o writer só é usado por drain(), numa thread dos escritores de cada vez.
+     */
+    private final class SseSubscriber implements EventBus.Subscriber {
+        private final String nickname;
+        private final AsyncContext async;
+        private final PrintWriter writer;
+        private final BlockingQueue<String> pending = new ArrayBlockingQueue<>(QUEUE_CAPACITY); // Eventos por escrever
+        private final AtomicBoolean drainScheduled = new AtomicBoolean(false); // Já há um escritor agendado para esta ligação?
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        SseSubscriber(String nickname, AsyncContext async, PrintWriter writer) {
+            this.nickname = nickname;
+            this.async = async;
+            this.writer = writer;
+        }
+
+        @Override
+        public boolean send(String type, String data) {
+            return enqueue("event: " + type + "\ndata: " + data + "\n\n");
+        }
+
+        /**
+         * Coloca o texto na fila e agenda a escrita (não bloqueia quem publica).
+         * Com a fila cheia a página não está a acompanhar os eventos: a ligação é fechada.
+         * @return false se a ligação já fechou ou foi fechada agora
+         */
+        boolean enqueue(String text) {
+            if (closed.get()) return false;
+            if (!pending.offer(text)) {
+                close();
+                return false;
+            }
+            scheduleDrain();
+            return true;
+        }
+
+        /**
+         * Agenda um drain() nos escritores, no máximo um de cada vez por ligação.
+         */
+        private void scheduleDrain() {
+            if (drainScheduled.compareAndSet(false, true)) {
+                try {
+                    writers.execute(this::drain);
+                } catch (RejectedExecutionException e) { // Servlet a terminar
+                    drainScheduled.set(false);
+                }
+            }
+        }
+
+        /**
+         * Escreve todos os eventos em fila e faz um único flush; se a escrita falhar (página fechada), fecha a ligação.
+         * PrintWriter não lança exceções: usa checkError().
+         */
+        private void drain() {
+            try {
+                String text;
+                boolean wrote = false;
+                while (!closed.get() && (text = pending.poll()) != null) {
+                    writer.write(text);
+                    wrote = true;
+                }
+                if (wrote && !closed.get()) {
+                    writer.flush();
+                    if (writer.checkError()) {
+                        close();
+                    }
+                }
+            } finally {
+                drainScheduled.set(false);
+            }
+            if (!pending.isEmpty() && !closed.get()) {
+                scheduleDrain(); // Chegaram eventos depois do último poll()
+            }
+        }
+
+        /**
+         * Termina o pedido assíncrono (idempotente) e remove a ligação do EventBus.
+         */
+        void close() {
+            if (!closed.compareAndSet(false, true)) return;
+            pending.clear();
+            remove(this);
+            try {
+                async.complete();
+            } catch (IllegalStateException e) {
+                // Pedido já terminado pelo contentor
+            }
+        }
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- WEB-INF/web.xml: mapeado em /events com <async-supported>true</async-supported>.
+- play.jsp, lobby.jsp, activeGames.jsp: new EventSource(".../events"); cada evento dispara o pedido de atualização
+  que antes era feito por setInterval (o polling fica como alternativa, com intervalo longo).
+- service.EventBus: subscribe()/unsubscribe() de cada ligação; publish() chama SseSubscriber.send(), que só põe o evento na fila.
+- login.jsp: guarda o Player na sessão ("player"), usado para identificar o jogador.
+*/
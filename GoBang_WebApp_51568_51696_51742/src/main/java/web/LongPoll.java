@@ -0,0 +1,118 @@
+package web;
+
+import gateway.GameFacade;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import service.GameState;
+
+/**
+ * Long-poll do estado do jogo (gameAction.jsp?action=check&version=N).
+ * O cliente envia a última versão do jogo que conhece (Game.getVersion()); se o jogo já mudou,
+ * a resposta é imediata, senão o pedido fica suspenso (startAsync, sem ocupar uma thread do Tomcat)
+ * até o jogo mudar (jogada, passagem de vez, fim) ou o prazo expirar.
+ *
+ * Respostas (as mesmas do polling antigo): "game_over:...", "refresh" (há um estado novo) ou "wait" (nada mudou).
+ *
+ * Configuração: gobang.longpoll.timeoutMillis (omissão 25000), prazo máximo de espera.
+ * O parâmetro "wait" (ms) permite pedir um prazo menor; wait=0 responde sempre de imediato.
+ *
+ * Ligações:
+ * - Chamado por gameAction.jsp (declarado com async-supported em WEB-INF/web.xml).
+ * - Usa GameFacade.getState() e GameFacade.awaitChange() (Game.awaitChange em processo, EventBus em modo remoto).
+ * - Usado por play.jsp quando não há ligação SSE (/events).
+ */
+public final class LongPoll {
+    private static final long TIMEOUT_MILLIS = Long.getLong("gobang.longpoll.timeoutMillis", 25000L);
+
+    private LongPoll() {}
+
+    /**
+     * Responde ao check do jogador, de imediato ou mais tarde.
+     * @return a resposta imediata (a escrever pelo JSP), ou null se o pedido ficou suspenso
+     *         (a resposta será escrita diretamente no response quando o jogo mudar ou o prazo expirar)
+     */
+    public static String check(HttpServletRequest request, String nickname, long knownVersion, long waitMillis) throws IOException {
+        GameFacade games = GameFacade.getInstance();
+        long timeout = Math.min(Math.max(waitMillis, 0), TIMEOUT_MILLIS);
+
+        // Regista a espera ANTES de ler o estado: uma alteração entre as duas operações não se perde
+        CompletableFuture<Long> changed = games.awaitChange(nickname, knownVersion);
+        String immediate = answer(games.getState(nickname), knownVersion);
+        if (immediate != null || timeout == 0 || !request.isAsyncSupported()) {
+            changed.cancel(false);
+            return immediate != null ? immediate : "wait";
+        }
+
+        AsyncContext async = request.startAsync();
+        async.setTimeout(timeout);
+        AtomicBoolean done = new AtomicBoolean(false); // Só um dos caminhos (alteração/prazo/erro) responde
+        async.addListener(new AsyncListener() {
+            @Override public void onTimeout(AsyncEvent event) {
+                if (done.compareAndSet(false, true)) {
+                    changed.cancel(false);
+                    respond(async, "wait");
+                }
+            }
+            @Override public void onError(AsyncEvent event) {
+                done.set(true);
+                changed.cancel(false);
+            }
+            @Override public void onComplete(AsyncEvent event) { }
+            @Override public void onStartAsync(AsyncEvent event) { }
+        });
+
+        changed.whenComplete((version, error) -> {
+            if (error != null || !done.compareAndSet(false, true)) return;
+            // O futuro é completado na thread que alterou o jogo (ou na thread de leitura do gateway):
+            // o novo estado é lido numa thread do contentor
+            async.start(() -> {
+                String text;
+                try {
+                    text = answer(games.getState(nickname), knownVersion);
+                } catch (IOException e) {
+                    text = "error:socket";
+                }
+                respond(async, text != null ? text : "wait");
+            });
+        });
+        return null;
+    }
+
+    /**
+     * Decide a resposta para um estado, dada a versão conhecida pelo cliente.
+     * @return "game_over:...", "refresh", ou null se nada mudou
+     */
+    static String answer(GameState estado, long knownVersion) {
+        String pendente = estado.getPendingResult();
+        if (pendente != null && (pendente.contains("FIM DE JOGO") || pendente.contains("VITÓRIA") || pendente.contains("EMPATE"))) {
+            return "game_over:" + pendente;
+        }
+        if (estado.getStatus() != GameState.Status.PLAYING || estado.getVersion() != knownVersion) {
+            return "refresh";
+        }
+        return null;
+    }
+
+    private static void respond(AsyncContext async, String text) {
+        try {
+            async.getResponse().getWriter().print(text);
+        } catch (IOException e) {
+            // Cliente já desligado
+        } finally {
+            async.complete();
+        }
+    }
+}
+
+/*
+UTILIZAÇÕES E LIGAÇÕES:
+- gameAction.jsp: action=check com o parâmetro "version" (sem ele, mantém-se a comparação antiga por moveCount).
+- WEB-INF/web.xml: gameAction.jsp declarado com <async-supported>true</async-supported>.
+- GameFacade.awaitChange(): futuro completado na próxima alteração do jogo.
+- play.jsp: usa o long-poll quando a ligação SSE não está aberta.
+*/
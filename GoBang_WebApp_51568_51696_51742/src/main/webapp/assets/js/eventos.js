@@ -0,0 +1,54 @@
+// =========================
+// Eventos do servidor (Server-Sent Events) com polling como alternativa
+// =========================
+//
+// Usado por play.jsp, lobby.jsp e activeGames.jsp.
+// Liga-se a /events (web.EventStreamServlet) e, a cada evento, chama a função de atualização
+// que antes corria por setInterval (os pedidos AJAX continuam a ser a fonte de verdade).
+//
+// - handlers: { tipoDeEvento: funcao(dados) }  (ex: move, turn, start, gameover, invite, accepted, update)
+// - polling:  [{ fn: funcao, intervalo: ms, sincronizar: bool }]  polling original, usado enquanto não há ligação SSE;
+//             com a ligação aberta passa a correr apenas de POLLING_LENTO em POLLING_LENTO ms (rede de segurança).
+//
+// Ao (re)ligar, as funções de polling correm uma vez para apanhar o que mudou durante a desconexão
+// (exceto as marcadas com sincronizar: false, ex: recarregar a página).
+
+var POLLING_LENTO = 15000;
+
+function ligarEventos(url, handlers, polling) {
+    var timers = [];
+
+    function iniciarPolling(lento) {
+        timers.forEach(clearInterval);
+        timers = polling.map(function (p) {
+            return setInterval(p.fn, lento ? Math.max(p.intervalo, POLLING_LENTO) : p.intervalo);
+        });
+    }
+
+    // Junta rajadas de eventos (ex: jogada seguida de fim de jogo) num único pedido
+    function agrupar(fn) {
+        var pendente = null;
+        return function (dados) {
+            if (pendente) return;
+            pendente = setTimeout(function () { pendente = null; fn(dados); }, 50);
+        };
+    }
+
+    iniciarPolling(false);
+    if (!window.EventSource) return null; // Browser sem SSE: fica só o polling
+
+    var fonte = new EventSource(url);
+    fonte.onopen = function () {
+        iniciarPolling(true);
+        polling.forEach(function (p) { if (p.sincronizar !== false) p.fn(); });
+    };
+    fonte.onerror = function () {
+        iniciarPolling(false); // Sem ligação (ou a reconectar): volta ao polling normal
+    };
+    Object.keys(handlers).forEach(function (tipo) {
+        var handler = agrupar(handlers[tipo]);
+        fonte.addEventListener(tipo, function (e) { handler(e.data); });
+    });
+    window.addEventListener('beforeunload', function () { fonte.close(); });
+    return fonte;
+}
@@ -1,10 +1,10 @@
 <%@ page import="java.util.*,game.Player" %>
-<%@ page import="java.net.Socket, java.io.PrintWriter, java.io.BufferedReader, java.io.InputStreamReader" %>
+<%@ page import="gateway.GameGateway" %>
 <%
 	// JSP PARA ACEITAR UM CONVITE DE JOGO
 	// Tcnicas utilizadas:
 	// - Acesso a atributos de sesso e aplicao (session/application scope)
-	// - Comunicao com o servidor GoBang via socket TCP (envio de comandos como um cliente)
+	// - Comunicao com o servidor GoBang via GameGateway (ligaes TCP persistentes, envio de comandos como um cliente)
 	// - Atualizao de mapas globais (convites, resultados)
 	// - Resposta ao frontend para integrao AJAX
 	// - Comentrios HTML para debug
@@ -25,13 +25,10 @@
         application.setAttribute("convites", convites);
     }
 
- 	// 3. Prepara comunicao com o servidor GoBang via socket TCP
-    String SERVER_IP = "26.106.140.96";
-    int PORT = 1234;
+ 	// 3. Prepara comunicao com o servidor GoBang via gateway
     String gameId = null;
-    try (Socket socket = new Socket(SERVER_IP, PORT);
-         PrintWriter outSocket = new PrintWriter(socket.getOutputStream(), true);
-         BufferedReader inSocket = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+    try {
+        GameGateway gateway = GameGateway.getInstance();
 
     	// 4. Obtm o mapa global de jogadores (application scope)
         @SuppressWarnings("unchecked")
@@ -43,24 +40,19 @@
         game.Player fromPlayer = players.get(fromNick);
 
      	// 5. Faz login do remetente no servidor GoBang (necessrio para criar o jogo)
-        outSocket.println("/login " + fromNick + " " + fromPlayer.getPassword());
-        String loginResp1 = inSocket.readLine();
-        if (loginResp1 == null || !loginResp1.toLowerCase().contains("bem-sucedido")) {
-            out.print("Erro ao fazer login do remetente no servidor GoBang: " + loginResp1);
+        if (!gateway.login(fromNick, fromPlayer.getPassword())) {
+            out.print("Erro ao fazer login do remetente no servidor GoBang.");
             return;
         }
 
      	// 6. Faz login do destinatrio no servidor GoBang
-        outSocket.println("/login " + player.getNickname() + " " + player.getPassword());
-        String loginResp2 = inSocket.readLine();
-        if (loginResp2 == null || !loginResp2.toLowerCase().contains("bem-sucedido")) {
-            out.print("Erro ao fazer login do destinatrio no servidor GoBang: " + loginResp2);
+        if (!gateway.login(player.getNickname(), player.getPassword())) {
+            out.print("Erro ao fazer login do destinatrio no servidor GoBang.");
             return;
         }
 
      	// 7. Envia comando para criar o jogo entre os dois jogadores
-        outSocket.println("/startgame " + fromNick + " " + player.getNickname());
-        String resposta = inSocket.readLine();
+        String resposta = gateway.request(player.getNickname(), "/startgame " + fromNick + " " + player.getNickname());
      	// Comentrio HTML para debug/troubleshooting (no visvel para o utilizador)
         //out.println("<!-- DEBUG: resposta do servidor: " + resposta + " -->");
         // Espera resposta do tipo: GAMEID:<uuid>
@@ -77,6 +69,8 @@
     if (gameId != null) {
         // O remetente ser notificado via polling AJAX (GoBangServer.getLastGameResults)
         server.GoBangServer.getLastGameResults().put(fromNick, "CONVITE_ACEITE:" + gameId + ":" + player.getNickname());
+        // ... e avisado de imediato se tiver pginas abertas (SSE), sem esperar pelo prximo polling
+        server.GoBangServer.getEventBus().publish(fromNick, "accepted", gameId);
      	// Responde ao frontend (AJAX) com o ID do jogo criado
         out.print("Convite aceite! Jogo criado com ID: " + gameId +
                 "\nAcede aos teus jogos ativos para entrar em jogo");
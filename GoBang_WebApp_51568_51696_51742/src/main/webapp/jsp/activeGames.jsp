@@ -1,12 +1,13 @@
 <%@ page import="game.Player" %>
-<%@ page import="java.io.PrintWriter, java.io.BufferedReader, java.net.Socket" %>
-<%@ page import="java.util.*,java.io.InputStreamReader" %>
+<%@ page import="gateway.GameFacade, service.GameSummary" %>
+<%@ page import="java.util.*" %>
 <%
 	// JSP: activeGames.jsp
 	// Mostra ao utilizador os seus jogos ativos, o adversrio, o tempo restante e permite entrar no jogo.
 	// Tcnicas utilizadas:
-	// - AJAX (fetch + setInterval) para polling e atualizao dinmica da tabela de jogos ativos.
-	// - Comunicao com o servidor GoBang via socket TCP (envio de comandos como um cliente).
+	// - AJAX (fetch) para atualizao dinmica da tabela de jogos ativos, disparada por Server-Sent Events
+	//   (/events, EventStreamServlet); setInterval s como alternativa se a ligao SSE falhar.
+	// - Comunicao com o servidor GoBang via GameFacade (GameService em processo, ou GameGateway por TCP).
 	// - Manipulao de sesso (session scope) para garantir autenticao.
 	// - Suporte a modo "partial" para AJAX (s devolve a tabela, no o HTML completo).
 	// - Integrao com play.jsp (entrar no jogo) e lobby.jsp (voltar ao lobby).
@@ -26,49 +27,33 @@
     int tempoRestanteGlobal = 0;
     boolean suaVezGlobal = false;
 
- 	// 4. Comunica com o servidor GoBang via socket TCP para obter os jogos ativos do utilizador
-    try (Socket socket = new Socket("26.106.140.96", 1234);
-         PrintWriter outSocket = new PrintWriter(socket.getOutputStream(), true);
-         BufferedReader inSocket = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+ 	// 4. Obtm os jogos ativos do utilizador (GameFacade: em processo ou via gateway TCP)
+    try {
+        GameFacade games = GameFacade.getInstance();
 
-    	// 4.1. Faz login automtico do utilizador no servidor GoBang
-        outSocket.println("/login " + player.getNickname() + " " + player.getPassword());
-        String loginResp = inSocket.readLine();
-        if (loginResp == null || !loginResp.toLowerCase().contains("bem-sucedido")) {
+    	// 4.1. Garante o login do utilizador no servidor GoBang (por TCP s  enviado na primeira vez)
+        if (!games.login(player.getNickname(), player.getPassword())) {
             out.print("Erro ao ligar ao servidor GoBang.");
             return;
         }
 
-     	// 4.2. Pede ao servidor a lista de jogos ativos deste jogador
-        outSocket.println("/getgames " + player.getNickname());
-        String resposta = inSocket.readLine();
-        if (resposta != null && !resposta.contains("NO_GAMES")) {
-        	// 4.3. Faz parsing da resposta do servidor (formato: GAMEID:...;OPONENTE:...;SUA_VEZ:...;TEMPO:...;)
-            String[] parts = resposta.split(";");
-            Map<String, Object> jogo = null;
-            for (String part : parts) {
-                if (part.startsWith("GAMEID:")) {
-                    if (jogo != null) jogos.add(jogo);
-                    jogo = new HashMap<>();
-                    jogo.put("gameId", part.substring("GAMEID:".length()));
-                } else if (part.startsWith("OPONENTE:")) {
-                    if (jogo != null) jogo.put("oponente", part.substring("OPONENTE:".length()));
-                } else if (part.startsWith("SUA_VEZ:")) {
-                    boolean suaVez = "true".equals(part.substring("SUA_VEZ:".length()));
-                    if (jogo != null) jogo.put("suaVez", suaVez);
-                    // Para o polling JS, guarda o primeiro jogo em que  a sua vez
-                    if (suaVez && tempoRestanteGlobal == 0 && jogo != null && jogo.get("tempo") != null) {
-                        suaVezGlobal = true;
-                        tempoRestanteGlobal = (Integer) jogo.get("tempo");
-                    }
-                } else if (part.startsWith("TEMPO:")) {
-                    if (jogo != null) jogo.put("tempo", Integer.parseInt(part.substring("TEMPO:".length())));
-                }
+     	// 4.2. Pede a lista de jogos ativos deste jogador (j tipada: GameSummary)
+        for (GameSummary resumo : games.getGames(player.getNickname())) {
+        	// 4.3. Converte cada jogo para o mapa usado na tabela
+            Map<String, Object> jogo = new HashMap<>();
+            jogo.put("gameId", resumo.getGameId());
+            jogo.put("oponente", resumo.getOpponent());
+            jogo.put("suaVez", resumo.isYourTurn());
+            jogo.put("tempo", resumo.getSecondsLeft());
+            jogos.add(jogo);
+            // Para o polling JS, guarda o primeiro jogo em que  a sua vez
+            if (resumo.isYourTurn() && !suaVezGlobal) {
+                suaVezGlobal = true;
+                tempoRestanteGlobal = resumo.getSecondsLeft();
             }
-            if (jogo != null) jogos.add(jogo);
         }
      	// 4.4. Se no encontrou nenhum jogo em que  a sua vez, usa o primeiro jogo para o polling
-        if (!jogos.isEmpty() && tempoRestanteGlobal == 0) {
+        if (!jogos.isEmpty() && !suaVezGlobal) {
             Map<String, Object> primeiro = jogos.get(0);
             suaVezGlobal = Boolean.TRUE.equals(primeiro.get("suaVez"));
             tempoRestanteGlobal = primeiro.get("tempo") != null ? (Integer)primeiro.get("tempo") : 0;
@@ -201,10 +186,12 @@
 <% if (!partial) { %>
         <a href="lobby.jsp" class="voltar-link">Voltar</a>
     </div>
+    <script src="<%= request.getContextPath() %>/assets/js/eventos.js"></script>
     <script>
     // ===========================================
-    // Tcnica: AJAX + POLLING
-    // O JavaScript faz polling a cada 1 segundo para atualizar a tabela de jogos ativos.
+    // Tcnica: AJAX + SERVER-SENT EVENTS (polling como alternativa)
+    // O servidor avisa (SSE) quando h jogadas, passagem de vez, jogos novos ou fim de jogo;
+    // s ento o JavaScript pede a tabela de jogos ativos. Sem ligao SSE, faz polling a cada meio segundo.
     // Chama o prprio JSP com ?partial=1 para obter s a tabela e o estado do jogo.
     // Atualiza a tabela e o elemento #estado-jogo sem recarregar a pgina.
     // ===========================================
@@ -229,8 +216,20 @@
                 }
             });
     }
- 	// Faz polling a cada meio segundo
-    setInterval(atualizarTabelaJogos, 500);
+
+    // Contagem decrescente local dos temporizadores (sem pedidos ao servidor).
+    // Quando um chega a zero, pede a tabela: o servidor passa a vez (e avisa o adversrio por SSE).
+    function contarTempo() {
+        var esgotado = false;
+        document.querySelectorAll('#active-games-table .timer').forEach(function (span) {
+            var segundos = parseInt(span.textContent, 10);
+            if (isNaN(segundos)) return;
+            if (segundos <= 1) esgotado = true;
+            else span.textContent = segundos - 1;
+        });
+        if (esgotado) atualizarTabelaJogos();
+    }
+    setInterval(contarTempo, 1000);
  	
     //Polling: envia para o jogador, caso esteja em jogo mas no esteja em play.jsp, uma notificao de fim de jogo
     function verificarNotificacoesGlobais() {
@@ -244,7 +243,17 @@
                 }
             });
     }
-    setInterval(verificarNotificacoesGlobais, 1000);
+
+    ligarEventos('<%= request.getContextPath() %>/events', {
+        move: atualizarTabelaJogos,
+        turn: atualizarTabelaJogos,
+        start: atualizarTabelaJogos,
+        gameover: function () { atualizarTabelaJogos(); verificarNotificacoesGlobais(); },
+        update: function () { atualizarTabelaJogos(); verificarNotificacoesGlobais(); }
+    }, [
+        { fn: atualizarTabelaJogos, intervalo: 500 },
+        { fn: verificarNotificacoesGlobais, intervalo: 1000 }
+    ]);
     </script>
 </body>
 </html>
@@ -1,19 +1,20 @@
 <%@ page contentType="text/html; charset=UTF-8" pageEncoding="UTF-8" %>
 <%@ page import="game.Player" %>
-<%@ page import="java.io.PrintWriter, java.io.BufferedReader, java.net.Socket" %>
+<%@ page import="gateway.GameFacade, service.GameState, service.MoveResult" %>
 <%@ page import="game.Player,server.GoBangServer" %>
-<%@ page import="java.util.Map" %>
+<%@ page import="java.util.Map, java.util.concurrent.CompletableFuture, ai.Analysis" %>
 <%
 	// JSP: AJAX de jogo (ex: playAjax.jsp)
 	// Responsável por receber pedidos AJAX do frontend (JS) durante o jogo:
 	// - Verifica se o convite foi aceite (polling)
 	// - Processa jogadas (/move)
-	// - Faz polling ao estado do jogo (/get)
+	// - Faz polling ao estado do jogo (/get), ou long-poll se o cliente enviar a versão do jogo
 	// - Lida com timeout e desistência
+	// - Dicas (/hint) para o modo tutor da play.jsp
 	// Técnicas utilizadas:
 	// - AJAX (frontend JS faz pedidos a este JSP)
 	// - Polling (verifica resultados e estado do jogo)
-	// - Comunicação com o servidor GoBang via socket TCP
+	// - Comunicação com o servidor GoBang via GameFacade (GameService em processo, ou GameGateway por TCP)
 	// - Manipulação de sessão e atributos globais
 	
 	// 1. Garante que o jogador está autenticado (sessão válida)
@@ -46,17 +47,11 @@
         return;
     }
 
-    // 4. Abre um novo socket para cada pedido AJAX (stateless)
-    String SERVER_IP = "26.106.140.96";
-    int PORT = 1234;
-    try (Socket socket = new Socket(SERVER_IP, PORT);
-         PrintWriter outSocket = new PrintWriter(socket.getOutputStream(), true);
-         BufferedReader inSocket = new BufferedReader(new java.io.InputStreamReader(socket.getInputStream()))) {
-
-    	// 4.1. Faz login automático do jogador no servidor GoBang
-        outSocket.println("/login " + nickname + " " + password);
-        String loginResp = inSocket.readLine();
-        if (loginResp == null || !loginResp.toLowerCase().contains("bem-sucedido")) {
+    // 4. Usa a fachada de jogo (em processo se o servidor corre nesta JVM; senão o gateway TCP partilhado)
+    GameFacade games = GameFacade.getInstance();
+    try {
+    	// 4.1. Garante o login do jogador no servidor GoBang (por TCP só é enviado na primeira vez)
+        if (!games.login(nickname, password)) {
             out.print("error:login");
             return;
         }
@@ -64,64 +59,63 @@
      	// 5. Processa ações AJAX vindas do frontend
         if ("move".equals(action)) {
         	// 5.1. Jogada do utilizador (/move linha coluna)
-            String row = request.getParameter("row");
-            String col = request.getParameter("col");
-            outSocket.println("/move " + row + " " + col);
-            String resposta = inSocket.readLine();
-
-            System.out.println("DEBUG resposta do servidor: " + resposta);
+            int row, col;
+            try {
+                row = Integer.parseInt(request.getParameter("row"));
+                col = Integer.parseInt(request.getParameter("col"));
+            } catch (NumberFormatException e) {
+                out.print("error:invalid_move");
+                return;
+            }
+            MoveResult resultado = games.move(nickname, row, col);
 
-            String respostaLower = resposta != null ? resposta.toLowerCase() : "";
-            if (
-                respostaLower.startsWith("vitória") ||
-                respostaLower.startsWith("empate") ||
-                respostaLower.startsWith("fim de jogo")
-            ) {
-                out.print("game_over:" + resposta);
-            } else if (respostaLower.startsWith("error:invalid_move")) {
+            if (resultado.getStatus() == MoveResult.Status.UNKNOWN_PLAYER) {
+                out.print("error:login");
+            } else if (resultado.getStatus() == MoveResult.Status.NOT_IN_GAME) {
+                out.print("game_over:Você não está num jogo ativo!");
+            } else if (resultado.getStatus() == MoveResult.Status.PENDING_RESULT) {
+                out.print("game_over:" + resultado.getResult());
+            } else if (resultado.isGameOver()) {
+                out.print("game_over:" + resultado.getFinalMessage());
+            } else if (resultado.isError()) {
                 out.print("error:invalid_move");
-            } else if (respostaLower.contains("refresh")) {
+            } else if (resultado.getResult().contains("refresh")) {
                 out.print("refresh");
-            } else if (respostaLower.startsWith("error:")) {
-                out.print("error:invalid_move");
             } else {
                 // fallback: trata qualquer resposta inesperada como fim de jogo
-                out.print("game_over:" + resposta);
+                out.print("game_over:" + resultado.getResult());
             }
             return;
         }
 
         if ("check".equals(action)) {
-        	// 5.2. Polling ao estado do jogo (/get nickname)
+            String versionStr = request.getParameter("version");
+            if (versionStr != null) {
+            	// 5.2. Long-poll: responde quando o jogo passar da versão que o cliente conhece (ou ao fim do prazo).
+            	// O pedido fica suspenso sem ocupar uma thread (web.LongPoll, async-supported em web.xml).
+                long version = -1;
+                long wait = Long.MAX_VALUE;
+                try { version = Long.parseLong(versionStr); } catch (NumberFormatException e) {}
+                try { wait = Long.parseLong(request.getParameter("wait")); } catch (NumberFormatException e) {}
+                String resposta = web.LongPoll.check(request, nickname, version, wait);
+                if (resposta != null) {
+                    out.print(resposta);
+                }
+                return;
+            }
+
+        	// 5.2. Polling ao estado do jogo (/get nickname), para clientes sem versão
             String moveCountStr = request.getParameter("moveCount");
             int moveCount = 0;
             try { moveCount = Integer.parseInt(moveCountStr); } catch (Exception e) {}
 
-            outSocket.println("/get " + nickname);
-            String resposta = inSocket.readLine();
+            GameState estado = games.getState(nickname);
 
-         	// Conta o número de jogadas no tabuleiro devolvido pelo servidor
-            int serverMoveCount = 0;
-            boolean suaVez = false;
-            if (resposta != null && resposta.contains("TABULEIRO:")) {
-                String[] parts = resposta.split(";");
-                for (String part : parts) {
-                    if (part.startsWith("TABULEIRO:")) {
-                        String[] linhas = part.substring("TABULEIRO:".length()).split("\\|");
-                        for (String linha : linhas) {
-                            for (char c : linha.toCharArray()) {
-                                if (c == 'X' || c == 'O') serverMoveCount++;
-                            }
-                        }
-                    }
-                    if (part.equals("SUA_VEZ")) suaVez = true;
-                }
-            }
-
-            // Analisa resposta para determinar se deve atualizar o frontend
-            if (resposta.contains("FIM DE JOGO") || resposta.contains("VITÓRIA") || resposta.contains("EMPATE")) {
-                out.print("game_over:" + resposta);
-            } else if (serverMoveCount > moveCount || suaVez) {
+            // Analisa o estado para determinar se deve atualizar o frontend
+            String pendente = estado.getPendingResult();
+            if (pendente != null && (pendente.contains("FIM DE JOGO") || pendente.contains("VITÓRIA") || pendente.contains("EMPATE"))) {
+                out.print("game_over:" + pendente);
+            } else if (estado.getMoveCount() > moveCount || estado.isYourTurn()) {
                 out.print("refresh");
             } else {
                 out.print("wait");
@@ -131,16 +125,35 @@
 
         if ("timeout".equals(action)) {
         	// 5.3. Timeout: notifica o servidor que o tempo esgotou
-            outSocket.println("/timeout");
-            String resposta = inSocket.readLine();
+            games.timeout(nickname);
             out.print("refresh");
             return;
         }
 
+        if ("hint".equals(action)) {
+        	// 5.4. Dicas: "hints:linha,coluna,valor|..." (da melhor para a pior), "hints:pending" enquanto a
+        	// pesquisa decorre (a página volta a pedir; a resposta seguinte vem da cache) ou "hints:none"
+            CompletableFuture<Analysis> dicas = games.hint(nickname);
+            if (dicas == null || dicas.isCompletedExceptionally()) {
+                out.print("hints:none");
+            } else if (!dicas.isDone()) {
+                out.print("hints:pending");
+            } else {
+                Analysis analise = dicas.join().limit(3);
+                StringBuilder sb = new StringBuilder("hints:");
+                for (int i = 0; i < analise.count(); i++) {
+                    if (i > 0) sb.append('|');
+                    sb.append(analise.getRow(i)).append(',').append(analise.getCol(i)).append(',')
+                      .append(Analysis.describe(analise.getScore(i)));
+                }
+                out.print(sb);
+            }
+            return;
+        }
+
         if ("surrender".equals(action)) {
-        	// 5.4. Desistência: notifica o servidor que o jogador desistiu
-            outSocket.println("/surrender");
-            String resposta = inSocket.readLine();
+        	// 5.5. Desistência: notifica o servidor que o jogador desistiu
+            games.surrender(nickname);
             out.print("game_over:Desististe!");
             return;
         }
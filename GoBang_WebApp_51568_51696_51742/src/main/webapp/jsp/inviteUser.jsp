@@ -58,6 +58,8 @@
     } else {
         convites.put(key, "pending");
         application.setAttribute("convites", convites);
+        // Avisa as pginas abertas do destinatrio (SSE): o lobby mostra o convite sem esperar pelo polling
+        server.GoBangServer.getEventBus().publish(toNick, "invite", from.getNickname());
         out.print("Convite enviado para " + toNick + "!");
     }
     
@@ -66,6 +68,7 @@
 	- Chamado via AJAX por perfilPublico.jsp (boto "Convidar para jogar") e potencialmente lobby.jsp.
 	- Depende de sesso autenticada e do atributo global "convites".
 	- A resposta  tratada por JS no frontend para feedback ao utilizador.
+	- O destinatrio  avisado pelo EventBus (evento "invite", via EventStreamServlet) e o lobby atualiza a lista.
 	- O convite criado ser mostrado em getConvites.jsp e pode ser aceite (aceitarConvite.jsp) ou recusado (recusarConvite.jsp).
     */
 %>
\ No newline at end of file
@@ -289,6 +289,7 @@
 	        </ul>
 	    </div>
 	</div>
+	<script src="<%= request.getContextPath() %>/assets/js/eventos.js"></script>
 	<script>
 	// =========================
     // Funes JavaScript cruciais para o lobby
@@ -341,9 +342,6 @@
             });
     }
  	
- 	// Polling: atualiza convites a cada 1 segundo
-    setInterval(atualizarConvites, 1000);
-    
  	// Polling: verifica se algum convite enviado foi aceite (a cada 2 segundos)
     function verificarNotificacoes() {
         fetch('gameAction.jsp?action=checkInvite')
@@ -360,7 +358,6 @@
                 }
             });
     }
-    setInterval(verificarNotificacoes, 1000);
     
     //Polling: envia para o jogador, caso esteja em jogo mas no esteja em play.jsp, uma notificao de fim de jogo
     function verificarNotificacoesGlobais() {
@@ -374,7 +371,19 @@
                 }
             });
     }
-    setInterval(verificarNotificacoesGlobais, 1000);
+    
+ 	// Eventos do servidor (SSE): convites recebidos/aceites e fim de jogo chegam assim que acontecem.
+ 	// O polling a cada 1 segundo s  usado se a ligao SSE falhar (com ela aberta, passa a 15 segundos).
+    ligarEventos('<%= request.getContextPath() %>/events', {
+        invite: atualizarConvites,
+        accepted: verificarNotificacoes,
+        gameover: verificarNotificacoesGlobais,
+        update: function () { atualizarConvites(); verificarNotificacoes(); verificarNotificacoesGlobais(); }
+    }, [
+        { fn: atualizarConvites, intervalo: 1000 },
+        { fn: verificarNotificacoes, intervalo: 1000 },
+        { fn: verificarNotificacoesGlobais, intervalo: 1000 }
+    ]);
     </script>
 </body>
 </html>
@@ -391,6 +400,7 @@
     - getConvites.jsp (AJAX/polling): atualiza lista de convites recebidos.
     - aceitarConvite.jsp / recusarConvite.jsp (AJAX): aceitar/recusar convites.
     - gameAction.jsp?action=checkInvite (AJAX/polling): verifica se convite enviado foi aceite.
+    - /events (EventStreamServlet, SSE): avisa de convites e fim de jogo; o polling fica como alternativa.
     - play.jsp: pgina do jogo (redirecionamento aps aceitar convite).
 - Tcnicas cruciais:
     - AJAX (fetch): comunicao assncrona com backend sem recarregar pgina.
@@ -3,6 +3,8 @@
 <%@ page import="java.net.Socket, java.io.PrintWriter, java.io.BufferedReader, java.io.InputStreamReader" %>
 <%@ page import="java.util.Set" %>
 <%@ page import="java.util.HashSet" %>
+<%@ page import="java.util.List, java.util.Collections" %>
+<%@ page import="protocol.CommandProtocol" %>
 <%
 	//==========================================================
 	// JSP: login.jsp
@@ -24,7 +26,7 @@
         application.setAttribute("players", players);
 
      	// 2.2. Procura o jogador pelo nickname e valida a password
-        Player player = players.get(nickname);
+        Player player = nickname != null ? players.get(nickname) : null;
         if (player != null && player.getPassword().equals(password)) {
         	// 2.3. Se as credenciais estiverem corretas, guarda o jogador na sesso
             session.setAttribute("player", player);
@@ -42,11 +44,12 @@
                 session.setAttribute("outSocket", outSocket);
                 session.setAttribute("inSocket", inSocket);
 
-             	// 2.6. Faz login no servidor GoBang via socket (envia comando /login)
-                outSocket.println("/login " + nickname + " " + password);
-                String resposta = inSocket.readLine();
+             	// 2.6. Faz login no servidor GoBang via socket (envia comando /login com id, para a resposta
+             	//      no se confundir com notificaes que cheguem entretanto)
+                outSocket.println(CommandProtocol.formatTaggedRequest("login", "/login " + nickname + " " + password));
+                List<String> resposta = CommandProtocol.readTaggedResponses(inSocket, Collections.singleton("login")).get("login");
              	// 2.7. Se o login via socket falhar, redireciona para login.jsp com erro
-                if (resposta == null || !resposta.toLowerCase().contains("bem-sucedido")) {
+                if (resposta.isEmpty() || !resposta.get(0).toLowerCase().contains("bem-sucedido")) {
                     response.sendRedirect("login.jsp?error=socket");
                     return;
                 }
@@ -120,8 +123,8 @@ Explica
     5. Cria um socket TCP para o servidor GoBang (localhost:1234).
     6. Cria PrintWriter e BufferedReader para comunicao com o servidor GoBang.
     7. Guarda o socket e fluxos na sesso (para uso posterior em outras pginas).
-    8. Envia o comando "/login nickname password" ao servidor GoBang.
-    9. L a resposta do servidor GoBang. Se no for bem-sucedido, redireciona para login.jsp com erro.
+    8. Envia o comando "#login /login nickname password" ao servidor GoBang (pedido com id).
+    9. L a resposta com esse id (ignorando notificaes). Se no for bem-sucedido, redireciona para login.jsp com erro.
     10. Se tudo correr bem, redireciona para lobby.jsp.
     11. Se as credenciais estiverem erradas, redireciona para login.jsp com erro.
 - O HTML apresenta o formulrio de login e, se necessrio, uma mensagem de erro.
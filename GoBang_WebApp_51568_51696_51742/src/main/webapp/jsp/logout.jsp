@@ -9,12 +9,15 @@
     String nickname = (player != null) ? player.getNickname() : null;
 
     if (socket != null && !socket.isClosed()) {
-        // Envia comando /disconnect para o servidor GoBang
+        // Envia comando /disconnect para o servidor GoBang (com id: ignora notificações pendentes e lê até o servidor fechar)
         java.io.PrintWriter outSocket = new java.io.PrintWriter(socket.getOutputStream(), true);
-        outSocket.println("/disconnect");
+        outSocket.println(protocol.CommandProtocol.formatTaggedRequest("logout", "/disconnect"));
         try {
-            java.io.BufferedReader inSocket = new java.io.BufferedReader(new java.io.InputStreamReader(socket.getInputStream()));
-            inSocket.readLine();
+            java.io.BufferedReader inSocket = (java.io.BufferedReader) session.getAttribute("inSocket");
+            if (inSocket == null) {
+                inSocket = new java.io.BufferedReader(new java.io.InputStreamReader(socket.getInputStream()));
+            }
+            protocol.CommandProtocol.readTaggedResponses(inSocket, java.util.Collections.singleton("logout"));
         } catch (Exception e) {
             // Ignora erros de leitura
         }
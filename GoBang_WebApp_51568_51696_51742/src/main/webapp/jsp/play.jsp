@@ -1,11 +1,11 @@
 <%@ page contentType="text/html;charset=UTF-8" pageEncoding="UTF-8" %>
 <%@ page import="game.Player" %>
-<%@ page import="java.io.PrintWriter, java.io.BufferedReader, java.net.Socket, java.util.*" %>
+<%@ page import="gateway.GameGateway, gateway.GameFacade, service.GameState, java.util.*" %>
 <%
 	// ==========================================================
 	// JSP: play.jsp
 	// Função: Página principal do jogo GoBang (tabuleiro, lógica de jogada, timers, polling).
-	// Técnicas: AJAX, polling, manipulação de sessão, sockets TCP, DOM dinâmico, timers JS.
+	// Técnicas: AJAX, Server-Sent Events (polling como alternativa), manipulação de sessão, GameGateway (sockets TCP persistentes), DOM dinâmico, timers JS.
 	// ==========================================================
 	
 	// 1. Garante que o jogador está autenticado
@@ -20,18 +20,14 @@
 
  	// 3. Entrar na fila de jogo
     if ("joinQueue".equals(action)) {
-    	// Cria socket para o servidor GoBang e envia comandos para entrar na fila
-        try (Socket socket = new Socket("26.106.140.96", 1234);
-             PrintWriter outSocket = new PrintWriter(socket.getOutputStream(), true);
-             BufferedReader inSocket = new BufferedReader(new java.io.InputStreamReader(socket.getInputStream()))) {
-
-            outSocket.println("/login " + player.getNickname() + " " + player.getPassword());
-            String loginResp = inSocket.readLine();
-            if (loginResp == null || !loginResp.toLowerCase().contains("bem-sucedido")) {
+    	// Envia o comando para entrar na fila através do gateway
+        try {
+            GameGateway gateway = GameGateway.getInstance();
+            if (!gateway.login(player.getNickname(), player.getPassword())) {
                 response.sendRedirect("login.jsp?error=socket");
                 return;
             }
-            outSocket.println("/play");
+            gateway.request(player.getNickname(), "/play");
         } catch (Exception e) {
             response.sendRedirect("login.jsp?error=socket");
             return;
@@ -42,18 +38,14 @@
 
  	// 4. Sair da fila de jogo
     if ("leaveQueue".equals(action)) {
-    	// Cria socket para o servidor GoBang e envia comando para sair da fila
-        try (Socket socket = new Socket("26.106.140.96", 1234);
-             PrintWriter outSocket = new PrintWriter(socket.getOutputStream(), true);
-             BufferedReader inSocket = new BufferedReader(new java.io.InputStreamReader(socket.getInputStream()))) {
-
-            outSocket.println("/login " + player.getNickname() + " " + player.getPassword());
-            String loginResp = inSocket.readLine();
-            if (loginResp == null || !loginResp.toLowerCase().contains("bem-sucedido")) {
+    	// Envia o comando para sair da fila através do gateway
+        try {
+            GameGateway gateway = GameGateway.getInstance();
+            if (!gateway.login(player.getNickname(), player.getPassword())) {
                 response.sendRedirect("login.jsp?error=socket");
                 return;
             }
-            outSocket.println("/disconnect");
+            gateway.request(player.getNickname(), "/disconnect");
         } catch (Exception e) {
             response.sendRedirect("login.jsp?error=socket");
             return;
@@ -62,82 +54,57 @@
         return;
     }
 
-    // 5. Pedir estado do jogo ao servidor GoBang
-    String resposta = null;
-    try (Socket socket = new Socket("26.106.140.96", 1234);
-         PrintWriter outSocket = new PrintWriter(socket.getOutputStream(), true);
-         BufferedReader inSocket = new BufferedReader(new java.io.InputStreamReader(socket.getInputStream()))) {
-
-        outSocket.println("/login " + player.getNickname() + " " + player.getPassword());
-        String loginResp = inSocket.readLine();
-        if (loginResp == null || !loginResp.toLowerCase().contains("bem-sucedido")) {
+    // 5. Pedir estado do jogo (GameFacade: em processo ou via gateway TCP)
+    GameState estado = null;
+    try {
+        GameFacade games = GameFacade.getInstance();
+        if (!games.login(player.getNickname(), player.getPassword())) {
             response.sendRedirect("login.jsp?error=socket");
             return;
         }
-        outSocket.println("/get " + player.getNickname());
-        resposta = inSocket.readLine();
+        estado = games.getState(player.getNickname());
     } catch (Exception e) {
         response.sendRedirect("login.jsp?error=socket");
         return;
     }
 
- 	// 6. Parsing da resposta do servidor para obter o estado do jogo
-    boolean isPlaying = resposta != null && resposta.contains("JOGO INICIADO");
+ 	// 6. Estado do jogo (já tipado: não é preciso interpretar texto)
+    boolean isPlaying = estado.getStatus() == GameState.Status.PLAYING;
     String boardStr = "";
     String opponent = "";
     char[][] board = new char[15][15];
+    int tamanho = 15; // Tamanho do tabuleiro deste jogo (game.GameRules: 15x15 por omissão, até 100x100)
     String playerSymbol = "";
     boolean isCurrentPlayer = false;
 
-    if (isPlaying && resposta != null) {
-        String player1 = "";
-        String player2 = "";
-
-        String[] parts = resposta.split(";");
-        for (String part : parts) {
-            if (part.startsWith("OPONENTE:")) {
-                opponent = part.substring("OPONENTE:".length());
-            }
-            if (part.startsWith("PLAYER1:")) {
-                player1 = part.substring("PLAYER1:".length());
-            }
-            if (part.startsWith("PLAYER2:")) {
-                player2 = part.substring("PLAYER2:".length());
-            }
-            if (part.startsWith("TABULEIRO:")) {
-                String[] linhas = part.substring("TABULEIRO:".length()).split("\\|");
-                for (int i = 0; i < linhas.length && i < 15; i++) {
-                    for (int j = 0; j < linhas[i].length() && j < 15; j++) {
-                        board[i][j] = linhas[i].charAt(j);
-                        boardStr += linhas[i].charAt(j);
-                    }
-                }
-            }
+    if (isPlaying) {
+        opponent = estado.getOpponent();
+        board = estado.getBoard(); // Partilhado com outros leitores: só leitura
+        tamanho = board.length;
+        StringBuilder boardSb = new StringBuilder();
+        for (int i = 0; i < tamanho; i++) {
+            boardSb.append(board[i]);
         }
-        if (player.getNickname().equals(player1)) {
+        boardStr = boardSb.toString();
+        if (player.getNickname().equals(estado.getPlayer1())) {
             playerSymbol = "X";
-        } else if (player.getNickname().equals(player2)) {
+        } else if (player.getNickname().equals(estado.getPlayer2())) {
             playerSymbol = "O";
         }
-        isCurrentPlayer = resposta.contains("SUA_VEZ");
+        isCurrentPlayer = estado.isYourTurn();
     }
+    // Tabuleiros grandes usam casas mais pequenas para caberem no ecrã
+    int celula = tamanho <= 19 ? 32 : Math.max(12, 608 / tamanho);
     
  	// 7. Gestão do timer para cada jogada
     int tempoMaximo = 30;
     long jogadaInicio = 0;
     int tempoRestante = 0;
     
-    if (isPlaying && resposta != null) {
-        String[] parts = resposta.split(";");
-        for (String part : parts) {
-            if (part.startsWith("OPONENTE:")) {
-                opponent = part.substring("OPONENTE:".length());
-            }
-            if (part.equals("SUA_VEZ")) isCurrentPlayer = true;
-            if (part.startsWith("JOGADA_INICIO:")) jogadaInicio = Long.parseLong(part.substring("JOGADA_INICIO:".length()));
-            if (part.startsWith("TEMPO_MAXIMO:")) tempoMaximo = Integer.parseInt(part.substring("TEMPO_MAXIMO:".length()));
-        }
-        if (isCurrentPlayer && jogadaInicio > 0) {
+    if (isPlaying && isCurrentPlayer) {
+        jogadaInicio = estado.getMoveStartMillis();
+        tempoMaximo = estado.getMaxMoveTimeSeconds();
+        if (jogadaInicio > 0) {
             tempoRestante = tempoMaximo - (int)((System.currentTimeMillis() - jogadaInicio) / 1000);
             if (tempoRestante < 0) tempoRestante = 0;
             if (tempoRestante > tempoMaximo) tempoRestante = tempoMaximo;
@@ -185,8 +152,8 @@
         }
         #board {
             display: grid;
-            grid-template-columns: repeat(15, 32px);
-            grid-template-rows: repeat(15, 32px);
+            grid-template-columns: repeat(<%= tamanho %>, <%= celula %>px);
+            grid-template-rows: repeat(<%= tamanho %>, <%= celula %>px);
             gap: 1px;
             margin: 20px auto;
             border: 2px solid #ddd;
@@ -195,8 +162,9 @@
             border-radius: 5px;
         }
         .cell {
-            width: 32px;
-            height: 32px;
+            width: <%= celula %>px;
+            height: <%= celula %>px;
+            font-size: <%= celula < 32 ? "10px" : "inherit" %>;
             border: 1px solid #ccc;
             display: flex;
             justify-content: center;
@@ -220,6 +188,19 @@
             pointer-events: none;
             opacity: 0.7;
         }
+        .cell.dica {
+            background-color: #d4edda;
+            color: #28a745;
+            box-shadow: inset 0 0 0 2px #28a745;
+        }
+        #hintBtn {
+            background-color: #28a745;
+        }
+        #tutor {
+            display: flex;
+            align-items: center;
+            gap: 4px;
+        }
         #timer {
             font-size: 1.2rem;
             color: #dc3545;
@@ -269,7 +250,9 @@
     -->
     <span id="estado-jogo" style="display:none"
           data-tempo="<%= tempoRestante %>"
-          data-sua-vez="<%= isCurrentPlayer %>"></span>
+          data-sua-vez="<%= isCurrentPlayer %>"
+          data-versao="<%= estado.getVersion() %>"
+          data-jogadas="<%= estado.getMoveCount() %>"></span>
     <div id="game-container">
         <% if (isPlaying) { %>
         	<!-- =======================
@@ -297,9 +280,9 @@
             </div>
             <div id="board">
                 <%
-             	// Renderiza o tabuleiro 15x15
-                for (int i = 0; i < 15; i++) {
-                    for (int j = 0; j < 15; j++) {
+             	// Renderiza o tabuleiro (tamanho x tamanho)
+                for (int i = 0; i < tamanho; i++) {
+                    for (int j = 0; j < tamanho; j++) {
                         String cellClass = "cell";
                         String cellContent = "";
                         if (board[i][j] == 'X') {
@@ -323,15 +306,17 @@
             </div>
             <div id="controls">
                 <button id="surrenderBtn" onclick="surrender()">✖ Desistir</button>
+                <button id="hintBtn" type="button" onclick="pedirDicas()">💡 Dica</button>
+                <label id="tutor"><input type="checkbox" id="tutorMode" onchange="alternarTutor(this.checked)"> Modo tutor</label>
                 <a id="lobbyBtn" href="lobby.jsp" class="button">← Voltar ao Lobby</a>
             </div>
             <script>
                 let boardString = "<%= boardStr %>";
                 
                 // Função: getMoveCount
-                // Conta o número de jogadas feitas (usado para polling eficiente)
+                // Número de jogadas feitas (usado para polling eficiente), calculado pelo servidor
                 function getMoveCount() {
-                    return (boardString.match(/[XO]/g) || []).length;
+                    return parseInt(document.getElementById('estado-jogo').dataset.jogadas, 10);
                 }
                 
                 let gameEnded = false;
@@ -408,12 +393,9 @@
                 <p>Esta página será atualizada automaticamente...</p>
                 <a href="play.jsp?action=leaveQueue">Cancelar e voltar ao lobby</a>
             </div>
-            <script>
-         		// Polling: recarrega a página a cada 1 segundos enquanto espera por adversário
-                setTimeout(() => location.reload(), 2000);
-            </script>
         <% } %>
     </div>
+    <script src="<%= request.getContextPath() %>/assets/js/eventos.js"></script>
     <script>
 	    let timerInterval = null;
 	    
@@ -442,6 +424,58 @@
 	        }
 	    }
 	
+	 	// DICAS / MODO TUTOR
+	 	// pedirDicas(): pede as melhores jogadas (gameAction.jsp?action=hint) e marca-as no tabuleiro (1, 2, 3).
+	 	// O servidor pesquisa fora do pedido: enquanto responder "pending" volta a pedir (a resposta seguinte vem da cache).
+	 	// Modo tutor: pede dicas sozinho sempre que é a tua vez (guardado no localStorage).
+	    let modoTutor = localStorage.getItem('gobang.tutor') === '1';
+
+	    function pedirDicas(tentativas) {
+	        if (gameEnded) return;
+	        tentativas = tentativas || 0;
+	        fetch('gameAction.jsp?action=hint')
+	            .then(response => response.text())
+	            .then(data => {
+	                const resposta = data.trim();
+	                if (resposta === 'hints:pending') {
+	                    if (tentativas < 20) setTimeout(() => pedirDicas(tentativas + 1), 250);
+	                } else if (resposta.startsWith('hints:') && resposta !== 'hints:none') {
+	                    mostrarDicas(resposta.substring('hints:'.length));
+	                }
+	            })
+	            .catch(() => {});
+	    }
+
+	    function mostrarDicas(texto) {
+	        document.querySelectorAll('.cell.dica').forEach(cell => {
+	            cell.classList.remove('dica');
+	            cell.textContent = '';
+	            cell.removeAttribute('title');
+	        });
+	        texto.split('|').forEach((dica, i) => {
+	            const partes = dica.split(',');
+	            const cell = document.querySelector('.cell[data-row="' + partes[0] + '"][data-col="' + partes[1] + '"]');
+	            if (cell && !cell.classList.contains('x') && !cell.classList.contains('o')) {
+	                cell.classList.add('dica');
+	                cell.textContent = i + 1;
+	                cell.title = 'Dica ' + (i + 1) + ' (' + partes.slice(2).join(',') + ')';
+	            }
+	        });
+	    }
+
+	    function alternarTutor(ligado) {
+	        modoTutor = ligado;
+	        localStorage.setItem('gobang.tutor', ligado ? '1' : '0');
+	        if (ligado) pedirDicas();
+	    }
+
+	    // Depois de desenhar o tabuleiro (ao carregar ou depois de um refresh): caixa do modo tutor e dicas automáticas
+	    function aplicarTutor(suaVez) {
+	        const caixa = document.getElementById('tutorMode');
+	        if (caixa) caixa.checked = modoTutor;
+	        if (modoTutor && suaVez) pedirDicas();
+	    }
+
 	 	// Ao carregar a página, inicia o timer se for a tua vez
 	    document.addEventListener('DOMContentLoaded', function() {
 	        const estado = document.getElementById('estado-jogo');
@@ -451,19 +485,40 @@
 	            if (suaVez && tempo > 0) {
 	                startTimer(tempo);
 	            }
+	            aplicarTutor(suaVez);
 	        }
 	    });
 	 	
-	 	// POLLING: verifica o estado do jogo a cada 1 segundo
+	 	// Versão do jogo que está desenhada (Game.getVersion()); enviada no check para o servidor saber o que é novo
+	    let versao = parseInt(document.getElementById('estado-jogo').dataset.versao, 10);
+	    let pedidoEmCurso = false; // Só um check de cada vez
+	    let repetirCheck = false;  // Chegou um evento durante um check: volta a verificar no fim
+
+	 	// Função: verificarEstado(esperar)
+        // Verifica o estado do jogo (gameAction.jsp?action=check&version=...)
+        // - esperar = false: resposta imediata (usado a cada evento SSE)
+        // - esperar = true: long-poll, o servidor só responde quando o jogo mudar (sem SSE)
         // - Se houver "game_over", termina o jogo e redireciona
         // - Se houver "refresh", atualiza só o game-container e reinicia o timer se necessário
-	    let pollingInterval = setInterval(function() {
-	        fetch('gameAction.jsp?action=check&moveCount=' + getMoveCount())
+        // - Se houver "wait" num long-poll (prazo expirou), volta logo a esperar
+	    function verificarEstado(esperar) {
+	        if (gameEnded) return;
+	        if (pedidoEmCurso) {
+	            if (!esperar) repetirCheck = true;
+	            return;
+	        }
+	        pedidoEmCurso = true;
+	        fetch('gameAction.jsp?action=check&version=' + versao + (esperar ? '' : '&wait=0'))
 	            .then(response => response.text())
 	            .then(data => {
+	                pedidoEmCurso = false;
 	                const cleanedData = data.trim();
-	                if (cleanedData.startsWith('game_over')) {
-	                    clearInterval(pollingInterval);
+	                const repetir = repetirCheck;
+	                repetirCheck = false;
+	                if (cleanedData === 'wait') {
+	                    if (esperar || repetir) verificarEstado(esperar && !repetir);
+	                } else if (cleanedData.startsWith('game_over')) {
+	                    if (gameEnded) return;
 	                    gameEnded = true;
 	                    alert(cleanedData.replace(/^game_over:/, '').trim());
 	                    window.location.href = 'lobby.jsp?fromGame=1';
@@ -478,17 +533,39 @@
 		                        const estado = doc.getElementById('estado-jogo');
 		                        if (novoContainer && estado) {
 		                            document.getElementById('game-container').innerHTML = novoContainer.innerHTML;
+		                            versao = parseInt(estado.dataset.versao, 10);
 		                            // Reinicia o timer se for a tua vez
 		                            let novoTempo = parseInt(estado.dataset.tempo, 10);
 		                            let novaSuaVez = estado.dataset.suaVez === "true";
 		                            if (novaSuaVez && novoTempo > 0) {
 		                                startTimer(novoTempo);
 		                            }
+		                            aplicarTutor(novaSuaVez);
 		                        }
 		                    });
 		            }
-	            });
-	    }, 1000);
+	            })
+	            .catch(() => { pedidoEmCurso = false; });
+	    }
+
+	 	// EVENTOS DO SERVIDOR (SSE, ver assets/js/eventos.js)
+	 	// - A jogar: jogadas, passagem de vez e fim de jogo disparam verificarEstado(false).
+	 	//   Sem ligação SSE, a alternativa é o long-poll (verificarEstado(true)), relançado a cada segundo se não houver nenhum em curso.
+	 	// - Na fila: o evento "start" (jogo criado) recarrega a página; sem SSE, recarrega a cada 2 segundos.
+	<% if (isPlaying) { %>
+	    const checkAgora = () => verificarEstado(false);
+	    const fonteEventos = ligarEventos('<%= request.getContextPath() %>/events', {
+	        move: checkAgora,
+	        turn: checkAgora,
+	        gameover: checkAgora,
+	        update: checkAgora
+	    }, [{ fn: () => verificarEstado(!fonteEventos || fonteEventos.readyState !== EventSource.OPEN), intervalo: 1000 }]);
+	<% } else { %>
+	    ligarEventos('<%= request.getContextPath() %>/events', {
+	        start: () => location.reload(),
+	        update: () => location.reload()
+	    }, [{ fn: () => location.reload(), intervalo: 2000, sincronizar: false }]);
+	<% } %>
     </script>
 </body>
 </html>
@@ -500,7 +577,7 @@ Explicação:
 3. Se "action" for "leaveQueue", faz login e envia "/disconnect" para sair da fila.
    - Redireciona para lobby.jsp.
 4. Caso contrário, faz login e envia "/get nickname" para obter o estado do jogo.
-   - Se o jogo estiver ativo, faz parsing da resposta para obter o tabuleiro, adversário, símbolo do jogador, etc.
+   - Se o jogo estiver ativo, usa o GameState (GameFacade) para obter o tabuleiro, adversário, símbolo do jogador, etc.
    - Calcula o tempo restante para a jogada.
 5. O HTML mostra:
    - Se estiver a jogar: tabuleiro, estado, timer, botões de desistência e voltar ao lobby.
@@ -508,10 +585,14 @@ Explicação:
 6. O JavaScript implementa:
    - makeMove(cell): envia jogada via AJAX, atualiza o DOM, trata erros e fim de jogo.
    - surrender(): permite desistir via AJAX.
+   - pedirDicas()/alternarTutor(): dicas do servidor (gameAction.jsp?action=hint) marcadas no tabuleiro; no modo tutor
+     são pedidas sozinhas sempre que é a tua vez.
    - startTimer(tempoRestante): inicia e atualiza o timer da jogada, bloqueia tabuleiro e faz timeout via AJAX.
-   - Polling (setInterval): a cada segundo, faz AJAX para gameAction.jsp?action=check&moveCount=... para atualizar o estado do jogo.
+   - verificarEstado(): faz AJAX para gameAction.jsp?action=check&version=... para atualizar o estado do jogo.
+     É disparado por Server-Sent Events (/events: move, turn, gameover); sem ligação SSE faz long-poll
+     (o servidor segura o pedido até a versão do jogo mudar).
      - Se houver "game_over", termina o jogo e redireciona.
-     - Se houver "refresh", atualiza só o game-container e reinicia o timer.
+     - Se houver "refresh", atualiza só o game-container, a versão e reinicia o timer.
 7. O elemento <span id="estado-jogo"> serve para partilhar o estado do timer e vez entre backend e JS.
 8. O JSP depende de:
    - Sessão válida (player autenticado).
@@ -521,7 +602,7 @@ Explicação:
    - O backend GoBang deve suportar os comandos /login, /play, /disconnect, /get, etc.
 9. Técnicas cruciais:
    - AJAX (fetch): comunicação assíncrona para jogadas, polling, timeout, surrender.
-   - Polling: atualização do estado do jogo em tempo real.
+   - Server-Sent Events (EventSource) com polling como alternativa: atualização do estado do jogo em tempo real.
    - Manipulação dinâmica do DOM: atualização do tabuleiro, timer, estado do jogo.
    - Timer JS: controlo do tempo de jogada.
    - Segurança: validação de sessão e tratamento de erros de socket.
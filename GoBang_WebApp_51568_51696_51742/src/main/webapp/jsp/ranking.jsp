@@ -104,7 +104,7 @@
                 String flagCode = (cc != null && cc.length() == 2) ? cc.toLowerCase() : "un";
                 String nick = p.get("Nickname");
                 String photo = "default.png";
-                if (players != null && players.get(nick) != null && players.get(nick).getPhoto() != null && !players.get(nick).getPhoto().isEmpty()) {
+                if (players != null && nick != null && players.get(nick) != null && players.get(nick).getPhoto() != null && !players.get(nick).getPhoto().isEmpty()) {
                     photo = players.get(nick).getPhoto();
                 }
             %>